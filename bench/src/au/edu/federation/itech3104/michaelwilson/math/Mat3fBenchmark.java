@@ -0,0 +1,76 @@
+package au.edu.federation.itech3104.michaelwilson.math;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for the {@link Mat3f} operations used to build the normal matrix,
+ * paired with their destination parameter variants.
+ * 
+ * @see Mat4fBenchmark
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class Mat3fBenchmark {
+
+	private Mat4f source;
+	private Mat3f a;
+	private Mat3f b;
+	private Mat3f dest;
+
+	@Setup
+	public void setup() {
+		source = new Mat4f(1.0f);
+		source.rotateAboutLocalAxisDegs(30.0f, UtilMath.Y_AXIS);
+		source.scale(2.0f, 1.0f, 0.5f);
+
+		a = source.toMat3f();
+		b = new Mat4f(1.0f).rotateAboutLocalAxisDegs(45.0f, UtilMath.X_AXIS).toMat3f();
+		dest = new Mat3f();
+	}
+
+	@Benchmark
+	public Mat3f times() {
+		return a.times(b);
+	}
+
+	@Benchmark
+	public Mat3f mul() {
+		return Mat3f.mul(a, b, dest);
+	}
+
+	@Benchmark
+	public Mat3f inverse() {
+		return a.inverse();
+	}
+
+	@Benchmark
+	public Mat3f inverseDest() {
+		return a.inverse(dest);
+	}
+
+	@Benchmark
+	public Mat3f toMat3f() {
+		return source.toMat3f();
+	}
+
+	@Benchmark
+	public Mat3f toMat3fDest() {
+		return source.toMat3f(dest);
+	}
+
+}
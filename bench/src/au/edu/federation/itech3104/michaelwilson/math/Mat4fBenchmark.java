@@ -0,0 +1,138 @@
+package au.edu.federation.itech3104.michaelwilson.math;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for the {@link Mat4f} operations used on per-frame paths. Each
+ * operation that returns a new object is paired with its destination parameter
+ * variant, so running with {@code -prof gc} shows the allocation rate of both.
+ * 
+ * @see README.txt
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class Mat4fBenchmark {
+
+	// Not final, so the JIT can't constant fold the inputs.
+	private Mat4f a;
+	private Mat4f b;
+	private Mat4f dest;
+
+	private Vec3f position;
+	private Vec3f target;
+	private Vec3f up;
+	private Vec3f point;
+	private Vec3f pointDest;
+	private Vec3f axis;
+
+	private float angleRads;
+	private float fov;
+	private float aspectRatio;
+
+	@Setup
+	public void setup() {
+		a = new Mat4f(1.0f);
+		a.rotateAboutLocalAxisDegs(30.0f, UtilMath.Y_AXIS);
+		a.translate(1.0f, 2.0f, 3.0f);
+		a.scale(2.0f);
+
+		b = new Mat4f(1.0f);
+		b.rotateAboutLocalAxisDegs(-45.0f, UtilMath.X_AXIS);
+		b.translate(-4.0f, 0.5f, 7.0f);
+
+		dest = new Mat4f();
+
+		position = new Vec3f(1.0f, 2.0f, 3.0f);
+		target = new Vec3f(0.0f, 0.0f, -1.0f);
+		up = new Vec3f(0.0f, 1.0f, 0.0f);
+		point = new Vec3f(0.5f, -2.0f, 4.0f);
+		pointDest = new Vec3f();
+		axis = new Vec3f(0.3f, 1.0f, 0.2f);
+
+		angleRads = 0.01f;
+		fov = 90.0f;
+		aspectRatio = 16.0f / 10.0f;
+	}
+
+	@Benchmark
+	public Mat4f times() {
+		return a.times(b);
+	}
+
+	@Benchmark
+	public Mat4f mul() {
+		return Mat4f.mul(a, b, dest);
+	}
+
+	@Benchmark
+	public Mat4f inverse() {
+		return Mat4f.inverse(a);
+	}
+
+	@Benchmark
+	public Mat4f inverseDest() {
+		return Mat4f.inverse(a, dest);
+	}
+
+	@Benchmark
+	public float determinant() {
+		return a.determinant();
+	}
+
+	@Benchmark
+	public Mat4f rotateAboutLocalAxisRads() {
+		// Rotate a copy, so every call starts from the same matrix.
+		return dest.set(a).rotateAboutLocalAxisRads(angleRads, axis);
+	}
+
+	@Benchmark
+	public Mat4f lookAt() {
+		return Mat4f.lookAt(position, target, up);
+	}
+
+	@Benchmark
+	public Mat4f lookAtDest() {
+		return Mat4f.lookAt(position, target, up, dest);
+	}
+
+	@Benchmark
+	public Mat4f createPerspectiveProjectionMatrix() {
+		return Mat4f.createPerspectiveProjectionMatrix(fov, aspectRatio, 0.01f, 100.0f);
+	}
+
+	@Benchmark
+	public Vec3f transformPoint() {
+		return a.transformPoint(point);
+	}
+
+	@Benchmark
+	public Vec3f transformPointDest() {
+		return a.transformPoint(point, pointDest);
+	}
+
+	@Benchmark
+	public Vec3f transformDirection() {
+		return a.transformDirection(point);
+	}
+
+	@Benchmark
+	public Vec3f transformDirectionDest() {
+		return a.transformDirection(point, pointDest);
+	}
+
+}
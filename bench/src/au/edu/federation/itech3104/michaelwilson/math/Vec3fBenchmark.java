@@ -0,0 +1,103 @@
+package au.edu.federation.itech3104.michaelwilson.math;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for the {@link Vec3f} operations, paired with their destination
+ * parameter variants.
+ * 
+ * @see Mat4fBenchmark
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class Vec3fBenchmark {
+
+	private Vec3f a;
+	private Vec3f b;
+	private Vec3f dest;
+	private float scale;
+
+	@Setup
+	public void setup() {
+		a = new Vec3f(1.0f, -2.0f, 3.0f);
+		b = new Vec3f(0.5f, 4.0f, -1.5f);
+		dest = new Vec3f();
+		scale = 0.75f;
+	}
+
+	@Benchmark
+	public Vec3f plus() {
+		return a.plus(b);
+	}
+
+	@Benchmark
+	public Vec3f plusDest() {
+		return a.plus(b, dest);
+	}
+
+	@Benchmark
+	public Vec3f minus() {
+		return a.minus(b);
+	}
+
+	@Benchmark
+	public Vec3f minusDest() {
+		return a.minus(b, dest);
+	}
+
+	@Benchmark
+	public Vec3f timesScalar() {
+		return a.times(scale);
+	}
+
+	@Benchmark
+	public Vec3f timesScalarDest() {
+		return a.times(scale, dest);
+	}
+
+	@Benchmark
+	public Vec3f cross() {
+		return a.cross(b);
+	}
+
+	@Benchmark
+	public Vec3f crossDest() {
+		return a.cross(b, dest);
+	}
+
+	@Benchmark
+	public Vec3f normalised() {
+		return a.normalised();
+	}
+
+	@Benchmark
+	public Vec3f normalisedDest() {
+		return a.normalised(dest);
+	}
+
+	@Benchmark
+	public float dot() {
+		return a.dot(b);
+	}
+
+	@Benchmark
+	public float length() {
+		return a.length();
+	}
+
+}
@@ -0,0 +1,62 @@
+#version 430 core
+
+// Frustum culling of IndirectBatch draws, see GpuFrustumCuller.
+
+layout (local_size_x = 64) in;
+
+struct DrawData {
+    mat4 model;
+    mat4 modelNormal;
+    vec4 sphere; // center and radius, relative to the batch.
+    uint material;
+    uint group;
+    uint groupFirst; // the first command of the group.
+};
+
+struct DrawCommand {
+    uint count;
+    uint instanceCount;
+    uint firstIndex;
+    int baseVertex;
+    uint baseInstance;
+};
+
+layout (std430, binding = 0) readonly buffer DrawBlock {
+    DrawData draws[];
+};
+
+layout (std430, binding = 1) readonly buffer CommandBlock {
+    DrawCommand commands[];
+};
+
+layout (std430, binding = 2) writeonly buffer CulledCommandBlock {
+    DrawCommand culledCommands[];
+};
+
+layout (std430, binding = 3) buffer VisibleCountBlock {
+    uint visibleCounts[];
+};
+
+uniform vec4 planes[6]; // (a, b, c, d) with normals pointing into the frustum.
+uniform mat4 model; // the batch's matrix.
+uniform float modelScale; // the largest scale of the batch matrix axes.
+uniform int drawCount;
+
+void main() {
+    uint i = gl_GlobalInvocationID.x;
+    if (i >= uint(drawCount))
+        return;
+
+    DrawData draw = draws[i];
+    vec3 center = vec3(model * vec4(draw.sphere.xyz, 1.0));
+    float radius = draw.sphere.w * modelScale;
+
+    for (int p = 0; p < 6; p++) {
+        if (dot(planes[p].xyz, center) + planes[p].w < -radius)
+            return;
+    }
+
+    // Append the command to the visible commands at the start of the group.
+    uint slot = draw.groupFirst + atomicAdd(visibleCounts[draw.group], 1u);
+    culledCommands[slot] = commands[i];
+}
@@ -58,11 +58,18 @@ in vec3 fragPos;
 in vec3 normal;
 in vec2 uv;
 
-uniform vec3 viewPos;
+// Shared by all shaders, see UniformBlockWriter for the std140 offsets.
+layout (std140) uniform CameraBlock {
+    mat4 projection;
+    mat4 view;
+    vec3 viewPos;
+};
 
-uniform DirLight dirLights[TOTAL_DIR_LIGHTS];
-uniform PointLight pointLights[TOTAL_POINT_LIGHTS];
-uniform SpotLight spotLights[TOTAL_SPOT_LIGHTS];
+layout (std140) uniform LightBlock {
+    DirLight dirLights[TOTAL_DIR_LIGHTS];
+    PointLight pointLights[TOTAL_POINT_LIGHTS];
+    SpotLight spotLights[TOTAL_SPOT_LIGHTS];
+};
 
 uniform Material material;
 
@@ -8,8 +8,12 @@ out vec3 fragPos;
 out vec3 normal;
 out vec2 uv;
 
-uniform mat4 projection;
-uniform mat4 view;
+layout (std140) uniform CameraBlock {
+    mat4 projection;
+    mat4 view;
+    vec3 viewPos;
+};
+
 uniform mat4 model;
 uniform mat3 modelNormal;
 
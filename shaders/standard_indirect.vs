@@ -0,0 +1,46 @@
+#version 430 core
+
+layout (location = 0) in vec3 aPosition;
+layout (location = 1) in vec3 aNormal;
+layout (location = 2) in vec2 aUv;
+
+// Per-instance draw index, the command's base instance. See IndirectBatch.
+layout (location = 3) in float aDrawIndex;
+
+out vec3 fragPos;
+out vec3 normal;
+out vec2 uv;
+
+layout (std140) uniform CameraBlock {
+    mat4 projection;
+    mat4 view;
+    vec3 viewPos;
+};
+
+// Must match IndirectBatch.DRAW_DATA_SIZE and frustum_cull.cs.
+struct DrawData {
+    mat4 model;
+    mat4 modelNormal;
+    vec4 sphere;
+    uint material;
+    uint group;
+    uint groupFirst;
+};
+
+layout (std430, binding = 0) readonly buffer DrawBlock {
+    DrawData draws[];
+};
+
+// The batch node's matrices, applied after the per-draw matrices.
+uniform mat4 model;
+uniform mat3 modelNormal;
+
+void main() {
+    DrawData draw = draws[uint(aDrawIndex)];
+
+    fragPos = vec3(model * draw.model * vec4(aPosition, 1.0));
+    normal = modelNormal * mat3(draw.modelNormal) * aNormal;
+    uv = aUv;
+    
+    gl_Position = projection * view * vec4(fragPos, 1.0);
+}
@@ -0,0 +1,27 @@
+#version 330 core
+
+layout (location = 0) in vec3 aPosition;
+layout (location = 1) in vec3 aNormal;
+layout (location = 2) in vec2 aUv;
+
+// Per-instance matrices, see VertexBufferLayout.InstanceMatrices.
+layout (location = 3) in mat4 aModel;
+layout (location = 7) in mat3 aModelNormal;
+
+out vec3 fragPos;
+out vec3 normal;
+out vec2 uv;
+
+layout (std140) uniform CameraBlock {
+    mat4 projection;
+    mat4 view;
+    vec3 viewPos;
+};
+
+void main() {
+    fragPos = vec3(aModel * vec4(aPosition, 1.0));
+    normal = aModelNormal * aNormal;
+    uv = aUv;
+    
+    gl_Position = projection * view * vec4(fragPos, 1.0);
+}
@@ -47,6 +47,7 @@ import org.lwjgl.opengl.GLContext;
 import au.edu.federation.itech3104.michaelwilson.camera.Camera;
 import au.edu.federation.itech3104.michaelwilson.graph.LightTrackingTransform;
 import au.edu.federation.itech3104.michaelwilson.graph.Transform;
+import au.edu.federation.itech3104.michaelwilson.graph.TransformStore;
 import au.edu.federation.itech3104.michaelwilson.graphics.IDisposable;
 import au.edu.federation.itech3104.michaelwilson.graphics.renderer.IDrawableRenderer;
 import au.edu.federation.itech3104.michaelwilson.graphics.renderer.IRenderer;
@@ -66,6 +67,18 @@ public abstract class Engine implements IDisposable, AutoCloseable {
 
 	private final IRenderer renderer;
 
+	private TransformStore transformStore; // null unless enabled, see setTransformStoreEnabled()
+
+	public static final int DEFAULT_PARALLEL_UPDATE_THRESHOLD = 4096;
+
+	// Subtrees with at least this many nodes have their matrices updated in parallel.
+	private int parallelUpdateThreshold = DEFAULT_PARALLEL_UPDATE_THRESHOLD;
+
+	public static final long DEFAULT_UPLOAD_BUDGET_NANOS = 4_000_000L; // 4ms
+
+	// Time spent each frame running queued resource uploads, see ResourceManager.processUploads().
+	private long uploadBudgetNanos = DEFAULT_UPLOAD_BUDGET_NANOS;
+
 	public Engine(String title, int windowWidth, int windowHeight, Camera camera, IRenderer renderer) {
 		this.camera = camera;
 		this.renderer = renderer;
@@ -138,6 +151,57 @@ public abstract class Engine implements IDisposable, AutoCloseable {
 		glClear(GL_COLOR_BUFFER_BIT | GL_DEPTH_BUFFER_BIT);
 	}
 
+	/**
+	 * Enable or disable flat, breadth-first storage of the scene graph matrices.
+	 * Recommended for scenes with a large number of nodes.
+	 *
+	 * @see TransformStore
+	 */
+	protected void setTransformStoreEnabled(boolean isEnabled) {
+		if (isEnabled && transformStore == null) {
+			transformStore = TransformStore.attach(root);
+		} else if (!isEnabled && transformStore != null) {
+			transformStore.detach();
+			transformStore = null;
+		}
+	}
+
+	protected boolean isTransformStoreEnabled() {
+		return transformStore != null;
+	}
+
+	/**
+	 * Set the minimum number of nodes a scene graph subtree must have for its
+	 * matrices to be updated in parallel. Use 0 or less to disable the parallel
+	 * update. Not used when the transform store is enabled.
+	 *
+	 * @see Transform#updateGlobalMatrices(int)
+	 */
+	protected void setParallelUpdateThreshold(int parallelUpdateThreshold) {
+		this.parallelUpdateThreshold = parallelUpdateThreshold;
+	}
+
+	protected int getParallelUpdateThreshold() {
+		return parallelUpdateThreshold;
+	}
+
+	/**
+	 * Set the time spent each frame running the uploads of resources loaded
+	 * asynchronously by the {@link ResourceManager}. At least one queued upload is
+	 * run each frame, even if it takes longer.
+	 */
+	protected void setUploadBudget(long uploadBudgetNanos) {
+		this.uploadBudgetNanos = uploadBudgetNanos;
+	}
+
+	protected long getUploadBudget() {
+		return uploadBudgetNanos;
+	}
+
+	protected IRenderer getRenderer() {
+		return renderer;
+	}
+
 	public void run() throws IOException {
 		initResources();
 		initScene();
@@ -154,8 +218,14 @@ public abstract class Engine implements IDisposable, AutoCloseable {
 			float deltaTime = (float) (glfwGetTime() - lastTime); // using float since we use Vec3f most often.
 			lastTime = glfwGetTime();
 
+			resourceManager.processUploads(uploadBudgetNanos); // finish any resources loaded in the background.
+
 			update(deltaTime);
-			draw(renderer); 
+
+			root.updateGlobalMatrices(parallelUpdateThreshold); // recalculate the global matrices of any modified nodes.
+
+			renderer.beginFrame();
+			draw(renderer);
 
 			renderer.renderTree(root); // render the scene graph.
 
@@ -174,6 +244,9 @@ public abstract class Engine implements IDisposable, AutoCloseable {
 		Transform.dispose(root); // Dispose all descendant nodes within the root node that implement the
 									// IDisposable interface.
 
+		if (renderer instanceof IDisposable)
+			((IDisposable) renderer).dispose();
+
 		resourceManager.dispose();
 
 		glfwDestroyWindow(windowHandle);
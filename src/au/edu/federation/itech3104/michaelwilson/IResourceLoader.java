@@ -0,0 +1,21 @@
+package au.edu.federation.itech3104.michaelwilson;
+
+import java.io.IOException;
+
+/**
+ * Loads, measures and unloads one kind of resource for a
+ * {@link ResourceCache}, so a resource can be evicted and loaded again later
+ * from its original source. All methods are called on the OpenGL thread.
+ */
+public interface IResourceLoader<T> {
+
+	public T load() throws IOException;
+
+	/**
+	 * Returns the estimated number of bytes of GPU memory used by the resource.
+	 */
+	public long getSizeInBytes(T resource);
+
+	public void unload(T resource);
+
+}
@@ -0,0 +1,15 @@
+package au.edu.federation.itech3104.michaelwilson;
+
+import java.io.IOException;
+
+/**
+ * Work that must be run on the OpenGL thread, such as creating a texture or
+ * mesh from data loaded by a worker thread.
+ *
+ * @see UploadQueue
+ */
+public interface IUploadTask<T> {
+
+	public T upload() throws IOException;
+
+}
@@ -6,10 +6,16 @@ import static org.lwjgl.glfw.GLFW.GLFW_RELEASE;
 import static org.lwjgl.glfw.GLFW.glfwGetKey;
 
 import java.io.IOException;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 import au.edu.federation.itech3104.michaelwilson.camera.CameraController;
 import au.edu.federation.itech3104.michaelwilson.camera.PerspectiveCamera;
+import au.edu.federation.itech3104.michaelwilson.graphics.GpuFrustumCuller;
+import au.edu.federation.itech3104.michaelwilson.graphics.IndirectBatch;
+import au.edu.federation.itech3104.michaelwilson.graphics.LodMesh;
 import au.edu.federation.itech3104.michaelwilson.graphics.Mesh;
 import au.edu.federation.itech3104.michaelwilson.graphics.data.BufferUsageHint;
 import au.edu.federation.itech3104.michaelwilson.graphics.data.VertexBufferLayout;
@@ -19,11 +25,11 @@ import au.edu.federation.itech3104.michaelwilson.graphics.renderer.IDrawableRend
 import au.edu.federation.itech3104.michaelwilson.lighting.DirectionalLight;
 import au.edu.federation.itech3104.michaelwilson.lighting.SpotLight;
 import au.edu.federation.itech3104.michaelwilson.math.Mat4f;
+import au.edu.federation.itech3104.michaelwilson.math.UtilMath;
 import au.edu.federation.itech3104.michaelwilson.math.Vec3f;
+import au.edu.federation.itech3104.michaelwilson.model.LodModelMesh;
 import au.edu.federation.itech3104.michaelwilson.model.Model;
-import au.edu.federation.itech3104.michaelwilson.model.ModelMesh;
-import au.edu.federation.itech3104.michaelwilson.model.loader.OBJLoader;
-import au.edu.federation.itech3104.michaelwilson.model.loader.RawModel;
+import au.edu.federation.itech3104.michaelwilson.model.StaticBatcher;
 
 public class Main extends Engine {
 
@@ -40,9 +46,9 @@ public class Main extends Engine {
 
 	private final CameraController cameraController;
 
-	private ModelMesh windmill;
-	private ModelMesh windmill_body;
-	private ModelMesh windmill_blades;
+	private LodModelMesh windmill;
+	private LodModelMesh windmill_body;
+	private LodModelMesh windmill_blades;
 
 	private Mesh terrainMesh;
 	private final Mat4f terrainModelMatrix = new Mat4f(1.0f);
@@ -51,8 +57,10 @@ public class Main extends Engine {
 
 	private boolean torchKeyPressed = false;
 
+	private final Vec3f bladeAxis = new Vec3f(); // Reused every frame by update().
+
 	public Main() {
-		super(WINDOW_TITLE, WINDOW_WIDTH, WINDOW_HEIGHT, new PerspectiveCamera(FOV, NEAR_Z, FAR_Z), new BasicRenderer(null));
+		super(WINDOW_TITLE, WINDOW_WIDTH, WINDOW_HEIGHT, new PerspectiveCamera(FOV, NEAR_Z, FAR_Z), new BasicRenderer(null, true));
 		cameraController = new CameraController(camera);
 	}
 
@@ -60,21 +68,52 @@ public class Main extends Engine {
 	protected void initResources() throws IOException {
 		// Shaders
 		resourceManager.loadShader("standard", "./shaders/standard.vs", "./shaders/standard.fs");
+		resourceManager.loadShader("standard_instanced", "./shaders/standard_instanced.vs", "./shaders/standard.fs");
+		resourceManager.getShader("standard").setInstancedVariant(resourceManager.getShader("standard_instanced")); // Used to draw repeated meshes in one call.
+		resourceManager.loadShader("standard_indirect", "./shaders/standard_indirect.vs", "./shaders/standard.fs");
+		resourceManager.getShader("standard").setIndirectVariant(resourceManager.getShader("standard_indirect")); // Used to draw indirect batches.
+
+		// Cull the draws of indirect batches on the GPU. Run with -Dgpuculling.verify=true to compare the results
+		// with the CPU reference every frame (e.g. under Mesa llvmpipe with LIBGL_ALWAYS_SOFTWARE=1).
+		BasicRenderer basicRenderer = (BasicRenderer) getRenderer();
+		basicRenderer.setGpuCuller(new GpuFrustumCuller(resourceManager.loadComputeShader("frustum_cull", "./shaders/frustum_cull.cs")));
+		basicRenderer.setGpuCullingVerified(Boolean.getBoolean("gpuculling.verify"));
 
-		// Textures (name -> filepath)
-		resourceManager.loadTexture("grass", "./images/grass.png");
+		// Textures (name -> filepath), decoded in the background.
+		Map<String, String> textures = new LinkedHashMap<>();
+		textures.put("grass", "./images/grass.png");
 
 		// Windmill model textures
-		resourceManager.loadTexture("windmill_diffuse", "./models/LowPolyWindmill/textures/Windmill_Windmill_MAT_BaseColor.png");
+		textures.put("windmill_diffuse", "./models/LowPolyWindmill/textures/Windmill_Windmill_MAT_BaseColor.png");
 
 		// TradeTent model textures
-		resourceManager.loadTexture("flag_diffuse", "./models/TradeTent/textures/Flag.png");
-		resourceManager.loadTexture("metal_diffuse", "./models/TradeTent/textures/Metal.png");
-		resourceManager.loadTexture("wood_diffuse", "./models/TradeTent/textures/Wood.png");
-		resourceManager.loadTexture("wood1_diffuse", "./models/TradeTent/textures/Wood1.png");
+		textures.put("flag_diffuse", "./models/TradeTent/textures/Flag.png");
+		textures.put("metal_diffuse", "./models/TradeTent/textures/Metal.png");
+		textures.put("wood_diffuse", "./models/TradeTent/textures/Wood.png");
+		textures.put("wood1_diffuse", "./models/TradeTent/textures/Wood1.png");
+
+		// Fence model textures
+		textures.put("wood_fence_mt1_Diffuse", "./models/WoodenFence/textures/wood_fence_mt1_Diffuse.png");
+		textures.put("wood_fence_mt1_Specular", "./models/WoodenFence/textures/wood_fence_mt1_Specular.png");
+
+		CompletableFuture<Integer> texturesLoaded = resourceManager.loadTexturesAsync(textures);
 
 		// Materials
 		StandardMaterial matStandard = new StandardMaterial(resourceManager.getShader("standard"));
+
+		// Start loading the models, they are read while the textures are loaded and
+		// the materials set up below. The meshes are created once the materials have
+		// been added.
+		CompletableFuture<Void> materialsAdded = new CompletableFuture<>();
+		CompletableFuture<List<Mesh>> tradeTentMeshes = resourceManager.loadMeshesAsync("./models/TradeTent/TradeTent1-2.obj", matStandard,
+				BufferUsageHint.STATIC_DRAW, materialsAdded);
+		CompletableFuture<List<LodMesh>> windmillMeshes = resourceManager.loadLodMeshesAsync("./models/LowPolyWindmill/Windmill_Split.obj",
+				matStandard, BufferUsageHint.STATIC_DRAW, materialsAdded);
+		CompletableFuture<List<Mesh>> fenceMeshes = resourceManager.loadMeshesAsync("./models/WoodenFence/obj/wood_fence_m1_t1_tri.obj",
+				matStandard, resourceManager.getGeometryPool(), materialsAdded);
+
+		resourceManager.await(texturesLoaded);
+
 		matStandard.setDiffuseTexture(resourceManager.getTexture("grass"));
 		matStandard.setShininess(64.0f);
 		resourceManager.addMaterial("standard", matStandard); // Load material object into resource manager so we can access it elsewhere
@@ -107,18 +146,32 @@ public class Main extends Engine {
 		matMetal.setDiffuseTexture(resourceManager.getTexture("metal_diffuse"));
 		resourceManager.addMaterial("Metal", matMetal);
 
-		// Load the trade tent model.
-		RawModel rmTradeTent = OBJLoader.INSTANCE.loadModel("./models/TradeTent/TradeTent1-2.obj");
+		// Load materials for the fence model.
+		StandardMaterial matFence = matStandard.copy();
+		matFence.setDiffuseTexture(resourceManager.getTexture("wood_fence_mt1_Diffuse"));
+		matFence.setSpecularTexture(resourceManager.getTexture("wood_fence_mt1_Specular"));
+		resourceManager.addMaterial("wood_fence_t1_m", matFence);
+
+		materialsAdded.complete(null);
 
-		Model tradeTent = new Model(rmTradeTent.toMeshes(resourceManager, matStandard, BufferUsageHint.STATIC_DRAW));
+		// Load the trade tent model. It is static, so its meshes are merged by
+		// material into a few meshes already in world space.
+		Model tradeTent = new Model(resourceManager.await(tradeTentMeshes));
 		tradeTent.localMatrix.translate(1.5f, -0.62f, 0.5f);
 		tradeTent.localMatrix.scale(0.005f);
-		tradeTent.updateGlobalMatrix();
-		tradeTent.setParent(root);
+		tradeTent.markDirty();
+
+		StaticBatcher batcher = new StaticBatcher();
+		if (batcher.add(tradeTent) == 0) {
+			batcher.build(BufferUsageHint.STATIC_DRAW).setParent(root);
+			tradeTent.dispose();
+		} else {
+			tradeTent.setParent(root); // Some meshes can't be merged, draw the model as it is.
+		}
 
-		// Load the windmill model.
-		RawModel rmWindmill = OBJLoader.INSTANCE.loadModel("./models/LowPolyWindmill/Windmill_Split.obj");
-		List<Mesh> meshes = rmWindmill.toMeshes(resourceManager, matStandard, BufferUsageHint.STATIC_DRAW);
+		// Load the windmill model, with simplified levels of detail for when it is
+		// far away.
+		List<LodMesh> meshes = resourceManager.await(windmillMeshes);
 
 		// Any object added to the scene graph with the IDisposable interface will be
 		// automatically disposed when the
@@ -126,9 +179,9 @@ public class Main extends Engine {
 
 		// Build windmill tree structure, since OBJ files don't have structure
 		// information.
-		windmill = new ModelMesh(meshes.get(0));
-		windmill_blades = new ModelMesh(meshes.get(1));
-		windmill_body = new ModelMesh(meshes.get(2));
+		windmill = new LodModelMesh(meshes.get(0));
+		windmill_blades = new LodModelMesh(meshes.get(1));
+		windmill_body = new LodModelMesh(meshes.get(2));
 
 		windmill_blades.setParent(windmill_body);
 		windmill_body.setParent(windmill);
@@ -140,19 +193,12 @@ public class Main extends Engine {
 		terrainMesh = resourceManager.addMesh("terrain", ShapeUtil.getPlaneVertices(10, 10), ShapeUtil.PLANE_INDICES, BufferUsageHint.STATIC_DRAW,
 				VertexBufferLayout.Float3_3_2, "grass");
 
-		// Load textures & materials for the fence model.
-		resourceManager.loadTexture("wood_fence_mt1_Diffuse", "./models/WoodenFence/textures/wood_fence_mt1_Diffuse.png");
-		resourceManager.loadTexture("wood_fence_mt1_Specular", "./models/WoodenFence/textures/wood_fence_mt1_Specular.png");
-
-		StandardMaterial matFence = matStandard.copy();
-		matFence.setDiffuseTexture(resourceManager.getTexture("wood_fence_mt1_Diffuse"));
-		matFence.setSpecularTexture(resourceManager.getTexture("wood_fence_mt1_Specular"));
-		resourceManager.addMaterial("wood_fence_t1_m", matFence);
-
-		// Load the fence model.
-		RawModel rm = OBJLoader.INSTANCE.loadModel("./models/WoodenFence/obj/wood_fence_m1_t1_tri.obj");
-
-		ModelMesh fence = new ModelMesh(rm.toMeshes(resourceManager, matStandard, BufferUsageHint.STATIC_DRAW).get(0));
+		// Load the fence model. It is static, so its meshes are drawn with one indirect draw per material from the
+		// shared geometry pool.
+		IndirectBatch fence = new IndirectBatch();
+		for (Mesh mesh : resourceManager.await(fenceMeshes))
+			fence.add(mesh, Mat4f.IDENTITY);
+		fence.build();
 		fence.localMatrix.rotateAboutLocalAxisDegs(-90, new Vec3f(1, 0, 0));
 		fence.localMatrix.translate(0, 0, -0.6f);
 		fence.localMatrix.scale(1f / 800f);
@@ -170,13 +216,13 @@ public class Main extends Engine {
 		SpotLight windmillLight = new SpotLight(new Vec3f(-0.207f, 0.515f, -0.832f), new Vec3f(0.2f, 0, 0), new Vec3f(0.6f, 0, 0), new Vec3f(0.2f),
 				1.0f, 0.09f, 0.032f, (float) Math.cos(Math.toRadians(12f)), (float) Math.cos(Math.toRadians(20.0f)));
 		windmillLight.localMatrix.setOrigin(new Vec3f(-.116f, -.028f, 2.781f));
-		windmillLight.updateGlobalMatrix();
+		windmillLight.markDirty();
 		windmillLight.setParent(root);
 
 		// Move & scale the windmill object.
 		windmill.localMatrix.scale(0.2f);
 		windmill.localMatrix.translate(-3, -3, 10);
-		windmill.updateGlobalMatrix();
+		windmill.markDirty();
 
 		// Move and scale the terrain mesh.
 		terrainModelMatrix.translate(0, -0.62f, 0).scale(10.0f);
@@ -201,17 +247,18 @@ public class Main extends Engine {
 		// Rotate the blades.
 		windmill_blades.localMatrix.translate(0, 6.59f, 0);
 		windmill_blades.localMatrix.rotateAboutLocalAxisDegs(-WINDMILL_BLADE_SPIN_SPEED * deltaTime,
-				windmill_blades.localMatrix.getXBasis().normalise());
+				windmill_blades.localMatrix.getXBasis(bladeAxis));
 		windmill_blades.localMatrix.translate(0, -6.59f, 0);
+		windmill_blades.markDirty();
 
 		// Rotate the windmill body/blades.
-		windmill_body.localMatrix.rotateAboutLocalAxisDegs(WINDMILL_ROTATE_SPEED * deltaTime, new Vec3f(0, 1f, 0));
-		windmill_body.updateGlobalMatrix();
+		windmill_body.localMatrix.rotateAboutLocalAxisDegs(WINDMILL_ROTATE_SPEED * deltaTime, UtilMath.Y_AXIS);
+		windmill_body.markDirty();
 
 		// Make the spot light both follow and look in the direction of the camera.
 		spotLight.localMatrix.setOrigin(camera.getPosition());
-		spotLight.getDirection().set(camera.getFront().normalised());
-		spotLight.updateGlobalMatrix();
+		camera.getFront().normalised(spotLight.getDirection());
+		spotLight.markDirty();
 	}
 
 	@Override
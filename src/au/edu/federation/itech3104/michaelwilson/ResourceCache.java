@@ -0,0 +1,159 @@
+package au.edu.federation.itech3104.michaelwilson;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+import au.edu.federation.itech3104.michaelwilson.graphics.IDisposable;
+
+/**
+ * Stores {@link ResourceHandle reference counted} resources within a GPU memory
+ * budget. When the loaded resources use more than the budget, resources that
+ * are no longer referenced are evicted, least recently used first. Evicted
+ * resources are loaded again from their original source when next used.
+ * Referenced resources are never evicted, so the budget can be exceeded if
+ * they need more memory.<br>
+ * <br>
+ * Must only be used on the OpenGL thread.
+ *
+ * @see ResourceManager#acquireTexture(String)
+ */
+public final class ResourceCache implements IDisposable {
+
+	public static final long DEFAULT_BUDGET = 256L * 1024 * 1024; // 256MB
+
+	// Access ordered, so iteration starts at the least recently used handle.
+	private final LinkedHashMap<String, ResourceHandle<?>> handles = new LinkedHashMap<>(16, 0.75f, true);
+
+	private long budget = DEFAULT_BUDGET;
+	private long loadedBytes;
+
+	private int loadCount;
+	private int evictionCount;
+
+	/**
+	 * Returns the handle stored with the given key, creating it with the loader if
+	 * there isn't one. The handle is {@link ResourceHandle#acquire() acquired} and
+	 * its resource loaded before it is returned. Keys must be unique across
+	 * resource types, since the stored handle is returned as is.
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> ResourceHandle<T> acquire(String key, IResourceLoader<T> loader) throws IOException {
+		ResourceHandle<T> handle = (ResourceHandle<T>) handles.get(key);
+		if (handle == null) {
+			handle = new ResourceHandle<>(this, key, loader);
+			handles.put(key, handle);
+		}
+
+		handle.acquire();
+
+		try {
+			handle.load();
+		} catch (IOException | RuntimeException e) {
+			handle.release();
+			throw e;
+		}
+
+		return handle;
+	}
+
+	/**
+	 * Returns the handle stored with the given key, or null if there isn't one.
+	 * The handle isn't acquired.
+	 */
+	public ResourceHandle<?> getHandle(String key) {
+		return handles.get(key);
+	}
+
+	/**
+	 * Set the number of bytes of GPU memory unreferenced resources can use before
+	 * they are evicted. Evicts resources straight away if needed.
+	 */
+	public void setBudget(long budget) {
+		if (budget < 0)
+			throw new IllegalArgumentException("budget must not be negative");
+
+		this.budget = budget;
+		trim();
+	}
+
+	public long getBudget() {
+		return budget;
+	}
+
+	/**
+	 * Returns the estimated GPU memory used by all loaded resources in this cache.
+	 */
+	public long getLoadedBytes() {
+		return loadedBytes;
+	}
+
+	/**
+	 * Returns the number of times a resource has been loaded, including reloads of
+	 * evicted resources.
+	 */
+	public int getLoadCount() {
+		return loadCount;
+	}
+
+	public int getEvictionCount() {
+		return evictionCount;
+	}
+
+	/**
+	 * Evict unreferenced resources, least recently used first, until the loaded
+	 * resources fit within the budget or there is nothing left to evict.
+	 *
+	 * @return the number of resources evicted.
+	 */
+	public int trim() {
+		return trim(null);
+	}
+
+	private int trim(ResourceHandle<?> keep) {
+		int count = 0;
+
+		Iterator<ResourceHandle<?>> iterator = handles.values().iterator();
+		while (loadedBytes > budget && iterator.hasNext()) {
+			ResourceHandle<?> handle = iterator.next();
+			if (handle == keep || handle.getReferenceCount() > 0 || !handle.isLoaded())
+				continue;
+
+			// Counted before unloading, in case unloading releases other handles and
+			// trims again. The handle is kept, so it can be loaded again.
+			loadedBytes -= handle.getSizeInBytes();
+			handle.unload();
+			evictionCount++;
+			count++;
+		}
+
+		return count;
+	}
+
+	// Called by a handle when it is used, to move it to the back of the LRU order.
+	void touch(ResourceHandle<?> handle) {
+		handles.get(handle.getKey());
+	}
+
+	// Called by a handle when its resource has been loaded.
+	void onLoaded(ResourceHandle<?> handle) {
+		touch(handle);
+
+		loadedBytes += handle.getSizeInBytes();
+		loadCount++;
+		trim(handle);
+	}
+
+	/**
+	 * Unload all resources, whether they are referenced or not. Can be called
+	 * multiple times.
+	 */
+	@Override
+	public void dispose() {
+		for (ResourceHandle<?> handle : handles.values())
+			handle.unload();
+
+		loadedBytes = 0;
+	}
+
+}
@@ -0,0 +1,120 @@
+package au.edu.federation.itech3104.michaelwilson;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * A reference counted handle to a resource stored in a {@link ResourceCache}.
+ * Each {@link #acquire()} (including the one done by the cache when the handle
+ * is returned) must be matched by a {@link #release()}. While a handle is
+ * referenced its resource is never evicted, once it isn't the resource stays
+ * loaded until the cache needs the memory. An evicted resource is loaded again
+ * the next time it is used.<br>
+ * <br>
+ * Handles must only be used on the OpenGL thread.
+ */
+public final class ResourceHandle<T> {
+
+	private final ResourceCache cache;
+	private final String key;
+	private final IResourceLoader<T> loader;
+
+	private T resource; // null if not loaded.
+	private long sizeInBytes;
+	private int referenceCount;
+
+	ResourceHandle(ResourceCache cache, String key, IResourceLoader<T> loader) {
+		this.cache = cache;
+		this.key = key;
+		this.loader = loader;
+	}
+
+	/**
+	 * Returns the resource, loading it again first if it has been evicted.
+	 *
+	 * @throws UncheckedIOException if the resource had to be loaded and couldn't
+	 *                              be.
+	 */
+	public T get() {
+		if (resource == null) {
+			try {
+				load();
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		} else {
+			cache.touch(this);
+		}
+
+		return resource;
+	}
+
+	/**
+	 * Add a reference to this handle, so its resource can't be evicted until it
+	 * is {@link #release() released}.
+	 *
+	 * @return this handle.
+	 */
+	public ResourceHandle<T> acquire() {
+		referenceCount++;
+		return this;
+	}
+
+	/**
+	 * Remove a reference added by {@link #acquire()}. When there are no references
+	 * left the resource may be evicted by the cache.
+	 */
+	public void release() {
+		if (referenceCount == 0)
+			throw new IllegalStateException("Resource '" + key + "' has already been released!");
+
+		referenceCount--;
+
+		if (referenceCount == 0)
+			cache.trim();
+	}
+
+	public String getKey() {
+		return key;
+	}
+
+	public int getReferenceCount() {
+		return referenceCount;
+	}
+
+	public boolean isLoaded() {
+		return resource != null;
+	}
+
+	/**
+	 * Returns the estimated GPU memory used by the resource when it was last
+	 * loaded, or 0 if it has never been loaded.
+	 */
+	public long getSizeInBytes() {
+		return sizeInBytes;
+	}
+
+	// Load the resource if it isn't loaded, then let the cache account for it.
+	void load() throws IOException {
+		if (resource != null)
+			return;
+
+		resource = loader.load();
+		sizeInBytes = loader.getSizeInBytes(resource);
+		cache.onLoaded(this);
+	}
+
+	// Unload the resource, returning the number of bytes freed.
+	long unload() {
+		if (resource == null)
+			return 0;
+
+		// Cleared first, since unloading may release other handles and trim the
+		// cache again, which must not unload this resource twice.
+		T unloaded = resource;
+		resource = null;
+		loader.unload(unloaded);
+		return sizeInBytes;
+	}
+
+}
@@ -2,21 +2,48 @@ package au.edu.federation.itech3104.michaelwilson;
 
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
-
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import au.edu.federation.itech3104.michaelwilson.graphics.GeometryPool;
 import au.edu.federation.itech3104.michaelwilson.graphics.IDisposable;
+import au.edu.federation.itech3104.michaelwilson.graphics.IndirectBatch;
+import au.edu.federation.itech3104.michaelwilson.graphics.LodMesh;
 import au.edu.federation.itech3104.michaelwilson.graphics.Mesh;
 import au.edu.federation.itech3104.michaelwilson.graphics.ShaderProgram;
 import au.edu.federation.itech3104.michaelwilson.graphics.data.BufferUsageHint;
 import au.edu.federation.itech3104.michaelwilson.graphics.data.VertexBufferLayout;
 import au.edu.federation.itech3104.michaelwilson.graphics.material.Material;
 import au.edu.federation.itech3104.michaelwilson.graphics.texture.Texture2D;
+import au.edu.federation.itech3104.michaelwilson.graphics.texture.TextureData;
+import au.edu.federation.itech3104.michaelwilson.model.Model;
+import au.edu.federation.itech3104.michaelwilson.model.loader.MeshSimplifier;
+import au.edu.federation.itech3104.michaelwilson.model.loader.ModelUploadTask;
+import au.edu.federation.itech3104.michaelwilson.model.loader.OBJLoader;
 
 /**
  * Provides storage for resources (such as {@link Texture2D textures} and
  * {@link ShaderProgram shaders}). Implements the {@link IDisposable} interface
- * for disposing of all loaded resources.
+ * for disposing of all loaded resources.<br>
+ * <br>
+ * Resources can also be loaded asynchronously: files are read and decoded on
+ * loader threads, and the OpenGL work is queued and run a limited amount of
+ * time per frame by {@link #processUploads(long)}. All methods must be called
+ * on the OpenGL thread.
  * 
  * @see #dispose()
  */
@@ -28,6 +55,30 @@ public class ResourceManager implements IDisposable {
 
 	private final Map<String, Material> materials = new HashMap<String, Material>();
 
+	// Textures being loaded by loadTextureAsync(), by name. Only used on the OpenGL thread.
+	private final Map<String, CompletableFuture<Texture2D>> pendingTextures = new HashMap<>();
+
+	// Loader threads read and decode files, then the OpenGL work is queued for processUploads().
+	private final ExecutorService loaders = Executors.newFixedThreadPool(Math.max(1, Runtime.getRuntime().availableProcessors() - 1),
+			new ThreadFactory() {
+				private final AtomicInteger count = new AtomicInteger();
+
+				@Override
+				public Thread newThread(Runnable runnable) {
+					Thread thread = new Thread(runnable, "resource-loader-" + count.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+
+	private final UploadQueue uploads = new UploadQueue();
+
+	// Shared, reference counted textures and meshes that can be evicted, see acquireTexture().
+	private final ResourceCache cache = new ResourceCache();
+
+	// Shared buffers for small static meshes, see getGeometryPool().
+	private final GeometryPool geometryPool = new GeometryPool();
+
 	/**
 	 * Create a Mesh object and store it in this resource manager, so it can be
 	 * retrieved and disposed of automatically. This method is equivalent to the
@@ -134,6 +185,267 @@ public class ResourceManager implements IDisposable {
 		return texture;
 	}
 
+	/**
+	 * Load several {@link Texture2D} objects from the file system into this
+	 * {@link ResourceManager}. The image files are decoded in parallel on the
+	 * loader threads, then uploaded on the calling thread. Names that are already
+	 * loaded are skipped, and a file used by more than one name is only decoded
+	 * and uploaded once. Must be called on the OpenGL thread.
+	 *
+	 * @param filepaths the filepath of each texture, by texture name.
+	 * @return the number of textures loaded.
+	 */
+	public int loadTextures(Map<String, String> filepaths) throws FileNotFoundException, IOException {
+		return await(loadTexturesAsync(filepaths));
+	}
+
+	/**
+	 * Start loading a {@link Texture2D} into this {@link ResourceManager}. The
+	 * image file is decoded on a loader thread, then uploaded by
+	 * {@link #processUploads(long)}, at which point the texture can be retrieved
+	 * with {@link #getTexture(String)}. Must be called on the OpenGL thread.
+	 *
+	 * @param name     the name of the texture resource
+	 * @param filepath the filepath to the texture
+	 * @return a future completed with the texture on the OpenGL thread. If the name
+	 *         is already loaded or loading, the existing texture is used.
+	 */
+	public CompletableFuture<Texture2D> loadTextureAsync(String name, String filepath) {
+		Texture2D loaded = textures.get(name);
+		if (loaded != null)
+			return CompletableFuture.completedFuture(loaded);
+
+		CompletableFuture<Texture2D> pending = pendingTextures.get(name);
+		if (pending != null)
+			return pending;
+
+		// Decoding fails on a loader thread, so the failure is passed to the upload
+		// queue too, and the pending texture is only removed on the OpenGL thread.
+		CompletableFuture<Texture2D> future = decodeAsync(filepath).handle((data, e) -> uploads.submit(() -> {
+			pendingTextures.remove(name);
+
+			if (e != null)
+				throw e instanceof RuntimeException ? (RuntimeException) e : new CompletionException(e);
+
+			Texture2D texture = new Texture2D(data);
+			textures.put(name, texture);
+			return texture;
+		})).thenCompose(upload -> upload);
+
+		pendingTextures.put(name, future);
+		return future;
+	}
+
+	/**
+	 * Start loading several {@link Texture2D} objects, as
+	 * {@link #loadTextureAsync(String, String)}. Names that are already loaded or
+	 * loading are skipped, and a file used by more than one name is only decoded
+	 * and uploaded once. Must be called on the OpenGL thread.
+	 *
+	 * @param filepaths the filepath of each texture, by texture name.
+	 * @return a future completed with the number of textures loaded, once every
+	 *         named texture is loaded, including those already loading.
+	 */
+	public CompletableFuture<Integer> loadTexturesAsync(Map<String, String> filepaths) {
+		// Group the new names by file, so each file is only uploaded once.
+		Map<String, List<String>> names = new LinkedHashMap<>();
+		List<CompletableFuture<Texture2D>> futures = new ArrayList<>();
+
+		for (Map.Entry<String, String> entry : filepaths.entrySet()) {
+			CompletableFuture<Texture2D> pending = pendingTextures.get(entry.getKey());
+			if (pending != null)
+				futures.add(pending);
+			else if (!textures.containsKey(entry.getKey()))
+				names.computeIfAbsent(entry.getValue(), filepath -> new ArrayList<>()).add(entry.getKey());
+		}
+
+		int count = 0;
+
+		for (Map.Entry<String, List<String>> entry : names.entrySet()) {
+			List<String> textureNames = entry.getValue();
+
+			CompletableFuture<Texture2D> future = loadTextureAsync(textureNames.get(0), entry.getKey());
+			for (int i = 1; i < textureNames.size(); i++) {
+				String name = textureNames.get(i);
+				futures.add(future.thenApply(texture -> {
+					textures.put(name, texture);
+					return texture;
+				}));
+			}
+
+			futures.add(future);
+			count += textureNames.size();
+		}
+
+		int loaded = count;
+		return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[futures.size()])).thenApply(v -> loaded);
+	}
+
+	private CompletableFuture<TextureData> decodeAsync(String filepath) {
+		return CompletableFuture.supplyAsync(() -> {
+			try {
+				return TextureData.decodePNG(filepath);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}, loaders);
+	}
+
+	/**
+	 * Start loading a {@link ShaderProgram} from the file system into this
+	 * {@link ResourceManager}. The files are read on a loader thread, then the
+	 * shader is compiled by {@link #processUploads(long)}. Must be called on the
+	 * OpenGL thread.
+	 *
+	 * @return a future completed with the shader program on the OpenGL thread, or
+	 *         with null if a shader is already loaded with the given name.
+	 */
+	public CompletableFuture<ShaderProgram> loadShaderAsync(String name, String vertexShaderFilename, String fragmentShaderFilename) {
+		if (shaders.containsKey(name))
+			return CompletableFuture.completedFuture(null);
+
+		return CompletableFuture.supplyAsync(() -> {
+			try {
+				return new String[] { new String(Files.readAllBytes(Paths.get(vertexShaderFilename))),
+						new String(Files.readAllBytes(Paths.get(fragmentShaderFilename))) };
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}, loaders).thenCompose(sources -> uploads.submit(() -> loadShaderFromString(name, sources[0], sources[1])));
+	}
+
+	/**
+	 * Start loading the meshes of an OBJ file, as
+	 * {@link OBJLoader#loadMeshes(String, ResourceManager, Material, BufferUsageHint)}.
+	 * The file (or its mesh cache) is read on a loader thread, then the meshes are
+	 * created by {@link #processUploads(long)}. Must be called on the OpenGL
+	 * thread.<br>
+	 * <br>
+	 * The MTL files are read on the loader thread too, and the textures of the
+	 * materials that haven't been added are loaded before the meshes are created,
+	 * so creating them doesn't wait for any images to be decoded.<br>
+	 * <br>
+	 * The meshes are not stored in this resource manager, the caller is
+	 * responsible for disposing them.
+	 *
+	 * @return a future completed with the meshes on the OpenGL thread.
+	 */
+	public CompletableFuture<List<Mesh>> loadMeshesAsync(String filepath, Material defaultMaterial, BufferUsageHint usageHint) {
+		return loadMeshesAsync(filepath, defaultMaterial, usageHint, CompletableFuture.completedFuture(null));
+	}
+
+	/**
+	 * Same as {@link #loadMeshesAsync(String, Material, BufferUsageHint)}, but the
+	 * meshes aren't created until materialsReady has completed. Materials and
+	 * textures are looked up when the meshes are created, so this lets the file be
+	 * read while the materials it uses are still being set up.
+	 */
+	public CompletableFuture<List<Mesh>> loadMeshesAsync(String filepath, Material defaultMaterial, BufferUsageHint usageHint,
+			CompletableFuture<?> materialsReady) {
+		CompletableFuture<ModelUploadTask<List<Mesh>>> prepared = CompletableFuture.supplyAsync(() -> {
+			try {
+				return new OBJLoader().prepareMeshes(filepath, this, defaultMaterial, usageHint);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}, loaders);
+
+		return submitModelUpload(prepared, materialsReady);
+	}
+
+	/**
+	 * Same as
+	 * {@link #loadMeshesAsync(String, Material, BufferUsageHint, CompletableFuture)},
+	 * but the meshes are stored in the given {@link GeometryPool}, such as
+	 * {@link #getGeometryPool()}, instead of having their own buffers.
+	 */
+	public CompletableFuture<List<Mesh>> loadMeshesAsync(String filepath, Material defaultMaterial, GeometryPool pool,
+			CompletableFuture<?> materialsReady) {
+		CompletableFuture<ModelUploadTask<List<Mesh>>> prepared = CompletableFuture.supplyAsync(() -> {
+			try {
+				return new OBJLoader().prepareMeshes(filepath, this, defaultMaterial, pool);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}, loaders);
+
+		return submitModelUpload(prepared, materialsReady);
+	}
+
+	/**
+	 * Same as
+	 * {@link #loadMeshesAsync(String, Material, BufferUsageHint, CompletableFuture)},
+	 * but each mesh is loaded with the default levels of detail, see
+	 * {@link OBJLoader#prepareLodMeshes(String, ResourceManager, Material, BufferUsageHint, float[], float[])}.
+	 * The levels are simplified on the loader thread the first time the file is
+	 * loaded, and read from their caches afterwards.
+	 */
+	public CompletableFuture<List<LodMesh>> loadLodMeshesAsync(String filepath, Material defaultMaterial, BufferUsageHint usageHint,
+			CompletableFuture<?> materialsReady) {
+		CompletableFuture<ModelUploadTask<List<LodMesh>>> prepared = CompletableFuture.supplyAsync(() -> {
+			try {
+				return new OBJLoader().prepareLodMeshes(filepath, this, defaultMaterial, usageHint, MeshSimplifier.DEFAULT_RATIOS,
+						LodMesh.DEFAULT_SCREEN_SIZES);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}, loaders);
+
+		return submitModelUpload(prepared, materialsReady);
+	}
+
+	// Submit a prepared model upload once materialsReady has completed and the
+	// textures of the materials still missing then are loaded. The textures are
+	// decoded on the loader threads, so the upload doesn't wait for them.
+	private <T> CompletableFuture<T> submitModelUpload(CompletableFuture<ModelUploadTask<T>> prepared, CompletableFuture<?> materialsReady) {
+		CompletableFuture<ModelUploadTask<T>> ready = prepared.thenCombine(materialsReady, (task, materials) -> task);
+
+		CompletableFuture<Integer> texturesLoaded = ready
+				.thenCompose(task -> uploads.submit(() -> loadTexturesAsync(task.getMissingTexturePaths(this))))
+				.thenCompose(future -> future);
+
+		return ready.thenCombine(texturesLoaded, (task, count) -> task).thenCompose(uploads::submit);
+	}
+
+	/**
+	 * Run queued uploads of resources loaded by the async methods, until the queue
+	 * is empty or the time budget has been used. Called once per frame by the
+	 * engine. Must be called on the OpenGL thread.
+	 *
+	 * @return the number of uploads run.
+	 */
+	public int processUploads(long budgetNanos) {
+		return uploads.process(budgetNanos);
+	}
+
+	/**
+	 * Wait for a future returned by one of the async methods, running uploads on
+	 * this thread while waiting. Must be called on the OpenGL thread, otherwise
+	 * the future may never complete.
+	 *
+	 * @return the result of the future.
+	 */
+	public <T> T await(CompletableFuture<T> future) throws IOException {
+		try {
+			while (!future.isDone())
+				uploads.processNext(1, TimeUnit.MILLISECONDS);
+
+			return future.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while loading resources", e);
+		} catch (CompletionException | CancellationException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof UncheckedIOException)
+				throw ((UncheckedIOException) cause).getCause();
+			if (cause instanceof IOException)
+				throw (IOException) cause;
+			if (cause instanceof RuntimeException)
+				throw (RuntimeException) cause;
+			throw e;
+		}
+	}
+
 	/**
 	 * Loads a {@link ShaderProgram} from the provided strings into this
 	 * {@link ResourceManager}.
@@ -172,6 +484,121 @@ public class ResourceManager implements IDisposable {
 		return shader;
 	}
 
+	/**
+	 * Loads a compute {@link ShaderProgram} from the file system into this
+	 * {@link ResourceManager}.
+	 *
+	 * @return the shader program, or null if a shader is already loaded with the
+	 *         given name
+	 */
+	public ShaderProgram loadComputeShader(String name, String computeShaderFilename) throws IOException {
+		if (shaders.containsKey(name))
+			return null;
+
+		ShaderProgram shader = ShaderProgram.fromComputeFile(computeShaderFilename);
+		shaders.put(name, shader);
+		return shader;
+	}
+
+	/**
+	 * Acquire a handle to a {@link Texture2D} loaded from the file system. Handles
+	 * to the same file share one texture, which is kept until it is no longer
+	 * referenced and the {@link #getResourceCache() cache} needs the memory. The
+	 * handle must be {@link ResourceHandle#release() released} when it is no
+	 * longer needed.
+	 *
+	 * @param filepath the filepath to the texture
+	 */
+	public ResourceHandle<Texture2D> acquireTexture(String filepath) throws FileNotFoundException, IOException {
+		return cache.acquire("texture:" + filepath, new IResourceLoader<Texture2D>() {
+			@Override
+			public Texture2D load() throws IOException {
+				return new Texture2D(filepath);
+			}
+
+			@Override
+			public long getSizeInBytes(Texture2D texture) {
+				return texture.getSizeInBytes();
+			}
+
+			@Override
+			public void unload(Texture2D texture) {
+				texture.dispose();
+			}
+		});
+	}
+
+	/**
+	 * Acquire a handle to the meshes of an OBJ file, loaded with
+	 * {@link OBJLoader#loadMeshes(String, ResourceManager, Material, BufferUsageHint, java.util.function.Function)}.
+	 * Handles to the same file share the meshes, see
+	 * {@link #acquireTexture(String)}. The meshes are owned by the cache and must
+	 * not be disposed, use {@link Model#Model(ResourceHandle)} to draw them.<br>
+	 * <br>
+	 * Materials from the MTL files that aren't in this resource manager are
+	 * created for the meshes only, with textures acquired with
+	 * {@link #acquireTexture(String)}. The meshes hold those textures until they
+	 * are evicted, so the textures are counted in the cache budget and can be
+	 * evicted too.
+	 */
+	public ResourceHandle<List<Mesh>> acquireMeshes(String filepath, Material defaultMaterial, BufferUsageHint usageHint)
+			throws FileNotFoundException, IOException {
+		return cache.acquire("meshes:" + filepath, new IResourceLoader<List<Mesh>>() {
+			// The textures of the materials created for the meshes, released when the
+			// meshes are unloaded.
+			private final List<ResourceHandle<Texture2D>> textureHandles = new ArrayList<>();
+
+			@Override
+			public List<Mesh> load() throws IOException {
+				try {
+					return new OBJLoader().loadMeshes(filepath, ResourceManager.this, defaultMaterial, usageHint, path -> {
+						try {
+							ResourceHandle<Texture2D> handle = acquireTexture(path);
+							textureHandles.add(handle);
+							return handle.get();
+						} catch (IOException e) {
+							throw new UncheckedIOException(e);
+						}
+					});
+				} catch (IOException | RuntimeException e) {
+					releaseTextures();
+					throw e;
+				}
+			}
+
+			@Override
+			public long getSizeInBytes(List<Mesh> meshes) {
+				long size = 0;
+				for (Mesh mesh : meshes)
+					size += mesh.getSizeInBytes();
+				return size;
+			}
+
+			@Override
+			public void unload(List<Mesh> meshes) {
+				for (Mesh mesh : meshes)
+					mesh.dispose();
+
+				releaseTextures();
+			}
+
+			private void releaseTextures() {
+				for (ResourceHandle<Texture2D> handle : textureHandles)
+					handle.release();
+				textureHandles.clear();
+			}
+		});
+	}
+
+	/**
+	 * Returns the cache of resources acquired with {@link #acquireTexture(String)}
+	 * and {@link #acquireMeshes(String, Material, BufferUsageHint)}, used to set
+	 * its memory budget.
+	 */
+	public ResourceCache getResourceCache() {
+		return cache;
+	}
+
 	/**
 	 * Return a loaded {@link Material} by the given name.
 	 * 
@@ -228,6 +655,15 @@ public class ResourceManager implements IDisposable {
 		return textures;
 	}
 
+	/**
+	 * Returns the {@link GeometryPool} shared by static meshes, for example meshes
+	 * drawn by an {@link IndirectBatch}. The pool is disposed with this resource
+	 * manager.
+	 */
+	public GeometryPool getGeometryPool() {
+		return geometryPool;
+	}
+
 	/**
 	 * Dispose of all resources, loaded by methods of this {@link ResourceManager}.
 	 * Can be called multiple times.
@@ -248,6 +684,13 @@ public class ResourceManager implements IDisposable {
 		meshes.clear();
 
 		materials.clear();
+
+		cache.dispose();
+		geometryPool.dispose();
+
+		pendingTextures.clear();
+		uploads.clear();
+		loaders.shutdownNow();
 	}
 
 }
\ No newline at end of file
@@ -0,0 +1,97 @@
+package au.edu.federation.itech3104.michaelwilson;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A queue of {@link IUploadTask tasks} that are submitted from any thread and
+ * run on the OpenGL thread, a limited amount of time per frame so loading
+ * doesn't stall rendering.
+ *
+ * @see ResourceManager#processUploads(long)
+ */
+public final class UploadQueue {
+
+	private final BlockingQueue<Runnable> tasks = new LinkedBlockingQueue<>();
+
+	/**
+	 * Queue a task to be run on the OpenGL thread. May be called from any thread.
+	 *
+	 * @return a future completed with the result of the task, on the OpenGL
+	 *         thread.
+	 */
+	public <T> CompletableFuture<T> submit(IUploadTask<T> task) {
+		CompletableFuture<T> future = new CompletableFuture<>();
+
+		tasks.add(() -> {
+			try {
+				future.complete(task.upload());
+			} catch (Throwable e) {
+				future.completeExceptionally(e);
+			}
+		});
+
+		return future;
+	}
+
+	/**
+	 * Run queued tasks until the queue is empty or the time budget has been used.
+	 * At least one task is run if there are any, so a large upload can't block
+	 * the queue. Must be called on the OpenGL thread.
+	 *
+	 * @return the number of tasks run.
+	 */
+	public int process(long budgetNanos) {
+		long start = System.nanoTime();
+		int count = 0;
+
+		Runnable task;
+		while ((task = tasks.poll()) != null) {
+			task.run();
+			count++;
+
+			if (System.nanoTime() - start >= budgetNanos)
+				break;
+		}
+
+		return count;
+	}
+
+	/**
+	 * Run all queued tasks. Must be called on the OpenGL thread.
+	 *
+	 * @return the number of tasks run.
+	 */
+	public int processAll() {
+		return process(Long.MAX_VALUE);
+	}
+
+	/**
+	 * Wait up to the given time for a task to be queued, then run it along with
+	 * any others that are queued. Must be called on the OpenGL thread.
+	 *
+	 * @return the number of tasks run.
+	 */
+	public int processNext(long timeout, TimeUnit unit) throws InterruptedException {
+		Runnable task = tasks.poll(timeout, unit);
+		if (task == null)
+			return 0;
+
+		task.run();
+		return 1 + processAll();
+	}
+
+	public boolean isEmpty() {
+		return tasks.isEmpty();
+	}
+
+	/**
+	 * Remove all queued tasks without running them.
+	 */
+	public void clear() {
+		tasks.clear();
+	}
+
+}
@@ -13,12 +13,18 @@ public abstract class Camera {
 	private static final float DEGS_TO_RADS = (float) Math.PI / 180.0f;
 
 	private Mat4f projectionMatrix;
+	private final Mat4f viewMatrix = new Mat4f(1.0f);
+
+	private final Frustum frustum = new Frustum();
 
 	private final Vec3f position = new Vec3f();
 	
 	private final Vec3f front = new Vec3f(0, 0, -1f);
-	private Vec3f up;
-	private Vec3f right;
+	private final Vec3f up = new Vec3f();
+	private final Vec3f right = new Vec3f();
+
+	// Reused by updateViewMatrix() to avoid allocating every frame.
+	private final Vec3f target = new Vec3f();
 
 	public Camera() {
 
@@ -33,6 +39,7 @@ public abstract class Camera {
 	public void init(int width, int height) {
 		updateMatrices(width, height);
 		update();
+		updateViewMatrix();
 	}
 
 	/**
@@ -43,8 +50,8 @@ public abstract class Camera {
 	 */
 	public void update() {
 		front.normalise();
-		right = front.cross(UP).normalise();
-		up = right.cross(front).normalise();
+		front.cross(UP, right).normalise();
+		right.cross(front, up).normalise();
 	}
 
 	/**
@@ -71,14 +78,37 @@ public abstract class Camera {
 		projectionMatrix = createProjectionMatrix(width, height);
 	}
 
+	/**
+	 * Recalculate the view matrix and {@link #getFrustum() frustum} from the
+	 * current position and orientation. Called by the renderer once per frame, so
+	 * {@link #getViewMatrix()} doesn't need to rebuild the matrix every time it is
+	 * used.
+	 */
+	public void updateViewMatrix() {
+		Mat4f.lookAt(position, position.plus(front, target), up, viewMatrix);
+		frustum.update(projectionMatrix, viewMatrix);
+	}
+
 	protected abstract Mat4f createProjectionMatrix(int width, int height);
 
 	public Mat4f getProjectionMatrix() {
 		return projectionMatrix;
 	}
 
+	/**
+	 * Returns the view matrix calculated by the last call to
+	 * {@link #updateViewMatrix()}.
+	 */
 	public Mat4f getViewMatrix() {
-		return Mat4f.lookAt(position, position.plus(front), up);
+		return viewMatrix;
+	}
+
+	/**
+	 * Returns the world space view frustum calculated by the last call to
+	 * {@link #updateViewMatrix()}.
+	 */
+	public Frustum getFrustum() {
+		return frustum;
 	}
 
 	public Vec3f getPosition() {
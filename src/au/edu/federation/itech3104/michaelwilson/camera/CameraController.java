@@ -25,6 +25,7 @@ import static org.lwjgl.glfw.GLFW.glfwSetInputMode;
 import java.nio.DoubleBuffer;
 
 import au.edu.federation.itech3104.michaelwilson.graphics.BufferUtil;
+import au.edu.federation.itech3104.michaelwilson.math.Vec3f;
 
 // This class makes a camera user controllable. Allowing the user to control the camera like a spectator camera.
 public class CameraController {
@@ -37,6 +38,9 @@ public class CameraController {
 	private final DoubleBuffer xbuf = BufferUtil.createEmptyDoubleBuffer(1);
 	private final DoubleBuffer ybuf = BufferUtil.createEmptyDoubleBuffer(1);
 
+	// Reused for the movement offset to avoid allocating every frame.
+	private final Vec3f offset = new Vec3f();
+
 	private float currentYaw = 270;
 	private float currentPitch;
 
@@ -58,28 +62,28 @@ public class CameraController {
 
 		// Forwards/Backwards
 		if (glfwGetKey(windowHandle, GLFW_KEY_W) == GLFW_PRESS || glfwGetKey(windowHandle, GLFW_KEY_UP) == GLFW_PRESS) {
-			camera.getPosition().add(camera.getFront().times(velocity));
+			camera.getPosition().add(camera.getFront().times(velocity, offset));
 
 		} else if (glfwGetKey(windowHandle, GLFW_KEY_S) == GLFW_PRESS || glfwGetKey(windowHandle, GLFW_KEY_DOWN) == GLFW_PRESS) {
-			camera.getPosition().subtract(camera.getFront().times(velocity));
+			camera.getPosition().subtract(camera.getFront().times(velocity, offset));
 
 		}
 
 		// Left/Right
 		if (glfwGetKey(windowHandle, GLFW_KEY_A) == GLFW_PRESS || glfwGetKey(windowHandle, GLFW_KEY_LEFT) == GLFW_PRESS) {
-			camera.getPosition().subtract(camera.getRight().times(velocity));
+			camera.getPosition().subtract(camera.getRight().times(velocity, offset));
 
 		} else if (glfwGetKey(windowHandle, GLFW_KEY_D) == GLFW_PRESS || glfwGetKey(windowHandle, GLFW_KEY_RIGHT) == GLFW_PRESS) {
-			camera.getPosition().add(camera.getRight().times(velocity));
+			camera.getPosition().add(camera.getRight().times(velocity, offset));
 
 		}
 
 		// Up/Down
 		if (glfwGetKey(windowHandle, GLFW_KEY_E) == GLFW_PRESS) {
-			camera.getPosition().add(camera.getUp().times(velocity));
+			camera.getPosition().add(camera.getUp().times(velocity, offset));
 
 		} else if (glfwGetKey(windowHandle, GLFW_KEY_Q) == GLFW_PRESS) {
-			camera.getPosition().subtract(camera.getUp().times(velocity));
+			camera.getPosition().subtract(camera.getUp().times(velocity, offset));
 
 		}
 
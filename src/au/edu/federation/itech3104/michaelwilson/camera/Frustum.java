@@ -0,0 +1,95 @@
+package au.edu.federation.itech3104.michaelwilson.camera;
+
+import au.edu.federation.itech3104.michaelwilson.math.BoundingBox;
+import au.edu.federation.itech3104.michaelwilson.math.BoundingSphere;
+import au.edu.federation.itech3104.michaelwilson.math.Mat4f;
+
+/**
+ * The six planes of a camera view frustum in world space, extracted from the
+ * projection * view matrix (Gribb/Hartmann method). Used to skip objects that
+ * are not visible.
+ *
+ * @see Camera#getFrustum()
+ */
+public class Frustum {
+	public static final int LEFT = 0, RIGHT = 1, BOTTOM = 2, TOP = 3, NEAR = 4, FAR = 5;
+
+	// Each plane is stored as (a, b, c, d) where a point p is inside the plane when
+	// a*p.x + b*p.y + c*p.z + d >= 0. Normals point into the frustum.
+	private final float[] planes = new float[6 * 4];
+
+	private final Mat4f viewProjection = new Mat4f();
+
+	/**
+	 * Extract the planes from the given projection and view matrices.
+	 */
+	public void update(Mat4f projection, Mat4f view) {
+		Mat4f m = Mat4f.mul(projection, view, viewProjection);
+
+		// Rows of the column major matrix.
+		setPlane(LEFT, m.m03 + m.m00, m.m13 + m.m10, m.m23 + m.m20, m.m33 + m.m30);
+		setPlane(RIGHT, m.m03 - m.m00, m.m13 - m.m10, m.m23 - m.m20, m.m33 - m.m30);
+		setPlane(BOTTOM, m.m03 + m.m01, m.m13 + m.m11, m.m23 + m.m21, m.m33 + m.m31);
+		setPlane(TOP, m.m03 - m.m01, m.m13 - m.m11, m.m23 - m.m21, m.m33 - m.m31);
+		setPlane(NEAR, m.m03 + m.m02, m.m13 + m.m12, m.m23 + m.m22, m.m33 + m.m32);
+		setPlane(FAR, m.m03 - m.m02, m.m13 - m.m12, m.m23 - m.m22, m.m33 - m.m32);
+	}
+
+	private void setPlane(int plane, float a, float b, float c, float d) {
+		float length = (float) Math.sqrt(a * a + b * b + c * c);
+
+		int i = plane * 4;
+		planes[i] = a / length;
+		planes[i + 1] = b / length;
+		planes[i + 2] = c / length;
+		planes[i + 3] = d / length;
+	}
+
+	/**
+	 * Returns false if the box is completely outside the frustum. May return true
+	 * for some boxes near the frustum corners that are not actually visible.
+	 */
+	public boolean intersects(BoundingBox box) {
+		if (box.isEmpty())
+			return false;
+
+		for (int i = 0; i < planes.length; i += 4) {
+			float a = planes[i], b = planes[i + 1], c = planes[i + 2], d = planes[i + 3];
+
+			// The corner furthest along the plane normal.
+			float x = a >= 0.0f ? box.max.x : box.min.x;
+			float y = b >= 0.0f ? box.max.y : box.min.y;
+			float z = c >= 0.0f ? box.max.z : box.min.z;
+
+			if (a * x + b * y + c * z + d < 0.0f)
+				return false;
+		}
+
+		return true;
+	}
+
+	/**
+	 * Returns false if the sphere is completely outside the frustum.
+	 */
+	public boolean intersects(BoundingSphere sphere) {
+		if (sphere.isEmpty())
+			return false;
+
+		for (int i = 0; i < planes.length; i += 4) {
+			float distance = planes[i] * sphere.center.x + planes[i + 1] * sphere.center.y + planes[i + 2] * sphere.center.z + planes[i + 3];
+			if (distance < -sphere.radius)
+				return false;
+		}
+
+		return true;
+	}
+
+	/**
+	 * Returns the planes as groups of (a, b, c, d), in the order LEFT, RIGHT,
+	 * BOTTOM, TOP, NEAR, FAR. The returned array must not be modified.
+	 */
+	public float[] getPlanes() {
+		return planes;
+	}
+
+}
@@ -1,13 +1,20 @@
 package au.edu.federation.itech3104.michaelwilson.graph;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import au.edu.federation.itech3104.michaelwilson.graphics.renderer.IDrawable;
+import au.edu.federation.itech3104.michaelwilson.math.BoundingBox;
 import au.edu.federation.itech3104.michaelwilson.math.Mat4f;
 
 public class Transform extends Node<Transform> {
 
 	/**
 	 * The model matrix local to this {@link Transform}. Any modifications to this
-	 * matrix requires the {@link #updateGlobalMatrix()} method to be called, so
-	 * changes can be reflected in descendant {@link #globalMatrix matrices}.<br>
+	 * matrix requires the {@link #markDirty()} method to be called, so changes can
+	 * be reflected in descendant {@link #globalMatrix matrices}.<br>
 	 * <br>
 	 * Note: The local matrix is public so we can easily use {@link Mat4f} methods
 	 * that return a new instance.
@@ -16,39 +23,317 @@ public class Transform extends Node<Transform> {
 
 	/**
 	 * The global model matrix combining all ancestor global matrices.
-	 * 
-	 * @see #updateGlobalMatrix()
+	 *
+	 * @see #updateGlobalMatrices()
 	 */
-	private Mat4f globalMatrix = new Mat4f(1.0f);
+	private final Mat4f globalMatrix = new Mat4f(1.0f);
+
+	// True if the global matrix needs to be recalculated. If a node is dirty then
+	// all of its descendants are dirty too.
+	private boolean isDirty = true;
+
+	// True if this node may have a dirty descendant, used by updateGlobalMatrices()
+	// to skip clean subtrees.
+	private boolean hasDirtyDescendant;
+
+	// World space bounds of this node (if it is a bounded IDrawable) and of its
+	// whole subtree. Calculated lazily, see getSubtreeBounds(). If bounds are
+	// dirty then the bounds of all ancestors are dirty too.
+	private final BoundingBox worldBounds = new BoundingBox();
+	private final BoundingBox subtreeBounds = new BoundingBox();
+	private boolean isBounded;
+	private boolean isSubtreeBounded;
+	private boolean isBoundsDirty = true;
+
+	// The number of nodes in the subtree starting at this node, including itself.
+	private int subtreeSize = 1;
+
+	// The store this node is a handle into, or null. See TransformStore.
+	TransformStore store;
+	int storeIndex = -1;
+
+	/**
+	 * Mark the global matrix of this node and all of its descendants as needing to
+	 * be recalculated. Must be called whenever the local matrix is modified. The
+	 * matrices are recalculated by the next {@link #updateGlobalMatrices()} pass,
+	 * or when {@link #getGlobalMatrix()} is called, whichever comes first.
+	 */
+	public void markDirty() {
+		if (store != null) {
+			store.markDirty(storeIndex);
+			return;
+		}
+
+		markSubtreeDirty();
+
+		// Make sure the next update pass visits this node.
+		for (Transform node = getParent(); node != null && !node.hasDirtyDescendant; node = node.getParent())
+			node.hasDirtyDescendant = true;
+	}
+
+	private void markSubtreeDirty() {
+		if (isDirty)
+			return; // Already dirty, so all descendants are too.
+
+		isDirty = true;
+
+		if (getChildCount() == 0)
+			return;
+
+		hasDirtyDescendant = true;
+		for (Transform child : this)
+			child.markSubtreeDirty();
+	}
 
 	/**
-	 * Calculates the global matrix for this node using the
-	 * {@link #getGlobalMatrix() global} and {@link #localMatrix local} matrices of
-	 * ancestor nodes. Must be called whenever the local matrix is modified.
+	 * Recalculate the global matrix of any dirty nodes in this subtree, top-down.
+	 * Subtrees without {@link #markDirty() dirty} nodes are skipped. Called once
+	 * per frame on the scene graph root by the engine.<br>
+	 * <br>
+	 * If this node is part of a {@link TransformStore}, the whole store is
+	 * updated instead.
 	 */
-	public void updateGlobalMatrix() {
-		Mat4f parentMatrix = isRoot() ? new Mat4f(1.0f) : getParent().getGlobalMatrix();
+	public void updateGlobalMatrices() {
+		if (store != null) {
+			store.update();
+			return;
+		}
+
+		if (isDirty)
+			calculateGlobalMatrix();
 
-		globalMatrix = parentMatrix.times(localMatrix);
+		if (!hasDirtyDescendant)
+			return;
 
+		hasDirtyDescendant = false;
 		for (Transform child : this)
-			child.updateGlobalMatrix();
+			child.updateGlobalMatrices();
+	}
+
+	/**
+	 * Same as {@link #updateGlobalMatrices()}, but subtrees with at least
+	 * parallelThreshold nodes are split across the common {@link ForkJoinPool}.
+	 * The results are identical to the sequential update.
+	 *
+	 * @param parallelThreshold the minimum subtree size to update in parallel. Use
+	 *                          0 or less to always update sequentially.
+	 */
+	public void updateGlobalMatrices(int parallelThreshold) {
+		if (store != null || parallelThreshold <= 0 || subtreeSize < parallelThreshold) {
+			updateGlobalMatrices();
+			return;
+		}
+
+		ForkJoinPool.commonPool().invoke(new UpdateTask(this, parallelThreshold));
+	}
+
+	// Calculate the global matrix from the parent global matrix, which must not be
+	// dirty.
+	private void calculateGlobalMatrix() {
+		if (isRoot())
+			globalMatrix.set(localMatrix);
+		else
+			Mat4f.mul(getParent().globalMatrix, localMatrix, globalMatrix);
+
+		isDirty = false;
+		invalidateBounds();
+	}
+
+	// Called by the TransformStore with the calculated world matrix.
+	void setGlobalMatrix(float[] source, int offset) {
+		globalMatrix.setFromArray(source, offset);
+		isDirty = false;
+		hasDirtyDescendant = false;
+		invalidateBounds();
+	}
+
+	// Called by the TransformStore when this node is no longer stored, so it goes
+	// back to calculating its own global matrix.
+	void leaveStore() {
+		store = null;
+		storeIndex = -1;
+
+		isDirty = false;
+		markDirty();
+	}
+
+	// Mark the bounds of this node and its ancestors as needing to be recalculated.
+	private void invalidateBounds() {
+		isBoundsDirty = true;
+
+		for (Transform node = getParent(); node != null && !node.isBoundsDirty; node = node.getParent())
+			node.isBoundsDirty = true;
+	}
+
+	private void updateBounds() {
+		Mat4f global = getGlobalMatrix();
+
+		isBounded = false;
+		isSubtreeBounded = true;
+		worldBounds.setEmpty();
+
+		if (this instanceof IDrawable) {
+			BoundingBox local = ((IDrawable) this).getBounds();
+			if (local != null) {
+				local.transform(global, worldBounds);
+				isBounded = true;
+			} else {
+				isSubtreeBounded = false; // Unknown bounds, so the subtree can't be culled.
+			}
+		}
+
+		subtreeBounds.set(worldBounds);
+
+		for (Transform child : this) {
+			BoundingBox childBounds = child.getSubtreeBounds();
+			if (childBounds == null)
+				isSubtreeBounded = false;
+			else
+				subtreeBounds.include(childBounds);
+		}
+
+		isBoundsDirty = false;
+	}
+
+	/**
+	 * Returns the world space bounds of what this node draws, or null if this node
+	 * is not an {@link IDrawable} or its bounds are unknown.
+	 *
+	 * @see IDrawable#getBounds()
+	 */
+	public BoundingBox getWorldBounds() {
+		if (isBoundsDirty)
+			updateBounds();
+
+		return isBounded ? worldBounds : null;
+	}
+
+	/**
+	 * Returns the world space bounds of everything drawn by this node and its
+	 * descendants, or null if anything in the subtree has unknown bounds. The
+	 * bounds are empty if nothing in the subtree is drawn.
+	 */
+	public BoundingBox getSubtreeBounds() {
+		if (isBoundsDirty)
+			updateBounds();
+
+		return isSubtreeBounded ? subtreeBounds : null;
+	}
+
+	/**
+	 * Returns true if this node is a handle into a {@link TransformStore}.
+	 */
+	public boolean isStored() {
+		return store != null;
+	}
+
+	/**
+	 * Returns true if the global matrix needs to be recalculated.
+	 *
+	 * @see #markDirty()
+	 */
+	public boolean isDirty() {
+		return isDirty;
+	}
+
+	@Override
+	protected void onTreeChanged(Transform node, boolean added) {
+		super.onTreeChanged(node, added);
+
+		if (store != null)
+			store.invalidate(); // The tree structure changed, the store must be rebuilt.
+	}
+
+	@Override
+	protected void onChildrenChanged(Transform node, boolean added) {
+		super.onChildrenChanged(node, added);
+
+		int delta = added ? node.subtreeSize : -node.subtreeSize;
+		for (Transform t = this; t != null; t = t.getParent())
+			t.subtreeSize += delta;
+
+		invalidateBounds();
+	}
+
+	/**
+	 * Returns the number of nodes in the subtree starting at this node, including
+	 * this node.
+	 */
+	public int getSubtreeSize() {
+		return subtreeSize;
 	}
 
 	@Override
 	protected void onParentChanged() {
 		super.onParentChanged();
-		updateGlobalMatrix(); // Update the global matrix, since the parent has changed.
+		markDirty(); // The global matrix needs updating, since the parent has changed.
 	}
 
 	/**
 	 * The global model matrix combining all ancestor {@link Transform#localMatrix
-	 * model matrices}.
-	 * 
-	 * @see #updateGlobalMatrix()
+	 * model matrices}. If this node is dirty the matrix is recalculated first,
+	 * along with any dirty ancestors.
+	 *
+	 * @see #updateGlobalMatrices()
 	 */
 	public Mat4f getGlobalMatrix() {
+		if (store != null)
+			store.update(); // May remove this node from the store, if it is no longer in the tree.
+
+		if (isDirty) {
+			if (!isRoot())
+				getParent().getGlobalMatrix(); // Make sure the parent matrix is up to date.
+			calculateGlobalMatrix();
+		}
+
 		return globalMatrix;
 	}
 
+	// Updates a subtree, forking a task for each child subtree that is large enough
+	// to be worth running in parallel. The node's own matrix is calculated before
+	// any children are forked, so children always read an up to date parent.
+	private static final class UpdateTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final Transform node;
+		private final int threshold;
+
+		UpdateTask(Transform node, int threshold) {
+			this.node = node;
+			this.threshold = threshold;
+		}
+
+		@Override
+		protected void compute() {
+			if (node.isDirty)
+				node.calculateGlobalMatrix();
+
+			if (!node.hasDirtyDescendant)
+				return;
+
+			node.hasDirtyDescendant = false;
+
+			// Fork the large subtrees, update the small ones on this thread while they
+			// run, then wait for them.
+			List<UpdateTask> tasks = null;
+			for (Transform child : node) {
+				if (child.subtreeSize < threshold) {
+					child.updateGlobalMatrices();
+				} else {
+					if (tasks == null)
+						tasks = new ArrayList<>();
+
+					UpdateTask task = new UpdateTask(child, threshold);
+					task.fork();
+					tasks.add(task);
+				}
+			}
+
+			if (tasks != null) {
+				for (int i = 0; i < tasks.size(); i++)
+					tasks.get(i).join();
+			}
+		}
+	}
+
 }
@@ -0,0 +1,227 @@
+package au.edu.federation.itech3104.michaelwilson.graph;
+
+import java.util.Arrays;
+
+/**
+ * Flat storage for the matrices of a {@link Transform} tree. Parent indices,
+ * local matrices and world (global) matrices are kept in contiguous arrays
+ * ordered breadth-first, so every parent comes before its children and all
+ * world matrices can be calculated by a single linear sweep. <br>
+ * <br>
+ * While attached, each {@link Transform} in the tree acts as a handle into the
+ * store: {@link Transform#markDirty()} copies the local matrix into the store
+ * and {@link Transform#updateGlobalMatrices()} runs the sweep. Only dirty
+ * entries and their descendants are recalculated, and only their results are
+ * copied back to {@link Transform#getGlobalMatrix()}. <br>
+ * <br>
+ * Adding or removing nodes invalidates the store, which is rebuilt by the next
+ * {@link #update()}.
+ *
+ * @see #attach(Transform)
+ */
+public final class TransformStore {
+	private static final int MATRIX_SIZE = 16;
+
+	private final Transform root;
+
+	private Transform[] nodes = new Transform[64];
+	private int[] parents = new int[64];
+	private boolean[] dirty = new boolean[64];
+	private float[] local = new float[64 * MATRIX_SIZE];
+	private float[] world = new float[64 * MATRIX_SIZE];
+	private int count;
+
+	private boolean isValid;
+	private boolean isAnyDirty;
+	private boolean isAttached;
+
+	private TransformStore(Transform root) {
+		this.root = root;
+	}
+
+	/**
+	 * Create a store for the tree starting at root and make the nodes of the tree
+	 * use it.
+	 *
+	 * @param root must be a root node.
+	 */
+	public static TransformStore attach(Transform root) {
+		if (!root.isRoot())
+			throw new IllegalArgumentException("A transform store must be attached to a root node.");
+
+		if (root.store != null)
+			root.store.detach();
+
+		TransformStore store = new TransformStore(root);
+		store.isAttached = true;
+		store.rebuild();
+		return store;
+	}
+
+	/**
+	 * Stop using this store. The nodes go back to calculating their own global
+	 * matrices.
+	 */
+	public void detach() {
+		if (!isAttached)
+			return;
+
+		update(); // Make sure the global matrices are up to date before leaving.
+
+		release(0);
+		isAttached = false;
+		isValid = false;
+	}
+
+	/**
+	 * Mark the store as needing to be rebuilt, because the structure of the tree
+	 * changed.
+	 */
+	void invalidate() {
+		isValid = false;
+	}
+
+	/**
+	 * Copy the local matrix of the node at the given index into the store and mark
+	 * it as dirty.
+	 */
+	void markDirty(int index) {
+		if (!isValid)
+			return; // Everything is recalculated after rebuilding.
+
+		nodes[index].localMatrix.toArray(local, index * MATRIX_SIZE);
+		dirty[index] = true;
+		isAnyDirty = true;
+	}
+
+	/**
+	 * Recalculate the world matrices of all dirty nodes and their descendants,
+	 * rebuilding the store first if the tree has changed.
+	 */
+	public void update() {
+		if (!isAttached)
+			return;
+
+		if (!isValid)
+			rebuild();
+
+		if (!isAnyDirty)
+			return;
+
+		for (int i = 0; i < count; i++) {
+			int parent = parents[i];
+
+			// Parents come before children, so a dirty parent has already been
+			// recalculated.
+			if (parent != -1 && dirty[parent])
+				dirty[i] = true;
+
+			if (!dirty[i])
+				continue;
+
+			int offset = i * MATRIX_SIZE;
+			if (parent == -1)
+				System.arraycopy(local, offset, world, offset, MATRIX_SIZE);
+			else
+				mul(world, parent * MATRIX_SIZE, local, offset, world, offset);
+
+			nodes[i].setGlobalMatrix(world, offset);
+		}
+
+		Arrays.fill(dirty, 0, count, false);
+		isAnyDirty = false;
+	}
+
+	/**
+	 * Returns the number of nodes in the store.
+	 */
+	public int size() {
+		return count;
+	}
+
+	public Transform getRoot() {
+		return root;
+	}
+
+	// Rebuild the arrays from the tree, breadth-first. All nodes start dirty.
+	private void rebuild() {
+		// Flag the current nodes, so we can find the ones no longer in the tree.
+		Transform[] previous = Arrays.copyOf(nodes, count);
+		for (Transform node : previous)
+			node.storeIndex = -1;
+
+		count = 0;
+		add(root, -1);
+
+		// Use the nodes array as the queue, since breadth-first order is the order we
+		// store them in.
+		for (int i = 0; i < count; i++) {
+			for (Transform child : nodes[i])
+				add(child, i);
+		}
+
+		// Nodes that were removed from the tree go back to calculating their own global
+		// matrices.
+		for (Transform node : previous) {
+			if (node.store == this && node.storeIndex == -1)
+				node.leaveStore();
+		}
+		Arrays.fill(nodes, count, Math.max(count, previous.length), null);
+
+		Arrays.fill(dirty, 0, count, true);
+		isAnyDirty = true;
+		isValid = true;
+	}
+
+	private void add(Transform node, int parent) {
+		if (count == nodes.length)
+			grow();
+
+		nodes[count] = node;
+		parents[count] = parent;
+		node.localMatrix.toArray(local, count * MATRIX_SIZE);
+
+		node.store = this;
+		node.storeIndex = count;
+
+		count++;
+	}
+
+	// Release the nodes starting at the given index.
+	private void release(int from) {
+		for (int i = from; i < count; i++)
+			nodes[i].leaveStore();
+
+		Arrays.fill(nodes, from, count, null);
+		count = from;
+	}
+
+	private void grow() {
+		int capacity = nodes.length * 2;
+
+		nodes = Arrays.copyOf(nodes, capacity);
+		parents = Arrays.copyOf(parents, capacity);
+		dirty = Arrays.copyOf(dirty, capacity);
+		local = Arrays.copyOf(local, capacity * MATRIX_SIZE);
+		world = Arrays.copyOf(world, capacity * MATRIX_SIZE);
+	}
+
+	// Column major 4x4 multiplication of a by b into dest, same as Mat4f.mul. dest
+	// must not overlap a.
+	private static void mul(float[] a, int ao, float[] b, int bo, float[] dest, int d) {
+		float a00 = a[ao], a01 = a[ao + 1], a02 = a[ao + 2], a03 = a[ao + 3];
+		float a10 = a[ao + 4], a11 = a[ao + 5], a12 = a[ao + 6], a13 = a[ao + 7];
+		float a20 = a[ao + 8], a21 = a[ao + 9], a22 = a[ao + 10], a23 = a[ao + 11];
+		float a30 = a[ao + 12], a31 = a[ao + 13], a32 = a[ao + 14], a33 = a[ao + 15];
+
+		for (int c = 0; c < MATRIX_SIZE; c += 4) {
+			float b0 = b[bo + c], b1 = b[bo + c + 1], b2 = b[bo + c + 2], b3 = b[bo + c + 3];
+
+			dest[d + c] = a00 * b0 + a10 * b1 + a20 * b2 + a30 * b3;
+			dest[d + c + 1] = a01 * b0 + a11 * b1 + a21 * b2 + a31 * b3;
+			dest[d + c + 2] = a02 * b0 + a12 * b1 + a22 * b2 + a32 * b3;
+			dest[d + c + 3] = a03 * b0 + a13 * b1 + a23 * b2 + a33 * b3;
+		}
+	}
+
+}
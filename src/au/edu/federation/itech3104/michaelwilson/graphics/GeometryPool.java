@@ -0,0 +1,194 @@
+package au.edu.federation.itech3104.michaelwilson.graphics;
+
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import au.edu.federation.itech3104.michaelwilson.graphics.data.BufferUsageHint;
+import au.edu.federation.itech3104.michaelwilson.graphics.data.ElementBuffer;
+import au.edu.federation.itech3104.michaelwilson.graphics.data.VertexArray;
+import au.edu.federation.itech3104.michaelwilson.graphics.data.VertexBuffer;
+import au.edu.federation.itech3104.michaelwilson.graphics.data.VertexBufferLayout;
+import au.edu.federation.itech3104.michaelwilson.graphics.material.Material;
+
+/**
+ * Stores the vertices and indices of many meshes in a few large buffers, so
+ * small meshes don't each need their own buffers and vertex array. Meshes with
+ * the same {@link VertexBufferLayout} are suballocated from shared blocks, each
+ * with one vertex buffer, element buffer and vertex array. The meshes are drawn
+ * with a base vertex offset, and renderers that group draws by vertex array
+ * (see {@link au.edu.federation.itech3104.michaelwilson.graphics.renderer.RenderQueue
+ * RenderQueue}) bind each block once.<br>
+ * <br>
+ * Disposing a pooled {@link Mesh} returns its ranges to the pool. A new block
+ * is created when a mesh doesn't fit in the existing blocks. Blocks are kept
+ * until the pool is disposed.
+ */
+public class GeometryPool implements IDisposable {
+
+	public static final int DEFAULT_VERTEX_CAPACITY = 1 << 18; // vertices per block
+	public static final int DEFAULT_INDEX_CAPACITY = 1 << 20; // indices per block
+
+	private final int vertexCapacity;
+	private final int indexCapacity;
+	private final BufferUsageHint usageHint;
+
+	// Layouts are compared by identity, so meshes should use the shared layout
+	// constants.
+	private final Map<VertexBufferLayout, List<Block>> blocks = new HashMap<>();
+
+	private int meshCount;
+
+	public GeometryPool() {
+		this(DEFAULT_VERTEX_CAPACITY, DEFAULT_INDEX_CAPACITY, BufferUsageHint.STATIC_DRAW);
+	}
+
+	/**
+	 * @param vertexCapacity the number of vertices in each block. Larger meshes get
+	 *                       a block of their own size.
+	 * @param indexCapacity  the number of indices in each block.
+	 */
+	public GeometryPool(int vertexCapacity, int indexCapacity, BufferUsageHint usageHint) {
+		this.vertexCapacity = vertexCapacity;
+		this.indexCapacity = indexCapacity;
+		this.usageHint = usageHint;
+	}
+
+	/**
+	 * Create an indexed mesh stored in this pool. Indices are relative to the
+	 * first vertex of the mesh, as for
+	 * {@link Mesh#Mesh(float[], int[], BufferUsageHint, VertexBufferLayout, Material)}.
+	 */
+	public Mesh allocate(float[] vertices, int[] indices, VertexBufferLayout layout, Material material) {
+		return allocate(BufferUtil.createFloatBuffer(vertices), BufferUtil.createIntBuffer(indices), layout, material);
+	}
+
+	/**
+	 * Create an indexed mesh stored in this pool from the remaining data of the
+	 * buffers.
+	 */
+	public Mesh allocate(FloatBuffer vertices, IntBuffer indices, VertexBufferLayout layout, Material material) {
+		int stride = layout.getStride() / Float.BYTES;
+		if (vertices.remaining() % stride != 0)
+			throw new IllegalArgumentException("Vertex data must be whole vertices of the layout");
+
+		int vertexCount = vertices.remaining() / stride;
+		int indexCount = indices.remaining();
+		if (vertexCount == 0 || indexCount == 0)
+			throw new IllegalArgumentException("Pooled meshes must have vertices and indices");
+
+		List<Block> layoutBlocks = blocks.computeIfAbsent(layout, key -> new ArrayList<>());
+
+		for (Block block : layoutBlocks) {
+			Mesh mesh = block.allocate(vertices, indices, vertexCount, material);
+			if (mesh != null)
+				return mesh;
+		}
+
+		Block block = new Block(layout, Math.max(vertexCapacity, vertexCount), Math.max(indexCapacity, indexCount));
+		layoutBlocks.add(block);
+
+		return block.allocate(vertices, indices, vertexCount, material);
+	}
+
+	/**
+	 * Returns the number of blocks, each with its own buffers and vertex array.
+	 */
+	public int getBlockCount() {
+		int count = 0;
+		for (List<Block> layoutBlocks : blocks.values())
+			count += layoutBlocks.size();
+		return count;
+	}
+
+	/**
+	 * Returns the number of meshes stored in this pool that haven't been disposed.
+	 */
+	public int getMeshCount() {
+		return meshCount;
+	}
+
+	/**
+	 * Dispose the buffers of all blocks. Meshes from this pool must not be drawn
+	 * afterwards. Can be called multiple times.
+	 */
+	@Override
+	public void dispose() {
+		for (List<Block> layoutBlocks : blocks.values()) {
+			for (Block block : layoutBlocks)
+				block.dispose();
+		}
+
+		blocks.clear();
+		meshCount = 0;
+	}
+
+	// A vertex buffer, element buffer and vertex array shared by the meshes
+	// allocated from them.
+	final class Block implements IDisposable {
+		final VertexArray vao = new VertexArray();
+		final VertexBuffer vbo;
+		final ElementBuffer ebo;
+
+		private final RangeAllocator vertexRanges;
+		private final RangeAllocator indexRanges;
+
+		private final int stride;
+
+		private boolean isDisposed;
+
+		Block(VertexBufferLayout layout, int vertexCapacity, int indexCapacity) {
+			stride = layout.getStride() / Float.BYTES;
+
+			vbo = new VertexBuffer(vertexCapacity * stride, usageHint, layout);
+			ebo = new ElementBuffer(indexCapacity, usageHint);
+			vao.link(vbo, ebo);
+
+			vertexRanges = new RangeAllocator(vertexCapacity);
+			indexRanges = new RangeAllocator(indexCapacity);
+		}
+
+		// Returns a mesh using ranges of this block, or null if it doesn't fit.
+		Mesh allocate(FloatBuffer vertices, IntBuffer indices, int vertexCount, Material material) {
+			int baseVertex = vertexRanges.allocate(vertexCount);
+			if (baseVertex < 0)
+				return null;
+
+			int firstIndex = indexRanges.allocate(indices.remaining());
+			if (firstIndex < 0) {
+				vertexRanges.free(baseVertex, vertexCount);
+				return null;
+			}
+
+			vao.unbind(); // Binding the element buffer must not change a bound vertex array.
+			vbo.update(baseVertex * stride, vertices);
+			ebo.update(firstIndex, indices);
+
+			meshCount++;
+			return new Mesh(this, vertices, baseVertex, vertexCount, firstIndex, indices.remaining(), material);
+		}
+
+		// Called when a mesh using ranges of this block is disposed.
+		void free(int baseVertex, int vertexCount, int firstIndex, int indexCount) {
+			if (isDisposed)
+				return; // The whole pool has been disposed.
+
+			vertexRanges.free(baseVertex, vertexCount);
+			indexRanges.free(firstIndex, indexCount);
+			meshCount--;
+		}
+
+		@Override
+		public void dispose() {
+			isDisposed = true;
+
+			vao.dispose();
+			vbo.dispose();
+			ebo.dispose();
+		}
+	}
+
+}
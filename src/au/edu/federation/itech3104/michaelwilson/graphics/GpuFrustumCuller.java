@@ -0,0 +1,238 @@
+package au.edu.federation.itech3104.michaelwilson.graphics;
+
+import static org.lwjgl.opengl.GL42.GL_BUFFER_UPDATE_BARRIER_BIT;
+import static org.lwjgl.opengl.GL42.GL_COMMAND_BARRIER_BIT;
+import static org.lwjgl.opengl.GL42.glMemoryBarrier;
+import static org.lwjgl.opengl.GL43.glDispatchCompute;
+
+import java.nio.IntBuffer;
+import java.util.List;
+
+import au.edu.federation.itech3104.michaelwilson.camera.Frustum;
+import au.edu.federation.itech3104.michaelwilson.graphics.data.DrawIndirectBuffer;
+import au.edu.federation.itech3104.michaelwilson.math.BoundingSphere;
+import au.edu.federation.itech3104.michaelwilson.math.Mat4f;
+import au.edu.federation.itech3104.michaelwilson.math.Vec3f;
+
+/**
+ * Frustum culling of {@link IndirectBatch} draws on the GPU. A compute shader
+ * (shaders/frustum_cull.cs) tests each draw's bounding sphere against the
+ * camera frustum, and appends the commands of visible draws to the start of
+ * their group's range in the batch's culled command buffer, counting them with
+ * one atomic counter per group. The culled commands are cleared to zero first.
+ * OpenGL 4.3 can't read the draw count from a buffer (that needs
+ * ARB_indirect_parameters), so each group is still drawn with its full command
+ * count, and the zeroed commands at the end draw nothing.<br>
+ * <br>
+ * {@link #verify(IndirectBatch, Frustum, Mat4f)} reads the results back and
+ * compares them with {@link #cullOnCpu(IndirectBatch, Frustum, Mat4f)}, a CPU
+ * reference of the same test. It stalls until the GPU has finished, so it is
+ * only for checking the pass, for example under Mesa's llvmpipe
+ * (LIBGL_ALWAYS_SOFTWARE=1).
+ *
+ * @see IndirectBatch.Group#drawCulled()
+ */
+public class GpuFrustumCuller {
+
+	public static final int WORK_GROUP_SIZE = 64; // local_size_x of frustum_cull.cs
+
+	// Shader storage binding points of frustum_cull.cs. The per-draw data uses
+	// IndirectBatch.DRAW_DATA_BINDING.
+	public static final int COMMAND_BINDING = 1;
+	public static final int CULLED_COMMAND_BINDING = 2;
+	public static final int VISIBLE_COUNT_BINDING = 3;
+
+	// Spheres this close to a plane, relative to their size and distance, may be
+	// classified differently by the GPU and CPU because of rounding, so they are
+	// not reported by verify().
+	private static final float VERIFY_TOLERANCE = 1e-4f;
+
+	private static final BoundingSphere UNIT_SPHERE = new BoundingSphere(new Vec3f(), 1.0f);
+
+	private final ShaderProgram program;
+
+	private final int[] planeLocations;
+	private final int modelLocation;
+	private final int modelScaleLocation;
+	private final int drawCountLocation;
+
+	private final BoundingSphere scaleSphere = new BoundingSphere(); // Reused by cull().
+
+	/**
+	 * @param program the compute program loaded from frustum_cull.cs, see
+	 *                {@link ShaderProgram#fromComputeFile(String)}. Not owned by
+	 *                the culler.
+	 */
+	public GpuFrustumCuller(ShaderProgram program) {
+		this.program = program;
+
+		planeLocations = program.getUniformLocations("planes[0]", "planes[1]", "planes[2]", "planes[3]", "planes[4]", "planes[5]");
+		modelLocation = program.getUniformLocation("model");
+		modelScaleLocation = program.getUniformLocation("modelScale");
+		drawCountLocation = program.getUniformLocation("drawCount");
+	}
+
+	/**
+	 * Write the commands of the batch's draws that intersect the frustum to its
+	 * culled command buffer, to be drawn with
+	 * {@link IndirectBatch.Group#drawCulled()}. Nothing is read back, so this
+	 * doesn't wait for the GPU.
+	 *
+	 * @param modelMatrix the batch's global matrix.
+	 */
+	public void cull(IndirectBatch batch, Frustum frustum, Mat4f modelMatrix) {
+		int drawCount = batch.getDrawCount();
+		if (drawCount == 0)
+			return;
+
+		batch.getCulledCommandBuffer().clear();
+		batch.getVisibleCountBuffer().clear();
+
+		program.bind();
+
+		float[] planes = frustum.getPlanes();
+		for (int i = 0; i < planeLocations.length; i++)
+			program.setUniform(planeLocations[i], planes[i * 4], planes[i * 4 + 1], planes[i * 4 + 2], planes[i * 4 + 3]);
+
+		program.setUniform(modelLocation, modelMatrix);
+		program.setUniform(modelScaleLocation, UNIT_SPHERE.transform(modelMatrix, scaleSphere).radius); // Same scale as BoundingSphere#transform().
+		program.setUniform(drawCountLocation, drawCount);
+
+		batch.bindDrawData();
+		batch.getCommandBuffer().bindBase(COMMAND_BINDING);
+		batch.getCulledCommandBuffer().bindBase(CULLED_COMMAND_BINDING);
+		batch.getVisibleCountBuffer().bindBase(VISIBLE_COUNT_BINDING);
+
+		glDispatchCompute((drawCount + WORK_GROUP_SIZE - 1) / WORK_GROUP_SIZE, 1, 1);
+
+		program.unbind();
+
+		// The commands are read by the following draws, and by verify() with
+		// glGetBufferSubData.
+		glMemoryBarrier(GL_COMMAND_BARRIER_BIT | GL_BUFFER_UPDATE_BARRIER_BIT);
+	}
+
+	/**
+	 * The CPU reference of the compute pass. Returns whether each draw of the
+	 * batch, in command order, intersects the frustum.
+	 */
+	public static boolean[] cullOnCpu(IndirectBatch batch, Frustum frustum, Mat4f modelMatrix) {
+		boolean[] visible = new boolean[batch.getDrawCount()];
+		BoundingSphere sphere = new BoundingSphere();
+
+		for (int draw = 0; draw < visible.length; draw++)
+			visible[draw] = frustum.intersects(batch.getBoundingSphere(draw).transform(modelMatrix, sphere));
+
+		return visible;
+	}
+
+	/**
+	 * Compare the culled commands written by the last
+	 * {@link #cull(IndirectBatch, Frustum, Mat4f)} of the batch with
+	 * {@link #cullOnCpu(IndirectBatch, Frustum, Mat4f)}. Each group must start with
+	 * exact copies of the commands of its visible draws, in any order since they
+	 * are appended with atomics, followed by zeroed commands. Draws within rounding
+	 * distance of a plane may be either visible or culled. Each mismatch is
+	 * printed.
+	 *
+	 * @return the number of mismatches, 0 if the GPU and CPU agree.
+	 */
+	public int verify(IndirectBatch batch, Frustum frustum, Mat4f modelMatrix) {
+		int drawCount = batch.getDrawCount();
+		List<IndirectBatch.Group> groups = batch.getGroups();
+		if (drawCount == 0)
+			return 0;
+
+		IntBuffer commands = BufferUtil.createEmptyIntBuffer(drawCount * DrawIndirectBuffer.COMMAND_INTS);
+		IntBuffer culledCommands = BufferUtil.createEmptyIntBuffer(drawCount * DrawIndirectBuffer.COMMAND_INTS);
+		IntBuffer visibleCounts = BufferUtil.createEmptyIntBuffer(groups.size());
+
+		batch.getCommandBuffer().read(0, commands);
+		batch.getCulledCommandBuffer().read(0, culledCommands);
+		batch.getVisibleCountBuffer().read(0, visibleCounts);
+
+		boolean[] expected = cullOnCpu(batch, frustum, modelMatrix);
+		boolean[] found = new boolean[drawCount];
+		int mismatches = 0;
+
+		for (int g = 0; g < groups.size(); g++) {
+			IndirectBatch.Group group = groups.get(g);
+			int first = group.getFirstCommand();
+			int end = first + group.getCommandCount();
+
+			int visibleCount = visibleCounts.get(g);
+			if (visibleCount > group.getCommandCount()) {
+				System.out.println("GPU culling: group " + g + " counted " + visibleCount + " visible draws but only has " + group.getCommandCount());
+				mismatches++;
+				visibleCount = group.getCommandCount();
+			}
+
+			for (int slot = first; slot < end; slot++) {
+				int offset = slot * DrawIndirectBuffer.COMMAND_INTS;
+
+				if (slot >= first + visibleCount) {
+					if (!isZero(culledCommands, offset)) {
+						System.out.println("GPU culling: command " + slot + " after the visible commands of group " + g + " isn't zero");
+						mismatches++;
+					}
+					continue;
+				}
+
+				int draw = culledCommands.get(offset + 4); // The base instance is the draw index.
+				if (draw < first || draw >= end || found[draw]) {
+					System.out.println("GPU culling: command " + slot + " of group " + g + " has an invalid or repeated draw index " + draw);
+					mismatches++;
+					continue;
+				}
+
+				found[draw] = true;
+
+				if (!isEqual(culledCommands, offset, commands, draw * DrawIndirectBuffer.COMMAND_INTS)) {
+					System.out.println("GPU culling: command " + slot + " isn't a copy of the command of draw " + draw);
+					mismatches++;
+				}
+			}
+		}
+
+		for (int draw = 0; draw < drawCount; draw++) {
+			if (found[draw] != expected[draw] && !isNearPlane(batch, draw, frustum, modelMatrix)) {
+				System.out.println("GPU culling: draw " + draw + " is " + (found[draw] ? "visible" : "culled") + " on the GPU but "
+						+ (expected[draw] ? "visible" : "culled") + " on the CPU");
+				mismatches++;
+			}
+		}
+
+		return mismatches;
+	}
+
+	// Returns true if the draw's sphere just touches one of the frustum planes.
+	private static boolean isNearPlane(IndirectBatch batch, int draw, Frustum frustum, Mat4f modelMatrix) {
+		BoundingSphere sphere = batch.getBoundingSphere(draw).transform(modelMatrix, new BoundingSphere());
+		float[] planes = frustum.getPlanes();
+
+		for (int i = 0; i < planes.length; i += 4) {
+			float distance = planes[i] * sphere.center.x + planes[i + 1] * sphere.center.y + planes[i + 2] * sphere.center.z + planes[i + 3];
+			if (Math.abs(distance + sphere.radius) <= VERIFY_TOLERANCE * (1.0f + Math.abs(distance) + sphere.radius))
+				return true;
+		}
+
+		return false;
+	}
+
+	private static boolean isZero(IntBuffer commands, int offset) {
+		for (int i = 0; i < DrawIndirectBuffer.COMMAND_INTS; i++) {
+			if (commands.get(offset + i) != 0)
+				return false;
+		}
+		return true;
+	}
+
+	private static boolean isEqual(IntBuffer a, int offsetA, IntBuffer b, int offsetB) {
+		for (int i = 0; i < DrawIndirectBuffer.COMMAND_INTS; i++) {
+			if (a.get(offsetA + i) != b.get(offsetB + i))
+				return false;
+		}
+		return true;
+	}
+
+}
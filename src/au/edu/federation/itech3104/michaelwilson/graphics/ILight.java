@@ -1,5 +1,7 @@
 package au.edu.federation.itech3104.michaelwilson.graphics;
 
+import java.nio.ByteBuffer;
+
 import au.edu.federation.itech3104.michaelwilson.graph.Transform;
 
 /**
@@ -24,6 +26,17 @@ public interface ILight {
 	 */
 	public void apply(int index, ShaderProgram shader);
 
+	/**
+	 * Write this light into a uniform buffer, using the std140 layout of the GLSL
+	 * struct this light represents. Used instead of
+	 * {@link #apply(int, ShaderProgram)} for shaders with a LightBlock uniform
+	 * block.
+	 * 
+	 * @param buffer the buffer, written using absolute offsets.
+	 * @param offset the byte offset of the struct element within the buffer.
+	 */
+	public void write(ByteBuffer buffer, int offset);
+
 	/**
 	 * Returns a name for the lighting type this implementation represents. (e.g.
 	 * pointLights or spotLights). This method is used to provide the correct value
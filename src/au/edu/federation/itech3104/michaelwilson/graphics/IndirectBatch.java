@@ -0,0 +1,404 @@
+package au.edu.federation.itech3104.michaelwilson.graphics;
+
+import static org.lwjgl.opengl.GL11.GL_TRIANGLES;
+import static org.lwjgl.opengl.GL11.GL_UNSIGNED_INT;
+import static org.lwjgl.opengl.GL43.glMultiDrawElementsIndirect;
+
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import au.edu.federation.itech3104.michaelwilson.graph.Transform;
+import au.edu.federation.itech3104.michaelwilson.graphics.data.BufferUsageHint;
+import au.edu.federation.itech3104.michaelwilson.graphics.data.DrawIndirectBuffer;
+import au.edu.federation.itech3104.michaelwilson.graphics.data.ShaderStorageBuffer;
+import au.edu.federation.itech3104.michaelwilson.graphics.data.VertexArray;
+import au.edu.federation.itech3104.michaelwilson.graphics.data.VertexBuffer;
+import au.edu.federation.itech3104.michaelwilson.graphics.data.VertexBufferLayout;
+import au.edu.federation.itech3104.michaelwilson.graphics.material.Material;
+import au.edu.federation.itech3104.michaelwilson.graphics.renderer.IDrawable;
+import au.edu.federation.itech3104.michaelwilson.graphics.renderer.IDrawableRenderer;
+import au.edu.federation.itech3104.michaelwilson.math.BoundingBox;
+import au.edu.federation.itech3104.michaelwilson.math.BoundingSphere;
+import au.edu.federation.itech3104.michaelwilson.math.Mat4f;
+
+/**
+ * Static geometry drawn with glMultiDrawElementsIndirect (OpenGL 4.3). Each
+ * {@link #add(Mesh, Mat4f) added} mesh becomes a draw command in a
+ * {@link DrawIndirectBuffer}, and its model matrix, normal matrix and material
+ * index are stored in a {@link ShaderStorageBuffer}. Both are uploaded once by
+ * {@link #build()}, so drawing the batch costs one multi-draw call per group of
+ * draws sharing a vertex array and {@link Material}, however many meshes it
+ * holds.<br>
+ * <br>
+ * The meshes must be stored in a {@link GeometryPool}, since a multi-draw reads
+ * all of its commands from one vertex array. OpenGL 4.3 has no gl_DrawID, so
+ * each command's base instance is set to its draw index, and a per-instance
+ * attribute holding 0, 1, 2... ({@link VertexBufferLayout#DrawIndex}) gives the
+ * vertex shader the index into the storage buffer.<br>
+ * <br>
+ * The per-draw matrices are relative to this node, so the whole batch can still
+ * be moved with its {@link Transform#localMatrix}. The meshes are not owned by
+ * the batch, and are not disposed with it.<br>
+ * <br>
+ * The per-draw data also holds each draw's bounding sphere, so a
+ * {@link GpuFrustumCuller} can write the visible draws to a second command
+ * buffer, drawn with {@link Group#drawCulled()}.
+ *
+ * @see ShaderProgram#setIndirectVariant(ShaderProgram)
+ */
+public class IndirectBatch extends Transform implements IDrawable, IDisposable {
+
+	// Shader storage binding point of the per-draw data, see standard_indirect.vs.
+	public static final int DRAW_DATA_BINDING = 0;
+
+	// Attribute location of the per-instance draw index, after the position,
+	// normal and uv attributes.
+	public static final int DRAW_INDEX_LOCATION = 3;
+
+	// std430 layout of one draw: mat4 model, mat4 normal, vec4 sphere (center and
+	// radius), uint material, uint group, uint group first command, padded to a
+	// multiple of 16 bytes.
+	public static final int DRAW_DATA_SIZE = 160;
+
+	private final List<Mesh> meshes = new ArrayList<>();
+	private final List<Mat4f> matrices = new ArrayList<>();
+	private final List<BoundingSphere> spheres = new ArrayList<>(); // Relative to this node.
+	private final List<Material> materials = new ArrayList<>();
+
+	private final List<Group> groups = new ArrayList<>();
+
+	private final BoundingBox bounds = new BoundingBox();
+	private final BoundingBox meshBounds = new BoundingBox(); // Reused by add().
+
+	private DrawIndirectBuffer commands;
+	private DrawIndirectBuffer culledCommands; // Written by GpuFrustumCuller.
+	private ShaderStorageBuffer visibleCounts; // One uint per group, written by GpuFrustumCuller.
+	private ShaderStorageBuffer drawData;
+	private VertexBuffer drawIndices;
+	private final List<VertexArray> vaos = new ArrayList<>();
+
+	private boolean isBuilt;
+
+	/**
+	 * Add a draw of a pooled mesh. Must be called before {@link #build()}.
+	 *
+	 * @param modelMatrix the mesh's matrix relative to this node, copied.
+	 */
+	public IndirectBatch add(Mesh mesh, Mat4f modelMatrix) {
+		if (isBuilt)
+			throw new IllegalStateException("Meshes can't be added after the batch is built");
+		if (!mesh.isPooled())
+			throw new IllegalArgumentException("Indirect batches can only draw meshes stored in a GeometryPool");
+
+		meshes.add(mesh);
+		matrices.add(new Mat4f(modelMatrix));
+		spheres.add(mesh.getBoundingSphere().transform(modelMatrix, new BoundingSphere()));
+
+		bounds.include(mesh.getBounds().transform(modelMatrix, meshBounds));
+
+		return this;
+	}
+
+	/**
+	 * Upload the draw commands and per-draw data. Draws are ordered by geometry
+	 * pool block, then by material, so each group is a contiguous range of
+	 * commands.
+	 */
+	public void build() {
+		if (isBuilt)
+			throw new IllegalStateException("The batch has already been built");
+
+		isBuilt = true;
+		markDirty(); // The bounds have changed.
+
+		if (meshes.isEmpty())
+			return;
+
+		// Group the draws by block and material, keeping the order they were added.
+		Map<GeometryPool.Block, Map<Material, List<Integer>>> blocks = new LinkedHashMap<>();
+		for (int i = 0; i < meshes.size(); i++) {
+			Mesh mesh = meshes.get(i);
+			blocks.computeIfAbsent(mesh.getBlock(), key -> new LinkedHashMap<>())
+					.computeIfAbsent(mesh.getMaterial(), key -> new ArrayList<>()).add(i);
+		}
+
+		int drawCount = meshes.size();
+		IntBuffer commandData = BufferUtil.createEmptyIntBuffer(drawCount * DrawIndirectBuffer.COMMAND_INTS);
+		ByteBuffer drawBytes = BufferUtil.createEmptyByteBuffer(drawCount * DRAW_DATA_SIZE);
+		FloatBuffer drawFloats = drawBytes.asFloatBuffer();
+		IntBuffer drawInts = drawBytes.asIntBuffer();
+
+		List<Mesh> sortedMeshes = new ArrayList<>(drawCount);
+		List<Mat4f> sortedMatrices = new ArrayList<>(drawCount);
+		List<BoundingSphere> sortedSpheres = new ArrayList<>(drawCount);
+		Mat4f normalMatrix = new Mat4f();
+
+		for (Map.Entry<GeometryPool.Block, Map<Material, List<Integer>>> block : blocks.entrySet()) {
+			// A vertex array of our own for the block's buffers, since the block's
+			// vertex array may have instance matrices linked at the draw index location.
+			VertexArray vao = new VertexArray();
+			vaos.add(vao);
+
+			for (Map.Entry<Material, List<Integer>> group : block.getValue().entrySet()) {
+				Material material = group.getKey();
+				int materialIndex = materials.indexOf(material);
+				if (materialIndex < 0) {
+					materialIndex = materials.size();
+					materials.add(material);
+				}
+
+				int groupIndex = groups.size();
+				int groupFirst = sortedMeshes.size();
+				groups.add(new Group(vao, material, groupFirst, group.getValue().size()));
+
+				for (int index : group.getValue()) {
+					Mesh mesh = meshes.get(index);
+					Mat4f m = matrices.get(index);
+					BoundingSphere sphere = spheres.get(index);
+					int draw = sortedMeshes.size();
+
+					sortedMeshes.add(mesh);
+					sortedMatrices.add(m);
+					sortedSpheres.add(sphere);
+
+					// count, instanceCount, firstIndex, baseVertex, baseInstance
+					commandData.put(mesh.getCount()).put(1).put(mesh.getFirstIndex()).put(mesh.getBaseVertex()).put(draw);
+
+					drawFloats.position(draw * DRAW_DATA_SIZE / Float.BYTES);
+					putMatrix(drawFloats, m);
+					putMatrix(drawFloats, Mat4f.inverse(m, normalMatrix).transpose());
+					drawFloats.put(sphere.center.x).put(sphere.center.y).put(sphere.center.z).put(sphere.radius);
+
+					drawInts.position(drawFloats.position());
+					drawInts.put(materialIndex).put(groupIndex).put(groupFirst);
+				}
+			}
+
+			vao.link(block.getKey().vbo, block.getKey().ebo);
+		}
+
+		meshes.clear();
+		meshes.addAll(sortedMeshes);
+		matrices.clear();
+		matrices.addAll(sortedMatrices);
+		spheres.clear();
+		spheres.addAll(sortedSpheres);
+
+		commandData.flip();
+		commands = new DrawIndirectBuffer(commandData, BufferUsageHint.STATIC_DRAW);
+		culledCommands = new DrawIndirectBuffer(drawCount, BufferUsageHint.DYNAMIC_DRAW);
+		visibleCounts = new ShaderStorageBuffer(groups.size() * Integer.BYTES, BufferUsageHint.DYNAMIC_DRAW);
+		drawData = new ShaderStorageBuffer(drawBytes, BufferUsageHint.STATIC_DRAW);
+
+		float[] indices = new float[drawCount];
+		for (int i = 0; i < drawCount; i++)
+			indices[i] = i;
+		drawIndices = new VertexBuffer(indices, BufferUsageHint.STATIC_DRAW, VertexBufferLayout.DrawIndex);
+
+		for (VertexArray vao : vaos)
+			vao.linkInstances(drawIndices, DRAW_INDEX_LOCATION, 0);
+	}
+
+	// Write a matrix column by column.
+	private static void putMatrix(FloatBuffer buffer, Mat4f m) {
+		buffer.put(m.m00).put(m.m01).put(m.m02).put(m.m03);
+		buffer.put(m.m10).put(m.m11).put(m.m12).put(m.m13);
+		buffer.put(m.m20).put(m.m21).put(m.m22).put(m.m23);
+		buffer.put(m.m30).put(m.m31).put(m.m32).put(m.m33);
+	}
+
+	@Override
+	public void draw(IDrawableRenderer renderer) {
+		if (!isBuilt)
+			throw new IllegalStateException("The batch must be built before it is drawn");
+
+		renderer.renderIndirect(this, getGlobalMatrix());
+	}
+
+	/**
+	 * Bind the per-draw data to {@link #DRAW_DATA_BINDING}.
+	 */
+	public void bindDrawData() {
+		if (drawData != null)
+			drawData.bindBase(DRAW_DATA_BINDING);
+	}
+
+	/**
+	 * Returns null, the renderer sets up each group's material itself. See
+	 * {@link IDrawableRenderer#renderIndirect(IndirectBatch, Mat4f)}.
+	 */
+	@Override
+	public Material getMaterial() {
+		return null;
+	}
+
+	/**
+	 * Returns the combined bounds of all draws, relative to this node.
+	 */
+	@Override
+	public BoundingBox getBounds() {
+		return bounds;
+	}
+
+	/**
+	 * Returns the groups of draws sharing a vertex array and material, each drawn
+	 * with one multi-draw call.
+	 */
+	public List<Group> getGroups() {
+		return Collections.unmodifiableList(groups);
+	}
+
+	/**
+	 * Returns the materials of the draws, indexed by the material index stored in
+	 * the per-draw data.
+	 */
+	public List<Material> getMaterials() {
+		return Collections.unmodifiableList(materials);
+	}
+
+	/**
+	 * Returns the number of draws in this batch.
+	 */
+	public int getDrawCount() {
+		return meshes.size();
+	}
+
+	/**
+	 * Returns the mesh of a draw. After {@link #build()}, draws are in command
+	 * order.
+	 */
+	public Mesh getMesh(int draw) {
+		return meshes.get(draw);
+	}
+
+	/**
+	 * Returns the model matrix of a draw, relative to this node.
+	 */
+	public Mat4f getModelMatrix(int draw) {
+		return matrices.get(draw);
+	}
+
+	/**
+	 * Returns the bounding sphere of a draw, relative to this node.
+	 */
+	public BoundingSphere getBoundingSphere(int draw) {
+		return spheres.get(draw);
+	}
+
+	// Buffers used by GpuFrustumCuller.
+
+	DrawIndirectBuffer getCommandBuffer() {
+		return commands;
+	}
+
+	DrawIndirectBuffer getCulledCommandBuffer() {
+		return culledCommands;
+	}
+
+	ShaderStorageBuffer getVisibleCountBuffer() {
+		return visibleCounts;
+	}
+
+	ShaderStorageBuffer getDrawDataBuffer() {
+		return drawData;
+	}
+
+	public boolean isBuilt() {
+		return isBuilt;
+	}
+
+	/**
+	 * Dispose the command and per-draw buffers. The meshes are left to their
+	 * pool.
+	 */
+	@Override
+	public void dispose() {
+		for (VertexArray vao : vaos)
+			vao.dispose();
+		vaos.clear();
+
+		if (commands != null)
+			commands.dispose();
+		if (culledCommands != null)
+			culledCommands.dispose();
+		if (visibleCounts != null)
+			visibleCounts.dispose();
+		if (drawData != null)
+			drawData.dispose();
+		if (drawIndices != null)
+			drawIndices.dispose();
+
+		commands = null;
+		culledCommands = null;
+		visibleCounts = null;
+		drawData = null;
+		drawIndices = null;
+		groups.clear();
+	}
+
+	/**
+	 * A contiguous range of draw commands sharing a vertex array and material.
+	 */
+	public final class Group {
+		private final VertexArray vao;
+		private final Material material;
+		private final int firstCommand;
+		private final int commandCount;
+
+		Group(VertexArray vao, Material material, int firstCommand, int commandCount) {
+			this.vao = vao;
+			this.material = material;
+			this.firstCommand = firstCommand;
+			this.commandCount = commandCount;
+		}
+
+		/**
+		 * Draw every command of this group with one glMultiDrawElementsIndirect call.
+		 * The material's shader must already be bound, with the per-draw data bound
+		 * by {@link IndirectBatch#bindDrawData()}.
+		 */
+		public void draw() {
+			draw(commands);
+		}
+
+		/**
+		 * Draw the commands written by the last
+		 * {@link GpuFrustumCuller#cull(IndirectBatch, au.edu.federation.itech3104.michaelwilson.camera.Frustum, Mat4f)
+		 * cull} of this batch. The visible commands are at the start of the group's
+		 * range, and the rest are zero, so the GPU skips them.
+		 */
+		public void drawCulled() {
+			draw(culledCommands);
+		}
+
+		private void draw(DrawIndirectBuffer buffer) {
+			vao.bind();
+			buffer.bind();
+
+			glMultiDrawElementsIndirect(GL_TRIANGLES, GL_UNSIGNED_INT, (long) firstCommand * DrawIndirectBuffer.COMMAND_SIZE, commandCount,
+					DrawIndirectBuffer.COMMAND_SIZE);
+
+			buffer.unbind();
+			vao.unbind();
+		}
+
+		public Material getMaterial() {
+			return material;
+		}
+
+		public int getFirstCommand() {
+			return firstCommand;
+		}
+
+		public int getCommandCount() {
+			return commandCount;
+		}
+	}
+
+}
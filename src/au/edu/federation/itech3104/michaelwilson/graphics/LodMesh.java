@@ -0,0 +1,128 @@
+package au.edu.federation.itech3104.michaelwilson.graphics;
+
+import java.util.List;
+
+import au.edu.federation.itech3104.michaelwilson.graphics.renderer.IDrawableRenderer;
+import au.edu.federation.itech3104.michaelwilson.math.BoundingBox;
+import au.edu.federation.itech3104.michaelwilson.math.BoundingSphere;
+import au.edu.federation.itech3104.michaelwilson.math.Mat4f;
+
+/**
+ * The levels of detail of a mesh, from the full resolution mesh (level 0) to
+ * the most simplified one. Renderers choose a level from the size of the mesh
+ * on screen, see {@link IDrawableRenderer#renderLod(LodMesh, int, Mat4f)}.<br>
+ * <br>
+ * Each level after the first has a screen size, the radius of the level 0
+ * bounding sphere as a fraction of half the screen height, below which it is
+ * used. The screen sizes must get smaller with each level. The levels are
+ * usually generated with
+ * {@link au.edu.federation.itech3104.michaelwilson.model.loader.MeshSimplifier
+ * MeshSimplifier}.
+ */
+public class LodMesh implements IDisposable {
+
+	// The screen sizes of the levels generated by default, after the full
+	// resolution level.
+	public static final float[] DEFAULT_SCREEN_SIZES = { 0.5f, 0.25f, 0.1f };
+
+	private final Mesh[] levels;
+	private final float[] screenSizes; // of each level, 0 for level 0.
+
+	/**
+	 * @param levels      the meshes of each level, starting at full resolution.
+	 *                    The meshes are owned by this object.
+	 * @param screenSizes the screen size below which each level after the first
+	 *                    is used, one less than the number of levels.
+	 */
+	public LodMesh(List<Mesh> levels, float[] screenSizes) {
+		if (levels.isEmpty())
+			throw new IllegalArgumentException("A LodMesh needs at least one level");
+		if (screenSizes.length != levels.size() - 1)
+			throw new IllegalArgumentException("Expected " + (levels.size() - 1) + " screen sizes, found " + screenSizes.length);
+
+		for (int i = 1; i < screenSizes.length; i++) {
+			if (screenSizes[i] >= screenSizes[i - 1])
+				throw new IllegalArgumentException("Screen sizes must get smaller with each level");
+		}
+
+		this.levels = levels.toArray(new Mesh[0]);
+
+		this.screenSizes = new float[levels.size()];
+		System.arraycopy(screenSizes, 0, this.screenSizes, 1, screenSizes.length);
+	}
+
+	/**
+	 * Returns the level to draw at the given screen size, when currentLevel was
+	 * drawn last. The size must pass a level's screen size by the hysteresis
+	 * fraction before the level changes, so a mesh near a screen size doesn't
+	 * switch levels back and forth as the camera moves slightly.
+	 *
+	 * @param currentLevel the level drawn last, or -1 if it hasn't been drawn.
+	 * @param hysteresis   how far past a screen size the size must be, as a
+	 *                     fraction of the screen size.
+	 */
+	public int selectLevel(float screenSize, int currentLevel, float hysteresis) {
+		if (currentLevel < 0)
+			return selectLevel(screenSize, 1.0f);
+
+		// The coarsest level the size is well below, and the finest level the size
+		// is well above.
+		int coarser = selectLevel(screenSize, 1.0f - hysteresis);
+		int finer = selectLevel(screenSize, 1.0f + hysteresis);
+
+		if (currentLevel < coarser)
+			return coarser;
+		if (currentLevel > finer)
+			return finer;
+		return Math.min(currentLevel, levels.length - 1);
+	}
+
+	// Returns the last level whose scaled screen size is larger than the size.
+	private int selectLevel(float screenSize, float scale) {
+		int level = 0;
+		while (level + 1 < levels.length && screenSize < screenSizes[level + 1] * scale)
+			level++;
+		return level;
+	}
+
+	public Mesh getLevel(int level) {
+		return levels[level];
+	}
+
+	public int getLevelCount() {
+		return levels.length;
+	}
+
+	/**
+	 * Returns the screen size below which the level is used, 0 for level 0.
+	 */
+	public float getScreenSize(int level) {
+		return screenSizes[level];
+	}
+
+	/**
+	 * Returns the local space bounds of the full resolution level. Simplified
+	 * levels are within the same bounds.
+	 */
+	public BoundingBox getBounds() {
+		return levels[0].getBounds();
+	}
+
+	/**
+	 * Returns the local space bounding sphere of the full resolution level, used
+	 * to measure the screen size.
+	 */
+	public BoundingSphere getBoundingSphere() {
+		return levels[0].getBoundingSphere();
+	}
+
+	/**
+	 * Dispose the meshes of every level.
+	 */
+	@Override
+	public void dispose() {
+		for (Mesh level : levels)
+			level.dispose();
+	}
+
+}
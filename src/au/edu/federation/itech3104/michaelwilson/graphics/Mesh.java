@@ -4,15 +4,27 @@ import static org.lwjgl.opengl.GL11.GL_TRIANGLES;
 import static org.lwjgl.opengl.GL11.GL_UNSIGNED_INT;
 import static org.lwjgl.opengl.GL11.glDrawArrays;
 import static org.lwjgl.opengl.GL11.glDrawElements;
+import static org.lwjgl.opengl.GL31.glDrawArraysInstanced;
+import static org.lwjgl.opengl.GL31.glDrawElementsInstanced;
+import static org.lwjgl.opengl.GL32.glDrawElementsBaseVertex;
+import static org.lwjgl.opengl.GL32.glDrawElementsInstancedBaseVertex;
 
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+
+import au.edu.federation.itech3104.michaelwilson.graph.Transform;
 import au.edu.federation.itech3104.michaelwilson.graphics.data.BufferUsageHint;
 import au.edu.federation.itech3104.michaelwilson.graphics.data.ElementBuffer;
+import au.edu.federation.itech3104.michaelwilson.graphics.data.StreamingVertexBuffer;
 import au.edu.federation.itech3104.michaelwilson.graphics.data.VertexArray;
 import au.edu.federation.itech3104.michaelwilson.graphics.data.VertexBuffer;
 import au.edu.federation.itech3104.michaelwilson.graphics.data.VertexBufferLayout;
 import au.edu.federation.itech3104.michaelwilson.graphics.material.Material;
 import au.edu.federation.itech3104.michaelwilson.graphics.renderer.IDrawable;
 import au.edu.federation.itech3104.michaelwilson.graphics.renderer.IDrawableRenderer;
+import au.edu.federation.itech3104.michaelwilson.math.BoundingBox;
+import au.edu.federation.itech3104.michaelwilson.math.BoundingSphere;
+import au.edu.federation.itech3104.michaelwilson.math.Vec3f;
 
 public class Mesh implements IDisposable, IDrawable {
 
@@ -23,12 +35,37 @@ public class Mesh implements IDisposable, IDrawable {
 	private final int count;
 	private final boolean isIndexed;
 
+	// The geometry pool block storing this mesh, or null if it has its own
+	// buffers. Pooled meshes are drawn from an offset into the shared buffers.
+	private final GeometryPool.Block block;
+	private final int baseVertex;
+	private final int vertexCount;
+	private final int firstIndex;
+	private boolean isReleased;
+
+	// Bytes of vertex and index data uploaded to the GPU.
+	private final long sizeInBytes;
+
 	private final Material material;
 
+	// Local space bounds, calculated from the vertex positions.
+	private final BoundingBox bounds;
+	private final BoundingSphere boundingSphere;
+
 	public Mesh(float[] vertices, int count, BufferUsageHint usageHint, VertexBufferLayout layout, Material material) {
 		this.material = material;
 		this.count = count;
 		this.isIndexed = false;
+		this.sizeInBytes = (long) vertices.length * Float.BYTES;
+
+		int stride = layout.getStride() / Float.BYTES;
+		this.block = null;
+		this.baseVertex = 0;
+		this.vertexCount = vertices.length / stride;
+		this.firstIndex = 0;
+
+		bounds = BoundingBox.fromVertices(vertices, stride);
+		boundingSphere = BoundingSphere.fromVertices(vertices, stride, bounds);
 
 		vbo = new VertexBuffer(vertices, usageHint, layout);
 
@@ -40,6 +77,16 @@ public class Mesh implements IDisposable, IDrawable {
 		this.material = material;
 		this.count = indices.length;
 		this.isIndexed = true;
+		this.sizeInBytes = (long) vertices.length * Float.BYTES + (long) indices.length * Integer.BYTES;
+
+		int stride = layout.getStride() / Float.BYTES;
+		this.block = null;
+		this.baseVertex = 0;
+		this.vertexCount = vertices.length / stride;
+		this.firstIndex = 0;
+
+		bounds = BoundingBox.fromVertices(vertices, stride);
+		boundingSphere = BoundingSphere.fromVertices(vertices, stride, bounds);
 
 		vbo = new VertexBuffer(vertices, usageHint, layout);
 		ebo = new ElementBuffer(indices, usageHint);
@@ -48,23 +95,159 @@ public class Mesh implements IDisposable, IDrawable {
 		vao.link(vbo, ebo);
 	}
 
+	/**
+	 * Create an indexed mesh from the remaining data of direct buffers, such as
+	 * memory mapped files. The buffers are uploaded without being copied first.
+	 */
+	public Mesh(FloatBuffer vertices, IntBuffer indices, BufferUsageHint usageHint, VertexBufferLayout layout, Material material) {
+		this.material = material;
+		this.count = indices.remaining();
+		this.isIndexed = true;
+		this.sizeInBytes = (long) vertices.remaining() * Float.BYTES + (long) indices.remaining() * Integer.BYTES;
+
+		int stride = layout.getStride() / Float.BYTES;
+		this.block = null;
+		this.baseVertex = 0;
+		this.vertexCount = vertices.remaining() / stride;
+		this.firstIndex = 0;
+
+		bounds = BoundingBox.fromVertices(vertices, stride);
+		boundingSphere = BoundingSphere.fromVertices(vertices, stride, bounds);
+
+		vbo = new VertexBuffer(vertices, usageHint, layout);
+		ebo = new ElementBuffer(indices, usageHint);
+
+		vao = new VertexArray();
+		vao.link(vbo, ebo);
+	}
+
+	// Create a mesh stored in a block of a GeometryPool, after its data has been
+	// uploaded. See GeometryPool#allocate().
+	Mesh(GeometryPool.Block block, FloatBuffer vertices, int baseVertex, int vertexCount, int firstIndex, int indexCount, Material material) {
+		this.material = material;
+		this.count = indexCount;
+		this.isIndexed = true;
+		this.sizeInBytes = (long) vertices.remaining() * Float.BYTES + (long) indexCount * Integer.BYTES;
+
+		this.block = block;
+		this.baseVertex = baseVertex;
+		this.vertexCount = vertexCount;
+		this.firstIndex = firstIndex;
+
+		int stride = block.vbo.getLayout().getStride() / Float.BYTES;
+		bounds = BoundingBox.fromVertices(vertices, stride);
+		boundingSphere = BoundingSphere.fromVertices(vertices, stride, bounds);
+
+		vao = block.vao;
+		vbo = block.vbo;
+		ebo = block.ebo;
+	}
+
+	/**
+	 * Replace part of the vertex data with glBufferSubData, for meshes created
+	 * with {@link BufferUsageHint#DYNAMIC_DRAW} or
+	 * {@link BufferUsageHint#STREAM_DRAW}. The bounds grow to include the new
+	 * positions, but are never shrunk. Nodes drawing the mesh cache their world
+	 * bounds, so must be {@link Transform#markDirty() marked dirty} if the bounds
+	 * grow. For geometry that is replaced every frame
+	 * use a {@link StreamingMesh} instead.
+	 *
+	 * @param offset the index of the first float to replace.
+	 */
+	public void updateVertices(int offset, float[] vertices) {
+		int stride = vbo.getLayout().getStride() / Float.BYTES;
+		if (offset % stride != 0)
+			throw new IllegalArgumentException("offset must be at the start of a vertex");
+		if (offset < 0 || offset + vertices.length > vertexCount * stride)
+			throw new IllegalArgumentException("Update is outside the vertices of the mesh");
+
+		vbo.update(baseVertex * stride + offset, vertices);
+
+		bounds.include(BoundingBox.fromVertices(vertices, stride));
+		if (!bounds.isEmpty()) {
+			// A sphere around the whole box, since the old positions aren't known.
+			bounds.getCenter(boundingSphere.center);
+			boundingSphere.radius = Vec3f.distanceBetween(boundingSphere.center, bounds.max);
+		}
+	}
+
+	/**
+	 * Read the vertices of this mesh back from the GPU, for processing meshes at
+	 * load time. Returns a new buffer of {@link #getVertexCount()} vertices in the
+	 * layout of the mesh.
+	 */
+	public FloatBuffer readVertices() {
+		int stride = vbo.getLayout().getStride() / Float.BYTES;
+		FloatBuffer vertices = BufferUtil.createEmptyFloatBuffer(vertexCount * stride);
+
+		vbo.read(baseVertex * stride, vertices);
+		return vertices;
+	}
+
+	/**
+	 * Read the indices of this mesh back from the GPU, relative to its first
+	 * vertex. Returns a new buffer of {@link #getCount()} indices, or null if the
+	 * mesh isn't indexed.
+	 */
+	public IntBuffer readIndices() {
+		if (!isIndexed)
+			return null;
+
+		IntBuffer indices = BufferUtil.createEmptyIntBuffer(count);
+
+		vao.unbind(); // Binding the element buffer must not change a bound vertex array.
+		ebo.read(firstIndex, indices);
+		return indices;
+	}
+
 	/**
 	 * Draw mesh.
 	 */
 	@Override
 	public void draw(IDrawableRenderer renderer) {
 		vao.bind();
-		{
-			if (isIndexed) {
-				glDrawElements(GL_TRIANGLES, count, GL_UNSIGNED_INT, 0);
-			} else {
-				glDrawArrays(GL_TRIANGLES, 0, count);
-			}
-		}
+		drawBound();
 		vao.unbind();
 	}
 
+	/**
+	 * Issue the draw call for this mesh, assuming the {@link #vao} is already
+	 * bound. Used by renderers that bind the vao once for a group of draws.
+	 */
+	public void drawBound() {
+		if (block != null) {
+			glDrawElementsBaseVertex(GL_TRIANGLES, count, GL_UNSIGNED_INT, (long) firstIndex * Integer.BYTES, baseVertex);
+		} else if (isIndexed) {
+			glDrawElements(GL_TRIANGLES, count, GL_UNSIGNED_INT, 0);
+		} else {
+			glDrawArrays(GL_TRIANGLES, 0, count);
+		}
+	}
+
+	/**
+	 * Issue an instanced draw call for this mesh, assuming the {@link #vao} is
+	 * already bound with per-instance attributes linked, see
+	 * {@link VertexArray#linkInstances(StreamingVertexBuffer, int, long)}.
+	 */
+	public void drawInstancedBound(int instanceCount) {
+		if (block != null) {
+			glDrawElementsInstancedBaseVertex(GL_TRIANGLES, count, GL_UNSIGNED_INT, (long) firstIndex * Integer.BYTES, instanceCount, baseVertex);
+		} else if (isIndexed) {
+			glDrawElementsInstanced(GL_TRIANGLES, count, GL_UNSIGNED_INT, 0, instanceCount);
+		} else {
+			glDrawArraysInstanced(GL_TRIANGLES, 0, count, instanceCount);
+		}
+	}
+
 	public void dispose() {
+		if (block != null) {
+			// The buffers are shared, so just give the ranges back to the pool.
+			if (!isReleased)
+				block.free(baseVertex, vertexCount, firstIndex, count);
+			isReleased = true;
+			return;
+		}
+
 		System.out.println("Disposing mesh...");
 
 		vao.dispose();
@@ -79,4 +262,80 @@ public class Mesh implements IDisposable, IDrawable {
 		return material;
 	}
 
+	@Override
+	public Mesh getMesh() {
+		return this;
+	}
+
+	/**
+	 * Returns the local space bounding box of the vertex positions. Assumes the
+	 * position is the first attribute of the vertex layout.
+	 */
+	@Override
+	public BoundingBox getBounds() {
+		return bounds;
+	}
+
+	/**
+	 * Returns the number of vertices, or indices if the mesh is indexed, drawn by
+	 * this mesh.
+	 */
+	public int getCount() {
+		return count;
+	}
+
+	public VertexBufferLayout getLayout() {
+		return vbo.getLayout();
+	}
+
+	public boolean isIndexed() {
+		return isIndexed;
+	}
+
+	public int getVertexCount() {
+		return vertexCount;
+	}
+
+	/**
+	 * Returns the offset added to each index when drawing, which is the first
+	 * vertex of the mesh in its vertex buffer. Only pooled meshes have a non zero
+	 * base vertex.
+	 */
+	public int getBaseVertex() {
+		return baseVertex;
+	}
+
+	/**
+	 * Returns the position of the first index of the mesh in its element buffer.
+	 */
+	public int getFirstIndex() {
+		return firstIndex;
+	}
+
+	/**
+	 * Returns true if this mesh is stored in a {@link GeometryPool}.
+	 */
+	public boolean isPooled() {
+		return block != null;
+	}
+
+	// The geometry pool block storing this mesh, or null if it isn't pooled.
+	GeometryPool.Block getBlock() {
+		return block;
+	}
+
+	/**
+	 * Returns the number of bytes of vertex and index data uploaded for this mesh.
+	 */
+	public long getSizeInBytes() {
+		return sizeInBytes;
+	}
+
+	/**
+	 * Returns the local space bounding sphere of the vertex positions.
+	 */
+	public BoundingSphere getBoundingSphere() {
+		return boundingSphere;
+	}
+
 }
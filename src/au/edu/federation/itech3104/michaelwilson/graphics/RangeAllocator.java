@@ -0,0 +1,79 @@
+package au.edu.federation.itech3104.michaelwilson.graphics;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Hands out ranges of a fixed size region, such as the vertices of a buffer.
+ * Free ranges are kept sorted by offset and merged with their neighbours when
+ * freed, and allocations take the first free range that is large enough.
+ */
+final class RangeAllocator {
+
+	private final TreeMap<Integer, Integer> free = new TreeMap<>(); // offset -> size
+	private final int capacity;
+	private int used;
+
+	RangeAllocator(int capacity) {
+		this.capacity = capacity;
+		if (capacity > 0)
+			free.put(0, capacity);
+	}
+
+	/**
+	 * Returns the offset of a new range of the given size, or -1 if there isn't a
+	 * free range large enough.
+	 */
+	int allocate(int size) {
+		for (Map.Entry<Integer, Integer> range : free.entrySet()) {
+			if (range.getValue() < size)
+				continue;
+
+			int offset = range.getKey();
+			int remaining = range.getValue() - size;
+
+			free.remove(offset);
+			if (remaining > 0)
+				free.put(offset + size, remaining);
+
+			used += size;
+			return offset;
+		}
+
+		return -1;
+	}
+
+	/**
+	 * Return a range given out by {@link #allocate(int)}.
+	 */
+	void free(int offset, int size) {
+		if (size == 0)
+			return;
+
+		used -= size;
+
+		// Merge with the free range that ends where this one starts.
+		Map.Entry<Integer, Integer> before = free.floorEntry(offset);
+		if (before != null && before.getKey() + before.getValue() == offset) {
+			offset = before.getKey();
+			size += before.getValue();
+			free.remove(offset);
+		}
+
+		// Merge with the free range that starts where this one ends.
+		Integer afterSize = free.remove(offset + size);
+		if (afterSize != null)
+			size += afterSize;
+
+		free.put(offset, size);
+	}
+
+	int getCapacity() {
+		return capacity;
+	}
+
+	int getUsed() {
+		return used;
+	}
+
+}
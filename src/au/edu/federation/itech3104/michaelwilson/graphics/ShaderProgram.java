@@ -24,10 +24,15 @@ import static org.lwjgl.opengl.GL20.glUniform1f;
 import static org.lwjgl.opengl.GL20.glUniform1i;
 import static org.lwjgl.opengl.GL20.glUniform3f;
 import static org.lwjgl.opengl.GL20.glUniform3i;
+import static org.lwjgl.opengl.GL20.glUniform4f;
 import static org.lwjgl.opengl.GL20.glUniformMatrix3;
 import static org.lwjgl.opengl.GL20.glUniformMatrix4;
 import static org.lwjgl.opengl.GL20.glUseProgram;
 import static org.lwjgl.opengl.GL20.glValidateProgram;
+import static org.lwjgl.opengl.GL31.GL_INVALID_INDEX;
+import static org.lwjgl.opengl.GL31.glGetUniformBlockIndex;
+import static org.lwjgl.opengl.GL31.glUniformBlockBinding;
+import static org.lwjgl.opengl.GL43.GL_COMPUTE_SHADER;
 
 import java.io.IOException;
 import java.nio.FloatBuffer;
@@ -37,6 +42,7 @@ import java.util.HashMap;
 import java.util.Map;
 
 import au.edu.federation.itech3104.michaelwilson.camera.Camera;
+import au.edu.federation.itech3104.michaelwilson.graphics.data.VertexBufferLayout;
 import au.edu.federation.itech3104.michaelwilson.math.Mat3f;
 import au.edu.federation.itech3104.michaelwilson.math.Mat4f;
 import au.edu.federation.itech3104.michaelwilson.math.Vec3f;
@@ -49,11 +55,28 @@ public class ShaderProgram implements IBindable, IDisposable {
 	// object,
 	private final FloatBuffer matrixBuffer4x4 = BufferUtil.createEmptyFloatBuffer(4 * 4); // 4x4 matrix
 	private final FloatBuffer matrixBuffer3x3 = BufferUtil.createEmptyFloatBuffer(3 * 3); // 3x3 matrix
+	private final float[] matrixArray4x4 = new float[4 * 4];
+	private final float[] matrixArray3x3 = new float[3 * 3];
 
 	private final int id;
 	private boolean isDisposed;
 
+	// The frame the per-frame camera and lighting uniforms were last set for. See
+	// BasicRenderer#beginFrame()
+	private long cameraFrameStamp = -1;
+	private long lightingFrameStamp = -1;
+
+	// A variant of this shader reading the model matrices from per-instance
+	// attributes, or null. See BasicRenderer instancing.
+	private ShaderProgram instancedVariant;
+
+	// A variant of this shader reading the model matrices from a storage buffer
+	// indexed by draw, or null. See IndirectBatch.
+	private ShaderProgram indirectVariant;
+
 	private final Map<String, Integer> cachedUniformLocations = new HashMap<String, Integer>();
+	private final Map<String, Integer> cachedUniformBlockIndices = new HashMap<String, Integer>();
+	private final Map<String, Integer> uniformBlockBindings = new HashMap<String, Integer>();
 
 	public ShaderProgram(String vertexSource, String fragmentSource) {
 		id = glCreateProgram();
@@ -63,9 +86,27 @@ public class ShaderProgram implements IBindable, IDisposable {
 		int vertexShaderId = compileShader(ShaderType.VERTEX_SHADER, vertexSource);
 		int fragmentShaderId = compileShader(ShaderType.FRAGMENT_SHADER, fragmentSource);
 
+		link(vertexShaderId, fragmentShaderId);
+	}
+
+	/**
+	 * Create a compute shader program (OpenGL 4.3), run with glDispatchCompute
+	 * while bound.
+	 */
+	public ShaderProgram(String computeSource) {
+		id = glCreateProgram();
+		if (id == 0)
+			throw new RuntimeException("Failed to create shader program!");
+
+		link(compileShader(ShaderType.COMPUTE_SHADER, computeSource));
+	}
+
+	// Attach the compiled shaders, link and validate the program, then delete the
+	// shaders.
+	private void link(int... shaderIds) {
 		// Attach shaders to shader program.
-		glAttachShader(id, vertexShaderId);
-		glAttachShader(id, fragmentShaderId);
+		for (int shaderId : shaderIds)
+			glAttachShader(id, shaderId);
 
 		// Link shaders to shader program.
 		glLinkProgram(id);
@@ -73,10 +114,10 @@ public class ShaderProgram implements IBindable, IDisposable {
 			throw new RuntimeException("Could not link shader program: " + glGetProgramInfoLog(id, 1000));
 
 		// Delete/detach shaders as we no longer need them.
-		glDetachShader(id, vertexShaderId);
-		glDetachShader(id, fragmentShaderId);
-		glDeleteShader(vertexShaderId);
-		glDeleteShader(fragmentShaderId);
+		for (int shaderId : shaderIds) {
+			glDetachShader(id, shaderId);
+			glDeleteShader(shaderId);
+		}
 
 		// Validate shader program.
 		glValidateProgram(id);
@@ -92,6 +133,11 @@ public class ShaderProgram implements IBindable, IDisposable {
 		return new ShaderProgram(vertexShader, fragmentShader);
 	}
 
+	// Helper method for loading compute shader programs from file.
+	public static ShaderProgram fromComputeFile(String computeShaderFilename) throws IOException {
+		return new ShaderProgram(new String(Files.readAllBytes(Paths.get(computeShaderFilename))));
+	}
+
 	// Compile the shader source code and return the shader id.
 	private static int compileShader(ShaderType type, String shaderContent) {
 		int id = glCreateShader(type.getId());
@@ -121,24 +167,21 @@ public class ShaderProgram implements IBindable, IDisposable {
 	}
 
 	public void setUniform(String name, int value) {
-		int location = getUniformLocation(name);
-		glUniform1i(location, value);
+		setUniform(getUniformLocation(name), value);
 
 		if (DEBUG)
 			System.out.println(String.format("%s = %d", name, value));
 	}
 
 	public void setUniform(String name, float value) {
-		int location = getUniformLocation(name);
-		glUniform1f(location, value);
+		setUniform(getUniformLocation(name), value);
 
 		if (DEBUG)
 			System.out.println(String.format("%s = %.2f", name, value));
 	}
 
 	public void setUniform(String name, boolean value) {
-		int location = getUniformLocation(name);
-		glUniform1i(location, value ? 1 : 0);
+		setUniform(getUniformLocation(name), value);
 
 		if (DEBUG)
 			System.out.println(String.format("%s = %s", name, value + ""));
@@ -149,43 +192,84 @@ public class ShaderProgram implements IBindable, IDisposable {
 	}
 
 	public void setUniform(String name, float x, float y, float z) {
-		int location = getUniformLocation(name);
-		glUniform3f(location, x, y, z);
+		setUniform(getUniformLocation(name), x, y, z);
 
 		if (DEBUG)
 			System.out.println(String.format("%s = [%.2f,%.2f,%.2f]", name, x, y, z));
 	}
 
+	public void setUniform(String name, float x, float y, float z, float w) {
+		setUniform(getUniformLocation(name), x, y, z, w);
+
+		if (DEBUG)
+			System.out.println(String.format("%s = [%.2f,%.2f,%.2f,%.2f]", name, x, y, z, w));
+	}
+
 	public void setUniform(String name, Vec3i value) {
-		int location = getUniformLocation(name);
-		glUniform3i(location, value.x, value.y, value.z);
+		setUniform(getUniformLocation(name), value);
 
 		if (DEBUG)
 			System.out.println(String.format("%s = [%d,%d,%d]", name, value.x, value.y, value.z));
 	}
 
 	public void setUniform(String name, Mat4f value) {
-		int location = getUniformLocation(name);
-
-		matrixBuffer4x4.put(value.toArray());
-		matrixBuffer4x4.flip();
-
-		glUniformMatrix4(location, false, matrixBuffer4x4);
+		setUniform(getUniformLocation(name), value);
 
 		if (DEBUG)
 			System.out.println(String.format("%s = (mat4)", name));
 	}
 
 	public void setUniform(String name, Mat3f value) {
-		int location = getUniformLocation(name);
+		setUniform(getUniformLocation(name), value);
+
+		if (DEBUG)
+			System.out.println(String.format("%s = (mat3)", name));
+	}
+
+	// Location based setters. Use getUniformLocation(s) to resolve the locations
+	// once, avoiding building names and looking them up every time a uniform is
+	// set.
 
-		matrixBuffer3x3.put(value.toArray());
+	public void setUniform(int location, int value) {
+		glUniform1i(location, value);
+	}
+
+	public void setUniform(int location, float value) {
+		glUniform1f(location, value);
+	}
+
+	public void setUniform(int location, boolean value) {
+		glUniform1i(location, value ? 1 : 0);
+	}
+
+	public void setUniform(int location, Vec3f value) {
+		glUniform3f(location, value.x, value.y, value.z);
+	}
+
+	public void setUniform(int location, float x, float y, float z) {
+		glUniform3f(location, x, y, z);
+	}
+
+	public void setUniform(int location, float x, float y, float z, float w) {
+		glUniform4f(location, x, y, z, w);
+	}
+
+	public void setUniform(int location, Vec3i value) {
+		glUniform3i(location, value.x, value.y, value.z);
+	}
+
+	public void setUniform(int location, Mat4f value) {
+		matrixBuffer4x4.put(value.toArray(matrixArray4x4));
+		matrixBuffer4x4.flip();
+
+		glUniformMatrix4(location, false, matrixBuffer4x4);
+	}
+
+	public void setUniform(int location, Mat3f value) {
+		matrixBuffer3x3.put(value.toArray(matrixArray3x3));
 		matrixBuffer3x3.flip();
 
 		glUniformMatrix3(location, false, matrixBuffer3x3);
-
-		if (DEBUG)
-			System.out.println(String.format("%s = (mat3)", name));
 	}
 
 	/**
@@ -222,6 +306,114 @@ public class ShaderProgram implements IBindable, IDisposable {
 		return cachedUniformLocations.get(uniformName);
 	}
 
+	/**
+	 * Return the cached uniform block index or get the uniform block index if it
+	 * wasn't already cached.
+	 * 
+	 * @return the block index, or GL_INVALID_INDEX if this shader doesn't have the
+	 *         uniform block.
+	 */
+	public int getUniformBlockIndex(String blockName) {
+		Integer index = cachedUniformBlockIndices.get(blockName);
+		if (index == null) {
+			index = glGetUniformBlockIndex(id, blockName);
+			cachedUniformBlockIndices.put(blockName, index);
+		}
+
+		return index;
+	}
+
+	/**
+	 * Assign the named uniform block to a uniform buffer binding point. Does nothing
+	 * if the block is already assigned to the binding point.
+	 * 
+	 * @return true if this shader has the uniform block, otherwise false.
+	 */
+	public boolean bindUniformBlock(String blockName, int bindingPoint) {
+		int index = getUniformBlockIndex(blockName);
+		if (index == GL_INVALID_INDEX)
+			return false;
+
+		Integer binding = uniformBlockBindings.get(blockName);
+		if (binding == null || binding != bindingPoint) {
+			glUniformBlockBinding(id, index, bindingPoint);
+			uniformBlockBindings.put(blockName, bindingPoint);
+		}
+
+		return true;
+	}
+
+	/**
+	 * Returns the variant of this shader used to draw many instances of a mesh in
+	 * one draw call, or null if there isn't one.
+	 */
+	public ShaderProgram getInstancedVariant() {
+		return instancedVariant;
+	}
+
+	/**
+	 * Set the variant of this shader used for instanced draws. The variant must
+	 * have the same uniforms, but read the model matrix and normal matrix from the
+	 * per-instance attributes of {@link VertexBufferLayout#InstanceMatrices},
+	 * starting at location 3.
+	 */
+	public void setInstancedVariant(ShaderProgram instancedVariant) {
+		this.instancedVariant = instancedVariant;
+	}
+
+	/**
+	 * Returns the variant of this shader used to draw an {@link IndirectBatch},
+	 * or null if there isn't one.
+	 */
+	public ShaderProgram getIndirectVariant() {
+		return indirectVariant;
+	}
+
+	/**
+	 * Set the variant of this shader used for multi-draw indirect batches. The
+	 * variant must have the same uniforms, but read the per-draw matrices from the
+	 * {@link IndirectBatch#DRAW_DATA_BINDING} storage block, indexed by the
+	 * per-instance draw index at {@link IndirectBatch#DRAW_INDEX_LOCATION}.
+	 */
+	public void setIndirectVariant(ShaderProgram indirectVariant) {
+		this.indirectVariant = indirectVariant;
+	}
+
+	public long getCameraFrameStamp() {
+		return cameraFrameStamp;
+	}
+
+	/**
+	 * Set the frame number the camera uniforms were last uploaded for.
+	 */
+	public void setCameraFrameStamp(long cameraFrameStamp) {
+		this.cameraFrameStamp = cameraFrameStamp;
+	}
+
+	public long getLightingFrameStamp() {
+		return lightingFrameStamp;
+	}
+
+	/**
+	 * Set the frame number the lighting uniforms were last uploaded for.
+	 */
+	public void setLightingFrameStamp(long lightingFrameStamp) {
+		this.lightingFrameStamp = lightingFrameStamp;
+	}
+
+	/**
+	 * Returns a new array containing the uniform location of each name, in the
+	 * same order. See {@link #getUniformLocation(String)}.
+	 */
+	public int[] getUniformLocations(String... uniformNames) {
+		int[] locations = new int[uniformNames.length];
+
+		for (int i = 0; i < uniformNames.length; i++)
+			locations[i] = getUniformLocation(uniformNames[i]);
+
+		return locations;
+	}
+
 	@Override
 	public int getId() {
 		return id;
@@ -241,7 +433,7 @@ public class ShaderProgram implements IBindable, IDisposable {
 	}
 
 	public static enum ShaderType {
-		VERTEX_SHADER(GL_VERTEX_SHADER), FRAGMENT_SHADER(GL_FRAGMENT_SHADER);
+		VERTEX_SHADER(GL_VERTEX_SHADER), FRAGMENT_SHADER(GL_FRAGMENT_SHADER), COMPUTE_SHADER(GL_COMPUTE_SHADER);
 
 		private final int id;
 
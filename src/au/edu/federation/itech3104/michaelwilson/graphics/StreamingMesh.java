@@ -0,0 +1,90 @@
+package au.edu.federation.itech3104.michaelwilson.graphics;
+
+import static org.lwjgl.opengl.GL11.GL_TRIANGLES;
+import static org.lwjgl.opengl.GL11.glDrawArrays;
+
+import java.nio.FloatBuffer;
+
+import au.edu.federation.itech3104.michaelwilson.graphics.data.StreamingVertexBuffer;
+import au.edu.federation.itech3104.michaelwilson.graphics.data.VertexArray;
+import au.edu.federation.itech3104.michaelwilson.graphics.data.VertexBufferLayout;
+import au.edu.federation.itech3104.michaelwilson.graphics.material.Material;
+import au.edu.federation.itech3104.michaelwilson.graphics.renderer.IDrawable;
+import au.edu.federation.itech3104.michaelwilson.graphics.renderer.IDrawableRenderer;
+
+/**
+ * A non-indexed triangle mesh whose vertices are written again every frame,
+ * such as procedural geometry. The vertices are stored in a
+ * {@link StreamingVertexBuffer}, so writing them doesn't reallocate GPU storage
+ * or wait for the GPU to finish drawing the previous frames.<br>
+ * <br>
+ * Write the vertices between {@link #begin()} and {@link #end()} before the
+ * mesh is drawn. The bounds are unknown, so the mesh is never culled.
+ */
+public class StreamingMesh implements IDisposable, IDrawable {
+
+	public final VertexArray vao;
+	private final StreamingVertexBuffer vbo;
+
+	private final Material material;
+
+	public StreamingMesh(int vertexCapacity, VertexBufferLayout layout, Material material) {
+		this(new StreamingVertexBuffer(vertexCapacity, layout), material);
+	}
+
+	public StreamingMesh(StreamingVertexBuffer vbo, Material material) {
+		this.vbo = vbo;
+		this.material = material;
+
+		vao = new VertexArray();
+		vao.link(vbo);
+	}
+
+	/**
+	 * Start writing this frame's vertices.
+	 *
+	 * @see StreamingVertexBuffer#begin()
+	 */
+	public FloatBuffer begin() {
+		return vbo.begin();
+	}
+
+	/**
+	 * Finish writing this frame's vertices.
+	 *
+	 * @return the number of vertices written.
+	 */
+	public int end() {
+		return vbo.end();
+	}
+
+	@Override
+	public void draw(IDrawableRenderer renderer) {
+		if (vbo.getVertexCount() == 0)
+			return;
+
+		vao.bind();
+		glDrawArrays(GL_TRIANGLES, vbo.getFirstVertex(), vbo.getVertexCount());
+		vao.unbind();
+
+		vbo.fence(); // The section can be written again once this draw has finished.
+	}
+
+	@Override
+	public Material getMaterial() {
+		return material;
+	}
+
+	public StreamingVertexBuffer getVertexBuffer() {
+		return vbo;
+	}
+
+	@Override
+	public void dispose() {
+		System.out.println("Disposing streaming mesh...");
+
+		vao.dispose();
+		vbo.dispose();
+	}
+
+}
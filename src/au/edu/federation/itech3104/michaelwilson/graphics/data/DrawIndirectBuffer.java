@@ -0,0 +1,150 @@
+package au.edu.federation.itech3104.michaelwilson.graphics.data;
+
+import static org.lwjgl.opengl.GL11.GL_UNSIGNED_INT;
+import static org.lwjgl.opengl.GL15.glBindBuffer;
+import static org.lwjgl.opengl.GL15.glBufferData;
+import static org.lwjgl.opengl.GL15.glBufferSubData;
+import static org.lwjgl.opengl.GL15.glDeleteBuffers;
+import static org.lwjgl.opengl.GL15.glGenBuffers;
+import static org.lwjgl.opengl.GL15.glGetBufferSubData;
+import static org.lwjgl.opengl.GL30.GL_R32UI;
+import static org.lwjgl.opengl.GL30.GL_RED_INTEGER;
+import static org.lwjgl.opengl.GL30.glBindBufferBase;
+import static org.lwjgl.opengl.GL40.GL_DRAW_INDIRECT_BUFFER;
+import static org.lwjgl.opengl.GL43.GL_SHADER_STORAGE_BUFFER;
+import static org.lwjgl.opengl.GL43.nglClearBufferData;
+
+import java.nio.IntBuffer;
+
+import au.edu.federation.itech3104.michaelwilson.graphics.IBindable;
+import au.edu.federation.itech3104.michaelwilson.graphics.IDisposable;
+
+/**
+ * A buffer of indexed draw commands, read by glMultiDrawElementsIndirect. Each
+ * command is five unsigned ints: count, instanceCount, firstIndex, baseVertex
+ * and baseInstance.<br>
+ * <br>
+ * Commands can also be written by compute shaders, by binding the buffer as a
+ * shader storage buffer with {@link #bindBase(int)}.
+ */
+public final class DrawIndirectBuffer implements IBindable, IDisposable {
+
+	public static final int COMMAND_INTS = 5;
+	public static final int COMMAND_SIZE = COMMAND_INTS * Integer.BYTES; // in bytes, the stride of tightly packed commands
+
+	private final int id;
+	private final int commandCount;
+	private boolean isDisposed;
+
+	/**
+	 * Create a buffer holding the commands in the remaining ints of the buffer.
+	 */
+	public DrawIndirectBuffer(IntBuffer commands, BufferUsageHint usageHint) {
+		if (commands.remaining() % COMMAND_INTS != 0)
+			throw new IllegalArgumentException("Command data must be whole commands of " + COMMAND_INTS + " ints");
+
+		commandCount = commands.remaining() / COMMAND_INTS;
+
+		id = glGenBuffers();
+
+		bind();
+		glBufferData(GL_DRAW_INDIRECT_BUFFER, commands, usageHint.getHint()); // Set command data.
+		unbind();
+	}
+
+	/**
+	 * Create an uninitialised buffer with room for the given number of commands.
+	 */
+	public DrawIndirectBuffer(int commandCount, BufferUsageHint usageHint) {
+		this.commandCount = commandCount;
+
+		id = glGenBuffers();
+
+		bind();
+		glBufferData(GL_DRAW_INDIRECT_BUFFER, (long) commandCount * COMMAND_SIZE, usageHint.getHint()); // Allocate command storage.
+		unbind();
+	}
+
+	/**
+	 * Replace commands starting at the given command index with the remaining
+	 * ints of the buffer.
+	 */
+	public void update(int firstCommand, IntBuffer commands) {
+		if (commands.remaining() % COMMAND_INTS != 0)
+			throw new IllegalArgumentException("Command data must be whole commands of " + COMMAND_INTS + " ints");
+		if (firstCommand < 0 || firstCommand + commands.remaining() / COMMAND_INTS > commandCount)
+			throw new IllegalArgumentException("Update at command " + firstCommand + " is outside the buffer capacity of " + commandCount);
+
+		bind();
+		glBufferSubData(GL_DRAW_INDIRECT_BUFFER, (long) firstCommand * COMMAND_SIZE, commands);
+		unbind();
+	}
+
+	/**
+	 * Set every command to zero, so they draw nothing.
+	 */
+	public void clear() {
+		bind();
+		nglClearBufferData(GL_DRAW_INDIRECT_BUFFER, GL_R32UI, GL_RED_INTEGER, GL_UNSIGNED_INT, 0L); // No data fills with zeros.
+		unbind();
+	}
+
+	/**
+	 * Read commands starting at the given command index back from the GPU into
+	 * the remaining ints of dest, waiting for any commands writing them to
+	 * finish. Slow, used for debugging.
+	 */
+	public void read(int firstCommand, IntBuffer dest) {
+		bind();
+		glGetBufferSubData(GL_DRAW_INDIRECT_BUFFER, (long) firstCommand * COMMAND_SIZE, dest);
+		unbind();
+	}
+
+	/**
+	 * Bind this buffer to a shader storage binding point, so compute shaders can
+	 * read or write the commands.
+	 */
+	public void bindBase(int bindingPoint) {
+		if (isDisposed)
+			return;
+		glBindBufferBase(GL_SHADER_STORAGE_BUFFER, bindingPoint, id);
+	}
+
+	/**
+	 * Returns the number of commands this buffer can hold.
+	 */
+	public int getCommandCount() {
+		return commandCount;
+	}
+
+	@Override
+	public void bind() {
+		if (isDisposed)
+			return;
+		glBindBuffer(GL_DRAW_INDIRECT_BUFFER, id);
+	}
+
+	@Override
+	public void unbind() {
+		glBindBuffer(GL_DRAW_INDIRECT_BUFFER, 0);
+	}
+
+	@Override
+	public int getId() {
+		return id;
+	}
+
+	@Override
+	public void dispose() {
+		if (isDisposed)
+			return;
+
+		System.out.println("Disposing draw indirect buffer...");
+
+		unbind();
+		glDeleteBuffers(id);
+
+		isDisposed = true;
+	}
+
+}
@@ -3,8 +3,10 @@ package au.edu.federation.itech3104.michaelwilson.graphics.data;
 import static org.lwjgl.opengl.GL15.GL_ELEMENT_ARRAY_BUFFER;
 import static org.lwjgl.opengl.GL15.glBindBuffer;
 import static org.lwjgl.opengl.GL15.glBufferData;
+import static org.lwjgl.opengl.GL15.glBufferSubData;
 import static org.lwjgl.opengl.GL15.glDeleteBuffers;
 import static org.lwjgl.opengl.GL15.glGenBuffers;
+import static org.lwjgl.opengl.GL15.glGetBufferSubData;
 
 import java.nio.IntBuffer;
 
@@ -16,12 +18,16 @@ public final class ElementBuffer implements IBindable, IDisposable {
 
 	private final int id;
 	private boolean isDisposed;
+
+	private final int capacity; // in indices
 	
 	public ElementBuffer(int[] data, BufferUsageHint usageHint) {
 		this(BufferUtil.createIntBuffer(data), usageHint);
 	}
 
 	public ElementBuffer(IntBuffer buffer, BufferUsageHint usageHint) {
+		capacity = buffer.remaining();
+
 		id = glGenBuffers();
 
 		bind();
@@ -29,6 +35,67 @@ public final class ElementBuffer implements IBindable, IDisposable {
 		unbind();
 	}
 
+	/**
+	 * Create an uninitialised buffer with room for the given number of indices, to
+	 * be filled with {@link #update(int, IntBuffer)}.
+	 */
+	public ElementBuffer(int capacity, BufferUsageHint usageHint) {
+		this.capacity = capacity;
+
+		id = glGenBuffers();
+
+		bind();
+		glBufferData(GL_ELEMENT_ARRAY_BUFFER, (long) capacity * Integer.BYTES, usageHint.getHint()); // Allocate EBO storage.
+		unbind();
+	}
+
+	/**
+	 * Replace part of the buffer data with glBufferSubData, without reallocating
+	 * the buffer storage. Must not be called while a vertex array is bound, since
+	 * binding the buffer would change the vertex array's element buffer.
+	 *
+	 * @param offset the index of the first index to replace.
+	 * @param data   the remaining indices of the buffer are uploaded.
+	 */
+	public void update(int offset, IntBuffer data) {
+		if (offset < 0 || offset + data.remaining() > capacity)
+			throw new IllegalArgumentException("Update of " + data.remaining() + " indices at " + offset + " is outside the buffer capacity of " + capacity);
+
+		bind();
+		glBufferSubData(GL_ELEMENT_ARRAY_BUFFER, (long) offset * Integer.BYTES, data);
+		unbind();
+	}
+
+	/**
+	 * Replace part of the buffer data, see {@link #update(int, IntBuffer)}.
+	 */
+	public void update(int offset, int[] data) {
+		update(offset, BufferUtil.createIntBuffer(data));
+	}
+
+	/**
+	 * Read part of the buffer data back from the GPU into the remaining indices of
+	 * dest. Slow, used for processing meshes at load time. Must not be called while
+	 * a vertex array is bound, as for {@link #update(int, IntBuffer)}.
+	 *
+	 * @param offset the index of the first index to read.
+	 */
+	public void read(int offset, IntBuffer dest) {
+		if (offset < 0 || offset + dest.remaining() > capacity)
+			throw new IllegalArgumentException("Read of " + dest.remaining() + " indices at " + offset + " is outside the buffer capacity of " + capacity);
+
+		bind();
+		glGetBufferSubData(GL_ELEMENT_ARRAY_BUFFER, (long) offset * Integer.BYTES, dest);
+		unbind();
+	}
+
+	/**
+	 * Returns the size of the buffer in indices.
+	 */
+	public int getCapacity() {
+		return capacity;
+	}
+
 	@Override
 	public void bind() {
 		if (isDisposed)
@@ -0,0 +1,145 @@
+package au.edu.federation.itech3104.michaelwilson.graphics.data;
+
+import static org.lwjgl.opengl.GL15.glBindBuffer;
+import static org.lwjgl.opengl.GL15.glBufferData;
+import static org.lwjgl.opengl.GL15.glBufferSubData;
+import static org.lwjgl.opengl.GL15.glDeleteBuffers;
+import static org.lwjgl.opengl.GL11.GL_UNSIGNED_INT;
+import static org.lwjgl.opengl.GL15.glGenBuffers;
+import static org.lwjgl.opengl.GL15.glGetBufferSubData;
+import static org.lwjgl.opengl.GL30.GL_R32UI;
+import static org.lwjgl.opengl.GL30.GL_RED_INTEGER;
+import static org.lwjgl.opengl.GL30.glBindBufferBase;
+import static org.lwjgl.opengl.GL43.GL_SHADER_STORAGE_BUFFER;
+import static org.lwjgl.opengl.GL43.nglClearBufferData;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+
+import au.edu.federation.itech3104.michaelwilson.graphics.IBindable;
+import au.edu.federation.itech3104.michaelwilson.graphics.IDisposable;
+
+/**
+ * A Shader Storage Buffer Object. Holds data read (or written) by GLSL buffer
+ * blocks, which can be much larger than uniform blocks. Needs OpenGL 4.3.
+ *
+ * @see #bindBase(int)
+ */
+public final class ShaderStorageBuffer implements IBindable, IDisposable {
+
+	private final int id;
+	private final int size;
+	private boolean isDisposed;
+
+	/**
+	 * Create a storage buffer holding the remaining bytes of the data.
+	 */
+	public ShaderStorageBuffer(ByteBuffer data, BufferUsageHint usageHint) {
+		this.size = data.remaining();
+
+		id = glGenBuffers();
+
+		bind();
+		glBufferData(GL_SHADER_STORAGE_BUFFER, data, usageHint.getHint()); // Set SSBO data.
+		unbind();
+	}
+
+	/**
+	 * Create a storage buffer with uninitialised storage.
+	 *
+	 * @param size the size in bytes.
+	 */
+	public ShaderStorageBuffer(int size, BufferUsageHint usageHint) {
+		this.size = size;
+
+		id = glGenBuffers();
+
+		bind();
+		glBufferData(GL_SHADER_STORAGE_BUFFER, size, usageHint.getHint()); // Allocate SSBO storage.
+		unbind();
+	}
+
+	/**
+	 * Replace part of this buffer with the remaining bytes of the data.
+	 *
+	 * @param offset the offset in bytes.
+	 */
+	public void update(long offset, ByteBuffer data) {
+		if (offset < 0 || offset + data.remaining() > size)
+			throw new IllegalArgumentException("Update of " + data.remaining() + " bytes at " + offset + " is outside the buffer size of " + size);
+
+		bind();
+		glBufferSubData(GL_SHADER_STORAGE_BUFFER, offset, data);
+		unbind();
+	}
+
+	/**
+	 * Set every byte of this buffer to zero. The size must be a multiple of 4
+	 * bytes.
+	 */
+	public void clear() {
+		bind();
+		nglClearBufferData(GL_SHADER_STORAGE_BUFFER, GL_R32UI, GL_RED_INTEGER, GL_UNSIGNED_INT, 0L); // No data fills with zeros.
+		unbind();
+	}
+
+	/**
+	 * Read part of this buffer back from the GPU into the remaining ints of dest,
+	 * waiting for any shaders writing it to finish. Slow, used for debugging.
+	 *
+	 * @param offset the offset in bytes.
+	 */
+	public void read(long offset, IntBuffer dest) {
+		bind();
+		glGetBufferSubData(GL_SHADER_STORAGE_BUFFER, offset, dest);
+		unbind();
+	}
+
+	/**
+	 * Bind this buffer to a shader storage binding point, as declared by the
+	 * binding layout qualifier of a GLSL buffer block.
+	 */
+	public void bindBase(int bindingPoint) {
+		if (isDisposed)
+			return;
+		glBindBufferBase(GL_SHADER_STORAGE_BUFFER, bindingPoint, id);
+	}
+
+	@Override
+	public void bind() {
+		if (isDisposed)
+			return;
+		glBindBuffer(GL_SHADER_STORAGE_BUFFER, id);
+	}
+
+	@Override
+	public void unbind() {
+		glBindBuffer(GL_SHADER_STORAGE_BUFFER, 0);
+	}
+
+	@Override
+	public int getId() {
+		return id;
+	}
+
+	/**
+	 * Returns the size of this buffer in bytes.
+	 */
+	public int getSize() {
+		return size;
+	}
+
+	@Override
+	public void dispose() {
+		if (isDisposed)
+			return;
+
+		System.out.println("Disposing SSBO...");
+
+		unbind();
+		glDeleteBuffers(id);
+
+		isDisposed = true;
+	}
+
+}
@@ -0,0 +1,321 @@
+package au.edu.federation.itech3104.michaelwilson.graphics.data;
+
+import static org.lwjgl.opengl.GL15.GL_ARRAY_BUFFER;
+import static org.lwjgl.opengl.GL15.GL_STREAM_DRAW;
+import static org.lwjgl.opengl.GL15.glBindBuffer;
+import static org.lwjgl.opengl.GL15.glBufferData;
+import static org.lwjgl.opengl.GL15.glBufferSubData;
+import static org.lwjgl.opengl.GL15.glDeleteBuffers;
+import static org.lwjgl.opengl.GL15.glGenBuffers;
+import static org.lwjgl.opengl.GL15.glUnmapBuffer;
+import static org.lwjgl.opengl.GL30.GL_MAP_WRITE_BIT;
+import static org.lwjgl.opengl.GL30.glMapBufferRange;
+import static org.lwjgl.opengl.GL32.GL_SYNC_FLUSH_COMMANDS_BIT;
+import static org.lwjgl.opengl.GL32.GL_SYNC_GPU_COMMANDS_COMPLETE;
+import static org.lwjgl.opengl.GL32.GL_TIMEOUT_EXPIRED;
+import static org.lwjgl.opengl.GL32.GL_WAIT_FAILED;
+import static org.lwjgl.opengl.GL32.glClientWaitSync;
+import static org.lwjgl.opengl.GL32.glDeleteSync;
+import static org.lwjgl.opengl.GL32.glFenceSync;
+import static org.lwjgl.opengl.GL44.GL_MAP_COHERENT_BIT;
+import static org.lwjgl.opengl.GL44.GL_MAP_PERSISTENT_BIT;
+import static org.lwjgl.opengl.GL44.glBufferStorage;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+
+import org.lwjgl.opengl.ContextCapabilities;
+import org.lwjgl.opengl.GL;
+
+import au.edu.federation.itech3104.michaelwilson.graphics.BufferUtil;
+import au.edu.federation.itech3104.michaelwilson.graphics.IBindable;
+import au.edu.federation.itech3104.michaelwilson.graphics.IDisposable;
+
+/**
+ * A vertex buffer for data that is written again every frame. The buffer is a
+ * ring of sections (three by default) that is mapped once and stays mapped, so
+ * writing vertices never reallocates GPU storage. Each frame writes the next
+ * section, while the GPU may still be reading the previous ones. A fence is
+ * placed after the draws that use a section, and the CPU only waits on it if it
+ * comes back around to that section before the GPU has finished with it.<br>
+ * <br>
+ * If persistent mapping isn't supported (it needs OpenGL 4.4 or
+ * ARB_buffer_storage), a single section is used instead, uploaded with
+ * glBufferSubData after orphaning the old storage.<br>
+ * <br>
+ * Usage each frame: {@link #begin()}, write whole vertices into the returned
+ * buffer, {@link #end()}, draw {@link #getVertexCount()} vertices starting at
+ * {@link #getFirstVertex()}, then {@link #fence()}.
+ */
+public final class StreamingVertexBuffer implements IBindable, IDisposable {
+
+	public static final int DEFAULT_SECTION_COUNT = 3;
+
+	private static final int MAP_FLAGS = GL_MAP_WRITE_BIT | GL_MAP_PERSISTENT_BIT | GL_MAP_COHERENT_BIT;
+
+	private static final long WAIT_TIMEOUT_NANOS = 1_000_000L; // 1ms
+
+	private final int id;
+	private boolean isDisposed;
+
+	private final VertexBufferLayout layout;
+	private final int floatsPerVertex;
+
+	private final int vertexCapacity; // per section
+	private final int sectionCount;
+	private final boolean isPersistent;
+
+	// The whole mapped ring if persistent, otherwise a client side copy of one
+	// section that is uploaded by end().
+	private final FloatBuffer data;
+
+	private final long[] fences; // 0 if the section has no fence.
+
+	private int section;
+	private FloatBuffer writer; // Not null between begin() and end().
+
+	private int firstVertex;
+	private int vertexCount;
+
+	private int stallCount;
+
+	/**
+	 * Create a streaming buffer with room for the given number of vertices each
+	 * frame, persistently mapped if it is supported.
+	 */
+	public StreamingVertexBuffer(int vertexCapacity, VertexBufferLayout layout) {
+		this(vertexCapacity, layout, DEFAULT_SECTION_COUNT, isPersistentMappingSupported());
+	}
+
+	/**
+	 * @param vertexCapacity the number of vertices that can be written each frame.
+	 * @param sectionCount   the number of frames that can be in flight, used if
+	 *                       persistent.
+	 * @param persistent     true to use a persistently mapped ring, false to
+	 *                       upload with glBufferSubData.
+	 */
+	public StreamingVertexBuffer(int vertexCapacity, VertexBufferLayout layout, int sectionCount, boolean persistent) {
+		if (vertexCapacity <= 0)
+			throw new IllegalArgumentException("vertexCapacity must be positive");
+		if (sectionCount <= 0)
+			throw new IllegalArgumentException("sectionCount must be positive");
+
+		this.layout = layout;
+		this.floatsPerVertex = layout.getStride() / Float.BYTES;
+		this.vertexCapacity = vertexCapacity;
+		this.sectionCount = persistent ? sectionCount : 1;
+		this.isPersistent = persistent;
+		this.fences = new long[this.sectionCount];
+		this.section = this.sectionCount - 1; // The first begin() moves to section 0.
+
+		long sectionBytes = (long) getSectionSize() * Float.BYTES;
+
+		id = glGenBuffers();
+
+		bind();
+
+		if (persistent) {
+			long size = sectionBytes * this.sectionCount;
+			glBufferStorage(GL_ARRAY_BUFFER, size, MAP_FLAGS); // Immutable storage, so it can stay mapped.
+
+			ByteBuffer mapped = glMapBufferRange(GL_ARRAY_BUFFER, 0, size, MAP_FLAGS);
+			if (mapped == null)
+				throw new RuntimeException("Failed to map streaming vertex buffer!");
+
+			data = mapped.order(ByteOrder.nativeOrder()).asFloatBuffer();
+		} else {
+			glBufferData(GL_ARRAY_BUFFER, sectionBytes, GL_STREAM_DRAW);
+			data = BufferUtil.createEmptyFloatBuffer(getSectionSize());
+		}
+
+		unbind();
+	}
+
+	/**
+	 * Returns true if the current OpenGL context supports persistently mapped
+	 * buffers.
+	 */
+	public static boolean isPersistentMappingSupported() {
+		ContextCapabilities capabilities = GL.getCapabilities();
+		return capabilities.OpenGL44 || capabilities.GL_ARB_buffer_storage;
+	}
+
+	/**
+	 * Start writing the vertices for a frame, waiting for the GPU to finish with
+	 * the next section first if it hasn't already. The returned buffer starts at
+	 * the first vertex and has room for the vertex capacity.
+	 */
+	public FloatBuffer begin() {
+		if (writer != null)
+			throw new IllegalStateException("begin() was called twice without end()");
+
+		section = (section + 1) % sectionCount;
+
+		if (isPersistent) {
+			waitForFence(section);
+
+			FloatBuffer view = data.duplicate();
+			view.limit((section + 1) * getSectionSize());
+			view.position(section * getSectionSize());
+			writer = view.slice();
+		} else {
+			data.clear();
+			writer = data;
+		}
+
+		return writer;
+	}
+
+	/**
+	 * Finish writing the vertices for the frame, uploading them if the buffer isn't
+	 * persistent.
+	 *
+	 * @return the number of vertices written.
+	 */
+	public int end() {
+		if (writer == null)
+			throw new IllegalStateException("end() was called without begin()");
+
+		int written = writer.position();
+		if (written % floatsPerVertex != 0)
+			throw new IllegalStateException("Only part of a vertex was written: " + written + " floats with " + floatsPerVertex + " per vertex");
+
+		if (!isPersistent) {
+			writer.flip();
+
+			bind();
+			glBufferData(GL_ARRAY_BUFFER, (long) getSectionSize() * Float.BYTES, GL_STREAM_DRAW); // Orphan the old storage instead of waiting for it.
+			glBufferSubData(GL_ARRAY_BUFFER, 0, writer);
+			unbind();
+		}
+
+		vertexCount = written / floatsPerVertex;
+		firstVertex = section * vertexCapacity;
+		writer = null;
+
+		return vertexCount;
+	}
+
+	/**
+	 * Place a fence after the draws that read the current section, so it isn't
+	 * written again until the GPU has finished with it. Must be called after the
+	 * last draw of the frame that uses this buffer.
+	 */
+	public void fence() {
+		if (!isPersistent)
+			return;
+
+		if (fences[section] != 0)
+			glDeleteSync(fences[section]); // Drawn again this frame, the new fence covers both.
+
+		fences[section] = glFenceSync(GL_SYNC_GPU_COMMANDS_COMPLETE, 0);
+	}
+
+	private void waitForFence(int index) {
+		long fence = fences[index];
+		if (fence == 0)
+			return;
+
+		int result = glClientWaitSync(fence, 0, 0);
+		if (result == GL_TIMEOUT_EXPIRED) {
+			stallCount++; // The GPU is more than sectionCount frames behind.
+
+			do {
+				result = glClientWaitSync(fence, GL_SYNC_FLUSH_COMMANDS_BIT, WAIT_TIMEOUT_NANOS);
+			} while (result == GL_TIMEOUT_EXPIRED);
+		}
+
+		glDeleteSync(fence);
+		fences[index] = 0;
+
+		if (result == GL_WAIT_FAILED)
+			throw new RuntimeException("Failed to wait for streaming vertex buffer fence!");
+	}
+
+	/**
+	 * Returns the index of the first vertex written by the last {@link #end()},
+	 * for use as the first vertex of draw calls.
+	 */
+	public int getFirstVertex() {
+		return firstVertex;
+	}
+
+	/**
+	 * Returns the number of vertices written by the last {@link #end()}.
+	 */
+	public int getVertexCount() {
+		return vertexCount;
+	}
+
+	/**
+	 * Returns the number of vertices that can be written each frame.
+	 */
+	public int getVertexCapacity() {
+		return vertexCapacity;
+	}
+
+	public int getSectionCount() {
+		return sectionCount;
+	}
+
+	public boolean isPersistent() {
+		return isPersistent;
+	}
+
+	/**
+	 * Returns the number of times {@link #begin()} had to wait for the GPU.
+	 */
+	public int getStallCount() {
+		return stallCount;
+	}
+
+	public VertexBufferLayout getLayout() {
+		return layout;
+	}
+
+	private int getSectionSize() {
+		return vertexCapacity * floatsPerVertex;
+	}
+
+	@Override
+	public void bind() {
+		if (isDisposed)
+			return;
+		glBindBuffer(GL_ARRAY_BUFFER, id);
+	}
+
+	@Override
+	public void unbind() {
+		glBindBuffer(GL_ARRAY_BUFFER, 0);
+	}
+
+	@Override
+	public int getId() {
+		return id;
+	}
+
+	@Override
+	public void dispose() {
+		if (isDisposed)
+			return;
+
+		System.out.println("Disposing streaming VBO...");
+
+		for (int i = 0; i < fences.length; i++) {
+			if (fences[i] != 0)
+				glDeleteSync(fences[i]);
+			fences[i] = 0;
+		}
+
+		bind();
+		if (isPersistent)
+			glUnmapBuffer(GL_ARRAY_BUFFER);
+		unbind();
+
+		glDeleteBuffers(id);
+
+		isDisposed = true;
+	}
+
+}
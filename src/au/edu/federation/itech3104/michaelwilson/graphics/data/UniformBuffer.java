@@ -0,0 +1,104 @@
+package au.edu.federation.itech3104.michaelwilson.graphics.data;
+
+import static org.lwjgl.opengl.GL15.glBindBuffer;
+import static org.lwjgl.opengl.GL15.glBufferData;
+import static org.lwjgl.opengl.GL15.glBufferSubData;
+import static org.lwjgl.opengl.GL15.glDeleteBuffers;
+import static org.lwjgl.opengl.GL15.glGenBuffers;
+import static org.lwjgl.opengl.GL30.glBindBufferRange;
+import static org.lwjgl.opengl.GL31.GL_UNIFORM_BUFFER;
+
+import java.nio.ByteBuffer;
+
+import au.edu.federation.itech3104.michaelwilson.graphics.IBindable;
+import au.edu.federation.itech3104.michaelwilson.graphics.IDisposable;
+
+/**
+ * A Uniform Buffer Object. Holds the data for one or more GLSL uniform blocks,
+ * which can be shared by multiple shader programs using binding points.
+ *
+ * @see #bindRange(int, long, long)
+ */
+public final class UniformBuffer implements IBindable, IDisposable {
+
+	private final int id;
+	private final int size;
+	private boolean isDisposed;
+
+	/**
+	 * Create a uniform buffer with uninitialised storage.
+	 *
+	 * @param size the size in bytes.
+	 */
+	public UniformBuffer(int size, BufferUsageHint usageHint) {
+		this.size = size;
+
+		id = glGenBuffers();
+
+		bind();
+		glBufferData(GL_UNIFORM_BUFFER, size, usageHint.getHint()); // Allocate UBO storage.
+		unbind();
+	}
+
+	/**
+	 * Replace the contents of this buffer, starting at the beginning of the buffer.
+	 */
+	public void update(ByteBuffer data) {
+		bind();
+		glBufferSubData(GL_UNIFORM_BUFFER, 0, data);
+		unbind();
+	}
+
+	/**
+	 * Bind a range of this buffer to a uniform block binding point.
+	 *
+	 * @param bindingPoint the binding point, see
+	 *                     {@link au.edu.federation.itech3104.michaelwilson.graphics.ShaderProgram#bindUniformBlock(String, int)}
+	 * @param offset       the offset in bytes, must be a multiple of
+	 *                     GL_UNIFORM_BUFFER_OFFSET_ALIGNMENT
+	 * @param size         the size of the range in bytes
+	 */
+	public void bindRange(int bindingPoint, long offset, long size) {
+		if (isDisposed)
+			return;
+		glBindBufferRange(GL_UNIFORM_BUFFER, bindingPoint, id, offset, size);
+	}
+
+	@Override
+	public void bind() {
+		if (isDisposed)
+			return;
+		glBindBuffer(GL_UNIFORM_BUFFER, id);
+	}
+
+	@Override
+	public void unbind() {
+		glBindBuffer(GL_UNIFORM_BUFFER, 0);
+	}
+
+	@Override
+	public int getId() {
+		return id;
+	}
+
+	/**
+	 * Returns the size of this buffer in bytes.
+	 */
+	public int getSize() {
+		return size;
+	}
+
+	@Override
+	public void dispose() {
+		if (isDisposed)
+			return;
+
+		System.out.println("Disposing UBO...");
+
+		unbind();
+		glDeleteBuffers(id);
+
+		isDisposed = true;
+	}
+
+}
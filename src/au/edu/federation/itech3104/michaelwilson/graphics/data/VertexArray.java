@@ -5,6 +5,7 @@ import static org.lwjgl.opengl.GL20.glVertexAttribPointer;
 import static org.lwjgl.opengl.GL30.glBindVertexArray;
 import static org.lwjgl.opengl.GL30.glDeleteVertexArrays;
 import static org.lwjgl.opengl.GL30.glGenVertexArrays;
+import static org.lwjgl.opengl.GL33.glVertexAttribDivisor;
 
 import java.util.List;
 
@@ -41,7 +42,7 @@ public final class VertexArray implements IBindable, IDisposable {
 		if (ebo != null)
 			ebo.bind();
 
-		updateVao(vbo.getLayout());
+		updateVao(vbo.getLayout(), 0, 0);
 
 		unbind();
 		vbo.unbind();
@@ -49,21 +50,70 @@ public final class VertexArray implements IBindable, IDisposable {
 			ebo.unbind();
 	}
 
-	private void updateVao(VertexBufferLayout layout) {
+	/**
+	 * Associate the provided streaming vertex buffer with this VAO. Draws select
+	 * the section written this frame with
+	 * {@link StreamingVertexBuffer#getFirstVertex()}.
+	 */
+	public void link(StreamingVertexBuffer vbo) {
+		bind();
+		vbo.bind();
+
+		updateVao(vbo.getLayout(), 0, 0);
+
+		unbind();
+		vbo.unbind();
+	}
+
+	/**
+	 * Associate a buffer of per-instance attributes with this VAO, as well as its
+	 * vertex buffer. The attributes of the buffer's layout use the locations
+	 * starting at firstLocation. Can be called again to point the attributes at a
+	 * different part of the buffer.
+	 *
+	 * @param offset the byte offset of the first instance in the buffer.
+	 */
+	public void linkInstances(StreamingVertexBuffer instances, int firstLocation, long offset) {
+		bind();
+		instances.bind();
+
+		updateVao(instances.getLayout(), firstLocation, offset);
+
+		unbind();
+		instances.unbind();
+	}
+
+	/**
+	 * Associate a static buffer of per-instance attributes with this VAO, see
+	 * {@link #linkInstances(StreamingVertexBuffer, int, long)}.
+	 */
+	public void linkInstances(VertexBuffer instances, int firstLocation, long offset) {
+		bind();
+		instances.bind();
+
+		updateVao(instances.getLayout(), firstLocation, offset);
+
+		unbind();
+		instances.unbind();
+	}
+
+	private void updateVao(VertexBufferLayout layout, int firstLocation, long offset) {
 		
 		// Setup vertex attribute pointers for OpenGL.
 		
 		List<VertexAttribute> attributes = layout.getAttributes(); // getAttributes returns a new object each time.
 
-		int offset = 0;
-
-		for (int index = 0; index < attributes.size(); index++) {
-			VertexAttribute attribute = attributes.get(index);
+		for (int i = 0; i < attributes.size(); i++) {
+			VertexAttribute attribute = attributes.get(i);
+			int index = firstLocation + i;
 
 			glVertexAttribPointer(index, attribute.getCount(), attribute.getType().getId(), false, layout.getStride(),
 					offset);
 			glEnableVertexAttribArray(index);
 
+			if (attribute.getDivisor() != 0)
+				glVertexAttribDivisor(index, attribute.getDivisor());
+
 			offset += attribute.getCount() * attribute.getType().getBytes();
 		}
 	}
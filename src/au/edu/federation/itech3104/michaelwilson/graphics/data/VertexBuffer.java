@@ -3,8 +3,10 @@ package au.edu.federation.itech3104.michaelwilson.graphics.data;
 import static org.lwjgl.opengl.GL15.GL_ARRAY_BUFFER;
 import static org.lwjgl.opengl.GL15.glBindBuffer;
 import static org.lwjgl.opengl.GL15.glBufferData;
+import static org.lwjgl.opengl.GL15.glBufferSubData;
 import static org.lwjgl.opengl.GL15.glDeleteBuffers;
 import static org.lwjgl.opengl.GL15.glGenBuffers;
+import static org.lwjgl.opengl.GL15.glGetBufferSubData;
 
 import java.nio.FloatBuffer;
 
@@ -19,12 +21,15 @@ public final class VertexBuffer implements IBindable, IDisposable {
 
 	private final VertexBufferLayout layout;
 
+	private final int capacity; // in floats
+
 	public VertexBuffer(float[] data, BufferUsageHint usageHint, VertexBufferLayout layout) {
 		this(BufferUtil.createFloatBuffer(data), usageHint, layout);
 	}
 
 	public VertexBuffer(FloatBuffer buffer, BufferUsageHint usageHint, VertexBufferLayout layout) {
 		this.layout = layout;
+		this.capacity = buffer.remaining();
 
 		id = glGenBuffers();
 
@@ -33,6 +38,67 @@ public final class VertexBuffer implements IBindable, IDisposable {
 		unbind();
 	}
 
+	/**
+	 * Create an uninitialised buffer with room for the given number of floats, to
+	 * be filled with {@link #update(int, FloatBuffer)}. Usually used with
+	 * {@link BufferUsageHint#DYNAMIC_DRAW} or {@link BufferUsageHint#STREAM_DRAW}.
+	 */
+	public VertexBuffer(int capacity, BufferUsageHint usageHint, VertexBufferLayout layout) {
+		this.layout = layout;
+		this.capacity = capacity;
+
+		id = glGenBuffers();
+
+		bind();
+		glBufferData(GL_ARRAY_BUFFER, (long) capacity * Float.BYTES, usageHint.getHint()); // Allocate VBO storage.
+		unbind();
+	}
+
+	/**
+	 * Replace part of the buffer data with glBufferSubData, without reallocating
+	 * the buffer storage.
+	 *
+	 * @param offset the index of the first float to replace.
+	 * @param data   the remaining floats of the buffer are uploaded.
+	 */
+	public void update(int offset, FloatBuffer data) {
+		if (offset < 0 || offset + data.remaining() > capacity)
+			throw new IllegalArgumentException("Update of " + data.remaining() + " floats at " + offset + " is outside the buffer capacity of " + capacity);
+
+		bind();
+		glBufferSubData(GL_ARRAY_BUFFER, (long) offset * Float.BYTES, data);
+		unbind();
+	}
+
+	/**
+	 * Replace part of the buffer data, see {@link #update(int, FloatBuffer)}.
+	 */
+	public void update(int offset, float[] data) {
+		update(offset, BufferUtil.createFloatBuffer(data));
+	}
+
+	/**
+	 * Read part of the buffer data back from the GPU into the remaining floats of
+	 * dest. Slow, used for processing meshes at load time.
+	 *
+	 * @param offset the index of the first float to read.
+	 */
+	public void read(int offset, FloatBuffer dest) {
+		if (offset < 0 || offset + dest.remaining() > capacity)
+			throw new IllegalArgumentException("Read of " + dest.remaining() + " floats at " + offset + " is outside the buffer capacity of " + capacity);
+
+		bind();
+		glGetBufferSubData(GL_ARRAY_BUFFER, (long) offset * Float.BYTES, dest);
+		unbind();
+	}
+
+	/**
+	 * Returns the size of the buffer in floats.
+	 */
+	public int getCapacity() {
+		return capacity;
+	}
+
 	@Override
 	public void bind() {
 		if (isDisposed)
@@ -15,6 +15,16 @@ public final class VertexBufferLayout {
 	public static final VertexBufferLayout Float3_3_2 = new VertexBufferLayout().add(VertexAttributeType.FLOAT, 3)
 			.add(VertexAttributeType.FLOAT, 3).add(VertexAttributeType.FLOAT, 2);
 
+	// Per-instance model matrix (4 columns) and normal matrix (3 columns), see
+	// BasicRenderer instancing and standard_instanced.vs.
+	public static final VertexBufferLayout InstanceMatrices = new VertexBufferLayout().add(VertexAttributeType.FLOAT, 4, 1)
+			.add(VertexAttributeType.FLOAT, 4, 1).add(VertexAttributeType.FLOAT, 4, 1).add(VertexAttributeType.FLOAT, 4, 1)
+			.add(VertexAttributeType.FLOAT, 3, 1).add(VertexAttributeType.FLOAT, 3, 1).add(VertexAttributeType.FLOAT, 3, 1);
+
+	// Per-instance draw index, used as the draw ID of multi-draw indirect commands
+	// through their base instance. See IndirectBatch and standard_indirect.vs.
+	public static final VertexBufferLayout DrawIndex = new VertexBufferLayout().add(VertexAttributeType.FLOAT, 1, 1);
+
 	private final List<VertexAttribute> attributes = new ArrayList<VertexAttribute>();
 
 	private int stride;
@@ -23,7 +33,16 @@ public final class VertexBufferLayout {
 	}
 
 	public VertexBufferLayout add(VertexAttributeType type, int count) {
-		attributes.add(new VertexAttribute(type, count));
+		return add(type, count, 0);
+	}
+
+	/**
+	 * Add an attribute that advances once per divisor instances instead of once
+	 * per vertex (see glVertexAttribDivisor). A divisor of 0 is a per-vertex
+	 * attribute.
+	 */
+	public VertexBufferLayout add(VertexAttributeType type, int count, int divisor) {
+		attributes.add(new VertexAttribute(type, count, divisor));
 
 		stride += count * type.getBytes();
 
@@ -41,11 +60,17 @@ public final class VertexBufferLayout {
 	public static class VertexAttribute {
 		private final VertexAttributeType type;
 		private final int count;
+		private final int divisor;
 
 		public VertexAttribute(VertexAttributeType type, int count) {
+			this(type, count, 0);
+		}
+
+		public VertexAttribute(VertexAttributeType type, int count, int divisor) {
 			super();
 			this.type = type;
 			this.count = count;
+			this.divisor = divisor;
 		}
 
 		public VertexAttributeType getType() {
@@ -56,6 +81,10 @@ public final class VertexBufferLayout {
 			return count;
 		}
 
+		public int getDivisor() {
+			return divisor;
+		}
+
 	}
 
 }
\ No newline at end of file
@@ -17,6 +17,9 @@ import au.edu.federation.itech3104.michaelwilson.math.Vec3f;
  * cameraPosition.
  */
 public class Material {
+	private static int nextId = 1;
+
+	private final int id = nextId++; // Unique id, used by renderers to group draws using the same material.
 
 	private final ShaderProgram shaderProgram;
 
@@ -90,6 +93,14 @@ public class Material {
 		return textures;
 	}
 
+	/**
+	 * Returns a unique id for this material. Copies of a material are given a new
+	 * id.
+	 */
+	public int getId() {
+		return id;
+	}
+
 	public ShaderProgram getShaderProgram() {
 		return shaderProgram;
 	}
@@ -1,130 +1,685 @@
 package au.edu.federation.itech3104.michaelwilson.graphics.renderer;
 
-import java.util.HashMap;
+import static org.lwjgl.opengl.GL11.glGetInteger;
+import static org.lwjgl.opengl.GL31.GL_UNIFORM_BUFFER_OFFSET_ALIGNMENT;
+
+import java.nio.FloatBuffer;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
 
 import au.edu.federation.itech3104.michaelwilson.camera.Camera;
+import au.edu.federation.itech3104.michaelwilson.camera.Frustum;
+import au.edu.federation.itech3104.michaelwilson.camera.PerspectiveCamera;
 import au.edu.federation.itech3104.michaelwilson.graph.Transform;
+import au.edu.federation.itech3104.michaelwilson.graphics.GpuFrustumCuller;
+import au.edu.federation.itech3104.michaelwilson.graphics.IDisposable;
 import au.edu.federation.itech3104.michaelwilson.graphics.ILight;
 import au.edu.federation.itech3104.michaelwilson.graphics.ILightingTracker;
+import au.edu.federation.itech3104.michaelwilson.graphics.IndirectBatch;
+import au.edu.federation.itech3104.michaelwilson.graphics.LodMesh;
+import au.edu.federation.itech3104.michaelwilson.graphics.Mesh;
 import au.edu.federation.itech3104.michaelwilson.graphics.ShaderProgram;
+import au.edu.federation.itech3104.michaelwilson.graphics.data.BufferUsageHint;
+import au.edu.federation.itech3104.michaelwilson.graphics.data.StreamingVertexBuffer;
+import au.edu.federation.itech3104.michaelwilson.graphics.data.UniformBuffer;
+import au.edu.federation.itech3104.michaelwilson.graphics.data.VertexArray;
+import au.edu.federation.itech3104.michaelwilson.graphics.data.VertexBufferLayout;
 import au.edu.federation.itech3104.michaelwilson.graphics.material.Material;
 import au.edu.federation.itech3104.michaelwilson.graphics.material.MaterialAttribute;
 import au.edu.federation.itech3104.michaelwilson.graphics.material.TextureAttribute;
+import au.edu.federation.itech3104.michaelwilson.graphics.texture.Texture2D;
+import au.edu.federation.itech3104.michaelwilson.lighting.UniformBlockWriter;
+import au.edu.federation.itech3104.michaelwilson.math.BoundingBox;
+import au.edu.federation.itech3104.michaelwilson.math.BoundingSphere;
 import au.edu.federation.itech3104.michaelwilson.math.Mat3f;
 import au.edu.federation.itech3104.michaelwilson.math.Mat4f;
+import au.edu.federation.itech3104.michaelwilson.math.Vec3f;
 
 /**
- * A basic forward renderer for rendering {@link IDrawable} objects.
+ * A basic forward renderer for rendering {@link IDrawable} objects. <br>
+ * <br>
+ * Camera and lighting uniforms are uploaded once per {@link ShaderProgram} per
+ * frame (see {@link #beginFrame()}), so each draw only sets the material, model
+ * and normal matrix uniforms. Shaders declaring the CameraBlock and LightBlock
+ * uniform blocks share a single {@link UniformBuffer} that is updated once per
+ * frame instead (see {@link UniformBlockWriter}). <br>
+ * <br>
+ * When the render queue is enabled, drawables are collected into a
+ * {@link RenderQueue} while the tree is traversed and drawn sorted by shader,
+ * textures, material and vertex array, so each of those is bound once per group
+ * instead of once per drawable. <br>
+ * <br>
+ * Subtrees of the scene graph whose {@link Transform#getSubtreeBounds() bounds}
+ * are outside the camera frustum are skipped. <br>
+ * <br>
+ * When the render queue is enabled, queued draws of the same {@link Mesh} and
+ * {@link Material} are drawn with one instanced draw call, if the material's
+ * shader has an {@link ShaderProgram#getInstancedVariant() instanced variant}.
+ * The model and normal matrices of the instances are written to a
+ * {@link StreamingVertexBuffer} once per flush. <br>
+ * <br>
+ * {@link IndirectBatch Indirect batches} of static geometry are drawn with one
+ * multi-draw call per material, if the material's shader has an
+ * {@link ShaderProgram#getIndirectVariant() indirect variant}. With a
+ * {@link GpuFrustumCuller}, the draws of each batch are culled on the GPU before
+ * they are drawn. <br>
+ * <br>
+ * {@link LodMesh Level of detail meshes} are drawn at the level suited to the
+ * size of their bounding sphere on screen, measured with the field of view of
+ * a {@link PerspectiveCamera}.
+ *
+ * @see #setQueueEnabled(boolean)
+ * @see #setInstancingEnabled(boolean)
+ * @see #setCullingEnabled(boolean)
  */
-public class BasicRenderer implements IRenderer {
-	private final Map<String, Integer> lightIndices = new HashMap<>();
+public class BasicRenderer implements IRenderer, IDisposable {
+	private static final int MAX_TEXTURE_UNITS = 32;
+
+	// The first attribute location of the per-instance matrices, after the
+	// position, normal and uv attributes.
+	private static final int INSTANCE_LOCATION = 3;
+
+	public static final int DEFAULT_MIN_INSTANCE_COUNT = 2;
+	public static final float DEFAULT_LOD_HYSTERESIS = 0.1f;
+
+	// Light type names and the next light array index of each type, reset for each
+	// applyLights() call. Arrays are used so applying lights doesn't allocate.
+	private String[] lightTypeNames = new String[4];
+	private int[] lightTypeIndices = new int[4];
+	private int lightTypeCount;
+
+	private final RenderQueue renderQueue = new RenderQueue();
+	private final Texture2D[] boundTextures = new Texture2D[MAX_TEXTURE_UNITS]; // Texture bound to each unit while flushing.
 
 	private Camera camera;
 
 	private ILightingTracker lightingTracker;
 
+	private boolean isQueueEnabled;
+	private boolean isFlushing;
+	private boolean isCullingEnabled = true;
+
+	private int culledCount; // Drawables culled by the last renderTree() call.
+
+	private boolean isInstancingEnabled = true;
+	private int minInstanceCount = DEFAULT_MIN_INSTANCE_COUNT;
+	private StreamingVertexBuffer instanceBuffer; // Created when first needed, and recreated larger when full.
+	private int instancedDrawCount; // Instanced draw calls made by the last flush() call.
+
+	private int indirectDrawCount; // Multi-draw calls made since the last beginFrame() call.
+
+	private GpuFrustumCuller gpuCuller; // null to draw every command of indirect batches.
+	private boolean isGpuCullingVerified;
+	private int gpuCullingMismatchCount; // Since the last beginFrame() call.
+
+	private float lodHysteresis = DEFAULT_LOD_HYSTERESIS;
+	private float lodScale = 1.0f; // 1 / tan(fov / 2) of the camera, set by beginFrame().
+
+	private long frame; // incremented by beginFrame()
+
+	// Reused by setModelUniforms() to avoid allocating per draw.
+	private final Mat4f normalizedMatrix = new Mat4f();
+	private final Mat3f normalMatrix = new Mat3f();
+
+	// Reused by renderGroupMeshes(), which draws straight away instead of queueing.
+	private final Mat4f batchMeshMatrix = new Mat4f();
+
+	// Reused by renderLod().
+	private final BoundingSphere lodSphere = new BoundingSphere();
+
+	// Created on the first frame, since the OpenGL context may not exist when the
+	// renderer is constructed.
+	private UniformBlockWriter blockWriter;
+	private UniformBuffer uniformBuffer;
+	private boolean isUniformBufferDirty; // Set by beginFrame(), uploaded before the first draw.
+
 	public BasicRenderer(Camera camera) {
+		this(camera, false);
+	}
+
+	public BasicRenderer(Camera camera, boolean isQueueEnabled) {
 		this.camera = camera;
+		this.isQueueEnabled = isQueueEnabled;
+	}
+
+	/**
+	 * Start a new frame. Calculates the camera view matrix, and marks the camera
+	 * and light uniform blocks and the camera and lighting uniforms of every
+	 * shader as out of date. The uniform blocks are uploaded before the first draw
+	 * of the frame, once the lighting tracker has been found.
+	 */
+	@Override
+	public void beginFrame() {
+		frame++;
+		indirectDrawCount = 0;
+		gpuCullingMismatchCount = 0;
+
+		if (camera != null) {
+			camera.updateViewMatrix();
+			isUniformBufferDirty = true;
+		}
+
+		if (camera instanceof PerspectiveCamera)
+			lodScale = 1.0f / (float) Math.tan(Math.toRadians(((PerspectiveCamera) camera).getFov()) * 0.5);
+	}
+
+	// Write the camera and light blocks and upload them with a single buffer
+	// update.
+	private void updateUniformBuffer() {
+		if (uniformBuffer == null) {
+			blockWriter = new UniformBlockWriter(glGetInteger(GL_UNIFORM_BUFFER_OFFSET_ALIGNMENT));
+			uniformBuffer = new UniformBuffer(blockWriter.getSize(), BufferUsageHint.DYNAMIC_DRAW);
+
+			uniformBuffer.bindRange(UniformBlockWriter.CAMERA_BLOCK_BINDING, blockWriter.getCameraBlockOffset(),
+					UniformBlockWriter.CAMERA_BLOCK_SIZE);
+			uniformBuffer.bindRange(UniformBlockWriter.LIGHT_BLOCK_BINDING, blockWriter.getLightBlockOffset(),
+					UniformBlockWriter.LIGHT_BLOCK_SIZE);
+		}
+
+		List<ILight> lights = lightingTracker == null ? null : lightingTracker.getLights();
+		uniformBuffer.update(blockWriter.write(camera, lights));
+
+		isUniformBufferDirty = false;
 	}
 
 	@Override
 	public void renderTree(Transform transform) {
-		// Set the lighting tracker if none if set. Lighting tracker is used for all
-		// lights in the scene.
-		if (lightingTracker == null && transform instanceof ILightingTracker)
-			lightingTracker = (ILightingTracker) transform;
+		culledCount = 0;
+
+		// Set the lighting tracker if none is set, before anything is drawn so the
+		// first frame has lights. Lighting tracker is used for all lights in the scene.
+		if (lightingTracker == null)
+			lightingTracker = findLightingTracker(transform);
+
+		Frustum frustum = isCullingEnabled && camera != null ? camera.getFrustum() : null;
+		traverse(transform, frustum);
+
+		if (isQueueEnabled)
+			flush();
+	}
+
+	// Returns the first lighting tracker in the tree, or null if there isn't one.
+	private static ILightingTracker findLightingTracker(Transform transform) {
+		if (transform instanceof ILightingTracker)
+			return (ILightingTracker) transform;
+
+		for (Transform child : transform) {
+			ILightingTracker tracker = findLightingTracker(child);
+			if (tracker != null)
+				return tracker;
+		}
+
+		return null;
+	}
+
+	// Render the drawables in the tree. frustum is null when culling is disabled.
+	private void traverse(Transform transform, Frustum frustum) {
+		if (frustum != null) {
+			// Skip the whole subtree if it is outside the frustum.
+			BoundingBox subtreeBounds = transform.getSubtreeBounds();
+			if (subtreeBounds != null && !frustum.intersects(subtreeBounds)) {
+				culledCount += subtreeBounds.isEmpty() ? 0 : 1;
+				return;
+			}
+		}
 
-		if (transform instanceof IDrawable) // Render the provided object if it supports it.
-			render((IDrawable) transform, transform.getGlobalMatrix());
+		if (transform instanceof IDrawable) { // Render the provided object if it supports it.
+			BoundingBox bounds = frustum == null ? null : transform.getWorldBounds();
+
+			if (bounds == null || frustum.intersects(bounds))
+				render((IDrawable) transform, transform.getGlobalMatrix());
+			else
+				culledCount++;
+		}
 
 		for (Transform child : transform)
-			renderTree(child);
+			traverse(child, frustum);
 	}
 
+	/**
+	 * Enable or disable skipping scene graph subtrees that are outside the camera
+	 * frustum. Enabled by default.
+	 */
+	public void setCullingEnabled(boolean isCullingEnabled) {
+		this.isCullingEnabled = isCullingEnabled;
+	}
+
+	public boolean isCullingEnabled() {
+		return isCullingEnabled;
+	}
+
+	/**
+	 * Returns the number of drawables or subtrees skipped by the last
+	 * {@link #renderTree(Transform)} call, for debugging.
+	 */
+	public int getCulledCount() {
+		return culledCount;
+	}
+
+	/**
+	 * Render the drawable. If the render queue is enabled the drawable is queued
+	 * and drawn by the next {@link #flush()} (called at the end of
+	 * {@link #renderTree(Transform)}).
+	 */
 	@Override
 	public void render(IDrawable drawable, Mat4f modelMatrix) {
 		Material material = drawable.getMaterial();
-		if (material != null) {
-			ShaderProgram shader = material.getShaderProgram();
+		if (material == null) {
+			drawable.draw(this); // the object has no material so just draw it without shaders/lighting/textures.
+			return;
+		}
+
+		if (isQueueEnabled && !isFlushing) {
+			renderQueue.add(drawable, modelMatrix);
+			return;
+		}
+
+		renderNow(drawable, material, modelMatrix);
+	}
+
+	// Bind the material and draw the drawable straight away.
+	private void renderNow(IDrawable drawable, Material material, Mat4f modelMatrix) {
+		ShaderProgram shader = material.getShaderProgram();
+		shader.bind();
+		{
+			setFrameUniforms(shader, material);
+
+			bindMaterial(shader, material, false);
+
+			setModelUniforms(shader, material, modelMatrix);
+
+			// Draw the actual object.
+			drawable.draw(this);
+
+			// Unbind textures.
+			int textureCount = material.getTextures().size();
+			for (int i = 0; i < textureCount; i++) {
+				TextureAttribute namedTexture = material.getTextures().get(i);
+				namedTexture.getTexture().unbind(i);
+			}
+		}
+		shader.unbind();
+	}
+
+	/**
+	 * Render the batch immediately, binding each group's material and drawing all
+	 * of its commands with one multi-draw call. Groups whose shader has no
+	 * indirect variant are drawn one mesh at a time instead. If culling is enabled
+	 * and there is a {@link GpuFrustumCuller}, only the commands of visible draws
+	 * are drawn.
+	 */
+	@Override
+	public void renderIndirect(IndirectBatch batch, Mat4f modelMatrix) {
+		List<IndirectBatch.Group> groups = batch.getGroups();
+		if (groups.isEmpty())
+			return;
+
+		boolean isCulled = gpuCuller != null && isCullingEnabled && camera != null;
+		if (isCulled) {
+			gpuCuller.cull(batch, camera.getFrustum(), modelMatrix);
+
+			if (isGpuCullingVerified)
+				gpuCullingMismatchCount += gpuCuller.verify(batch, camera.getFrustum(), modelMatrix);
+		}
+
+		batch.bindDrawData();
+
+		for (int i = 0; i < groups.size(); i++) {
+			IndirectBatch.Group group = groups.get(i);
+			Material material = group.getMaterial();
+			ShaderProgram shader = material.getShaderProgram().getIndirectVariant();
+
+			if (shader == null) {
+				renderGroupMeshes(batch, group, modelMatrix);
+				continue;
+			}
+
 			shader.bind();
 			{
-				// Set the projection and view matrices.
-				shader.setUniforms(camera);
+				setFrameUniforms(shader, material);
+				bindMaterial(shader, material, false);
+
+				// The batch's own matrix, the per-draw matrices are read from the storage
+				// buffer.
+				setModelUniforms(shader, material, modelMatrix);
+
+				if (isCulled)
+					group.drawCulled();
+				else
+					group.draw();
+				indirectDrawCount++;
 
-				// Bind textures.
 				int textureCount = material.getTextures().size();
-				for (int i = 0; i < textureCount; i++) {
-					TextureAttribute namedTexture = material.getTextures().get(i);
+				for (int j = 0; j < textureCount; j++)
+					material.getTextures().get(j).getTexture().unbind(j);
+			}
+			shader.unbind();
+		}
+	}
 
-					// bind texture, set texture unit, and set sampler uniform.
-					shader.setUniform(namedTexture.getName(), i);
-					namedTexture.getTexture().bind(i);
-				}
+	/**
+	 * Render the level of the mesh suited to its screen size, the radius of its
+	 * bounding sphere divided by the half height of the view at the sphere's
+	 * distance. The level only changes once the screen size is past the level's
+	 * screen size by the {@link #setLodHysteresis(float) hysteresis}. Without a
+	 * {@link PerspectiveCamera} the full resolution level is rendered.
+	 */
+	@Override
+	public int renderLod(LodMesh mesh, int currentLevel, Mat4f modelMatrix) {
+		int level = 0;
 
-				// Set material defined uniform values.
-				for (MaterialAttribute attribute : material.getAttributes())
-					attribute.setUniform(shader);
+		if (camera instanceof PerspectiveCamera) {
+			mesh.getBoundingSphere().transform(modelMatrix, lodSphere);
 
-				// Apply uniforms for lighting nodes.
-				if (material.isLightingSupported() && lightingTracker != null) {
-					lightIndices.clear();
+			float distance = Vec3f.distanceBetween(lodSphere.center, camera.getPosition());
+			float screenSize = distance <= lodSphere.radius ? Float.POSITIVE_INFINITY : lodSphere.radius * lodScale / distance;
 
-					List<ILight> lights = lightingTracker.getLights();
-					for (ILight light : lights) {
-						// A separate index group for each lighting type. (e.g. point, directional, and spot
-						// light indices)
-						int index = lightIndices.getOrDefault(light.getTypeName(), 0);
+			level = mesh.selectLevel(screenSize, currentLevel, lodHysteresis);
+		}
 
-						light.apply(index, shader); //  index - the light array element to use in the shader
+		render(mesh.getLevel(level), modelMatrix);
+		return level;
+	}
 
-						lightIndices.put(light.getTypeName(), index + 1);
-					}
-				}
+	// Fallback for shaders without an indirect variant.
+	private void renderGroupMeshes(IndirectBatch batch, IndirectBatch.Group group, Mat4f modelMatrix) {
+		int end = group.getFirstCommand() + group.getCommandCount();
+		for (int draw = group.getFirstCommand(); draw < end; draw++) {
+			Mat4f.mul(modelMatrix, batch.getModelMatrix(draw), batchMeshMatrix);
+			renderNow(batch.getMesh(draw), group.getMaterial(), batchMeshMatrix);
+		}
+	}
+
+	/**
+	 * Draw all queued drawables sorted by their {@link RenderQueue} key, only
+	 * changing the shader, textures, material uniforms and vertex array when they
+	 * differ from the previous draw.
+	 */
+	public void flush() {
+		if (renderQueue.isEmpty())
+			return;
+
+		isFlushing = true;
+
+		renderQueue.sort();
+
+		boolean hasInstances = isInstancingEnabled && prepareInstances();
+		instancedDrawCount = 0;
 
-				// Set the model matrix.
-				shader.setModelMatrix(modelMatrix);
+		ShaderProgram currentShader = null;
+		Material currentMaterial = null;
+		VertexArray currentVao = null;
 
-				// Inversing is expensive, so only set the uniform if the shader supports
-				// lighting.
-				if (material.isLightingSupported()) {
-					// Remove the scaling from the model matrix, so we can inverse without breaking
-					// lighting normals.
-					Mat4f normalizedMatrix = new Mat4f(modelMatrix);
+		for (int i = 0; i < renderQueue.size(); i++) {
+			RenderQueue.Item item = renderQueue.get(i);
+			IDrawable drawable = item.getDrawable();
+			Material material = drawable.getMaterial();
+			ShaderProgram shader = item.instanceCount > 0 ? material.getShaderProgram().getInstancedVariant() : material.getShaderProgram();
 
-					float x = modelMatrix.getXBasis().length();
-					normalizedMatrix.m00 /= x;
-					normalizedMatrix.m01 /= x;
-					normalizedMatrix.m02 /= x;
+			if (shader != currentShader) {
+				shader.bind();
 
-					float y = modelMatrix.getYBasis().length();
-					normalizedMatrix.m10 /= y;
-					normalizedMatrix.m11 /= y;
-					normalizedMatrix.m12 /= y;
+				currentShader = shader;
+				currentMaterial = null;
+			}
+
+			if (material != currentMaterial) {
+				setFrameUniforms(shader, material);
+				bindMaterial(shader, material, true);
+
+				currentMaterial = material;
+			}
 
-					float z = modelMatrix.getZBasis().length();
-					normalizedMatrix.m20 /= z;
-					normalizedMatrix.m21 /= z;
-					normalizedMatrix.m22 /= z;
+			Mesh mesh = drawable.getMesh();
 
-					shader.setUniform("modelNormal", Mat4f.inverse(normalizedMatrix).transpose().toMat3f());
+			if (item.instanceCount > 0) {
+				// Point the instance attributes at this group's matrices, then draw the whole
+				// group at once.
+				long offset = (long) (instanceBuffer.getFirstVertex() + item.firstInstance) * VertexBufferLayout.InstanceMatrices.getStride();
+				mesh.vao.linkInstances(instanceBuffer, INSTANCE_LOCATION, offset);
+
+				mesh.vao.bind();
+				currentVao = mesh.vao;
+				mesh.drawInstancedBound(item.instanceCount);
+
+				instancedDrawCount++;
+				i += item.instanceCount - 1; // The rest of the group has been drawn.
+				continue;
+			}
+
+			setModelUniforms(shader, material, item.getModelMatrix());
+
+			if (mesh != null) {
+				if (mesh.vao != currentVao) {
+					mesh.vao.bind();
+					currentVao = mesh.vao;
 				}
+				mesh.drawBound();
 
-				// Draw the actual object.
+			} else {
+				// Unknown drawable, let it bind its own state. It may render other drawables
+				// immediately, so forget any state we think is bound.
+				if (currentVao != null) {
+					currentVao.unbind();
+					currentVao = null;
+				}
 				drawable.draw(this);
 
-				// Unbind textures.
-				for (int i = 0; i < textureCount; i++) {
-					TextureAttribute namedTexture = material.getTextures().get(i);
-					namedTexture.getTexture().unbind(i);
+				currentShader.bind();
+				currentMaterial = null;
+				Arrays.fill(boundTextures, null);
+			}
+		}
+
+		if (currentVao != null)
+			currentVao.unbind();
+
+		for (int unit = 0; unit < MAX_TEXTURE_UNITS; unit++) {
+			if (boundTextures[unit] != null) {
+				boundTextures[unit].unbind(unit);
+				boundTextures[unit] = null;
+			}
+		}
+
+		if (currentShader != null)
+			currentShader.unbind();
+
+		if (hasInstances)
+			instanceBuffer.fence(); // The instance matrices can be written again once these draws have finished.
+
+		renderQueue.clear();
+
+		isFlushing = false;
+	}
+
+	// Find groups of sorted queue items with the same mesh and material, whose
+	// shader has an instanced variant, and write their matrices to the instance
+	// buffer. The first item of each group is given the group size and the index
+	// of its first instance. Returns true if there are any groups.
+	private boolean prepareInstances() {
+		int size = renderQueue.size();
+		int instanceCount = 0;
+
+		for (int i = 0; i < size;) {
+			RenderQueue.Item item = renderQueue.get(i);
+			Mesh mesh = item.getDrawable().getMesh();
+			Material material = item.getDrawable().getMaterial();
+
+			int end = i + 1;
+			if (mesh != null && material.getShaderProgram().getInstancedVariant() != null) {
+				while (end < size && renderQueue.get(end).getDrawable().getMesh() == mesh && renderQueue.get(end).getDrawable().getMaterial() == material)
+					end++;
+
+				if (end - i >= minInstanceCount) {
+					item.instanceCount = end - i;
+					item.firstInstance = instanceCount;
+					instanceCount += item.instanceCount;
 				}
 			}
-			shader.unbind();
 
-		} else {
-			drawable.draw(this); // the object has no material so just draw it without shaders/lighting/textures.
+			i = end;
+		}
+
+		if (instanceCount == 0)
+			return false;
+
+		if (instanceBuffer == null || instanceBuffer.getVertexCapacity() < instanceCount) {
+			if (instanceBuffer != null)
+				instanceBuffer.dispose();
+
+			int capacity = Math.max(1024, Integer.highestOneBit(instanceCount - 1) << 1);
+			instanceBuffer = new StreamingVertexBuffer(capacity, VertexBufferLayout.InstanceMatrices);
+		}
+
+		FloatBuffer instances = instanceBuffer.begin();
+		for (int i = 0; i < size; i++) {
+			RenderQueue.Item item = renderQueue.get(i);
+			for (int j = 0; j < item.instanceCount; j++)
+				putInstance(instances, renderQueue.get(i + j).getModelMatrix());
+		}
+		instanceBuffer.end();
+
+		return true;
+	}
+
+	// Write the model matrix and normal matrix of an instance, column by column.
+	private void putInstance(FloatBuffer instances, Mat4f m) {
+		instances.put(m.m00).put(m.m01).put(m.m02).put(m.m03);
+		instances.put(m.m10).put(m.m11).put(m.m12).put(m.m13);
+		instances.put(m.m20).put(m.m21).put(m.m22).put(m.m23);
+		instances.put(m.m30).put(m.m31).put(m.m32).put(m.m33);
+
+		Mat3f n = calculateNormalMatrix(m);
+		instances.put(n.m00).put(n.m01).put(n.m02);
+		instances.put(n.m10).put(n.m11).put(n.m12);
+		instances.put(n.m20).put(n.m21).put(n.m22);
+	}
+
+	// Set the camera and lighting uniforms, if they haven't been set for the shader
+	// this frame. Uniform values are kept by the shader program between binds.
+	// Shaders with the uniform blocks only need the blocks assigned to their binding
+	// points.
+	private void setFrameUniforms(ShaderProgram shader, Material material) {
+		if (isUniformBufferDirty)
+			updateUniformBuffer();
+
+		if (shader.getCameraFrameStamp() != frame) {
+			// Set the projection and view matrices.
+			if (!shader.bindUniformBlock(UniformBlockWriter.CAMERA_BLOCK_NAME, UniformBlockWriter.CAMERA_BLOCK_BINDING))
+				shader.setUniforms(camera);
+
+			shader.setCameraFrameStamp(frame);
+		}
+
+		if (material.isLightingSupported() && shader.getLightingFrameStamp() != frame) {
+			if (shader.bindUniformBlock(UniformBlockWriter.LIGHT_BLOCK_NAME, UniformBlockWriter.LIGHT_BLOCK_BINDING)) {
+				shader.setLightingFrameStamp(frame);
+
+			} else if (lightingTracker != null) {
+				applyLights(shader);
+				shader.setLightingFrameStamp(frame);
+			}
+		}
+	}
+
+	// Bind textures and set the material defined uniforms. If trackBound is true,
+	// textures already bound to the same unit are skipped.
+	private void bindMaterial(ShaderProgram shader, Material material, boolean trackBound) {
+		int textureCount = material.getTextures().size();
+		for (int i = 0; i < textureCount; i++) {
+			TextureAttribute namedTexture = material.getTextures().get(i);
+
+			// set texture unit, and set sampler uniform.
+			shader.setUniform(namedTexture.getName(), i);
+
+			// bind texture.
+			if (!trackBound || boundTextures[i] != namedTexture.getTexture()) {
+				namedTexture.getTexture().bind(i);
+
+				if (trackBound)
+					boundTextures[i] = namedTexture.getTexture();
+			}
+		}
+
+		// Set material defined uniform values.
+		for (MaterialAttribute attribute : material.getAttributes())
+			attribute.setUniform(shader);
+	}
+
+	// Apply uniforms for lighting nodes.
+	private void applyLights(ShaderProgram shader) {
+		lightTypeCount = 0;
+
+		List<ILight> lights = lightingTracker.getLights();
+		for (int i = 0; i < lights.size(); i++) {
+			ILight light = lights.get(i);
+
+			// A separate index group for each lighting type. (e.g. point, directional, and spot
+			// light indices)
+			int index = nextLightIndex(light.getTypeName());
+
+			light.apply(index, shader); //  index - the light array element to use in the shader
+		}
+	}
+
+	// Return the next light array index for the light type.
+	private int nextLightIndex(String typeName) {
+		for (int i = 0; i < lightTypeCount; i++) {
+			if (lightTypeNames[i].equals(typeName))
+				return lightTypeIndices[i]++;
+		}
+
+		if (lightTypeCount == lightTypeNames.length) {
+			lightTypeNames = Arrays.copyOf(lightTypeNames, lightTypeCount * 2);
+			lightTypeIndices = Arrays.copyOf(lightTypeIndices, lightTypeCount * 2);
 		}
+
+		lightTypeNames[lightTypeCount] = typeName;
+		lightTypeIndices[lightTypeCount] = 1;
+		lightTypeCount++;
+
+		return 0;
+	}
+
+	// Set the model matrix, and the normal matrix if the material supports lighting.
+	private void setModelUniforms(ShaderProgram shader, Material material, Mat4f modelMatrix) {
+		// Set the model matrix.
+		shader.setModelMatrix(modelMatrix);
+
+		// Inversing is expensive, so only set the uniform if the shader supports
+		// lighting.
+		if (material.isLightingSupported())
+			shader.setUniform("modelNormal", calculateNormalMatrix(modelMatrix));
+	}
+
+	// Returns the normal matrix of the model matrix, in a reused Mat3f.
+	private Mat3f calculateNormalMatrix(Mat4f modelMatrix) {
+		// Remove the scaling from the model matrix, so we can inverse without breaking
+		// lighting normals.
+		normalizedMatrix.set(modelMatrix);
+
+		float x = length(modelMatrix.m00, modelMatrix.m01, modelMatrix.m02);
+		normalizedMatrix.m00 /= x;
+		normalizedMatrix.m01 /= x;
+		normalizedMatrix.m02 /= x;
+
+		float y = length(modelMatrix.m10, modelMatrix.m11, modelMatrix.m12);
+		normalizedMatrix.m10 /= y;
+		normalizedMatrix.m11 /= y;
+		normalizedMatrix.m12 /= y;
+
+		float z = length(modelMatrix.m20, modelMatrix.m21, modelMatrix.m22);
+		normalizedMatrix.m20 /= z;
+		normalizedMatrix.m21 /= z;
+		normalizedMatrix.m22 /= z;
+
+		Mat4f.inverse(normalizedMatrix, normalizedMatrix).transpose().toMat3f(normalMatrix);
+
+		return normalMatrix;
+	}
+
+	private static float length(float x, float y, float z) {
+		return (float) Math.sqrt(x * x + y * y + z * z);
 	}
 
 	public ILightingTracker getLightingTracker() {
@@ -135,6 +690,111 @@ public class BasicRenderer implements IRenderer {
 		this.lightingTracker = lightingTracker;
 	}
 
+	public boolean isQueueEnabled() {
+		return isQueueEnabled;
+	}
+
+	/**
+	 * Enable or disable the render queue. Any drawables already queued are drawn
+	 * when disabling the queue.
+	 */
+	public void setQueueEnabled(boolean isQueueEnabled) {
+		if (this.isQueueEnabled && !isQueueEnabled)
+			flush();
+
+		this.isQueueEnabled = isQueueEnabled;
+	}
+
+	/**
+	 * Enable or disable drawing queued draws of the same mesh and material with one
+	 * instanced draw call. Only used when the render queue is enabled. Enabled by
+	 * default.
+	 */
+	public void setInstancingEnabled(boolean isInstancingEnabled) {
+		this.isInstancingEnabled = isInstancingEnabled;
+	}
+
+	public boolean isInstancingEnabled() {
+		return isInstancingEnabled;
+	}
+
+	/**
+	 * Set the smallest number of draws of the same mesh and material that are
+	 * drawn instanced.
+	 */
+	public void setMinInstanceCount(int minInstanceCount) {
+		this.minInstanceCount = Math.max(1, minInstanceCount);
+	}
+
+	public int getMinInstanceCount() {
+		return minInstanceCount;
+	}
+
+	/**
+	 * Returns the number of instanced draw calls made by the last {@link #flush()},
+	 * for debugging.
+	 */
+	public int getInstancedDrawCount() {
+		return instancedDrawCount;
+	}
+
+	/**
+	 * Returns the number of multi-draw indirect calls made this frame, for
+	 * debugging.
+	 */
+	public int getIndirectDrawCount() {
+		return indirectDrawCount;
+	}
+
+	/**
+	 * Set the culler used to cull the draws of {@link IndirectBatch indirect
+	 * batches} on the GPU, or null to draw all of their commands. The renderer
+	 * doesn't own the culler's program.
+	 */
+	public void setGpuCuller(GpuFrustumCuller gpuCuller) {
+		this.gpuCuller = gpuCuller;
+	}
+
+	public GpuFrustumCuller getGpuCuller() {
+		return gpuCuller;
+	}
+
+	/**
+	 * Enable or disable comparing the GPU culling results with the CPU reference
+	 * every time a batch is culled, see
+	 * {@link GpuFrustumCuller#verify(IndirectBatch, Frustum, Mat4f)}. Waits for
+	 * the GPU, so only for debugging. Disabled by default.
+	 */
+	public void setGpuCullingVerified(boolean isGpuCullingVerified) {
+		this.isGpuCullingVerified = isGpuCullingVerified;
+	}
+
+	public boolean isGpuCullingVerified() {
+		return isGpuCullingVerified;
+	}
+
+	/**
+	 * Returns the number of GPU culling mismatches found this frame, when
+	 * verifying is enabled.
+	 */
+	public int getGpuCullingMismatchCount() {
+		return gpuCullingMismatchCount;
+	}
+
+	/**
+	 * Set how far past a level's screen size a {@link LodMesh} must be before
+	 * its level changes, as a fraction of the screen size. Larger values switch
+	 * levels less often as the camera moves, at the cost of drawing levels further
+	 * from their intended size.
+	 */
+	public void setLodHysteresis(float lodHysteresis) {
+		this.lodHysteresis = Math.max(0, lodHysteresis);
+	}
+
+	public float getLodHysteresis() {
+		return lodHysteresis;
+	}
+
 	public void setCamera(Camera camera) {
 		this.camera = camera;
 	}
@@ -143,4 +803,17 @@ public class BasicRenderer implements IRenderer {
 		return camera;
 	}
 
+	@Override
+	public void dispose() {
+		if (uniformBuffer != null) {
+			uniformBuffer.dispose();
+			uniformBuffer = null;
+		}
+
+		if (instanceBuffer != null) {
+			instanceBuffer.dispose();
+			instanceBuffer = null;
+		}
+	}
+
 }
@@ -1,6 +1,8 @@
 package au.edu.federation.itech3104.michaelwilson.graphics.renderer;
 
+import au.edu.federation.itech3104.michaelwilson.graphics.Mesh;
 import au.edu.federation.itech3104.michaelwilson.graphics.material.Material;
+import au.edu.federation.itech3104.michaelwilson.math.BoundingBox;
 
 public interface IDrawable {
 
@@ -8,4 +10,21 @@ public interface IDrawable {
 
 	public Material getMaterial();
 
+	/**
+	 * Returns the single {@link Mesh} drawn by this object, or null if this object
+	 * draws something else. Renderers use this to group draws that share the same
+	 * vertex array.
+	 */
+	public default Mesh getMesh() {
+		return null;
+	}
+
+	/**
+	 * Returns the local space bounds of what this object draws, or null if the
+	 * bounds are unknown. Objects without bounds are never culled.
+	 */
+	public default BoundingBox getBounds() {
+		return null;
+	}
+
 }
@@ -1,9 +1,25 @@
 package au.edu.federation.itech3104.michaelwilson.graphics.renderer;
 
+import au.edu.federation.itech3104.michaelwilson.graphics.IndirectBatch;
+import au.edu.federation.itech3104.michaelwilson.graphics.LodMesh;
 import au.edu.federation.itech3104.michaelwilson.math.Mat4f;
 
 public interface IDrawableRenderer {
 
 	void render(IDrawable drawable, Mat4f modelMatrix);
 
-}
\ No newline at end of file
+	/**
+	 * Render a built {@link IndirectBatch}, with one multi-draw call per group of
+	 * draws sharing a material.
+	 */
+	void renderIndirect(IndirectBatch batch, Mat4f modelMatrix);
+
+	/**
+	 * Render the level of a {@link LodMesh} suited to its size on screen.
+	 *
+	 * @param currentLevel the level rendered last time, or -1.
+	 * @return the level rendered, to be passed back next time.
+	 */
+	int renderLod(LodMesh mesh, int currentLevel, Mat4f modelMatrix);
+
+}
@@ -5,6 +5,12 @@ import au.edu.federation.itech3104.michaelwilson.graph.Transform;
 
 public interface IRenderer extends IDrawableRenderer {
 
+	/**
+	 * Called once at the start of every frame, before anything is rendered. Used
+	 * to compute per-frame values such as the camera matrices.
+	 */
+	public void beginFrame();
+
 	public void renderTree(Transform transform);
 
 	public void setCamera(Camera camera);
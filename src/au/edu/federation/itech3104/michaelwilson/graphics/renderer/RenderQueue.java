@@ -0,0 +1,136 @@
+package au.edu.federation.itech3104.michaelwilson.graphics.renderer;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import au.edu.federation.itech3104.michaelwilson.graphics.Mesh;
+import au.edu.federation.itech3104.michaelwilson.graphics.material.Material;
+import au.edu.federation.itech3104.michaelwilson.graphics.material.TextureAttribute;
+import au.edu.federation.itech3104.michaelwilson.math.Mat4f;
+
+/**
+ * Collects {@link IDrawable} objects so they can be drawn in an order that
+ * reduces OpenGL state changes. Each item is given a packed 64-bit sort key
+ * made from (shader, texture set, material, vertex array), so sorting the queue
+ * places draws sharing the same state next to each other. Items with the same
+ * key are ordered by mesh, so draws of the same mesh are next to each other and
+ * can be instanced. <br>
+ * <br>
+ * Item objects are reused between frames to avoid allocating every frame.
+ *
+ * @see #createKey(Material, Mesh)
+ */
+public class RenderQueue {
+	private static final Comparator<Item> BY_KEY = (a, b) -> {
+		int compare = Long.compareUnsigned(a.key, b.key);
+		return compare != 0 ? compare : Integer.compare(a.meshId, b.meshId);
+	};
+
+	private Item[] items = new Item[64];
+	private int size;
+
+	/**
+	 * Add a drawable to the queue. The drawable must have a {@link Material}.
+	 */
+	public void add(IDrawable drawable, Mat4f modelMatrix) {
+		if (size == items.length)
+			items = Arrays.copyOf(items, size * 2);
+
+		Item item = items[size];
+		if (item == null)
+			item = items[size] = new Item();
+
+		item.drawable = drawable;
+		item.modelMatrix = modelMatrix;
+		item.key = createKey(drawable.getMaterial(), drawable.getMesh());
+		item.meshId = System.identityHashCode(drawable.getMesh());
+		item.instanceCount = 0;
+
+		size++;
+	}
+
+	/**
+	 * Sort the queued items by their keys.
+	 */
+	public void sort() {
+		Arrays.sort(items, 0, size, BY_KEY);
+	}
+
+	public Item get(int index) {
+		return items[index];
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Remove all items, releasing references to the queued drawables.
+	 */
+	public void clear() {
+		for (int i = 0; i < size; i++) {
+			items[i].drawable = null;
+			items[i].modelMatrix = null;
+		}
+		size = 0;
+	}
+
+	/**
+	 * Returns a sort key with 16 bits each for the shader id, texture set, material
+	 * id and vertex array id (most to least significant). Ids larger than 16 bits
+	 * are truncated, which only affects grouping and not correctness.
+	 *
+	 * @param mesh optional, can be null.
+	 */
+	public static long createKey(Material material, Mesh mesh) {
+		long shader = material.getShaderProgram().getId() & 0xFFFF;
+		long textures = getTextureSetKey(material.getTextures()) & 0xFFFF;
+		long mat = material.getId() & 0xFFFF;
+		long vao = mesh == null ? 0 : mesh.vao.getId() & 0xFFFF;
+
+		return (shader << 48) | (textures << 32) | (mat << 16) | vao;
+	}
+
+	// Combine texture ids so materials using the same textures (in the same units)
+	// produce the same key.
+	private static int getTextureSetKey(List<TextureAttribute> textures) {
+		int key = 0;
+		for (int i = 0; i < textures.size(); i++)
+			key = key * 31 + textures.get(i).getTexture().getId();
+		return key;
+	}
+
+	public static final class Item {
+		private IDrawable drawable;
+		private Mat4f modelMatrix;
+		private long key;
+		private int meshId;
+
+		// Set by the renderer on the first item of a group drawn with one instanced
+		// draw call. The other items of the group are skipped.
+		int instanceCount;
+		int firstInstance;
+
+		private Item() {
+		}
+
+		public IDrawable getDrawable() {
+			return drawable;
+		}
+
+		public Mat4f getModelMatrix() {
+			return modelMatrix;
+		}
+
+		public long getKey() {
+			return key;
+		}
+
+	}
+
+}
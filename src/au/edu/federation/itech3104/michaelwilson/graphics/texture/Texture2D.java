@@ -16,39 +16,40 @@ import static org.lwjgl.opengl.GL13.GL_TEXTURE0;
 import static org.lwjgl.opengl.GL13.glActiveTexture;
 import static org.lwjgl.opengl.GL30.glGenerateMipmap;
 
-import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.io.InputStream;
-import java.nio.ByteBuffer;
 
 import au.edu.federation.itech3104.michaelwilson.graphics.IBindable;
-import au.edu.federation.itech3104.michaelwilson.graphics.BufferUtil;
 import au.edu.federation.itech3104.michaelwilson.graphics.IDisposable;
-import de.matthiasmann.twl.utils.PNGDecoder;
 
 public class Texture2D implements IBindable, IDisposable {
 
 	private final int id;
+	private final int width;
+	private final int height;
 	private boolean isDisposed;
 
+	/**
+	 * Load a PNG file from the file system.
+	 */
 	public Texture2D(String filepath) throws FileNotFoundException, IOException {
-		id = glGenTextures();
+		this(TextureData.decodePNG(filepath));
+	}
 
-		bind();
+	/**
+	 * Upload already decoded image data.
+	 *
+	 * @see TextureData#decodePNG(String)
+	 */
+	public Texture2D(TextureData data) {
+		width = data.getWidth();
+		height = data.getHeight();
 
-		try (InputStream is = new FileInputStream(filepath)) {
-			PNGDecoder decoder = new PNGDecoder(is);
+		id = glGenTextures();
 
-			// Load image into byte buffer.
-			ByteBuffer buffer = BufferUtil.createEmptyByteBuffer(4 * decoder.getWidth() * decoder.getHeight());
-			// Decode flipped to account for zero of y-axis being at the bottom instead of
-			// the top.
-			decoder.decodeFlipped(buffer, decoder.getWidth() * 4, PNGDecoder.Format.RGBA);
-			buffer.flip();
+		bind();
 
-			glTexImage2D(GL_TEXTURE_2D, 0, GL_RGBA, decoder.getWidth(), decoder.getHeight(), 0, GL_RGBA, GL_UNSIGNED_BYTE, buffer);
-		}
+		glTexImage2D(GL_TEXTURE_2D, 0, GL_RGBA, data.getWidth(), data.getHeight(), 0, GL_RGBA, GL_UNSIGNED_BYTE, data.getPixels());
 
 		setWrapS(WrapMode.REPEAT);
 		setWrapT(WrapMode.REPEAT);
@@ -122,6 +123,23 @@ public class Texture2D implements IBindable, IDisposable {
 		return id;
 	}
 
+	public int getWidth() {
+		return width;
+	}
+
+	public int getHeight() {
+		return height;
+	}
+
+	/**
+	 * Returns the estimated GPU memory used by this texture: 4 bytes per RGBA
+	 * pixel, plus a third for the mipmap chain.
+	 */
+	public long getSizeInBytes() {
+		long base = (long) width * height * 4;
+		return base + base / 3;
+	}
+
 	@Override
 	public void dispose() {
 		if (isDisposed)
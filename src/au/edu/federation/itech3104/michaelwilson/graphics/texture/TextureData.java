@@ -0,0 +1,61 @@
+package au.edu.federation.itech3104.michaelwilson.graphics.texture;
+
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+import au.edu.federation.itech3104.michaelwilson.graphics.BufferUtil;
+import de.matthiasmann.twl.utils.PNGDecoder;
+
+/**
+ * Decoded RGBA image data, ready to be uploaded by
+ * {@link Texture2D#Texture2D(TextureData)}. Decoding doesn't use OpenGL, so it
+ * can be done on any thread.
+ */
+public final class TextureData {
+	private final int width;
+	private final int height;
+	private final ByteBuffer pixels;
+
+	/**
+	 * @param pixels direct buffer of RGBA bytes, with the bottom row first.
+	 */
+	public TextureData(int width, int height, ByteBuffer pixels) {
+		this.width = width;
+		this.height = height;
+		this.pixels = pixels;
+	}
+
+	/**
+	 * Decode a PNG file from the file system.
+	 */
+	public static TextureData decodePNG(String filepath) throws FileNotFoundException, IOException {
+		try (InputStream is = new FileInputStream(filepath)) {
+			PNGDecoder decoder = new PNGDecoder(is);
+
+			// Load image into byte buffer.
+			ByteBuffer buffer = BufferUtil.createEmptyByteBuffer(4 * decoder.getWidth() * decoder.getHeight());
+			// Decode flipped to account for zero of y-axis being at the bottom instead of
+			// the top.
+			decoder.decodeFlipped(buffer, decoder.getWidth() * 4, PNGDecoder.Format.RGBA);
+			buffer.flip();
+
+			return new TextureData(decoder.getWidth(), decoder.getHeight(), buffer);
+		}
+	}
+
+	public int getWidth() {
+		return width;
+	}
+
+	public int getHeight() {
+		return height;
+	}
+
+	public ByteBuffer getPixels() {
+		return pixels;
+	}
+
+}
@@ -1,5 +1,7 @@
 package au.edu.federation.itech3104.michaelwilson.lighting;
 
+import java.nio.ByteBuffer;
+
 import au.edu.federation.itech3104.michaelwilson.graphics.ShaderProgram;
 import au.edu.federation.itech3104.michaelwilson.math.Vec3f;
 
@@ -9,6 +11,11 @@ import au.edu.federation.itech3104.michaelwilson.math.Vec3f;
  * parallel to one another.
  */
 public class DirectionalLight extends Light {
+	public static final String TYPE_NAME = "dirLights"; // The GLSL uniform array name.
+
+	protected static final String[] UNIFORM_FIELDS = withFields(Light.UNIFORM_FIELDS, "direction");
+
+	private static final int DIRECTION = Light.UNIFORM_FIELDS.length;
 
 	private final Vec3f direction;
 
@@ -18,8 +25,19 @@ public class DirectionalLight extends Light {
 	}
 
 	@Override
-	protected void set(String elementName, ShaderProgram shader) {
-		shader.setUniform(join(elementName, "direction"), direction);
+	protected void set(int[] locations, ShaderProgram shader) {
+		shader.setUniform(locations[DIRECTION], direction);
+	}
+
+	@Override
+	protected String[] getUniformFields() {
+		return UNIFORM_FIELDS;
+	}
+
+	@Override
+	protected void writeBlock(ByteBuffer buffer, int offset) {
+		UniformBlockWriter.putVec3(buffer, offset + 16, direction);
+		writeComponents(buffer, offset + 32);
 	}
 
 	public Vec3f getDirection() {
@@ -28,7 +46,7 @@ public class DirectionalLight extends Light {
 
 	@Override
 	public String getTypeName() {
-		return "dirLights";
+		return TYPE_NAME;
 	}
 
 }
@@ -1,5 +1,10 @@
 package au.edu.federation.itech3104.michaelwilson.lighting;
 
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
 import au.edu.federation.itech3104.michaelwilson.graph.Transform;
 import au.edu.federation.itech3104.michaelwilson.graphics.ILight;
 import au.edu.federation.itech3104.michaelwilson.graphics.ShaderProgram;
@@ -13,12 +18,33 @@ import au.edu.federation.itech3104.michaelwilson.math.Vec3f;
 public abstract class Light extends Transform implements ILight {
 	private static final String UNIFORM_DELIMITER = ".";
 
+	/**
+	 * The GLSL struct fields set by this class. Subclasses append their own fields,
+	 * see {@link #getUniformFields()} and {@link #withFields(String[], String...)}.
+	 */
+	protected static final String[] UNIFORM_FIELDS = { "enabled", "ambient", "diffuse", "specular" };
+
+	// Indices into the uniform location array.
+	private static final int ENABLED = 0;
+	private static final int AMBIENT = 1;
+	private static final int DIFFUSE = 2;
+	private static final int SPECULAR = 3;
+
 	private final Vec3f ambient;
 	private final Vec3f diffuse;
 	private final Vec3f specular;
 
 	private boolean enabled = true;
 
+	// Uniform locations for each (shader, light index), resolved the first time the
+	// light is applied. The last used locations are kept separately, since the
+	// shader and index rarely change between frames.
+	private final Map<ShaderProgram, int[][]> uniformLocations = new IdentityHashMap<>();
+
+	private ShaderProgram lastShader;
+	private int lastIndex = -1;
+	private int[] lastLocations;
+
 	public Light(Vec3f ambient, Vec3f diffuse, Vec3f specular) {
 		this.ambient = ambient;
 		this.diffuse = diffuse;
@@ -29,19 +55,99 @@ public abstract class Light extends Transform implements ILight {
 
 	@Override
 	public void apply(int index, ShaderProgram shader) {
-		// The GLSL struct array with indexer (e.g. pointLights[2])
-		String elementName = String.format("%s[%d]", getTypeName(), index);
+		int[] locations = getUniformLocations(index, shader);
+
+		shader.setUniform(locations[ENABLED], enabled);
+
+		shader.setUniform(locations[AMBIENT], ambient);
+		shader.setUniform(locations[DIFFUSE], diffuse);
+		shader.setUniform(locations[SPECULAR], specular);
 
-		shader.setUniform(join(elementName, "enabled"), enabled);
+		set(locations, shader);
+	}
 
-		shader.setUniform(join(elementName, "ambient"), ambient);
-		shader.setUniform(join(elementName, "diffuse"), diffuse);
-		shader.setUniform(join(elementName, "specular"), specular);
+	/**
+	 * Set the uniforms of the subclass fields.
+	 * 
+	 * @param locations the uniform locations, in the same order as
+	 *                  {@link #getUniformFields()}.
+	 */
+	protected abstract void set(int[] locations, ShaderProgram shader);
+
+	/**
+	 * Returns the names of the GLSL struct fields set by this light, starting with
+	 * {@link #UNIFORM_FIELDS}.
+	 */
+	protected abstract String[] getUniformFields();
+
+	// Return the uniform locations for the struct element at the index, resolving
+	// them if this is the first time the light has been applied to the shader at
+	// this index.
+	private int[] getUniformLocations(int index, ShaderProgram shader) {
+		if (shader == lastShader && index == lastIndex)
+			return lastLocations;
+
+		int[][] shaderLocations = uniformLocations.get(shader);
+		if (shaderLocations == null || shaderLocations.length <= index) {
+			shaderLocations = shaderLocations == null ? new int[index + 1][] : Arrays.copyOf(shaderLocations, index + 1);
+			uniformLocations.put(shader, shaderLocations);
+		}
+
+		int[] locations = shaderLocations[index];
+		if (locations == null) {
+			// The GLSL struct array with indexer (e.g. pointLights[2])
+			String elementName = String.format("%s[%d]", getTypeName(), index);
+
+			String[] fields = getUniformFields();
+			String[] names = new String[fields.length];
+			for (int i = 0; i < fields.length; i++)
+				names[i] = join(elementName, fields[i]);
+
+			locations = shaderLocations[index] = shader.getUniformLocations(names);
+		}
+
+		lastShader = shader;
+		lastIndex = index;
+		lastLocations = locations;
+
+		return locations;
+	}
 
-		set(elementName, shader);
+	/**
+	 * Returns a new array of the given fields followed by the additional fields.
+	 */
+	protected static String[] withFields(String[] fields, String... additional) {
+		String[] result = Arrays.copyOf(fields, fields.length + additional.length);
+		System.arraycopy(additional, 0, result, fields.length, additional.length);
+		return result;
 	}
 
-	protected abstract void set(String elementName, ShaderProgram shader);
+	@Override
+	public void write(ByteBuffer buffer, int offset) {
+		buffer.putInt(offset, enabled ? 1 : 0); // std140 bools are 4 bytes.
+
+		writeBlock(buffer, offset);
+	}
+
+	/**
+	 * Write the remaining struct fields (everything except enabled) using the
+	 * std140 layout. See the structs in standard.fs for offsets.
+	 * 
+	 * @param offset the byte offset of the struct within the buffer.
+	 */
+	protected abstract void writeBlock(ByteBuffer buffer, int offset);
+
+	/**
+	 * Write the ambient, diffuse, and specular components as consecutive std140
+	 * vec3 values.
+	 * 
+	 * @param offset the byte offset of the ambient component.
+	 */
+	protected void writeComponents(ByteBuffer buffer, int offset) {
+		UniformBlockWriter.putVec3(buffer, offset, ambient);
+		UniformBlockWriter.putVec3(buffer, offset + 16, diffuse);
+		UniformBlockWriter.putVec3(buffer, offset + 32, specular);
+	}
 
 	protected static String join(String... values) {
 		return String.join(UNIFORM_DELIMITER, values);
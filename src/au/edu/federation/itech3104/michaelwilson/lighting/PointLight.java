@@ -1,5 +1,7 @@
 package au.edu.federation.itech3104.michaelwilson.lighting;
 
+import java.nio.ByteBuffer;
+
 import au.edu.federation.itech3104.michaelwilson.graphics.ShaderProgram;
 import au.edu.federation.itech3104.michaelwilson.math.Vec3f;
 
@@ -9,6 +11,13 @@ import au.edu.federation.itech3104.michaelwilson.math.Vec3f;
  * (e.g. a light bulb)
  */
 public class PointLight extends PositionalLight {
+	public static final String TYPE_NAME = "pointLights"; // The GLSL uniform array name.
+
+	protected static final String[] UNIFORM_FIELDS = withFields(PositionalLight.UNIFORM_FIELDS, "constant", "linear", "quadratic");
+
+	private static final int CONSTANT = PositionalLight.UNIFORM_FIELDS.length;
+	private static final int LINEAR = CONSTANT + 1;
+	private static final int QUADRATIC = CONSTANT + 2;
 
 	private float constant;
 	private float linear;
@@ -22,11 +31,25 @@ public class PointLight extends PositionalLight {
 	}
 
 	@Override
-	protected void set(String elementName, ShaderProgram shader) {
-		super.set(elementName, shader);
-		shader.setUniform(join(elementName, "constant"), constant);
-		shader.setUniform(join(elementName, "linear"), linear);
-		shader.setUniform(join(elementName, "quadratic"), quadratic);
+	protected void set(int[] locations, ShaderProgram shader) {
+		super.set(locations, shader);
+		shader.setUniform(locations[CONSTANT], constant);
+		shader.setUniform(locations[LINEAR], linear);
+		shader.setUniform(locations[QUADRATIC], quadratic);
+	}
+
+	@Override
+	protected String[] getUniformFields() {
+		return UNIFORM_FIELDS;
+	}
+
+	@Override
+	protected void writeBlock(ByteBuffer buffer, int offset) {
+		super.writeBlock(buffer, offset);
+		buffer.putFloat(offset + 28, constant);
+		buffer.putFloat(offset + 32, linear);
+		buffer.putFloat(offset + 36, quadratic);
+		writeComponents(buffer, offset + 48);
 	}
 
 	public float getConstant() {
@@ -55,7 +78,7 @@ public class PointLight extends PositionalLight {
 
 	@Override
 	public String getTypeName() {
-		return "pointLights";
+		return TYPE_NAME;
 	}
 
 }
@@ -1,6 +1,9 @@
 package au.edu.federation.itech3104.michaelwilson.lighting;
 
+import java.nio.ByteBuffer;
+
 import au.edu.federation.itech3104.michaelwilson.graphics.ShaderProgram;
+import au.edu.federation.itech3104.michaelwilson.math.Mat4f;
 import au.edu.federation.itech3104.michaelwilson.math.Vec3f;
 
 /**
@@ -13,9 +16,22 @@ public abstract class PositionalLight extends Light {
 		super(ambient, diffuse, specular);
 	}
 
+	protected static final String[] UNIFORM_FIELDS = withFields(Light.UNIFORM_FIELDS, "position");
+
+	private static final int POSITION = Light.UNIFORM_FIELDS.length;
+
+	@Override
+	protected void set(int[] locations, ShaderProgram shader) {
+		Mat4f global = getGlobalMatrix();
+		shader.setUniform(locations[POSITION], global.m30, global.m31, global.m32);
+	}
+
 	@Override
-	protected void set(String elementName, ShaderProgram shader) {
-		shader.setUniform(join(elementName, "position"), getGlobalMatrix().getOrigin());
+	protected void writeBlock(ByteBuffer buffer, int offset) {
+		Mat4f global = getGlobalMatrix();
+		buffer.putFloat(offset + 16, global.m30);
+		buffer.putFloat(offset + 20, global.m31);
+		buffer.putFloat(offset + 24, global.m32);
 	}
 
 }
@@ -1,5 +1,7 @@
 package au.edu.federation.itech3104.michaelwilson.lighting;
 
+import java.nio.ByteBuffer;
+
 import au.edu.federation.itech3104.michaelwilson.graphics.ShaderProgram;
 import au.edu.federation.itech3104.michaelwilson.math.Vec3f;
 
@@ -11,6 +13,17 @@ import au.edu.federation.itech3104.michaelwilson.math.Vec3f;
  *
  */
 public class SpotLight extends PositionalLight {
+	public static final String TYPE_NAME = "spotLights"; // The GLSL uniform array name.
+
+	protected static final String[] UNIFORM_FIELDS = withFields(PositionalLight.UNIFORM_FIELDS, "direction", "constant", "linear", "quadratic",
+			"cutOff", "outerCutOff");
+
+	private static final int DIRECTION = PositionalLight.UNIFORM_FIELDS.length;
+	private static final int CONSTANT = DIRECTION + 1;
+	private static final int LINEAR = DIRECTION + 2;
+	private static final int QUADRATIC = DIRECTION + 3;
+	private static final int CUT_OFF = DIRECTION + 4;
+	private static final int OUTER_CUT_OFF = DIRECTION + 5;
 
 	private Vec3f direction;
 	private float constant;
@@ -32,18 +45,35 @@ public class SpotLight extends PositionalLight {
 
 	@Override
 	public String getTypeName() {
-		return "spotLights";
+		return TYPE_NAME;
+	}
+
+	@Override
+	protected void set(int[] locations, ShaderProgram shader) {
+		super.set(locations, shader);
+		shader.setUniform(locations[DIRECTION], direction);
+		shader.setUniform(locations[CONSTANT], constant);
+		shader.setUniform(locations[LINEAR], linear);
+		shader.setUniform(locations[QUADRATIC], quadratic);
+		shader.setUniform(locations[CUT_OFF], cutOff);
+		shader.setUniform(locations[OUTER_CUT_OFF], outerCutOff);
+	}
+
+	@Override
+	protected String[] getUniformFields() {
+		return UNIFORM_FIELDS;
 	}
 
 	@Override
-	protected void set(String elementName, ShaderProgram shader) {
-		super.set(elementName, shader);
-		shader.setUniform(join(elementName, "direction"), direction);
-		shader.setUniform(join(elementName, "constant"), constant);
-		shader.setUniform(join(elementName, "linear"), linear);
-		shader.setUniform(join(elementName, "quadratic"), quadratic);
-		shader.setUniform(join(elementName, "cutOff"), cutOff);
-		shader.setUniform(join(elementName, "outerCutOff"), outerCutOff);
+	protected void writeBlock(ByteBuffer buffer, int offset) {
+		super.writeBlock(buffer, offset);
+		UniformBlockWriter.putVec3(buffer, offset + 32, direction);
+		buffer.putFloat(offset + 44, cutOff);
+		buffer.putFloat(offset + 48, outerCutOff);
+		buffer.putFloat(offset + 52, constant);
+		buffer.putFloat(offset + 56, linear);
+		buffer.putFloat(offset + 60, quadratic);
+		writeComponents(buffer, offset + 64);
 	}
 
 	public Vec3f getDirection() {
@@ -0,0 +1,177 @@
+package au.edu.federation.itech3104.michaelwilson.lighting;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import au.edu.federation.itech3104.michaelwilson.camera.Camera;
+import au.edu.federation.itech3104.michaelwilson.graphics.BufferUtil;
+import au.edu.federation.itech3104.michaelwilson.graphics.ILight;
+import au.edu.federation.itech3104.michaelwilson.math.Mat4f;
+import au.edu.federation.itech3104.michaelwilson.math.Vec3f;
+
+/**
+ * Packs the CameraBlock and LightBlock uniform blocks used by the standard
+ * shaders into a single direct {@link ByteBuffer} using the std140 layout. The
+ * buffer is meant to be uploaded once per frame and shared by all shader
+ * programs using binding points. <br>
+ * <br>
+ * The CameraBlock is written at offset 0 and the LightBlock at
+ * {@link #getLightBlockOffset()}, which respects the uniform buffer offset
+ * alignment of the OpenGL implementation.
+ *
+ * @see ILight#write(ByteBuffer, int)
+ */
+public final class UniformBlockWriter {
+
+	public static final String CAMERA_BLOCK_NAME = "CameraBlock";
+	public static final String LIGHT_BLOCK_NAME = "LightBlock";
+
+	public static final int CAMERA_BLOCK_BINDING = 0;
+	public static final int LIGHT_BLOCK_BINDING = 1;
+
+	// Must match the TOTAL_*_LIGHTS defines in standard.fs
+	public static final int TOTAL_DIR_LIGHTS = 4;
+	public static final int TOTAL_POINT_LIGHTS = 4;
+	public static final int TOTAL_SPOT_LIGHTS = 4;
+
+	// std140 struct sizes, see the struct definitions in standard.fs
+	public static final int DIR_LIGHT_SIZE = 80;
+	public static final int POINT_LIGHT_SIZE = 96;
+	public static final int SPOT_LIGHT_SIZE = 112;
+
+	// CameraBlock { mat4 projection; mat4 view; vec3 viewPos; }
+	public static final int CAMERA_BLOCK_SIZE = 144;
+
+	// LightBlock { DirLight dirLights[]; PointLight pointLights[]; SpotLight spotLights[]; }
+	private static final int DIR_LIGHTS_OFFSET = 0;
+	private static final int POINT_LIGHTS_OFFSET = DIR_LIGHTS_OFFSET + DIR_LIGHT_SIZE * TOTAL_DIR_LIGHTS;
+	private static final int SPOT_LIGHTS_OFFSET = POINT_LIGHTS_OFFSET + POINT_LIGHT_SIZE * TOTAL_POINT_LIGHTS;
+	public static final int LIGHT_BLOCK_SIZE = SPOT_LIGHTS_OFFSET + SPOT_LIGHT_SIZE * TOTAL_SPOT_LIGHTS;
+
+	private final ByteBuffer buffer;
+	private final int lightBlockOffset;
+
+	// Number of lights written for each light array.
+	private int dirLightCount;
+	private int pointLightCount;
+	private int spotLightCount;
+
+	/**
+	 * @param offsetAlignment the value of GL_UNIFORM_BUFFER_OFFSET_ALIGNMENT
+	 */
+	public UniformBlockWriter(int offsetAlignment) {
+		lightBlockOffset = align(CAMERA_BLOCK_SIZE, offsetAlignment);
+		buffer = BufferUtil.createEmptyByteBuffer(lightBlockOffset + LIGHT_BLOCK_SIZE);
+	}
+
+	/**
+	 * Write both uniform blocks into the buffer. Light array elements without a
+	 * light are marked as disabled.
+	 *
+	 * @param lights optional, can be null.
+	 */
+	public ByteBuffer write(Camera camera, List<ILight> lights) {
+		putMat4(buffer, 0, camera.getProjectionMatrix());
+		putMat4(buffer, 64, camera.getViewMatrix());
+		putVec3(buffer, 128, camera.getPosition());
+
+		dirLightCount = pointLightCount = spotLightCount = 0;
+
+		if (lights != null) {
+			for (int i = 0; i < lights.size(); i++) {
+				ILight light = lights.get(i);
+				int offset = nextElementOffset(light.getTypeName());
+				if (offset != -1)
+					light.write(buffer, lightBlockOffset + offset);
+			}
+		}
+
+		// Disable unused light array elements.
+		for (int i = dirLightCount; i < TOTAL_DIR_LIGHTS; i++)
+			buffer.putInt(lightBlockOffset + DIR_LIGHTS_OFFSET + i * DIR_LIGHT_SIZE, 0);
+		for (int i = pointLightCount; i < TOTAL_POINT_LIGHTS; i++)
+			buffer.putInt(lightBlockOffset + POINT_LIGHTS_OFFSET + i * POINT_LIGHT_SIZE, 0);
+		for (int i = spotLightCount; i < TOTAL_SPOT_LIGHTS; i++)
+			buffer.putInt(lightBlockOffset + SPOT_LIGHTS_OFFSET + i * SPOT_LIGHT_SIZE, 0);
+
+		buffer.clear();
+		return buffer;
+	}
+
+	// Returns the LightBlock offset of the next free element of the array with the
+	// given type name, or -1 if the array is full or the type is unknown.
+	private int nextElementOffset(String typeName) {
+		switch (typeName) {
+		case DirectionalLight.TYPE_NAME:
+			return dirLightCount < TOTAL_DIR_LIGHTS ? DIR_LIGHTS_OFFSET + DIR_LIGHT_SIZE * dirLightCount++ : -1;
+		case PointLight.TYPE_NAME:
+			return pointLightCount < TOTAL_POINT_LIGHTS ? POINT_LIGHTS_OFFSET + POINT_LIGHT_SIZE * pointLightCount++ : -1;
+		case SpotLight.TYPE_NAME:
+			return spotLightCount < TOTAL_SPOT_LIGHTS ? SPOT_LIGHTS_OFFSET + SPOT_LIGHT_SIZE * spotLightCount++ : -1;
+		default:
+			return -1;
+		}
+	}
+
+	/**
+	 * Returns the buffer containing both blocks. Its position and limit cover the
+	 * whole buffer.
+	 */
+	public ByteBuffer getBuffer() {
+		return buffer;
+	}
+
+	public int getCameraBlockOffset() {
+		return 0;
+	}
+
+	public int getLightBlockOffset() {
+		return lightBlockOffset;
+	}
+
+	/**
+	 * Returns the total size in bytes of the buffer.
+	 */
+	public int getSize() {
+		return buffer.capacity();
+	}
+
+	private static int align(int value, int alignment) {
+		return (value + alignment - 1) / alignment * alignment;
+	}
+
+	/**
+	 * Write a vec3 (12 bytes) at the given byte offset.
+	 */
+	public static void putVec3(ByteBuffer buffer, int offset, Vec3f value) {
+		buffer.putFloat(offset, value.x);
+		buffer.putFloat(offset + 4, value.y);
+		buffer.putFloat(offset + 8, value.z);
+	}
+
+	/**
+	 * Write a column major mat4 (64 bytes) at the given byte offset.
+	 */
+	public static void putMat4(ByteBuffer buffer, int offset, Mat4f value) {
+		buffer.putFloat(offset, value.m00);
+		buffer.putFloat(offset + 4, value.m01);
+		buffer.putFloat(offset + 8, value.m02);
+		buffer.putFloat(offset + 12, value.m03);
+
+		buffer.putFloat(offset + 16, value.m10);
+		buffer.putFloat(offset + 20, value.m11);
+		buffer.putFloat(offset + 24, value.m12);
+		buffer.putFloat(offset + 28, value.m13);
+
+		buffer.putFloat(offset + 32, value.m20);
+		buffer.putFloat(offset + 36, value.m21);
+		buffer.putFloat(offset + 40, value.m22);
+		buffer.putFloat(offset + 44, value.m23);
+
+		buffer.putFloat(offset + 48, value.m30);
+		buffer.putFloat(offset + 52, value.m31);
+		buffer.putFloat(offset + 56, value.m32);
+		buffer.putFloat(offset + 60, value.m33);
+	}
+
+}
@@ -0,0 +1,169 @@
+package au.edu.federation.itech3104.michaelwilson.math;
+
+import java.nio.FloatBuffer;
+
+/**
+ * An axis-aligned bounding box, defined by its minimum and maximum corners.
+ * <p>
+ * A new BoundingBox is empty (min is +infinity and max is -infinity), so
+ * including any point or non-empty box makes it contain exactly that point or
+ * box.
+ */
+public class BoundingBox {
+
+	public final Vec3f min = new Vec3f();
+	public final Vec3f max = new Vec3f();
+
+	/**
+	 * Create an empty bounding box.
+	 */
+	public BoundingBox() {
+		setEmpty();
+	}
+
+	public BoundingBox(Vec3f min, Vec3f max) {
+		this.min.set(min);
+		this.max.set(max);
+	}
+
+	public BoundingBox(BoundingBox source) {
+		set(source);
+	}
+
+	/**
+	 * Returns a new bounding box containing the positions of the given
+	 * interleaved vertex data. The position is expected to be the first three
+	 * floats of each vertex.
+	 *
+	 * @param vertices The vertex data.
+	 * @param stride   The number of floats per vertex.
+	 */
+	public static BoundingBox fromVertices(float[] vertices, int stride) {
+		BoundingBox box = new BoundingBox();
+
+		for (int i = 0; i + 2 < vertices.length; i += stride)
+			box.include(vertices[i], vertices[i + 1], vertices[i + 2]);
+
+		return box;
+	}
+
+	/**
+	 * Same as {@link #fromVertices(float[], int)}, reading the remaining floats of
+	 * the buffer without changing its position.
+	 */
+	public static BoundingBox fromVertices(FloatBuffer vertices, int stride) {
+		BoundingBox box = new BoundingBox();
+
+		for (int i = vertices.position(); i + 2 < vertices.limit(); i += stride)
+			box.include(vertices.get(i), vertices.get(i + 1), vertices.get(i + 2));
+
+		return box;
+	}
+
+	public BoundingBox set(BoundingBox source) {
+		min.set(source.min);
+		max.set(source.max);
+		return this;
+	}
+
+	/**
+	 * Make this bounding box empty.
+	 */
+	public BoundingBox setEmpty() {
+		min.set(Float.POSITIVE_INFINITY, Float.POSITIVE_INFINITY, Float.POSITIVE_INFINITY);
+		max.set(Float.NEGATIVE_INFINITY, Float.NEGATIVE_INFINITY, Float.NEGATIVE_INFINITY);
+		return this;
+	}
+
+	/**
+	 * Returns true if this bounding box doesn't contain anything.
+	 */
+	public boolean isEmpty() {
+		return min.x > max.x || min.y > max.y || min.z > max.z;
+	}
+
+	/**
+	 * Grow this bounding box to contain the given point.
+	 */
+	public BoundingBox include(float x, float y, float z) {
+		if (x < min.x)
+			min.x = x;
+		if (y < min.y)
+			min.y = y;
+		if (z < min.z)
+			min.z = z;
+
+		if (x > max.x)
+			max.x = x;
+		if (y > max.y)
+			max.y = y;
+		if (z > max.z)
+			max.z = z;
+
+		return this;
+	}
+
+	/**
+	 * Grow this bounding box to contain the given bounding box. Empty boxes are
+	 * ignored.
+	 */
+	public BoundingBox include(BoundingBox box) {
+		if (box.isEmpty())
+			return this;
+
+		include(box.min.x, box.min.y, box.min.z);
+		return include(box.max.x, box.max.y, box.max.z);
+	}
+
+	/**
+	 * Store the center of this bounding box in dest.
+	 *
+	 * @return The dest Vec3f.
+	 */
+	public Vec3f getCenter(Vec3f dest) {
+		dest.set((min.x + max.x) * 0.5f, (min.y + max.y) * 0.5f, (min.z + max.z) * 0.5f);
+		return dest;
+	}
+
+	/**
+	 * Transform this bounding box by a matrix and store the bounding box of the
+	 * result in dest. dest may be this bounding box.
+	 * <p>
+	 * Rather than transforming all eight corners, the center is transformed and
+	 * the extents are transformed by the absolute values of the matrix axes
+	 * (Arvo's method), which produces the same box.
+	 *
+	 * @return The dest BoundingBox.
+	 */
+	public BoundingBox transform(Mat4f m, BoundingBox dest) {
+		if (isEmpty())
+			return dest.setEmpty();
+
+		float cx = (min.x + max.x) * 0.5f;
+		float cy = (min.y + max.y) * 0.5f;
+		float cz = (min.z + max.z) * 0.5f;
+
+		float ex = (max.x - min.x) * 0.5f;
+		float ey = (max.y - min.y) * 0.5f;
+		float ez = (max.z - min.z) * 0.5f;
+
+		float ncx = m.m00 * cx + m.m10 * cy + m.m20 * cz + m.m30;
+		float ncy = m.m01 * cx + m.m11 * cy + m.m21 * cz + m.m31;
+		float ncz = m.m02 * cx + m.m12 * cy + m.m22 * cz + m.m32;
+
+		float nex = Math.abs(m.m00) * ex + Math.abs(m.m10) * ey + Math.abs(m.m20) * ez;
+		float ney = Math.abs(m.m01) * ex + Math.abs(m.m11) * ey + Math.abs(m.m21) * ez;
+		float nez = Math.abs(m.m02) * ex + Math.abs(m.m12) * ey + Math.abs(m.m22) * ez;
+
+		dest.min.set(ncx - nex, ncy - ney, ncz - nez);
+		dest.max.set(ncx + nex, ncy + ney, ncz + nez);
+
+		return dest;
+	}
+
+	@Override
+	public String toString() {
+		return "min: (" + min + "), max: (" + max + ")";
+	}
+
+}
@@ -0,0 +1,117 @@
+package au.edu.federation.itech3104.michaelwilson.math;
+
+import java.nio.FloatBuffer;
+
+/**
+ * A bounding sphere, defined by its center and radius. A negative radius means
+ * the sphere is empty.
+ */
+public class BoundingSphere {
+
+	public final Vec3f center = new Vec3f();
+	public float radius = -1.0f;
+
+	/**
+	 * Create an empty bounding sphere.
+	 */
+	public BoundingSphere() {
+	}
+
+	public BoundingSphere(Vec3f center, float radius) {
+		this.center.set(center);
+		this.radius = radius;
+	}
+
+	/**
+	 * Returns a new bounding sphere containing the positions of the given
+	 * interleaved vertex data. The sphere is centered on the center of the
+	 * bounding box of the positions, with the radius set to the distance of the
+	 * furthest position.
+	 *
+	 * @param vertices The vertex data, with the position as the first three floats
+	 *                 of each vertex.
+	 * @param stride   The number of floats per vertex.
+	 * @param box      The bounding box of the vertex data.
+	 */
+	public static BoundingSphere fromVertices(float[] vertices, int stride, BoundingBox box) {
+		BoundingSphere sphere = new BoundingSphere();
+		if (box.isEmpty())
+			return sphere;
+
+		box.getCenter(sphere.center);
+
+		float maxDistanceSq = 0.0f;
+		for (int i = 0; i + 2 < vertices.length; i += stride) {
+			float dx = vertices[i] - sphere.center.x;
+			float dy = vertices[i + 1] - sphere.center.y;
+			float dz = vertices[i + 2] - sphere.center.z;
+			maxDistanceSq = Math.max(maxDistanceSq, dx * dx + dy * dy + dz * dz);
+		}
+
+		sphere.radius = (float) Math.sqrt(maxDistanceSq);
+		return sphere;
+	}
+
+	/**
+	 * Same as {@link #fromVertices(float[], int, BoundingBox)}, reading the
+	 * remaining floats of the buffer without changing its position.
+	 */
+	public static BoundingSphere fromVertices(FloatBuffer vertices, int stride, BoundingBox box) {
+		BoundingSphere sphere = new BoundingSphere();
+		if (box.isEmpty())
+			return sphere;
+
+		box.getCenter(sphere.center);
+
+		float maxDistanceSq = 0.0f;
+		for (int i = vertices.position(); i + 2 < vertices.limit(); i += stride) {
+			float dx = vertices.get(i) - sphere.center.x;
+			float dy = vertices.get(i + 1) - sphere.center.y;
+			float dz = vertices.get(i + 2) - sphere.center.z;
+			maxDistanceSq = Math.max(maxDistanceSq, dx * dx + dy * dy + dz * dz);
+		}
+
+		sphere.radius = (float) Math.sqrt(maxDistanceSq);
+		return sphere;
+	}
+
+	public BoundingSphere set(BoundingSphere source) {
+		center.set(source.center);
+		radius = source.radius;
+		return this;
+	}
+
+	public boolean isEmpty() {
+		return radius < 0.0f;
+	}
+
+	/**
+	 * Transform this sphere by a matrix and store the result in dest. dest may be
+	 * this sphere. The radius is scaled by the largest scale of the matrix axes, so
+	 * the result contains the transformed sphere even with non-uniform scaling.
+	 *
+	 * @return The dest BoundingSphere.
+	 */
+	public BoundingSphere transform(Mat4f m, BoundingSphere dest) {
+		if (isEmpty()) {
+			dest.radius = -1.0f;
+			return dest;
+		}
+
+		float sx = m.m00 * m.m00 + m.m01 * m.m01 + m.m02 * m.m02;
+		float sy = m.m10 * m.m10 + m.m11 * m.m11 + m.m12 * m.m12;
+		float sz = m.m20 * m.m20 + m.m21 * m.m21 + m.m22 * m.m22;
+		float scale = (float) Math.sqrt(Math.max(sx, Math.max(sy, sz)));
+
+		m.transformPoint(center, dest.center);
+		dest.radius = radius * scale;
+
+		return dest;
+	}
+
+	@Override
+	public String toString() {
+		return "center: (" + center + "), radius: " + radius;
+	}
+
+}
@@ -98,6 +98,28 @@ public class Mat3f {
 		this.m22 = m22;
 	}
 
+	/**
+	 * Set the values of this Mat3f from a source Mat3f.
+	 * 
+	 * @param source The Mat3f from which to copy the values.
+	 * @return This Mat3f for chaining.
+	 */
+	public Mat3f set(Mat3f source) {
+		m00 = source.m00;
+		m01 = source.m01;
+		m02 = source.m02;
+
+		m10 = source.m10;
+		m11 = source.m11;
+		m12 = source.m12;
+
+		m20 = source.m20;
+		m21 = source.m21;
+		m22 = source.m22;
+
+		return this;
+	}
+
 	/** Zero all elements of the matrix. */
 	public void zero() {
 		m00 = m01 = m02 = m10 = m11 = m12 = m20 = m21 = m22 = 0.0f;
@@ -159,6 +181,32 @@ public class Mat3f {
 		 */
 	}
 
+	/**
+	 * Store the transposed version of this Mat3f in dest.
+	 * <p>
+	 * dest may be this Mat3f, in which case this Mat3f is transposed in place.
+	 * 
+	 * @param dest The Mat3f to store the transposed matrix in.
+	 * @return The dest Mat3f.
+	 */
+	public Mat3f transpose(Mat3f dest) {
+		float t01 = m01, t02 = m02, t12 = m12;
+
+		dest.m00 = m00;
+		dest.m01 = m10;
+		dest.m02 = m20;
+
+		dest.m10 = t01;
+		dest.m11 = m11;
+		dest.m12 = m21;
+
+		dest.m20 = t02;
+		dest.m21 = t12;
+		dest.m22 = m22;
+
+		return dest;
+	}
+
 	/**
 	 * Multiply this Mat3f by another Mat3f.
 	 * <p>
@@ -169,21 +217,42 @@ public class Mat3f {
 	 * @return The resulting Mat3f.
 	 */
 	public Mat3f times(Mat3f m) {
-		Mat3f temp = new Mat3f();
+		return mul(this, m, new Mat3f());
+	}
 
-		temp.m00 = this.m00 * m.m00 + this.m10 * m.m01 + this.m20 * m.m02;
-		temp.m01 = this.m01 * m.m00 + this.m11 * m.m01 + this.m21 * m.m02;
-		temp.m02 = this.m02 * m.m00 + this.m12 * m.m01 + this.m22 * m.m02;
+	/**
+	 * Multiply a by b and store the result in dest, without allocating.
+	 * <p>
+	 * dest may be the same object as a and/or b.
+	 * 
+	 * @return The dest Mat3f.
+	 */
+	public static Mat3f mul(Mat3f a, Mat3f b, Mat3f dest) {
+		float r00 = a.m00 * b.m00 + a.m10 * b.m01 + a.m20 * b.m02;
+		float r01 = a.m01 * b.m00 + a.m11 * b.m01 + a.m21 * b.m02;
+		float r02 = a.m02 * b.m00 + a.m12 * b.m01 + a.m22 * b.m02;
 
-		temp.m10 = this.m00 * m.m10 + this.m10 * m.m11 + this.m20 * m.m12;
-		temp.m11 = this.m01 * m.m10 + this.m11 * m.m11 + this.m21 * m.m12;
-		temp.m12 = this.m02 * m.m10 + this.m12 * m.m11 + this.m22 * m.m12;
+		float r10 = a.m00 * b.m10 + a.m10 * b.m11 + a.m20 * b.m12;
+		float r11 = a.m01 * b.m10 + a.m11 * b.m11 + a.m21 * b.m12;
+		float r12 = a.m02 * b.m10 + a.m12 * b.m11 + a.m22 * b.m12;
 
-		temp.m20 = this.m00 * m.m20 + this.m10 * m.m21 + this.m20 * m.m22;
-		temp.m21 = this.m01 * m.m20 + this.m11 * m.m21 + this.m21 * m.m22;
-		temp.m22 = this.m02 * m.m20 + this.m12 * m.m21 + this.m22 * m.m22;
+		float r20 = a.m00 * b.m20 + a.m10 * b.m21 + a.m20 * b.m22;
+		float r21 = a.m01 * b.m20 + a.m11 * b.m21 + a.m21 * b.m22;
+		float r22 = a.m02 * b.m20 + a.m12 * b.m21 + a.m22 * b.m22;
 
-		return temp;
+		dest.m00 = r00;
+		dest.m01 = r01;
+		dest.m02 = r02;
+
+		dest.m10 = r10;
+		dest.m11 = r11;
+		dest.m12 = r12;
+
+		dest.m20 = r20;
+		dest.m21 = r21;
+		dest.m22 = r22;
+
+		return dest;
 	}
 
 	/**
@@ -206,6 +275,23 @@ public class Mat3f {
 				this.m02 * source.x + this.m12 * source.y + this.m22 * source.z);
 	}
 
+	/**
+	 * Multiply a Vec3f by this Mat3f and store the result in dest.
+	 * <p>
+	 * dest may be the same object as source.
+	 * 
+	 * @return The dest Vec3f.
+	 */
+	public Vec3f times(Vec3f source, Vec3f dest) {
+		float x = source.x, y = source.y, z = source.z;
+
+		dest.x = this.m00 * x + this.m10 * y + this.m20 * z;
+		dest.y = this.m01 * x + this.m11 * y + this.m21 * z;
+		dest.z = this.m02 * x + this.m12 * y + this.m22 * z;
+
+		return dest;
+	}
+
 	/**
 	 * Return the determinant of this matrix.
 	 * <p>
@@ -233,25 +319,45 @@ public class Mat3f {
 	 * @return A Mat3f which is the inverse of this Mat3f.
 	 */
 	public Mat3f inverse() {
+		return inverse(new Mat3f());
+	}
+
+	/**
+	 * Calculate the inverse of this Mat3f and store it in dest.
+	 * <p>
+	 * dest may be this Mat3f. If the determinant of this matrix is zero then a
+	 * RuntimeException is thrown and dest is not modified.
+	 * 
+	 * @return The dest Mat3f.
+	 */
+	public Mat3f inverse(Mat3f dest) {
 		// Calculate the determinant of this matrix
 		float d = this.determinant();
 
 		// As long as the determinant is not zero...
 		if (d != 0.0f) {
-			// ...then calculate and return the inverse of this matrix.
-			Mat3f temp = new Mat3f();
-
-			temp.m00 = (m11 * m22 - m12 * m21) / d;
-			temp.m01 = -(m01 * m22 - m02 * m21) / d;
-			temp.m02 = (m01 * m12 - m02 * m11) / d;
-			temp.m10 = -(-m20 * m12 + m10 * m22) / d;
-			temp.m11 = (-m20 * m02 + m00 * m22) / d;
-			temp.m12 = -(-m10 * m02 + m00 * m12) / d;
-			temp.m20 = (-m20 * m11 + m10 * m21) / d;
-			temp.m21 = -(-m20 * m01 + m00 * m21) / d;
-			temp.m22 = (-m10 * m02 + m00 * m11) / d;
-
-			return temp;
+			// ...then calculate the inverse of this matrix.
+			float t00 = (m11 * m22 - m12 * m21) / d;
+			float t01 = -(m01 * m22 - m02 * m21) / d;
+			float t02 = (m01 * m12 - m02 * m11) / d;
+			float t10 = -(-m20 * m12 + m10 * m22) / d;
+			float t11 = (-m20 * m02 + m00 * m22) / d;
+			float t12 = -(-m10 * m02 + m00 * m12) / d;
+			float t20 = (-m20 * m11 + m10 * m21) / d;
+			float t21 = -(-m20 * m01 + m00 * m21) / d;
+			float t22 = (-m10 * m01 + m00 * m11) / d;
+
+			dest.m00 = t00;
+			dest.m01 = t01;
+			dest.m02 = t02;
+			dest.m10 = t10;
+			dest.m11 = t11;
+			dest.m12 = t12;
+			dest.m20 = t20;
+			dest.m21 = t21;
+			dest.m22 = t22;
+
+			return dest;
 		} else // If the determinant is zero then throw a runtime exception.
 		{
 			throw new RuntimeException("Cannot invert a matrix whose determinant is zero.");
@@ -430,8 +536,16 @@ public class Mat3f {
 	 */
 
 	public float[] toArray() {
-		float[] floatArray = new float[9];
+		return toArray(new float[9]);
+	}
 
+	/**
+	 * Store this Mat3f in the first 9 elements of floatArray, in column major
+	 * order.
+	 * 
+	 * @return The floatArray.
+	 */
+	public float[] toArray(float[] floatArray) {
 		floatArray[0] = m00;
 		floatArray[1] = m01;
 		floatArray[2] = m02;
@@ -185,8 +185,28 @@ public class Mat4f {
 		return scaleNew(s, s, s);
 	}
 
+	/**
+	 * Scale this matrix along its local axes. This is the same as
+	 * {@code this.times(scaleMatrix(x, y, z))} but is performed in place.
+	 * 
+	 * @return This Mat4f for chaining.
+	 */
 	public Mat4f scale(float x, float y, float z) {
-		setFromArray(scaleNew(x, y, z).toArray());
+		m00 *= x;
+		m01 *= x;
+		m02 *= x;
+		m03 *= x;
+
+		m10 *= y;
+		m11 *= y;
+		m12 *= y;
+		m13 *= y;
+
+		m20 *= z;
+		m21 *= z;
+		m22 *= z;
+		m23 *= z;
+
 		return this;
 	}
 
@@ -220,32 +240,96 @@ public class Mat4f {
 
 	// https://www.3dgep.com/understanding-the-view-matrix/
 	public static Mat4f lookAt(Vec3f position, Vec3f target, Vec3f up) {
+		return lookAt(position, target, up, new Mat4f());
+	}
 
-		Vec3f zaxis = position.minus(target).normalise();
-		Vec3f xaxis = up.cross(zaxis).normalise();
-		Vec3f yaxis = zaxis.cross(xaxis);
+	/**
+	 * Calculate a view matrix looking from position towards target and store it in
+	 * dest. No objects are allocated.
+	 * 
+	 * @return The dest Mat4f.
+	 * @see #lookAt(Vec3f, Vec3f, Vec3f)
+	 */
+	public static Mat4f lookAt(Vec3f position, Vec3f target, Vec3f up, Mat4f dest) {
+		// z-axis = normalise(position - target)
+		float zx = position.x - target.x;
+		float zy = position.y - target.y;
+		float zz = position.z - target.z;
+		float length = (float) Math.sqrt(zx * zx + zy * zy + zz * zz);
+		if (length > 0.0f) {
+			zx /= length;
+			zy /= length;
+			zz /= length;
+		}
 
-		Mat4f orientation = new Mat4f();
-		orientation.m00 = xaxis.x;
-		orientation.m01 = yaxis.x;
-		orientation.m02 = zaxis.x;
+		// x-axis = normalise(up x z-axis)
+		float xx = up.y * zz - up.z * zy;
+		float xy = up.z * zx - up.x * zz;
+		float xz = up.x * zy - up.y * zx;
+		length = (float) Math.sqrt(xx * xx + xy * xy + xz * xz);
+		if (length > 0.0f) {
+			xx /= length;
+			xy /= length;
+			xz /= length;
+		}
 
-		orientation.m10 = xaxis.y;
-		orientation.m11 = yaxis.y;
-		orientation.m12 = zaxis.y;
+		// y-axis = z-axis x x-axis
+		float yx = zy * xz - zz * xy;
+		float yy = zz * xx - zx * xz;
+		float yz = zx * xy - zy * xx;
+
+		// The orientation multiplied by a translation of -position.
+		dest.m00 = xx;
+		dest.m01 = yx;
+		dest.m02 = zx;
+		dest.m03 = 0.0f;
+
+		dest.m10 = xy;
+		dest.m11 = yy;
+		dest.m12 = zy;
+		dest.m13 = 0.0f;
+
+		dest.m20 = xz;
+		dest.m21 = yz;
+		dest.m22 = zz;
+		dest.m23 = 0.0f;
+
+		dest.m30 = -(xx * position.x + xy * position.y + xz * position.z);
+		dest.m31 = -(yx * position.x + yy * position.y + yz * position.z);
+		dest.m32 = -(zx * position.x + zy * position.y + zz * position.z);
+		dest.m33 = 1.0f;
+
+		return dest;
+	}
 
-		orientation.m20 = xaxis.z;
-		orientation.m21 = yaxis.z;
-		orientation.m22 = zaxis.z;
+	/**
+	 * Set the values of this Mat4f from a source Mat4f.
+	 * 
+	 * @param source The Mat4f from which to copy the values.
+	 * @return This Mat4f for chaining.
+	 */
+	public Mat4f set(Mat4f source) {
+		m00 = source.m00;
+		m01 = source.m01;
+		m02 = source.m02;
+		m03 = source.m03;
+
+		m10 = source.m10;
+		m11 = source.m11;
+		m12 = source.m12;
+		m13 = source.m13;
 
-		orientation.m33 = 1.0f;
+		m20 = source.m20;
+		m21 = source.m21;
+		m22 = source.m22;
+		m23 = source.m23;
 
-		Mat4f translation = new Mat4f(1.0f);
-		translation.m30 = -position.x;
-		translation.m31 = -position.y;
-		translation.m32 = -position.z;
+		m30 = source.m30;
+		m31 = source.m31;
+		m32 = source.m32;
+		m33 = source.m33;
 
-		return orientation.times(translation);
+		return this;
 	}
 
 	/**
@@ -320,6 +404,36 @@ public class Mat4f {
 		}
 	}
 
+	/**
+	 * Set this Mat4f from 16 consecutive column major floats in source, starting
+	 * at offset.
+	 */
+	public void setFromArray(float[] source, int offset) {
+		// First column (x-axis)
+		m00 = source[offset];
+		m01 = source[offset + 1];
+		m02 = source[offset + 2];
+		m03 = source[offset + 3];
+
+		// Second column (y-axis)
+		m10 = source[offset + 4];
+		m11 = source[offset + 5];
+		m12 = source[offset + 6];
+		m13 = source[offset + 7];
+
+		// Third column (z-axis)
+		m20 = source[offset + 8];
+		m21 = source[offset + 9];
+		m22 = source[offset + 10];
+		m23 = source[offset + 11];
+
+		// Fourth column (origin)
+		m30 = source[offset + 12];
+		m31 = source[offset + 13];
+		m32 = source[offset + 14];
+		m33 = source[offset + 15];
+	}
+
 	/**
 	 * Return the x-basis of this Mat4f as a Vec3f.
 	 * <p>
@@ -332,6 +446,16 @@ public class Mat4f {
 		return new Vec3f(m00, m01, m02);
 	}
 
+	/**
+	 * Store the x-basis of this Mat4f in dest.
+	 * 
+	 * @return The dest Vec3f.
+	 */
+	public Vec3f getXBasis(Vec3f dest) {
+		dest.set(m00, m01, m02);
+		return dest;
+	}
+
 	/**
 	 * Return the x-basis of this Mat4f as an array of three floats.
 	 * <p>
@@ -427,6 +551,16 @@ public class Mat4f {
 		return new Vec3f(m10, m11, m12);
 	}
 
+	/**
+	 * Store the y-basis of this Mat4f in dest.
+	 * 
+	 * @return The dest Vec3f.
+	 */
+	public Vec3f getYBasis(Vec3f dest) {
+		dest.set(m10, m11, m12);
+		return dest;
+	}
+
 	/**
 	 * Return the y-basis of this Mat4f as an array of three floats.
 	 * <p>
@@ -522,6 +656,16 @@ public class Mat4f {
 		return new Vec3f(m20, m21, m22);
 	}
 
+	/**
+	 * Store the z-basis of this Mat4f in dest.
+	 * 
+	 * @return The dest Vec3f.
+	 */
+	public Vec3f getZBasis(Vec3f dest) {
+		dest.set(m20, m21, m22);
+		return dest;
+	}
+
 	/**
 	 * Return the z-basis of this Mat4f as an array of three floats.
 	 * <p>
@@ -613,6 +757,16 @@ public class Mat4f {
 		return new Vec3f(m30, m31, m32);
 	}
 
+	/**
+	 * Store the origin of this Mat4f in dest.
+	 * 
+	 * @return The dest Vec3f.
+	 */
+	public Vec3f getOrigin(Vec3f dest) {
+		dest.set(m30, m31, m32);
+		return dest;
+	}
+
 	/**
 	 * Set the origin of this Mat4f.
 	 * <p>
@@ -750,8 +904,19 @@ public class Mat4f {
 	 */
 	public Mat4f transposed() {
 		// Create a new Mat4f to hold the transposed version of this matrix
-		Mat4f result = new Mat4f();
+		return transposed(new Mat4f());
+	}
 
+	/**
+	 * Store a transposed version of this Mat4f in result.
+	 * <p>
+	 * This Mat4f is <strong>not</strong> modified, and result must not be this
+	 * Mat4f (use {@link #transpose()} instead).
+	 * 
+	 * @param result The Mat4f to store the transposed matrix in.
+	 * @return The result Mat4f.
+	 */
+	public Mat4f transposed(Mat4f result) {
 		// Assign the values of this matrix to the result matrix in transposed order.
 		// Note: We don't really need to specify 'this.mXX' (the 'this' is implied) but
 		// there's no harm in doing so, and it helps to clarify what's going on.
@@ -811,33 +976,61 @@ public class Mat4f {
 	 */
 	public Mat4f times(Mat4f m) {
 		// Create a new Mat4f to hold the resulting matrix
-		Mat4f result = new Mat4f();
-
-		// Multiply this matrix by the provided matrix
-		// Note: This multiplication cannot be performed 'inline' on the same object,
-		// hence the need to
-		// calculate the and place them into a new matrix which we return.
-		result.m00 = m00 * m.m00 + m10 * m.m01 + m20 * m.m02 + m30 * m.m03;
-		result.m01 = m01 * m.m00 + m11 * m.m01 + m21 * m.m02 + m31 * m.m03;
-		result.m02 = m02 * m.m00 + m12 * m.m01 + m22 * m.m02 + m32 * m.m03;
-		result.m03 = m03 * m.m00 + m13 * m.m01 + m23 * m.m02 + m33 * m.m03;
-
-		result.m10 = m00 * m.m10 + m10 * m.m11 + m20 * m.m12 + m30 * m.m13;
-		result.m11 = m01 * m.m10 + m11 * m.m11 + m21 * m.m12 + m31 * m.m13;
-		result.m12 = m02 * m.m10 + m12 * m.m11 + m22 * m.m12 + m32 * m.m13;
-		result.m13 = m03 * m.m10 + m13 * m.m11 + m23 * m.m12 + m33 * m.m13;
-
-		result.m20 = m00 * m.m20 + m10 * m.m21 + m20 * m.m22 + m30 * m.m23;
-		result.m21 = m01 * m.m20 + m11 * m.m21 + m21 * m.m22 + m31 * m.m23;
-		result.m22 = m02 * m.m20 + m12 * m.m21 + m22 * m.m22 + m32 * m.m23;
-		result.m23 = m03 * m.m20 + m13 * m.m21 + m23 * m.m22 + m33 * m.m23;
-
-		result.m30 = m00 * m.m30 + m10 * m.m31 + m20 * m.m32 + m30 * m.m33;
-		result.m31 = m01 * m.m30 + m11 * m.m31 + m21 * m.m32 + m31 * m.m33;
-		result.m32 = m02 * m.m30 + m12 * m.m31 + m22 * m.m32 + m32 * m.m33;
-		result.m33 = m03 * m.m30 + m13 * m.m31 + m23 * m.m32 + m33 * m.m33;
+		return mul(this, m, new Mat4f());
+	}
 
-		return result;
+	/**
+	 * Multiply a by b and store the result in dest, without allocating.
+	 * <p>
+	 * dest may be the same object as a and/or b.
+	 * 
+	 * @return The dest Mat4f.
+	 * @see #times(Mat4f)
+	 */
+	public static Mat4f mul(Mat4f a, Mat4f b, Mat4f dest) {
+		// Calculate into locals first so the multiplication can be performed 'inline'
+		// when dest is also one of the operands.
+		float r00 = a.m00 * b.m00 + a.m10 * b.m01 + a.m20 * b.m02 + a.m30 * b.m03;
+		float r01 = a.m01 * b.m00 + a.m11 * b.m01 + a.m21 * b.m02 + a.m31 * b.m03;
+		float r02 = a.m02 * b.m00 + a.m12 * b.m01 + a.m22 * b.m02 + a.m32 * b.m03;
+		float r03 = a.m03 * b.m00 + a.m13 * b.m01 + a.m23 * b.m02 + a.m33 * b.m03;
+
+		float r10 = a.m00 * b.m10 + a.m10 * b.m11 + a.m20 * b.m12 + a.m30 * b.m13;
+		float r11 = a.m01 * b.m10 + a.m11 * b.m11 + a.m21 * b.m12 + a.m31 * b.m13;
+		float r12 = a.m02 * b.m10 + a.m12 * b.m11 + a.m22 * b.m12 + a.m32 * b.m13;
+		float r13 = a.m03 * b.m10 + a.m13 * b.m11 + a.m23 * b.m12 + a.m33 * b.m13;
+
+		float r20 = a.m00 * b.m20 + a.m10 * b.m21 + a.m20 * b.m22 + a.m30 * b.m23;
+		float r21 = a.m01 * b.m20 + a.m11 * b.m21 + a.m21 * b.m22 + a.m31 * b.m23;
+		float r22 = a.m02 * b.m20 + a.m12 * b.m21 + a.m22 * b.m22 + a.m32 * b.m23;
+		float r23 = a.m03 * b.m20 + a.m13 * b.m21 + a.m23 * b.m22 + a.m33 * b.m23;
+
+		float r30 = a.m00 * b.m30 + a.m10 * b.m31 + a.m20 * b.m32 + a.m30 * b.m33;
+		float r31 = a.m01 * b.m30 + a.m11 * b.m31 + a.m21 * b.m32 + a.m31 * b.m33;
+		float r32 = a.m02 * b.m30 + a.m12 * b.m31 + a.m22 * b.m32 + a.m32 * b.m33;
+		float r33 = a.m03 * b.m30 + a.m13 * b.m31 + a.m23 * b.m32 + a.m33 * b.m33;
+
+		dest.m00 = r00;
+		dest.m01 = r01;
+		dest.m02 = r02;
+		dest.m03 = r03;
+
+		dest.m10 = r10;
+		dest.m11 = r11;
+		dest.m12 = r12;
+		dest.m13 = r13;
+
+		dest.m20 = r20;
+		dest.m21 = r21;
+		dest.m22 = r22;
+		dest.m23 = r23;
+
+		dest.m30 = r30;
+		dest.m31 = r31;
+		dest.m32 = r32;
+		dest.m33 = r33;
+
+		return dest;
 	}
 
 	/**
@@ -857,15 +1050,27 @@ public class Mat4f {
 	 */
 	public Vec3f transformPoint(Vec3f v) {
 		// Create a new Vec3f with all properties set to zero
-		Vec3f result = new Vec3f();
+		return transformPoint(v, new Vec3f());
+	}
+
+	/**
+	 * Transform a point in 3D space and store it in result.
+	 * <p>
+	 * result may be the same object as v.
+	 * 
+	 * @return The result Vec3f.
+	 * @see #transformPoint(Vec3f)
+	 */
+	public Vec3f transformPoint(Vec3f v, Vec3f result) {
+		float x = v.x, y = v.y, z = v.z;
 
 		// Apply the transformation of the given point using this matrix
-		result.x = this.m00 * v.x + this.m10 * v.y + this.m20 * v.z + this.m30; // * 1.0f; - no need as w is 1.0 for a
-																				// location
-		result.y = this.m01 * v.x + this.m11 * v.y + this.m21 * v.z + this.m31; // * 1.0f; - no need as w is 1.0 for a
-																				// location
-		result.z = this.m02 * v.x + this.m12 * v.y + this.m22 * v.z + this.m32; // * 1.0f; - no need as w is 1.0 for a
-																				// location
+		result.x = this.m00 * x + this.m10 * y + this.m20 * z + this.m30; // * 1.0f; - no need as w is 1.0 for a
+																			// location
+		result.y = this.m01 * x + this.m11 * y + this.m21 * z + this.m31; // * 1.0f; - no need as w is 1.0 for a
+																			// location
+		result.z = this.m02 * x + this.m12 * y + this.m22 * z + this.m32; // * 1.0f; - no need as w is 1.0 for a
+																			// location
 
 		return result;
 	}
@@ -882,15 +1087,26 @@ public class Mat4f {
 	 * @return The transformed Vec3f.
 	 */
 	public Vec3f transformDirection(Vec3f v) {
-		Vec3f result = new Vec3f(0.0f);
+		return transformDirection(v, new Vec3f(0.0f));
+	}
+
+	/**
+	 * Transform a direction in 3D space and store it in result.
+	 * <p>
+	 * result may be the same object as v.
+	 * 
+	 * @return The result Vec3f.
+	 * @see #transformDirection(Vec3f)
+	 */
+	public Vec3f transformDirection(Vec3f v, Vec3f result) {
+		float x = v.x, y = v.y, z = v.z;
 
-		// NO!
-		result.x = this.m00 * v.x + this.m10 * v.y + this.m20 * v.z; // + this.m30 * 0.0; - no need as w is 0.0 for a
-																		// direction
-		result.y = this.m01 * v.x + this.m11 * v.y + this.m21 * v.z; // + this.m31 * 0.0; - no need as w is 0.0 for a
-																		// direction
-		result.z = this.m02 * v.x + this.m12 * v.y + this.m22 * v.z; // + this.m32 * 0.0; - no need as w is 0.0 for a
-																		// direction
+		result.x = this.m00 * x + this.m10 * y + this.m20 * z; // + this.m30 * 0.0; - no need as w is 0.0 for a
+																// direction
+		result.y = this.m01 * x + this.m11 * y + this.m21 * z; // + this.m31 * 0.0; - no need as w is 0.0 for a
+																// direction
+		result.z = this.m02 * x + this.m12 * y + this.m22 * z; // + this.m32 * 0.0; - no need as w is 0.0 for a
+																// direction
 
 		return result;
 	}
@@ -905,75 +1121,96 @@ public class Mat4f {
 	 * @return The inverted matrix.
 	 */
 	public static Mat4f inverse(Mat4f m) {
-		Mat4f temp = new Mat4f();
+		return inverse(m, new Mat4f());
+	}
 
-		temp.m00 = m.m12 * m.m23 * m.m31 - m.m13 * m.m22 * m.m31 + m.m13 * m.m21 * m.m32 - m.m11 * m.m23 * m.m32 - m.m12 * m.m21 * m.m33
+	/**
+	 * Calculate the inverse of a Mat4f and store it in dest, without allocating.
+	 * <p>
+	 * dest may be the same object as m. If the determinant of the provided matrix
+	 * is zero then an IllegalArgumentException is thrown and dest is not modified.
+	 * 
+	 * @return The dest Mat4f.
+	 * @see #inverse(Mat4f)
+	 */
+	public static Mat4f inverse(Mat4f m, Mat4f dest) {
+		// Get the determinant of the matrix
+		float determinant = m.determinant();
+
+		// Each property of the inverse matrix is multiplied by 1.0f divided by the
+		// determinant.
+		// As we cannot divide by zero, we will throw an IllegalArgumentException if the
+		// determinant is zero.
+		if (determinant == 0.0f) {
+			throw new IllegalArgumentException("Cannot invert a matrix with a determinant of zero.");
+		}
+
+		// Otherwise, calculate the value of one over the determinant and scale the
+		// adjugate matrix by that value
+		float oneOverDeterminant = 1.0f / determinant;
+
+		float t00 = m.m12 * m.m23 * m.m31 - m.m13 * m.m22 * m.m31 + m.m13 * m.m21 * m.m32 - m.m11 * m.m23 * m.m32 - m.m12 * m.m21 * m.m33
 				+ m.m11 * m.m22 * m.m33;
-		temp.m01 = m.m03 * m.m22 * m.m31 - m.m02 * m.m23 * m.m31 - m.m03 * m.m21 * m.m32 + m.m01 * m.m23 * m.m32 + m.m02 * m.m21 * m.m33
+		float t01 = m.m03 * m.m22 * m.m31 - m.m02 * m.m23 * m.m31 - m.m03 * m.m21 * m.m32 + m.m01 * m.m23 * m.m32 + m.m02 * m.m21 * m.m33
 				- m.m01 * m.m22 * m.m33;
-		temp.m02 = m.m02 * m.m13 * m.m31 - m.m03 * m.m12 * m.m31 + m.m03 * m.m11 * m.m32 - m.m01 * m.m13 * m.m32 - m.m02 * m.m11 * m.m33
+		float t02 = m.m02 * m.m13 * m.m31 - m.m03 * m.m12 * m.m31 + m.m03 * m.m11 * m.m32 - m.m01 * m.m13 * m.m32 - m.m02 * m.m11 * m.m33
 				+ m.m01 * m.m12 * m.m33;
-		temp.m03 = m.m03 * m.m12 * m.m21 - m.m02 * m.m13 * m.m21 - m.m03 * m.m11 * m.m22 + m.m01 * m.m13 * m.m22 + m.m02 * m.m11 * m.m23
+		float t03 = m.m03 * m.m12 * m.m21 - m.m02 * m.m13 * m.m21 - m.m03 * m.m11 * m.m22 + m.m01 * m.m13 * m.m22 + m.m02 * m.m11 * m.m23
 				- m.m01 * m.m12 * m.m23;
-		temp.m10 = m.m13 * m.m22 * m.m30 - m.m12 * m.m23 * m.m30 - m.m13 * m.m20 * m.m32 + m.m10 * m.m23 * m.m32 + m.m12 * m.m20 * m.m33
+		float t10 = m.m13 * m.m22 * m.m30 - m.m12 * m.m23 * m.m30 - m.m13 * m.m20 * m.m32 + m.m10 * m.m23 * m.m32 + m.m12 * m.m20 * m.m33
 				- m.m10 * m.m22 * m.m33;
-		temp.m11 = m.m02 * m.m23 * m.m30 - m.m03 * m.m22 * m.m30 + m.m03 * m.m20 * m.m32 - m.m00 * m.m23 * m.m32 - m.m02 * m.m20 * m.m33
+		float t11 = m.m02 * m.m23 * m.m30 - m.m03 * m.m22 * m.m30 + m.m03 * m.m20 * m.m32 - m.m00 * m.m23 * m.m32 - m.m02 * m.m20 * m.m33
 				+ m.m00 * m.m22 * m.m33;
-		temp.m12 = m.m03 * m.m12 * m.m30 - m.m02 * m.m13 * m.m30 - m.m03 * m.m10 * m.m32 + m.m00 * m.m13 * m.m32 + m.m02 * m.m10 * m.m33
+		float t12 = m.m03 * m.m12 * m.m30 - m.m02 * m.m13 * m.m30 - m.m03 * m.m10 * m.m32 + m.m00 * m.m13 * m.m32 + m.m02 * m.m10 * m.m33
 				- m.m00 * m.m12 * m.m33;
-		temp.m13 = m.m02 * m.m13 * m.m20 - m.m03 * m.m12 * m.m20 + m.m03 * m.m10 * m.m22 - m.m00 * m.m13 * m.m22 - m.m02 * m.m10 * m.m23
+		float t13 = m.m02 * m.m13 * m.m20 - m.m03 * m.m12 * m.m20 + m.m03 * m.m10 * m.m22 - m.m00 * m.m13 * m.m22 - m.m02 * m.m10 * m.m23
 				+ m.m00 * m.m12 * m.m23;
-		temp.m20 = m.m11 * m.m23 * m.m30 - m.m13 * m.m21 * m.m30 + m.m13 * m.m20 * m.m31 - m.m10 * m.m23 * m.m31 - m.m11 * m.m20 * m.m33
+		float t20 = m.m11 * m.m23 * m.m30 - m.m13 * m.m21 * m.m30 + m.m13 * m.m20 * m.m31 - m.m10 * m.m23 * m.m31 - m.m11 * m.m20 * m.m33
 				+ m.m10 * m.m21 * m.m33;
-		temp.m21 = m.m03 * m.m21 * m.m30 - m.m01 * m.m23 * m.m30 - m.m03 * m.m20 * m.m31 + m.m00 * m.m23 * m.m31 + m.m01 * m.m20 * m.m33
+		float t21 = m.m03 * m.m21 * m.m30 - m.m01 * m.m23 * m.m30 - m.m03 * m.m20 * m.m31 + m.m00 * m.m23 * m.m31 + m.m01 * m.m20 * m.m33
 				- m.m00 * m.m21 * m.m33;
-		temp.m22 = m.m01 * m.m13 * m.m30 - m.m03 * m.m11 * m.m30 + m.m03 * m.m10 * m.m31 - m.m00 * m.m13 * m.m31 - m.m01 * m.m10 * m.m33
+		float t22 = m.m01 * m.m13 * m.m30 - m.m03 * m.m11 * m.m30 + m.m03 * m.m10 * m.m31 - m.m00 * m.m13 * m.m31 - m.m01 * m.m10 * m.m33
 				+ m.m00 * m.m11 * m.m33;
-		temp.m23 = m.m03 * m.m11 * m.m20 - m.m01 * m.m13 * m.m20 - m.m03 * m.m10 * m.m21 + m.m00 * m.m13 * m.m21 + m.m01 * m.m10 * m.m23
+		float t23 = m.m03 * m.m11 * m.m20 - m.m01 * m.m13 * m.m20 - m.m03 * m.m10 * m.m21 + m.m00 * m.m13 * m.m21 + m.m01 * m.m10 * m.m23
 				- m.m00 * m.m11 * m.m23;
-		temp.m30 = m.m12 * m.m21 * m.m30 - m.m11 * m.m22 * m.m30 - m.m12 * m.m20 * m.m31 + m.m10 * m.m22 * m.m31 + m.m11 * m.m20 * m.m32
+		float t30 = m.m12 * m.m21 * m.m30 - m.m11 * m.m22 * m.m30 - m.m12 * m.m20 * m.m31 + m.m10 * m.m22 * m.m31 + m.m11 * m.m20 * m.m32
 				- m.m10 * m.m21 * m.m32;
-		temp.m31 = m.m01 * m.m22 * m.m30 - m.m02 * m.m21 * m.m30 + m.m02 * m.m20 * m.m31 - m.m00 * m.m22 * m.m31 - m.m01 * m.m20 * m.m32
+		float t31 = m.m01 * m.m22 * m.m30 - m.m02 * m.m21 * m.m30 + m.m02 * m.m20 * m.m31 - m.m00 * m.m22 * m.m31 - m.m01 * m.m20 * m.m32
 				+ m.m00 * m.m21 * m.m32;
-		temp.m32 = m.m02 * m.m11 * m.m30 - m.m01 * m.m12 * m.m30 - m.m02 * m.m10 * m.m31 + m.m00 * m.m12 * m.m31 + m.m01 * m.m10 * m.m32
+		float t32 = m.m02 * m.m11 * m.m30 - m.m01 * m.m12 * m.m30 - m.m02 * m.m10 * m.m31 + m.m00 * m.m12 * m.m31 + m.m01 * m.m10 * m.m32
 				- m.m00 * m.m11 * m.m32;
-		temp.m33 = m.m01 * m.m12 * m.m20 - m.m02 * m.m11 * m.m20 + m.m02 * m.m10 * m.m21 - m.m00 * m.m12 * m.m21 - m.m01 * m.m10 * m.m22
+		float t33 = m.m01 * m.m12 * m.m20 - m.m02 * m.m11 * m.m20 + m.m02 * m.m10 * m.m21 - m.m00 * m.m12 * m.m21 - m.m01 * m.m10 * m.m22
 				+ m.m00 * m.m11 * m.m22;
 
-		// Get the determinant of this matrix
-		float determinant = temp.determinant();
-
-		// Each property of the inverse matrix is multiplied by 1.0f divided by the
-		// determinant.
-		// As we cannot divide by zero, we will throw an IllegalArgumentException if the
-		// determinant is zero.
-		if (determinant == 0.0f) {
-			throw new IllegalArgumentException("Cannot invert a matrix with a determinant of zero.");
-		}
-
-		// Otherwise, calculate the value of one over the determinant and scale the
-		// matrix by that value
-		float oneOverDeterminant = 1.0f / temp.determinant();
-
-		temp.m00 *= oneOverDeterminant;
-		temp.m01 *= oneOverDeterminant;
-		temp.m02 *= oneOverDeterminant;
-		temp.m03 *= oneOverDeterminant;
-		temp.m10 *= oneOverDeterminant;
-		temp.m11 *= oneOverDeterminant;
-		temp.m12 *= oneOverDeterminant;
-		temp.m13 *= oneOverDeterminant;
-		temp.m20 *= oneOverDeterminant;
-		temp.m21 *= oneOverDeterminant;
-		temp.m22 *= oneOverDeterminant;
-		temp.m23 *= oneOverDeterminant;
-		temp.m30 *= oneOverDeterminant;
-		temp.m31 *= oneOverDeterminant;
-		temp.m32 *= oneOverDeterminant;
-		temp.m33 *= oneOverDeterminant;
+		dest.m00 = t00 * oneOverDeterminant;
+		dest.m01 = t01 * oneOverDeterminant;
+		dest.m02 = t02 * oneOverDeterminant;
+		dest.m03 = t03 * oneOverDeterminant;
+		dest.m10 = t10 * oneOverDeterminant;
+		dest.m11 = t11 * oneOverDeterminant;
+		dest.m12 = t12 * oneOverDeterminant;
+		dest.m13 = t13 * oneOverDeterminant;
+		dest.m20 = t20 * oneOverDeterminant;
+		dest.m21 = t21 * oneOverDeterminant;
+		dest.m22 = t22 * oneOverDeterminant;
+		dest.m23 = t23 * oneOverDeterminant;
+		dest.m30 = t30 * oneOverDeterminant;
+		dest.m31 = t31 * oneOverDeterminant;
+		dest.m32 = t32 * oneOverDeterminant;
+		dest.m33 = t33 * oneOverDeterminant;
 
 		// Finally, return the inverted matrix
-		return temp;
+		return dest;
+	}
+
+	/**
+	 * Store the inverse of this Mat4f in dest. dest may be this Mat4f.
+	 * 
+	 * @return The dest Mat4f.
+	 * @see #inverse(Mat4f, Mat4f)
+	 */
+	public Mat4f invert(Mat4f dest) {
+		return inverse(this, dest);
 	}
 
 	/**
@@ -1016,7 +1253,13 @@ public class Mat4f {
 	 * @return This Mat4f for chaining.
 	 */
 	public Mat4f translate(float xAmount, float yAmount, float zAmount) {
-		return translate(new Vec3f(xAmount, yAmount, zAmount));
+		this.m30 += this.m00 * xAmount + this.m10 * yAmount + this.m20 * zAmount;
+		this.m31 += this.m01 * xAmount + this.m11 * yAmount + this.m21 * zAmount;
+		this.m32 += this.m02 * xAmount + this.m12 * yAmount + this.m22 * zAmount;
+		this.m33 += this.m03 * xAmount + this.m13 * yAmount + this.m23 * zAmount;
+
+		// Return this for chaining
+		return this;
 	}
 
 	/*
@@ -1043,33 +1286,40 @@ public class Mat4f {
 	 */
 	// Method to rotate a matrix around an arbitrary axis
 	public Mat4f rotateAboutLocalAxisRads(float angleRads, Vec3f localAxis) {
-		localAxis = localAxis.normalised();
-
-		Mat4f dest = new Mat4f();
+		// Normalise the axis without modifying (or copying) the provided Vec3f
+		float x = localAxis.x;
+		float y = localAxis.y;
+		float z = localAxis.z;
+		float magnitude = (float) Math.sqrt(x * x + y * y + z * z);
+		if (magnitude > 0.0f) {
+			x /= magnitude;
+			y /= magnitude;
+			z /= magnitude;
+		}
 
 		float cos = (float) Math.cos(angleRads);
 		float sin = (float) Math.sin(angleRads);
 		float nivCos = 1.0f - cos;
 
-		float xy = localAxis.x * localAxis.y;
-		float yz = localAxis.y * localAxis.z;
-		float xz = localAxis.x * localAxis.z;
-		float xs = localAxis.x * sin;
-		float ys = localAxis.y * sin;
-		float zs = localAxis.z * sin;
+		float xy = x * y;
+		float yz = y * z;
+		float xz = x * z;
+		float xs = x * sin;
+		float ys = y * sin;
+		float zs = z * sin;
 
 		// Rotate the axis
-		float f00 = localAxis.x * localAxis.x * nivCos + cos;
+		float f00 = x * x * nivCos + cos;
 		float f01 = xy * nivCos + zs;
 		float f02 = xz * nivCos - ys;
 
 		float f10 = xy * nivCos - zs;
-		float f11 = localAxis.y * localAxis.y * nivCos + cos;
+		float f11 = y * y * nivCos + cos;
 		float f12 = yz * nivCos + xs;
 
 		float f20 = xz * nivCos + ys;
 		float f21 = yz * nivCos - xs;
-		float f22 = localAxis.z * localAxis.z * nivCos + cos;
+		float f22 = z * z * nivCos + cos;
 
 		float t00 = m00 * f00 + m10 * f01 + m20 * f02;
 		float t01 = m01 * f00 + m11 * f01 + m21 * f02;
@@ -1080,45 +1330,21 @@ public class Mat4f {
 		float t12 = m02 * f10 + m12 * f11 + m22 * f12;
 		float t13 = m03 * f10 + m13 * f11 + m23 * f12;
 
-		// Construct rotate matrix
-		dest.m20 = m00 * f20 + m10 * f21 + m20 * f22;
-		dest.m21 = m01 * f20 + m11 * f21 + m21 * f22;
-		dest.m22 = m02 * f20 + m12 * f21 + m22 * f22;
-		dest.m23 = m03 * f20 + m13 * f21 + m23 * f22;
-		dest.m00 = t00;
-		dest.m01 = t01;
-		dest.m02 = t02;
-		dest.m03 = t03;
-		dest.m10 = t10;
-		dest.m11 = t11;
-		dest.m12 = t12;
-		dest.m13 = t13;
-
-		dest.m30 = m30;
-		dest.m31 = m31;
-		dest.m32 = m32;
-		dest.m33 = m33;
+		// Update this matrix to be the rotated matrix. The origin does not change.
+		this.m20 = m00 * f20 + m10 * f21 + m20 * f22;
+		this.m21 = m01 * f20 + m11 * f21 + m21 * f22;
+		this.m22 = m02 * f20 + m12 * f21 + m22 * f22;
+		this.m23 = m03 * f20 + m13 * f21 + m23 * f22;
 
-		// Update this matrix to be the rotated matrix
-		this.m00 = dest.m00;
-		this.m01 = dest.m01;
-		this.m02 = dest.m02;
-		this.m03 = dest.m03;
+		this.m00 = t00;
+		this.m01 = t01;
+		this.m02 = t02;
+		this.m03 = t03;
 
-		this.m10 = dest.m10;
-		this.m11 = dest.m11;
-		this.m12 = dest.m12;
-		this.m13 = dest.m13;
-
-		this.m20 = dest.m20;
-		this.m21 = dest.m21;
-		this.m22 = dest.m22;
-		this.m23 = dest.m23;
-
-		this.m30 = dest.m30;
-		this.m31 = dest.m31;
-		this.m32 = dest.m32;
-		this.m33 = dest.m33;
+		this.m10 = t10;
+		this.m11 = t11;
+		this.m12 = t12;
+		this.m13 = t13;
 
 		return this;
 	}
@@ -1400,8 +1626,16 @@ public class Mat4f {
 	 * @return A Mat3f version of this Mat4f.
 	 */
 	public Mat3f toMat3f() {
-		Mat3f rotationMatrix = new Mat3f();
+		return toMat3f(new Mat3f());
+	}
 
+	/**
+	 * Store the x, y and z axes of this Mat4f in rotationMatrix.
+	 * 
+	 * @return The rotationMatrix Mat3f.
+	 * @see #toMat3f()
+	 */
+	public Mat3f toMat3f(Mat3f rotationMatrix) {
 		rotationMatrix.m00 = this.m00;
 		rotationMatrix.m01 = this.m01;
 		rotationMatrix.m02 = this.m02;
@@ -1423,27 +1657,45 @@ public class Mat4f {
 	 * @return This Mat4f as an array of 16 floats.
 	 */
 	public float[] toArray() {
-		float[] floatArray = new float[16];
-
-		floatArray[0] = m00;
-		floatArray[1] = m01;
-		floatArray[2] = m02;
-		floatArray[3] = m03;
-
-		floatArray[4] = m10;
-		floatArray[5] = m11;
-		floatArray[6] = m12;
-		floatArray[7] = m13;
-
-		floatArray[8] = m20;
-		floatArray[9] = m21;
-		floatArray[10] = m22;
-		floatArray[11] = m23;
-
-		floatArray[12] = m30;
-		floatArray[13] = m31;
-		floatArray[14] = m32;
-		floatArray[15] = m33;
+		return toArray(new float[16]);
+	}
+
+	/**
+	 * Store this Mat4f in the first 16 elements of floatArray, in column major
+	 * order.
+	 * 
+	 * @return The floatArray.
+	 */
+	public float[] toArray(float[] floatArray) {
+		return toArray(floatArray, 0);
+	}
+
+	/**
+	 * Store this Mat4f in 16 consecutive elements of floatArray starting at
+	 * offset, in column major order.
+	 * 
+	 * @return The floatArray.
+	 */
+	public float[] toArray(float[] floatArray, int offset) {
+		floatArray[offset] = m00;
+		floatArray[offset + 1] = m01;
+		floatArray[offset + 2] = m02;
+		floatArray[offset + 3] = m03;
+
+		floatArray[offset + 4] = m10;
+		floatArray[offset + 5] = m11;
+		floatArray[offset + 6] = m12;
+		floatArray[offset + 7] = m13;
+
+		floatArray[offset + 8] = m20;
+		floatArray[offset + 9] = m21;
+		floatArray[offset + 10] = m22;
+		floatArray[offset + 11] = m23;
+
+		floatArray[offset + 12] = m30;
+		floatArray[offset + 13] = m31;
+		floatArray[offset + 14] = m32;
+		floatArray[offset + 15] = m33;
 
 		return floatArray;
 	}
@@ -193,6 +193,16 @@ public class Vec3f {
 		return new Vec3f(this).normalise();
 	}
 
+	/**
+	 * Store a normalised version of this Vec3f in dest. dest may be this Vec3f.
+	 * 
+	 * @return The dest Vec3f.
+	 */
+	public Vec3f normalised(Vec3f dest) {
+		dest.set(this);
+		return dest.normalise();
+	}
+
 	/**
 	 * Normalise this Vec3f.
 	 * <p>
@@ -277,6 +287,13 @@ public class Vec3f {
 		return new Vec3f(y * vec.z - z * vec.y, z * vec.x - x * vec.z, x * vec.y - y * vec.x);
 	}
 
+	// Method to store the cross product of this vector and another vector in dest.
+	// dest may be this vector or vec.
+	public Vec3f cross(Vec3f vec, Vec3f dest) {
+		dest.set(y * vec.z - z * vec.y, z * vec.x - x * vec.z, x * vec.y - y * vec.x);
+		return dest;
+	}
+
 	// Method to return the distance between two vectors in 3D space
 	//
 	// Note: This is accurate, but not especially fast - depending on your needs
@@ -639,6 +656,12 @@ public class Vec3f {
 		return new Vec3f(x + vec.x, y + vec.y, z + vec.z);
 	}
 
+	// Method to add a vector to an existing vector and store the result in dest
+	public Vec3f plus(Vec3f vec, Vec3f dest) {
+		dest.set(x + vec.x, y + vec.y, z + vec.z);
+		return dest;
+	}
+
 	// Method to add a vector to an existing vector
 	public Vec3f add(Vec3f vec) {
 		x += vec.x;
@@ -667,17 +690,45 @@ public class Vec3f {
 		return new Vec3f(x - vec.x, y - vec.y, z - vec.z);
 	}
 
+	// Method to subtract a vector from an existing vector and store the result in
+	// dest
+	public Vec3f minus(Vec3f vec, Vec3f dest) {
+		dest.set(x - vec.x, y - vec.y, z - vec.z);
+		return dest;
+	}
+
 	// Method to multiply a vector by another vector and return the resulting vector
 	public Vec3f times(Vec3f vec) {
 		return new Vec3f(x * vec.x, y * vec.y, z * vec.z);
 	}
 
+	// Method to multiply a vector by another vector and store the result in dest
+	public Vec3f times(Vec3f vec, Vec3f dest) {
+		dest.set(x * vec.x, y * vec.y, z * vec.z);
+		return dest;
+	}
+
 	// Method to multiply an existing vector by a scalar value and return the
 	// resulting vector
 	public Vec3f times(float scale) {
 		return new Vec3f(x * scale, y * scale, z * scale);
 	}
 
+	// Method to multiply an existing vector by a scalar value and store the result
+	// in dest
+	public Vec3f times(float scale, Vec3f dest) {
+		dest.set(x * scale, y * scale, z * scale);
+		return dest;
+	}
+
+	// Method to multiply this vector by a scalar value
+	public Vec3f multiply(float scale) {
+		x *= scale;
+		y *= scale;
+		z *= scale;
+		return this;
+	}
+
 	// Method to divide an existing vector by a value and return the resulting
 	// Vec3
 	public Vec3f divide(float value) {
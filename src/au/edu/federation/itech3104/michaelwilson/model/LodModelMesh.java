@@ -0,0 +1,63 @@
+package au.edu.federation.itech3104.michaelwilson.model;
+
+import au.edu.federation.itech3104.michaelwilson.graph.Transform;
+import au.edu.federation.itech3104.michaelwilson.graphics.IDisposable;
+import au.edu.federation.itech3104.michaelwilson.graphics.LodMesh;
+import au.edu.federation.itech3104.michaelwilson.graphics.material.Material;
+import au.edu.federation.itech3104.michaelwilson.graphics.renderer.IDrawable;
+import au.edu.federation.itech3104.michaelwilson.graphics.renderer.IDrawableRenderer;
+import au.edu.federation.itech3104.michaelwilson.math.BoundingBox;
+
+/**
+ * A {@link ModelMesh} with levels of detail. The renderer chooses the level of
+ * the {@link LodMesh} each time this node is drawn, and the level drawn last is
+ * kept here so the choice can use hysteresis.
+ *
+ * @see IDrawableRenderer#renderLod(LodMesh, int,
+ *      au.edu.federation.itech3104.michaelwilson.math.Mat4f)
+ */
+public class LodModelMesh extends Transform implements IDrawable, IDisposable {
+
+	private final LodMesh mesh;
+
+	private int level = -1; // The level drawn last, or -1 if not drawn yet.
+
+	public LodModelMesh(LodMesh mesh) {
+		this.mesh = mesh;
+	}
+
+	@Override
+	public void draw(IDrawableRenderer renderer) {
+		level = renderer.renderLod(mesh, level, getGlobalMatrix());
+	}
+
+	@Override
+	public Material getMaterial() {
+		return null; // Each level is rendered with its own material by renderLod().
+	}
+
+	/**
+	 * Returns the bounds of the full resolution level.
+	 */
+	@Override
+	public BoundingBox getBounds() {
+		return mesh.getBounds();
+	}
+
+	@Override
+	public void dispose() {
+		mesh.dispose();
+	}
+
+	public LodMesh getLodMesh() {
+		return mesh;
+	}
+
+	/**
+	 * Returns the level drawn last, or -1 if this node hasn't been drawn.
+	 */
+	public int getLevel() {
+		return level;
+	}
+
+}
@@ -3,12 +3,16 @@ package au.edu.federation.itech3104.michaelwilson.model;
 import java.util.ArrayList;
 import java.util.List;
 
+import au.edu.federation.itech3104.michaelwilson.ResourceHandle;
+import au.edu.federation.itech3104.michaelwilson.ResourceManager;
 import au.edu.federation.itech3104.michaelwilson.graph.Transform;
 import au.edu.federation.itech3104.michaelwilson.graphics.IDisposable;
 import au.edu.federation.itech3104.michaelwilson.graphics.Mesh;
+import au.edu.federation.itech3104.michaelwilson.graphics.data.BufferUsageHint;
 import au.edu.federation.itech3104.michaelwilson.graphics.material.Material;
 import au.edu.federation.itech3104.michaelwilson.graphics.renderer.IDrawable;
 import au.edu.federation.itech3104.michaelwilson.graphics.renderer.IDrawableRenderer;
+import au.edu.federation.itech3104.michaelwilson.math.BoundingBox;
 
 /**
  * The {@link Model} class represents a 3D model in a scene graph. The class
@@ -23,8 +27,27 @@ public class Model extends Transform implements IDrawable, IDisposable {
 
 	private final List<Mesh> meshes;
 
+	// The handle the meshes came from, or null if this model owns them.
+	private ResourceHandle<List<Mesh>> handle;
+
+	private final BoundingBox bounds = new BoundingBox();
+
 	public Model(List<Mesh> meshes) {
 		this.meshes = new ArrayList<>(meshes);
+
+		for (Mesh mesh : meshes)
+			bounds.include(mesh.getBounds());
+	}
+
+	/**
+	 * Create a model that shares meshes stored in a
+	 * {@link ResourceManager#acquireMeshes(String, Material, BufferUsageHint)
+	 * resource cache}. The handle is acquired until this model is disposed, and the
+	 * meshes are released instead of being disposed.
+	 */
+	public Model(ResourceHandle<List<Mesh>> handle) {
+		this(handle.acquire().get());
+		this.handle = handle;
 	}
 
 	@Override
@@ -38,14 +61,28 @@ public class Model extends Transform implements IDrawable, IDisposable {
 		return null; // return null, draw will be called without material/shader setup, instead it will happen when each mesh is rendered.
 	}
 
+	/**
+	 * Returns the combined bounds of all meshes in this model.
+	 */
+	@Override
+	public BoundingBox getBounds() {
+		return bounds;
+	}
+
 	public List<Mesh> getMeshes() {
 		return meshes;
 	}
 
 	@Override
 	public void dispose() {
-		for (Mesh mesh : meshes)
-			mesh.dispose();
+		if (handle != null) {
+			handle.release();
+			handle = null;
+		} else {
+			for (Mesh mesh : meshes)
+				mesh.dispose();
+		}
+
 		meshes.clear();
 	}
 
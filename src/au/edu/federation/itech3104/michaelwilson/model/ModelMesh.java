@@ -6,6 +6,7 @@ import au.edu.federation.itech3104.michaelwilson.graphics.Mesh;
 import au.edu.federation.itech3104.michaelwilson.graphics.material.Material;
 import au.edu.federation.itech3104.michaelwilson.graphics.renderer.IDrawable;
 import au.edu.federation.itech3104.michaelwilson.graphics.renderer.IDrawableRenderer;
+import au.edu.federation.itech3104.michaelwilson.math.BoundingBox;
 
 /**
  * This class represents a single {@link Mesh} object within a scene graph. It
@@ -36,6 +37,14 @@ public class ModelMesh extends Transform implements IDrawable, IDisposable {
 		return mesh.getMaterial();
 	}
 
+	/**
+	 * Returns the bounds of the {@link Mesh}.
+	 */
+	@Override
+	public BoundingBox getBounds() {
+		return mesh.getBounds();
+	}
+
 	@Override
 	public void dispose() {
 		mesh.dispose();
@@ -44,6 +53,7 @@ public class ModelMesh extends Transform implements IDrawable, IDisposable {
 	/**
 	 * Returns the {@link Mesh} of this {@link ModelMesh}.
 	 */
+	@Override
 	public Mesh getMesh() {
 		return mesh;
 	}
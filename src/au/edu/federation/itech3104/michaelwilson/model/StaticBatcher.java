@@ -0,0 +1,291 @@
+package au.edu.federation.itech3104.michaelwilson.model;
+
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import au.edu.federation.itech3104.michaelwilson.graph.Transform;
+import au.edu.federation.itech3104.michaelwilson.graphics.BufferUtil;
+import au.edu.federation.itech3104.michaelwilson.graphics.Mesh;
+import au.edu.federation.itech3104.michaelwilson.graphics.data.BufferUsageHint;
+import au.edu.federation.itech3104.michaelwilson.graphics.data.VertexBufferLayout;
+import au.edu.federation.itech3104.michaelwilson.graphics.material.Material;
+import au.edu.federation.itech3104.michaelwilson.math.BoundingBox;
+import au.edu.federation.itech3104.michaelwilson.math.Mat4f;
+import au.edu.federation.itech3104.michaelwilson.math.Vec3f;
+
+/**
+ * Merges static meshes that share a material into a few large meshes, so
+ * static set dressing is drawn with one draw call per material instead of one
+ * per mesh. The vertices of each mesh are transformed into world space by its
+ * global matrix when it is added, so the merged meshes are drawn with an
+ * identity matrix and the original nodes must not move afterwards.<br>
+ * <br>
+ * Meshes are only merged with meshes near them, grouped by the cell of a
+ * uniform grid containing the center of their world bounds, and each merged
+ * mesh has at most {@link #getMaxVertices()} vertices (a larger mesh gets one
+ * of its own). So the merged meshes stay small enough to be frustum culled
+ * usefully.<br>
+ * <br>
+ * The vertices are read back from the GPU with {@link Mesh#readVertices()},
+ * since meshes don't keep their data once uploaded, so this is for use at load
+ * time only. Only the {@link VertexBufferLayout#Float3 Float3},
+ * {@link VertexBufferLayout#Float3_2 Float3_2},
+ * {@link VertexBufferLayout#Float3_3 Float3_3} and
+ * {@link VertexBufferLayout#Float3_3_2 Float3_3_2} layouts are supported, where
+ * the second three floats of Float3_3 and Float3_3_2 are the normal.
+ */
+public class StaticBatcher {
+
+	public static final int DEFAULT_MAX_VERTICES = 65536;
+	public static final float DEFAULT_CELL_SIZE = 10.0f; // world units
+
+	private final int maxVertices;
+	private final float cellSize;
+
+	// Batches in the order their first mesh was added, so the result is the same
+	// each time the same scene is loaded.
+	private final Map<Key, List<Batch>> batches = new LinkedHashMap<>();
+
+	private int meshCount;
+
+	public StaticBatcher() {
+		this(DEFAULT_MAX_VERTICES, DEFAULT_CELL_SIZE);
+	}
+
+	/**
+	 * @param maxVertices the maximum number of vertices of each merged mesh.
+	 * @param cellSize    the size of the grid cells used to group nearby meshes, in
+	 *                    world units.
+	 */
+	public StaticBatcher(int maxVertices, float cellSize) {
+		if (maxVertices <= 0)
+			throw new IllegalArgumentException("maxVertices must be greater than zero");
+		if (cellSize <= 0)
+			throw new IllegalArgumentException("cellSize must be greater than zero");
+
+		this.maxVertices = maxVertices;
+		this.cellSize = cellSize;
+	}
+
+	/**
+	 * Add the meshes of every {@link ModelMesh} and {@link Model} in the subtree
+	 * starting at the given node, using their global matrices. The nodes are not
+	 * changed, so they should be removed from the scene graph and disposed once
+	 * the batches have been built.
+	 *
+	 * @return the number of meshes that couldn't be added, see
+	 *         {@link #add(Mesh, Mat4f)}. Their nodes should be kept.
+	 */
+	public int add(Transform subtree) {
+		int skipped = 0;
+
+		if (subtree instanceof ModelMesh) {
+			if (!add(((ModelMesh) subtree).getMesh(), subtree.getGlobalMatrix()))
+				skipped++;
+		} else if (subtree instanceof Model) {
+			for (Mesh mesh : ((Model) subtree).getMeshes()) {
+				if (!add(mesh, subtree.getGlobalMatrix()))
+					skipped++;
+			}
+		}
+
+		for (Transform child : subtree)
+			skipped += add(child);
+
+		return skipped;
+	}
+
+	/**
+	 * Add a mesh to be merged, transformed by the given matrix. The mesh is read
+	 * back from the GPU straight away, so it may be disposed afterwards.
+	 *
+	 * @return false if the mesh wasn't added because it has no material or an
+	 *         unsupported layout.
+	 */
+	public boolean add(Mesh mesh, Mat4f modelMatrix) {
+		VertexBufferLayout layout = mesh.getLayout();
+		if (mesh.getMaterial() == null || !isSupported(layout))
+			return false;
+
+		int stride = layout.getStride() / Float.BYTES;
+		FloatBuffer vertices = mesh.readVertices();
+		IntBuffer indices = mesh.readIndices();
+
+		// Transform the positions, and the normals by the inverse transpose so they
+		// stay perpendicular to non uniformly scaled surfaces.
+		boolean hasNormals = layout == VertexBufferLayout.Float3_3 || layout == VertexBufferLayout.Float3_3_2;
+		Mat4f normalMatrix = Mat4f.inverse(modelMatrix, new Mat4f()).transpose();
+
+		Vec3f v = new Vec3f();
+		BoundingBox worldBounds = new BoundingBox();
+
+		for (int i = 0; i < vertices.limit(); i += stride) {
+			v.set(vertices.get(i), vertices.get(i + 1), vertices.get(i + 2));
+			modelMatrix.transformPoint(v, v);
+			vertices.put(i, v.x).put(i + 1, v.y).put(i + 2, v.z);
+			worldBounds.include(v.x, v.y, v.z);
+
+			if (hasNormals) {
+				v.set(vertices.get(i + 3), vertices.get(i + 4), vertices.get(i + 5));
+				normalMatrix.transformDirection(v, v);
+				if (v.length() > 0)
+					v.normalise();
+				vertices.put(i + 3, v.x).put(i + 4, v.y).put(i + 5, v.z);
+			}
+		}
+
+		// Non indexed meshes draw their vertices in order.
+		if (indices == null) {
+			indices = BufferUtil.createEmptyIntBuffer(mesh.getVertexCount());
+			for (int i = 0; i < mesh.getVertexCount(); i++)
+				indices.put(i, i);
+		}
+
+		// A mirroring matrix turns the triangles inside out, so swap the winding
+		// back to keep them front facing.
+		if (modelMatrix.determinant() < 0) {
+			for (int i = 0; i + 2 < indices.limit(); i += 3) {
+				int index = indices.get(i + 1);
+				indices.put(i + 1, indices.get(i + 2)).put(i + 2, index);
+			}
+		}
+
+		Vec3f center = worldBounds.getCenter(new Vec3f());
+		Key key = new Key(mesh.getMaterial(), layout, cell(center.x), cell(center.y), cell(center.z));
+
+		List<Batch> keyBatches = batches.computeIfAbsent(key, k -> new ArrayList<>());
+		Batch batch = keyBatches.isEmpty() ? null : keyBatches.get(keyBatches.size() - 1);
+
+		int vertexCount = mesh.getVertexCount();
+		if (batch == null || (batch.vertexCount > 0 && batch.vertexCount + vertexCount > maxVertices)) {
+			batch = new Batch();
+			keyBatches.add(batch);
+		}
+
+		batch.vertices.add(vertices);
+		batch.indices.add(indices);
+		batch.vertexCount += vertexCount;
+		batch.indexCount += indices.limit();
+
+		meshCount++;
+		return true;
+	}
+
+	/**
+	 * Create a merged mesh for each batch of the added meshes, and returns a new
+	 * node with a {@link ModelMesh} child for each merged mesh, to be added to the
+	 * scene graph without any transformation. The added meshes are cleared, so the
+	 * batcher can be reused.
+	 *
+	 * @param usageHint the usage of the merged meshes, usually
+	 *                  {@link BufferUsageHint#STATIC_DRAW}.
+	 */
+	public Transform build(BufferUsageHint usageHint) {
+		Transform group = new Transform();
+		int batchCount = 0;
+
+		for (Map.Entry<Key, List<Batch>> entry : batches.entrySet()) {
+			Key key = entry.getKey();
+			int stride = key.layout.getStride() / Float.BYTES;
+
+			for (Batch batch : entry.getValue()) {
+				FloatBuffer vertices = BufferUtil.createEmptyFloatBuffer(batch.vertexCount * stride);
+				IntBuffer indices = BufferUtil.createEmptyIntBuffer(batch.indexCount);
+
+				for (int i = 0; i < batch.vertices.size(); i++) {
+					int baseVertex = vertices.position() / stride;
+					vertices.put(batch.vertices.get(i));
+
+					IntBuffer meshIndices = batch.indices.get(i);
+					for (int j = 0; j < meshIndices.limit(); j++)
+						indices.put(meshIndices.get(j) + baseVertex);
+				}
+
+				vertices.flip();
+				indices.flip();
+
+				new ModelMesh(new Mesh(vertices, indices, usageHint, key.layout, key.material)).setParent(group);
+				batchCount++;
+			}
+		}
+
+		System.out.println("Merged " + meshCount + " static meshes into " + batchCount + " batches.");
+
+		batches.clear();
+		meshCount = 0;
+
+		return group;
+	}
+
+	/**
+	 * Returns the number of meshes added since the last {@link #build(BufferUsageHint)}.
+	 */
+	public int getMeshCount() {
+		return meshCount;
+	}
+
+	public int getMaxVertices() {
+		return maxVertices;
+	}
+
+	public float getCellSize() {
+		return cellSize;
+	}
+
+	public static boolean isSupported(VertexBufferLayout layout) {
+		// Compared by identity, as in GeometryPool.
+		return layout == VertexBufferLayout.Float3 || layout == VertexBufferLayout.Float3_2 || layout == VertexBufferLayout.Float3_3
+				|| layout == VertexBufferLayout.Float3_3_2;
+	}
+
+	private int cell(float coordinate) {
+		return (int) Math.floor(coordinate / cellSize);
+	}
+
+	// Meshes are merged if they have the same material and layout, and are in the
+	// same grid cell. Materials and layouts are compared by identity.
+	private static final class Key {
+		final Material material;
+		final VertexBufferLayout layout;
+		final int x, y, z;
+
+		Key(Material material, VertexBufferLayout layout, int x, int y, int z) {
+			this.material = material;
+			this.layout = layout;
+			this.x = x;
+			this.y = y;
+			this.z = z;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Key))
+				return false;
+
+			Key other = (Key) obj;
+			return material == other.material && layout == other.layout && x == other.x && y == other.y && z == other.z;
+		}
+
+		@Override
+		public int hashCode() {
+			int hash = System.identityHashCode(material);
+			hash = hash * 31 + System.identityHashCode(layout);
+			hash = hash * 31 + x;
+			hash = hash * 31 + y;
+			return hash * 31 + z;
+		}
+	}
+
+	// The transformed data of the meshes merged into one mesh.
+	private static final class Batch {
+		final List<FloatBuffer> vertices = new ArrayList<>();
+		final List<IntBuffer> indices = new ArrayList<>();
+		int vertexCount;
+		int indexCount;
+	}
+
+}
@@ -0,0 +1,103 @@
+package au.edu.federation.itech3104.michaelwilson.model.loader;
+
+import java.util.Arrays;
+
+/**
+ * A growable array of primitive ints, used by the loaders to avoid boxing.
+ */
+public final class IntList {
+	private int[] data;
+	private int size;
+
+	public IntList() {
+		this(16);
+	}
+
+	public IntList(int capacity) {
+		data = new int[Math.max(capacity, 1)];
+	}
+
+	public void add(int value) {
+		if (size == data.length)
+			grow(size + 1);
+
+		data[size++] = value;
+	}
+
+	public void add(int a, int b) {
+		if (size + 2 > data.length)
+			grow(size + 2);
+
+		data[size++] = a;
+		data[size++] = b;
+	}
+
+	public void add(int a, int b, int c) {
+		if (size + 3 > data.length)
+			grow(size + 3);
+
+		data[size++] = a;
+		data[size++] = b;
+		data[size++] = c;
+	}
+
+	/**
+	 * Append all the values of another list.
+	 */
+	public void addAll(IntList list) {
+		if (size + list.size > data.length)
+			grow(size + list.size);
+
+		System.arraycopy(list.data, 0, data, size, list.size);
+		size += list.size;
+	}
+
+	public int get(int index) {
+		if (index >= size)
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+
+		return data[index];
+	}
+
+	public void set(int index, int value) {
+		if (index >= size)
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+
+		data[index] = value;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Removes all values, keeping the allocated capacity.
+	 */
+	public void clear() {
+		size = 0;
+	}
+
+	/**
+	 * Returns a new array holding exactly the values of this list.
+	 */
+	public int[] toArray() {
+		return Arrays.copyOf(data, size);
+	}
+
+	/**
+	 * Returns the backing array, which may be longer than {@link #size()}. The
+	 * array is replaced when the list grows.
+	 */
+	public int[] getArray() {
+		return data;
+	}
+
+	private void grow(int minCapacity) {
+		data = Arrays.copyOf(data, Math.max(minCapacity, data.length * 2));
+	}
+
+}
@@ -0,0 +1,79 @@
+package au.edu.federation.itech3104.michaelwilson.model.loader;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// MTL File format specification referenced from
+// - https://en.wikipedia.org/wiki/Wavefront_.obj_file#Material_template_library
+
+/**
+ * Loads the materials of a MTL (Material Template Library) file, as referenced
+ * by the mtllib statement of an OBJ file. Only the diffuse and specular texture
+ * maps and the specular exponent are read.
+ */
+public final class MTLLoader {
+
+	private MTLLoader() {
+	}
+
+	/**
+	 * Loads a MTL file from the file system.
+	 *
+	 * @return the materials of the file, by name, in the order they are defined.
+	 */
+	public static Map<String, MaterialDescriptor> load(String filepath) throws FileNotFoundException, IOException {
+		Map<String, MaterialDescriptor> materials = new LinkedHashMap<>();
+		Path directory = Paths.get(filepath).toAbsolutePath().getParent();
+
+		try (RandomAccessFile file = new RandomAccessFile(filepath, "r"); FileChannel channel = file.getChannel()) {
+			if (channel.size() > Integer.MAX_VALUE)
+				throw new IOException("Failed to load MTL file! File is too large.");
+
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+			OBJTokenizer tokenizer = new OBJTokenizer("MTL");
+			tokenizer.reset(buffer, 0, buffer.limit(), 0);
+
+			MaterialDescriptor material = null;
+
+			while (tokenizer.hasNext()) {
+				tokenizer.readKeyword();
+
+				if (tokenizer.isKeyword("newmtl")) { // new material
+					material = new MaterialDescriptor(tokenizer.readRestOfLine());
+					materials.put(material.getName(), material);
+
+				} else if (material != null) {
+					if (tokenizer.isKeyword("map_Kd")) // diffuse texture
+						material.setDiffuseTexturePath(readTexturePath(tokenizer, directory));
+					else if (tokenizer.isKeyword("map_Ks")) // specular texture
+						material.setSpecularTexturePath(readTexturePath(tokenizer, directory));
+					else if (tokenizer.isKeyword("Ns")) // specular exponent
+						material.setShininess(tokenizer.readFloat());
+				}
+
+				tokenizer.nextLine();
+			}
+		}
+
+		return materials;
+	}
+
+	// map_Kd -s 1 1 1 textures/diffuse.png
+	// Options are skipped by taking the last token of the line as the file name,
+	// so file names can't contain spaces.
+	private static String readTexturePath(OBJTokenizer tokenizer, Path directory) {
+		String[] tokens = tokenizer.readRestOfLine().split("\\s+");
+		String filename = tokens[tokens.length - 1].replace('\\', '/');
+
+		return directory.resolve(filename).normalize().toString();
+	}
+
+}
@@ -0,0 +1,61 @@
+package au.edu.federation.itech3104.michaelwilson.model.loader;
+
+/**
+ * A material defined by a MTL file, see {@link MTLLoader}. Texture paths are
+ * resolved relative to the MTL file. Properties that weren't set by the file
+ * are null, or NaN for the shininess.
+ */
+public final class MaterialDescriptor {
+	private final String name;
+
+	private String diffuseTexturePath;
+	private String specularTexturePath;
+	private float shininess = Float.NaN;
+
+	public MaterialDescriptor(String name) {
+		this.name = name;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Returns the path of the diffuse texture (map_Kd), or null.
+	 */
+	public String getDiffuseTexturePath() {
+		return diffuseTexturePath;
+	}
+
+	public void setDiffuseTexturePath(String diffuseTexturePath) {
+		this.diffuseTexturePath = diffuseTexturePath;
+	}
+
+	/**
+	 * Returns the path of the specular texture (map_Ks), or null.
+	 */
+	public String getSpecularTexturePath() {
+		return specularTexturePath;
+	}
+
+	public void setSpecularTexturePath(String specularTexturePath) {
+		this.specularTexturePath = specularTexturePath;
+	}
+
+	/**
+	 * Returns the specular exponent (Ns), or NaN.
+	 */
+	public float getShininess() {
+		return shininess;
+	}
+
+	public void setShininess(float shininess) {
+		this.shininess = shininess;
+	}
+
+	@Override
+	public String toString() {
+		return name + " (diffuse: " + diffuseTexturePath + ", specular: " + specularTexturePath + ", shininess: " + shininess + ")";
+	}
+
+}
@@ -0,0 +1,508 @@
+package au.edu.federation.itech3104.michaelwilson.model.loader;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.zip.CRC32;
+
+import au.edu.federation.itech3104.michaelwilson.ResourceManager;
+import au.edu.federation.itech3104.michaelwilson.graphics.GeometryPool;
+import au.edu.federation.itech3104.michaelwilson.graphics.Mesh;
+import au.edu.federation.itech3104.michaelwilson.graphics.data.BufferUsageHint;
+import au.edu.federation.itech3104.michaelwilson.graphics.data.VertexBufferLayout;
+import au.edu.federation.itech3104.michaelwilson.graphics.material.Material;
+import au.edu.federation.itech3104.michaelwilson.graphics.texture.Texture2D;
+
+/**
+ * A binary cache of the meshes loaded from a model file, stored next to the
+ * source file with the {@link #EXTENSION} extension. The cache is memory mapped
+ * when loaded, and the vertex and index data is passed straight to
+ * {@link Mesh#Mesh(FloatBuffer, IntBuffer, BufferUsageHint, VertexBufferLayout, Material)}.
+ * <br>
+ * <br>
+ * The cache is used if the size and modification time of the source file
+ * match the ones recorded in the cache. If only the modification time differs
+ * (for example after a fresh checkout), a CRC32 of the source file is compared
+ * instead. <br>
+ * <br>
+ * File layout, in native byte order:
+ *
+ * <pre>
+ * header:     magic, version, byte order, source size, source modified time, source CRC32
+ * libraries:  MTL file count, then the path of each MTL file
+ * mesh table: mesh count, then name, material name, vertex count, index count, vertex offset, index offset (per mesh)
+ * data:       Float3_3_2 vertices, then int indices, for each mesh
+ * </pre>
+ *
+ * Simplified levels of detail of a model are cached the same way, in their own
+ * files, see {@link #getLodCachePath(Path, float)}.
+ *
+ * @see OBJLoader#loadMeshes(String, ResourceManager, Material, BufferUsageHint)
+ */
+public final class MeshCache {
+	public static final String EXTENSION = ".meshcache";
+
+	private static final int MAGIC = 0x4D434348; // MCCH
+	private static final int VERSION = 2;
+
+	private static final int FLOATS_PER_VERTEX = VertexBufferLayout.Float3_3_2.getStride() / Float.BYTES;
+
+	// Offset of the source modified time in the header.
+	private static final int MODIFIED_TIME_OFFSET = 4 + 4 + 1 + 8;
+
+	// Size of the header, up to the libraries.
+	private static final int HEADER_SIZE = MODIFIED_TIME_OFFSET + 8 + 8;
+
+	private final List<String> materialLibraries = new ArrayList<>();
+	private final List<String> names = new ArrayList<>();
+	private final List<String> materialNames = new ArrayList<>();
+	private final List<FloatBuffer> vertices = new ArrayList<>();
+	private final List<IntBuffer> indices = new ArrayList<>();
+
+	private Map<String, MaterialDescriptor> materials; // Read from the MTL files when first needed.
+
+	private MeshCache() {
+	}
+
+	/**
+	 * Returns the path of the cache file for a source file.
+	 */
+	public static Path getCachePath(Path source) {
+		return source.resolveSibling(source.getFileName() + EXTENSION);
+	}
+
+	/**
+	 * Returns the path of the cache file for a level of detail of a source file,
+	 * simplified to the given ratio of its triangles. The ratio is part of the
+	 * name, so changing the ratios doesn't use an old cache.
+	 */
+	public static Path getLodCachePath(Path source, float ratio) {
+		return source.resolveSibling(source.getFileName() + ".lod" + Math.round(ratio * 1000) + EXTENSION);
+	}
+
+	/**
+	 * Load the cache of the given source file.
+	 *
+	 * @return the cache, or null if there is no cache or it is out of date.
+	 */
+	public static MeshCache load(String sourceFilepath) throws IOException {
+		return load(sourceFilepath, getCachePath(Paths.get(sourceFilepath)));
+	}
+
+	/**
+	 * Load a cache file of the given source file, such as a level of detail.
+	 *
+	 * @return the cache, or null if there is no cache or it is out of date.
+	 */
+	public static MeshCache load(String sourceFilepath, Path cachePath) throws IOException {
+		Path source = Paths.get(sourceFilepath);
+
+		if (!Files.isRegularFile(cachePath) || !Files.isRegularFile(source))
+			return null;
+
+		// Check the header before mapping the file, so a stale cache is never mapped.
+		// On Windows a mapped file can't be replaced until it is unmapped, which only
+		// happens when the buffer is garbage collected, so writing the new cache
+		// would fail.
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.nativeOrder());
+		try (FileChannel channel = FileChannel.open(cachePath, StandardOpenOption.READ)) {
+			while (header.hasRemaining() && channel.read(header) >= 0)
+				;
+		}
+		header.flip();
+
+		if (header.remaining() < HEADER_SIZE || header.getInt() != MAGIC || header.getInt() != VERSION)
+			return null;
+
+		if (header.get() != (ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN ? 0 : 1))
+			return null; // Written on a machine with a different byte order.
+
+		long size = header.getLong();
+		long modifiedTime = header.getLong();
+		long crc = header.getLong();
+
+		if (size != Files.size(source))
+			return null;
+
+		long sourceModifiedTime = Files.getLastModifiedTime(source).toMillis();
+		if (modifiedTime != sourceModifiedTime) {
+			if (crc != checksum(source))
+				return null;
+
+			// Same contents, remember the new modified time so we don't hash it again.
+			try (FileChannel channel = FileChannel.open(cachePath, StandardOpenOption.WRITE)) {
+				ByteBuffer time = ByteBuffer.allocate(8).order(ByteOrder.nativeOrder());
+				time.putLong(0, sourceModifiedTime);
+				channel.write(time, MODIFIED_TIME_OFFSET);
+			}
+		}
+
+		MappedByteBuffer buffer;
+		try (FileChannel channel = FileChannel.open(cachePath, StandardOpenOption.READ)) {
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+		buffer.order(ByteOrder.nativeOrder());
+		buffer.position(HEADER_SIZE);
+
+		MeshCache cache = new MeshCache();
+
+		try {
+			int libraryCount = buffer.getInt();
+			for (int i = 0; i < libraryCount; i++)
+				cache.materialLibraries.add(getString(buffer));
+
+			int meshCount = buffer.getInt();
+			for (int i = 0; i < meshCount; i++) {
+				cache.names.add(getString(buffer));
+				cache.materialNames.add(getString(buffer));
+
+				int vertexCount = buffer.getInt();
+				int indexCount = buffer.getInt();
+				int vertexOffset = (int) buffer.getLong();
+				int indexOffset = (int) buffer.getLong();
+
+				cache.vertices.add(slice(buffer, vertexOffset, vertexCount * FLOATS_PER_VERTEX * Float.BYTES).asFloatBuffer());
+				cache.indices.add(slice(buffer, indexOffset, indexCount * Integer.BYTES).asIntBuffer());
+			}
+		} catch (BufferUnderflowException | IllegalArgumentException e) {
+			unmap(buffer); // The cache is truncated or corrupt, and will be replaced.
+			return null;
+		}
+
+		return cache;
+	}
+
+	/**
+	 * Write the meshes of a model to the cache of the given source file. The
+	 * cache is written to a temporary file first, so a cache is never left half
+	 * written.
+	 */
+	public static void write(String sourceFilepath, RawModel model) throws IOException {
+		write(sourceFilepath, getCachePath(Paths.get(sourceFilepath)), model);
+	}
+
+	/**
+	 * Write the meshes of a model to a cache file of the given source file, such as
+	 * a level of detail.
+	 */
+	public static void write(String sourceFilepath, Path cachePath, RawModel model) throws IOException {
+		Path source = Paths.get(sourceFilepath);
+
+		List<RawMesh> meshes = new ArrayList<>();
+		for (int i = 0; i < model.getMeshCount(); i++)
+			meshes.add(model.getRawMesh(i));
+
+		// Header, libraries and mesh table.
+		List<byte[]> libraries = new ArrayList<>();
+		List<byte[]> names = new ArrayList<>();
+		int headerSize = HEADER_SIZE + 4 + 4;
+		for (String library : model.getMaterialLibraries()) {
+			libraries.add(toBytes(library));
+			headerSize += Integer.BYTES;
+		}
+		for (RawMesh mesh : meshes) {
+			names.add(toBytes(mesh.getName()));
+			names.add(toBytes(mesh.getMaterialName()));
+			headerSize += 2 * Integer.BYTES + 4 + 4 + 8 + 8;
+		}
+		for (byte[] library : libraries)
+			headerSize += library.length;
+		for (byte[] name : names)
+			headerSize += name == null ? 0 : name.length;
+		headerSize = (headerSize + 3) & ~3; // Keep the data 4 byte aligned.
+
+		ByteBuffer header = ByteBuffer.allocate(headerSize).order(ByteOrder.nativeOrder());
+		header.putInt(MAGIC);
+		header.putInt(VERSION);
+		header.put((byte) (ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN ? 0 : 1));
+		header.putLong(Files.size(source));
+		header.putLong(Files.getLastModifiedTime(source).toMillis());
+		header.putLong(checksum(source));
+
+		header.putInt(libraries.size());
+		for (byte[] library : libraries)
+			putString(header, library);
+
+		header.putInt(meshes.size());
+
+		List<float[]> vertexArrays = new ArrayList<>();
+		List<int[]> indexArrays = new ArrayList<>();
+
+		long offset = headerSize;
+		for (int i = 0; i < meshes.size(); i++) {
+			float[] meshVertices = meshes.get(i).getVerticesArray();
+			int[] meshIndices = meshes.get(i).getIndicesArray();
+			vertexArrays.add(meshVertices);
+			indexArrays.add(meshIndices);
+
+			putString(header, names.get(i * 2));
+			putString(header, names.get(i * 2 + 1));
+			header.putInt(meshVertices.length / FLOATS_PER_VERTEX);
+			header.putInt(meshIndices.length);
+			header.putLong(offset);
+			header.putLong(offset + (long) meshVertices.length * Float.BYTES);
+
+			offset += (long) meshVertices.length * Float.BYTES + (long) meshIndices.length * Integer.BYTES;
+		}
+
+		if (offset > Integer.MAX_VALUE)
+			throw new IOException("Failed to write mesh cache! Model is too large.");
+
+		Path temporaryPath = cachePath.resolveSibling(cachePath.getFileName() + ".tmp");
+
+		try (FileChannel channel = FileChannel.open(temporaryPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			header.rewind();
+			writeFully(channel, header);
+
+			ByteBuffer data = ByteBuffer.allocateDirect(1 << 16).order(ByteOrder.nativeOrder());
+			for (int i = 0; i < meshes.size(); i++) {
+				float[] meshVertices = vertexArrays.get(i);
+				for (int j = 0; j < meshVertices.length;) {
+					int count = Math.min(meshVertices.length - j, data.capacity() / Float.BYTES);
+					data.clear();
+					data.asFloatBuffer().put(meshVertices, j, count);
+					data.limit(count * Float.BYTES);
+					writeFully(channel, data);
+					j += count;
+				}
+
+				int[] meshIndices = indexArrays.get(i);
+				for (int j = 0; j < meshIndices.length;) {
+					int count = Math.min(meshIndices.length - j, data.capacity() / Integer.BYTES);
+					data.clear();
+					data.asIntBuffer().put(meshIndices, j, count);
+					data.limit(count * Integer.BYTES);
+					writeFully(channel, data);
+					j += count;
+				}
+			}
+		}
+
+		Files.move(temporaryPath, cachePath, StandardCopyOption.REPLACE_EXISTING);
+	}
+
+	/**
+	 * Returns a new {@link Mesh} for each cached mesh, in the order they were
+	 * loaded from the source file. Materials are found the same way as
+	 * {@link RawModel#toMeshes(ResourceManager, Material, BufferUsageHint)},
+	 * loading the MTL files again if needed and {@link #getMaterials()} hasn't
+	 * been called. Caller is responsible for disposing the returned meshes.
+	 */
+	public List<Mesh> toMeshes(ResourceManager resourceManager, Material defaultMaterial, BufferUsageHint usageHint) throws IOException {
+		return toMeshes(resourceManager, defaultMaterial, usageHint, (GeometryPool) null);
+	}
+
+	/**
+	 * Same as {@link #toMeshes(ResourceManager, Material, BufferUsageHint)}, but
+	 * the meshes are stored in the given {@link GeometryPool} instead of having
+	 * their own buffers.
+	 */
+	public List<Mesh> toMeshes(ResourceManager resourceManager, Material defaultMaterial, GeometryPool pool) throws IOException {
+		return toMeshes(resourceManager, defaultMaterial, null, pool);
+	}
+
+	/**
+	 * Same as {@link #toMeshes(ResourceManager, Material, BufferUsageHint)}, but
+	 * the materials created from the MTL files aren't added to the
+	 * {@link ResourceManager}, and their textures are got by path from the given
+	 * function, see
+	 * {@link RawModel#toMeshes(ResourceManager, Material, BufferUsageHint, Function)}.
+	 */
+	List<Mesh> toMeshes(ResourceManager resourceManager, Material defaultMaterial, BufferUsageHint usageHint, Function<String, Texture2D> textures)
+			throws IOException {
+		Map<String, Material> created = RawModel.createMaterials(resourceManager, materialNames, getMaterials(), defaultMaterial, textures);
+		List<Mesh> meshList = new ArrayList<>();
+
+		for (int i = 0; i < getMeshCount(); i++) {
+			Material material = created.get(getMaterialName(i));
+			if (material == null)
+				material = RawModel.findMaterial(resourceManager, getMaterialName(i), getName(i), defaultMaterial);
+
+			meshList.add(new Mesh(getVertices(i), getIndices(i), usageHint, VertexBufferLayout.Float3_3_2, material));
+		}
+
+		return meshList;
+	}
+
+	private List<Mesh> toMeshes(ResourceManager resourceManager, Material defaultMaterial, BufferUsageHint usageHint, GeometryPool pool)
+			throws IOException {
+		List<Mesh> meshList = new ArrayList<>();
+
+		boolean isMaterialMissing = false;
+		for (String materialName : materialNames)
+			isMaterialMissing |= resourceManager.getMaterial(materialName) == null;
+
+		if (isMaterialMissing && !materialLibraries.isEmpty())
+			RawModel.resolveMaterials(resourceManager, materialNames, getMaterials(), defaultMaterial);
+
+		for (int i = 0; i < getMeshCount(); i++) {
+			Material material = RawModel.findMaterial(resourceManager, getMaterialName(i), getName(i), defaultMaterial);
+			meshList.add(pool == null ? new Mesh(getVertices(i), getIndices(i), usageHint, VertexBufferLayout.Float3_3_2, material)
+					: pool.allocate(getVertices(i), getIndices(i), VertexBufferLayout.Float3_3_2, material));
+		}
+
+		return meshList;
+	}
+
+	/**
+	 * Returns a copy of the cached meshes as a {@link RawModel}, in the order they
+	 * were loaded from the source file. Used to simplify the meshes without
+	 * loading the source file again. The materials of the model aren't loaded.
+	 */
+	public RawModel toRawModel() {
+		List<RawMesh> meshes = new ArrayList<>();
+
+		for (int i = 0; i < getMeshCount(); i++) {
+			FloatBuffer meshVertices = getVertices(i);
+			IntBuffer meshIndices = getIndices(i);
+
+			float[] vertexArray = new float[meshVertices.remaining()];
+			int[] indexArray = new int[meshIndices.remaining()];
+			meshVertices.get(vertexArray);
+			meshIndices.get(indexArray);
+
+			meshes.add(new RawMesh(getName(i), getMaterialName(i), vertexArray, indexArray));
+		}
+
+		return new RawModel(meshes, materialLibraries, Collections.emptyMap());
+	}
+
+	/**
+	 * Returns the materials defined by the MTL files of the source file, by name.
+	 * The MTL files are read the first time this is called, so call it on a
+	 * loader thread before {@link #toMeshes(ResourceManager, Material, BufferUsageHint)}
+	 * to keep the parsing off the OpenGL thread.
+	 */
+	public Map<String, MaterialDescriptor> getMaterials() throws IOException {
+		if (materials == null)
+			materials = OBJLoader.loadMaterialLibraries(materialLibraries);
+		return materials;
+	}
+
+	/**
+	 * Returns the textures used by each material of the cached meshes, by material
+	 * name, see {@link RawModel#getTexturePaths()}. Reads the MTL files if they
+	 * haven't been read.
+	 */
+	public Map<String, Map<String, String>> getTexturePaths() throws IOException {
+		return RawModel.findTexturePaths(materialNames, getMaterials());
+	}
+
+	/**
+	 * Returns the paths of the MTL files referenced by the source file.
+	 */
+	public List<String> getMaterialLibraries() {
+		return materialLibraries;
+	}
+
+	public int getMeshCount() {
+		return names.size();
+	}
+
+	public String getName(int index) {
+		return names.get(index);
+	}
+
+	public String getMaterialName(int index) {
+		return materialNames.get(index);
+	}
+
+	/**
+	 * Returns the {@link VertexBufferLayout#Float3_3_2 Float3_3_2} vertices of a
+	 * mesh, as a view of the memory mapped cache.
+	 */
+	public FloatBuffer getVertices(int index) {
+		return vertices.get(index).duplicate();
+	}
+
+	/**
+	 * Returns the indices of a mesh, as a view of the memory mapped cache.
+	 */
+	public IntBuffer getIndices(int index) {
+		return indices.get(index).duplicate();
+	}
+
+	private static ByteBuffer slice(ByteBuffer buffer, int offset, int length) {
+		ByteBuffer slice = buffer.duplicate();
+		slice.position(offset).limit(offset + length);
+		return slice.slice().order(buffer.order());
+	}
+
+	// Unmap a buffer straight away instead of when it is garbage collected, so the
+	// file can be replaced on Windows. The buffer must not be used afterwards.
+	// There's no public API for this, so it is best effort.
+	private static void unmap(MappedByteBuffer buffer) {
+		try {
+			Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+			Field field = unsafeClass.getDeclaredField("theUnsafe");
+			field.setAccessible(true);
+			unsafeClass.getMethod("invokeCleaner", ByteBuffer.class).invoke(field.get(null), buffer);
+		} catch (ReflectiveOperationException | RuntimeException e) {
+			// Not supported by this JVM, the buffer is unmapped when it is collected.
+		}
+	}
+
+	private static long checksum(Path source) throws IOException {
+		CRC32 crc = new CRC32();
+
+		try (FileChannel channel = FileChannel.open(source, StandardOpenOption.READ)) {
+			long size = channel.size();
+			for (long offset = 0; offset < size;) {
+				long length = Math.min(Integer.MAX_VALUE, size - offset);
+				crc.update(channel.map(FileChannel.MapMode.READ_ONLY, offset, length));
+				offset += length;
+			}
+		}
+
+		return crc.getValue();
+	}
+
+	private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+		while (buffer.hasRemaining())
+			channel.write(buffer);
+	}
+
+	// Strings are stored as a length and UTF-8 bytes, with a length of -1 for null.
+	private static byte[] toBytes(String string) {
+		return string == null ? null : string.getBytes(StandardCharsets.UTF_8);
+	}
+
+	private static void putString(ByteBuffer buffer, byte[] bytes) {
+		if (bytes == null) {
+			buffer.putInt(-1);
+			return;
+		}
+
+		buffer.putInt(bytes.length);
+		buffer.put(bytes);
+	}
+
+	private static String getString(ByteBuffer buffer) {
+		int length = buffer.getInt();
+		if (length < 0)
+			return null;
+
+		byte[] bytes = new byte[length];
+		buffer.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+}
@@ -0,0 +1,496 @@
+package au.edu.federation.itech3104.michaelwilson.model.loader;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Reduces the triangle count of a {@link RawMesh} by edge collapses ordered by
+ * the quadric error metric (Garland and Heckbert, "Surface Simplification
+ * Using Quadric Error Metrics"). Used to generate the levels of detail of
+ * models at load time, see
+ * {@link OBJLoader#prepareLodMeshes(String, au.edu.federation.itech3104.michaelwilson.ResourceManager, au.edu.federation.itech3104.michaelwilson.graphics.material.Material, au.edu.federation.itech3104.michaelwilson.graphics.data.BufferUsageHint, float[], float[])
+ * OBJLoader#prepareLodMeshes()}.<br>
+ * <br>
+ * Vertices with the same position but different normals or texture
+ * coordinates (seams) are collapsed together, and each edge collapses onto
+ * whichever of its two positions has the lower error, so the surviving
+ * vertices keep their original attributes. Each collapsed vertex is replaced
+ * by the vertex at the remaining position with the closest normal and texture
+ * coordinates. Open boundaries are given a large extra error so the outline of
+ * the mesh is kept, and collapses that would fold a triangle over are
+ * skipped.
+ */
+public final class MeshSimplifier {
+
+	// The triangle ratios of the levels generated by default, after the full
+	// resolution level.
+	public static final float[] DEFAULT_RATIOS = { 0.5f, 0.25f, 0.1f };
+
+	// Weight of the planes keeping open boundaries in place.
+	private static final double BOUNDARY_WEIGHT = 1000.0;
+
+	// Collapses that turn a triangle's normal by more than about 78 degrees are
+	// skipped.
+	private static final double MIN_NORMAL_DOT = 0.2;
+
+	private static final int FLOATS = RawMesh.FLOATS_PER_VERTEX;
+
+	private MeshSimplifier() {
+	}
+
+	/**
+	 * Returns a new mesh with about the given ratio of the triangles of the mesh.
+	 * The result may have more triangles if further collapses would fold the
+	 * surface or move its boundary.
+	 */
+	public static RawMesh simplify(RawMesh mesh, float ratio) {
+		if (ratio <= 0 || ratio > 1)
+			throw new IllegalArgumentException("ratio must be greater than 0 and at most 1");
+
+		return simplify(mesh, Math.max(1, Math.round(mesh.getIndexCount() / 3 * ratio)));
+	}
+
+	/**
+	 * Returns a new mesh with at most the target number of triangles, if the mesh
+	 * can be simplified that far.
+	 */
+	public static RawMesh simplify(RawMesh mesh, int targetTriangleCount) {
+		return new Simplification(mesh).run(targetTriangleCount);
+	}
+
+	// The state of simplifying one mesh. Positions are the unique vertex
+	// positions of the mesh, and triangles refer to vertices.
+	private static final class Simplification {
+		final RawMesh mesh;
+		final float[] vertices;
+
+		final int[] triangles; // vertex indices, 3 per triangle
+		final boolean[] isTriangleRemoved;
+		int triangleCount;
+
+		final int[] positionOf; // vertex -> position
+		final int[] firstVertex; // position -> first vertex at the position
+		final int[] nextVertex; // vertex -> next vertex at the same position, or -1
+		final int positionCount;
+
+		final double[] quadrics; // 10 per position, see addQuadric()
+		final IntList[] adjacent; // position -> triangles using it
+		final boolean[] isPositionRemoved;
+		final int[] versions; // position -> incremented when it changes, so queued edges can be discarded
+
+		final PriorityQueue<Edge> queue = new PriorityQueue<>();
+
+		Simplification(RawMesh mesh) {
+			this.mesh = mesh;
+			this.vertices = mesh.getVerticesArray();
+			this.triangles = mesh.getIndicesArray().clone();
+
+			triangleCount = triangles.length / 3;
+			isTriangleRemoved = new boolean[triangleCount];
+
+			// Weld the vertices by position.
+			int vertexCount = mesh.getVertexCount();
+			positionOf = new int[vertexCount];
+			nextVertex = new int[vertexCount];
+
+			Map<PositionKey, Integer> positions = new HashMap<>();
+			int[] first = new int[vertexCount];
+			for (int v = 0; v < vertexCount; v++) {
+				int i = v * FLOATS;
+				PositionKey key = new PositionKey(vertices[i], vertices[i + 1], vertices[i + 2]);
+
+				Integer position = positions.get(key);
+				if (position == null) {
+					position = positions.size();
+					positions.put(key, position);
+					first[position] = -1;
+				}
+
+				positionOf[v] = position;
+				nextVertex[v] = first[position];
+				first[position] = v;
+			}
+
+			positionCount = positions.size();
+			firstVertex = Arrays.copyOf(first, positionCount);
+
+			quadrics = new double[positionCount * 10];
+			adjacent = new IntList[positionCount];
+			isPositionRemoved = new boolean[positionCount];
+			versions = new int[positionCount];
+
+			for (int p = 0; p < positionCount; p++)
+				adjacent[p] = new IntList(8);
+		}
+
+		RawMesh run(int targetTriangleCount) {
+			Map<Long, Integer> edgeUses = new HashMap<>();
+
+			for (int t = 0; t < isTriangleRemoved.length; t++) {
+				int a = position(t, 0), b = position(t, 1), c = position(t, 2);
+				if (a == b || b == c || c == a) {
+					removeTriangle(t); // Already degenerate.
+					continue;
+				}
+
+				adjacent[a].add(t);
+				adjacent[b].add(t);
+				adjacent[c].add(t);
+
+				double[] plane = trianglePlane(a, b, c);
+				if (plane != null) {
+					// Weighted by area, so small triangles don't dominate.
+					double weight = plane[4];
+					addQuadric(a, plane, weight);
+					addQuadric(b, plane, weight);
+					addQuadric(c, plane, weight);
+				}
+
+				edgeUses.merge(edgeKey(a, b), 1, Integer::sum);
+				edgeUses.merge(edgeKey(b, c), 1, Integer::sum);
+				edgeUses.merge(edgeKey(c, a), 1, Integer::sum);
+			}
+
+			addBoundaryQuadrics(edgeUses);
+
+			for (long key : edgeUses.keySet())
+				queueEdge((int) (key >>> 32), (int) key);
+
+			while (triangleCount > targetTriangleCount && !queue.isEmpty()) {
+				Edge edge = queue.poll();
+				if (isPositionRemoved[edge.from] || isPositionRemoved[edge.to] || versions[edge.from] != edge.fromVersion
+						|| versions[edge.to] != edge.toVersion)
+					continue; // Out of date.
+
+				if (!isCollapseAllowed(edge.from, edge.to))
+					continue;
+
+				collapse(edge.from, edge.to);
+			}
+
+			return toRawMesh();
+		}
+
+		// Keep open boundaries in place with a plane through each boundary edge,
+		// perpendicular to its triangle.
+		void addBoundaryQuadrics(Map<Long, Integer> edgeUses) {
+			for (int t = 0; t < isTriangleRemoved.length; t++) {
+				if (isTriangleRemoved[t])
+					continue;
+
+				int[] corners = { position(t, 0), position(t, 1), position(t, 2) };
+				double[] plane = trianglePlane(corners[0], corners[1], corners[2]);
+				if (plane == null)
+					continue;
+
+				for (int k = 0; k < 3; k++) {
+					int a = corners[k], b = corners[(k + 1) % 3];
+					if (edgeUses.get(edgeKey(a, b)) != 1)
+						continue;
+
+					double ex = x(b) - x(a), ey = y(b) - y(a), ez = z(b) - z(a);
+
+					// The edge crossed with the triangle normal.
+					double nx = ey * plane[2] - ez * plane[1];
+					double ny = ez * plane[0] - ex * plane[2];
+					double nz = ex * plane[1] - ey * plane[0];
+					double length = Math.sqrt(nx * nx + ny * ny + nz * nz);
+					if (length == 0)
+						continue;
+
+					nx /= length;
+					ny /= length;
+					nz /= length;
+
+					double[] boundary = { nx, ny, nz, -(nx * x(a) + ny * y(a) + nz * z(a)) };
+					double weight = BOUNDARY_WEIGHT * (ex * ex + ey * ey + ez * ez);
+					addQuadric(a, boundary, weight);
+					addQuadric(b, boundary, weight);
+				}
+			}
+		}
+
+		// Queue the cheaper direction of collapsing the edge between a and b.
+		void queueEdge(int a, int b) {
+			double[] sum = new double[10];
+			for (int i = 0; i < 10; i++)
+				sum[i] = quadrics[a * 10 + i] + quadrics[b * 10 + i];
+
+			double toA = error(sum, x(a), y(a), z(a));
+			double toB = error(sum, x(b), y(b), z(b));
+
+			if (toB <= toA)
+				queue.add(new Edge(a, b, toB, versions[a], versions[b]));
+			else
+				queue.add(new Edge(b, a, toA, versions[b], versions[a]));
+		}
+
+		// Returns false if moving from onto to would fold over one of the triangles
+		// around from, or remove the last triangles of the mesh.
+		boolean isCollapseAllowed(int from, int to) {
+			int removed = 0;
+
+			IntList triangleList = adjacent[from];
+			for (int i = 0; i < triangleList.size(); i++) {
+				int t = triangleList.get(i);
+				if (isTriangleRemoved[t])
+					continue;
+
+				int a = position(t, 0), b = position(t, 1), c = position(t, 2);
+				if (a == to || b == to || c == to) {
+					removed++; // Removed by the collapse.
+					continue;
+				}
+
+				double[] before = normal(a, b, c, -1, -1);
+				double[] after = normal(a, b, c, from, to);
+
+				double dot = before[0] * after[0] + before[1] * after[1] + before[2] * after[2];
+				double lengths = Math.sqrt(before[0] * before[0] + before[1] * before[1] + before[2] * before[2])
+						* Math.sqrt(after[0] * after[0] + after[1] * after[1] + after[2] * after[2]);
+
+				if (dot <= MIN_NORMAL_DOT * lengths)
+					return false;
+			}
+
+			return removed < triangleCount;
+		}
+
+		void collapse(int from, int to) {
+			// Replace each vertex at from with the most similar vertex at to.
+			for (int v = firstVertex[from]; v != -1; v = nextVertex[v]) {
+				int closest = firstVertex[to];
+				float closestDistance = Float.POSITIVE_INFINITY;
+
+				for (int w = firstVertex[to]; w != -1; w = nextVertex[w]) {
+					float distance = attributeDistance(v, w);
+					if (distance < closestDistance) {
+						closest = w;
+						closestDistance = distance;
+					}
+				}
+
+				for (int i = 0; i < adjacent[from].size(); i++) {
+					int t = adjacent[from].get(i);
+					for (int k = 0; k < 3; k++) {
+						if (triangles[t * 3 + k] == v)
+							triangles[t * 3 + k] = closest;
+					}
+				}
+			}
+
+			IntList triangleList = adjacent[from];
+			for (int i = 0; i < triangleList.size(); i++) {
+				int t = triangleList.get(i);
+				if (isTriangleRemoved[t])
+					continue;
+
+				int a = position(t, 0), b = position(t, 1), c = position(t, 2);
+				if (a == b || b == c || c == a)
+					removeTriangle(t);
+				else
+					adjacent[to].add(t);
+			}
+
+			for (int i = 0; i < 10; i++)
+				quadrics[to * 10 + i] += quadrics[from * 10 + i];
+
+			isPositionRemoved[from] = true;
+			adjacent[from] = null;
+			versions[to]++;
+
+			compact(adjacent[to]);
+
+			// Queue the changed edges around the remaining position.
+			triangleList = adjacent[to];
+			for (int i = 0; i < triangleList.size(); i++) {
+				int t = triangleList.get(i);
+				for (int k = 0; k < 3; k++) {
+					int p = position(t, k);
+					if (p != to)
+						queueEdge(to, p);
+				}
+			}
+		}
+
+		// Remove removed triangles and duplicates from a triangle list.
+		void compact(IntList triangleList) {
+			int[] sorted = triangleList.toArray();
+			Arrays.sort(sorted);
+
+			triangleList.clear();
+			for (int i = 0; i < sorted.length; i++) {
+				if (!isTriangleRemoved[sorted[i]] && (i == 0 || sorted[i] != sorted[i - 1]))
+					triangleList.add(sorted[i]);
+			}
+		}
+
+		void removeTriangle(int t) {
+			isTriangleRemoved[t] = true;
+			triangleCount--;
+		}
+
+		// Returns a mesh of the remaining triangles and the vertices they use.
+		RawMesh toRawMesh() {
+			int vertexCount = mesh.getVertexCount();
+			int[] remap = new int[vertexCount];
+			Arrays.fill(remap, -1);
+
+			int[] indices = new int[triangleCount * 3];
+			IntList used = new IntList();
+			int index = 0;
+
+			for (int t = 0; t < isTriangleRemoved.length; t++) {
+				if (isTriangleRemoved[t])
+					continue;
+
+				for (int k = 0; k < 3; k++) {
+					int v = triangles[t * 3 + k];
+					if (remap[v] == -1) {
+						remap[v] = used.size();
+						used.add(v);
+					}
+					indices[index++] = remap[v];
+				}
+			}
+
+			float[] newVertices = new float[used.size() * FLOATS];
+			for (int i = 0; i < used.size(); i++)
+				System.arraycopy(vertices, used.get(i) * FLOATS, newVertices, i * FLOATS, FLOATS);
+
+			return new RawMesh(mesh.getName(), mesh.getMaterialName(), newVertices, indices);
+		}
+
+		int position(int triangle, int corner) {
+			return positionOf[triangles[triangle * 3 + corner]];
+		}
+
+		float x(int position) {
+			return vertices[firstVertex[position] * FLOATS];
+		}
+
+		float y(int position) {
+			return vertices[firstVertex[position] * FLOATS + 1];
+		}
+
+		float z(int position) {
+			return vertices[firstVertex[position] * FLOATS + 2];
+		}
+
+		// The normal of triangle abc, with position from moved to position to. The
+		// length is twice the area.
+		double[] normal(int a, int b, int c, int from, int to) {
+			if (a == from)
+				a = to;
+			if (b == from)
+				b = to;
+			if (c == from)
+				c = to;
+
+			double ux = x(b) - x(a), uy = y(b) - y(a), uz = z(b) - z(a);
+			double vx = x(c) - x(a), vy = y(c) - y(a), vz = z(c) - z(a);
+
+			return new double[] { uy * vz - uz * vy, uz * vx - ux * vz, ux * vy - uy * vx };
+		}
+
+		// Returns the unit plane (a, b, c, d) of the triangle followed by its area,
+		// or null if it has no area.
+		double[] trianglePlane(int a, int b, int c) {
+			double[] n = normal(a, b, c, -1, -1);
+			double length = Math.sqrt(n[0] * n[0] + n[1] * n[1] + n[2] * n[2]);
+			if (length == 0)
+				return null;
+
+			double nx = n[0] / length, ny = n[1] / length, nz = n[2] / length;
+			return new double[] { nx, ny, nz, -(nx * x(a) + ny * y(a) + nz * z(a)), length * 0.5 };
+		}
+
+		// Add the weighted quadric of a plane, the symmetric 4x4 matrix
+		// (a, b, c, d)^T (a, b, c, d) stored as its upper triangle.
+		void addQuadric(int position, double[] plane, double weight) {
+			double a = plane[0], b = plane[1], c = plane[2], d = plane[3];
+			int i = position * 10;
+
+			quadrics[i] += weight * a * a;
+			quadrics[i + 1] += weight * a * b;
+			quadrics[i + 2] += weight * a * c;
+			quadrics[i + 3] += weight * a * d;
+			quadrics[i + 4] += weight * b * b;
+			quadrics[i + 5] += weight * b * c;
+			quadrics[i + 6] += weight * b * d;
+			quadrics[i + 7] += weight * c * c;
+			quadrics[i + 8] += weight * c * d;
+			quadrics[i + 9] += weight * d * d;
+		}
+
+		// The sum of squared distances from (x, y, z) to the planes of the quadric.
+		static double error(double[] q, double x, double y, double z) {
+			return q[0] * x * x + 2 * q[1] * x * y + 2 * q[2] * x * z + 2 * q[3] * x + q[4] * y * y + 2 * q[5] * y * z + 2 * q[6] * y
+					+ q[7] * z * z + 2 * q[8] * z + q[9];
+		}
+
+		float attributeDistance(int v, int w) {
+			float distance = 0;
+			for (int i = 3; i < FLOATS; i++) {
+				float difference = vertices[v * FLOATS + i] - vertices[w * FLOATS + i];
+				distance += difference * difference;
+			}
+			return distance;
+		}
+
+		static long edgeKey(int a, int b) {
+			return a < b ? ((long) a << 32) | b : ((long) b << 32) | a;
+		}
+	}
+
+	// Collapsing position from onto position to, queued by error.
+	private static final class Edge implements Comparable<Edge> {
+		final int from, to;
+		final double error;
+		final int fromVersion, toVersion;
+
+		Edge(int from, int to, double error, int fromVersion, int toVersion) {
+			this.from = from;
+			this.to = to;
+			this.error = error;
+			this.fromVersion = fromVersion;
+			this.toVersion = toVersion;
+		}
+
+		@Override
+		public int compareTo(Edge other) {
+			return Double.compare(error, other.error);
+		}
+	}
+
+	// A vertex position compared by value, for welding vertices.
+	private static final class PositionKey {
+		final float x, y, z;
+
+		PositionKey(float x, float y, float z) {
+			this.x = x;
+			this.y = y;
+			this.z = z;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof PositionKey))
+				return false;
+
+			PositionKey other = (PositionKey) obj;
+			return Float.floatToIntBits(x) == Float.floatToIntBits(other.x) && Float.floatToIntBits(y) == Float.floatToIntBits(other.y)
+					&& Float.floatToIntBits(z) == Float.floatToIntBits(other.z);
+		}
+
+		@Override
+		public int hashCode() {
+			int hash = Float.floatToIntBits(x);
+			hash = hash * 31 + Float.floatToIntBits(y);
+			return hash * 31 + Float.floatToIntBits(z);
+		}
+	}
+
+}
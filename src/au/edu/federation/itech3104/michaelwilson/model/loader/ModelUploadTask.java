@@ -0,0 +1,64 @@
+package au.edu.federation.itech3104.michaelwilson.model.loader;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import au.edu.federation.itech3104.michaelwilson.IUploadTask;
+import au.edu.federation.itech3104.michaelwilson.ResourceManager;
+
+/**
+ * The upload of a model read on a worker thread, along with the textures used
+ * by the materials of its MTL files. The textures of the materials that aren't
+ * in the resource manager should be loaded with
+ * {@link ResourceManager#loadTexturesAsync(Map)} before the task is run, so
+ * the task only creates the materials and meshes and doesn't wait for any
+ * images to be decoded on the OpenGL thread.
+ */
+public final class ModelUploadTask<T> implements IUploadTask<T> {
+
+	private final IUploadTask<T> task;
+	private final Map<String, Map<String, String>> texturePaths;
+
+	/**
+	 * @param texturePaths the textures used by each of the model's materials,
+	 *                     named by their path, by material name.
+	 */
+	public ModelUploadTask(IUploadTask<T> task, Map<String, Map<String, String>> texturePaths) {
+		this.task = task;
+		this.texturePaths = Collections.unmodifiableMap(texturePaths);
+	}
+
+	@Override
+	public T upload() throws IOException {
+		return task.upload();
+	}
+
+	/**
+	 * Returns the textures used by each of the model's materials, named by their
+	 * path, by material name.
+	 */
+	public Map<String, Map<String, String>> getTexturePaths() {
+		return texturePaths;
+	}
+
+	/**
+	 * Returns the textures used by the model's materials that aren't in the
+	 * resource manager yet, named by their path, in the form taken by
+	 * {@link ResourceManager#loadTexturesAsync(Map)}. Materials added by the
+	 * application replace the ones in the MTL files, so their textures aren't
+	 * needed. Must be called on the OpenGL thread.
+	 */
+	public Map<String, String> getMissingTexturePaths(ResourceManager resourceManager) {
+		Map<String, String> missing = new LinkedHashMap<>();
+
+		for (Map.Entry<String, Map<String, String>> entry : texturePaths.entrySet()) {
+			if (resourceManager.getMaterial(entry.getKey()) == null)
+				missing.putAll(entry.getValue());
+		}
+
+		return missing;
+	}
+
+}
@@ -0,0 +1,138 @@
+package au.edu.federation.itech3104.michaelwilson.model.loader;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The records parsed from a line aligned range of an OBJ file. Chunks can be
+ * parsed in parallel, then merged in file order by the {@link OBJLoader}. <br>
+ * <br>
+ * Face indices are converted to 0 based indices when parsing. Positive OBJ
+ * indices are absolute, but negative ones are relative to the end of the data
+ * read so far, which includes earlier chunks. Those are stored relative to the
+ * start of this chunk and listed in {@link #relativeFaces} so the loader can
+ * fix them up once it knows how much data came before this chunk.
+ */
+final class OBJChunk implements Runnable {
+	static final int EVENT_OBJECT = 0; // o
+	static final int EVENT_MATERIAL = 1; // usemtl
+
+	private final ByteBuffer buffer;
+	private final long fileOffset;
+
+	final FloatList positions = new FloatList(); // x, y, z
+	final FloatList textures = new FloatList(); // u, v
+	final FloatList normals = new FloatList(); // x, y, z
+
+	// Triples of position, texture and normal index for each face vertex.
+	final IntList faces = new IntList();
+	// Offsets into faces of indices that are relative to the start of this chunk.
+	final IntList relativeFaces = new IntList();
+
+	// Object and material changes in file order, with the number of face indices
+	// read before each one.
+	final IntList eventTypes = new IntList();
+	final IntList eventFaces = new IntList();
+	final List<String> eventNames = new ArrayList<>();
+
+	// The file names of mtllib statements.
+	final List<String> materialLibraries = new ArrayList<>();
+
+	OBJChunk(ByteBuffer buffer, long fileOffset) {
+		this.buffer = buffer;
+		this.fileOffset = fileOffset;
+	}
+
+	/**
+	 * Returns the offset of the start of this chunk in the file.
+	 */
+	long getFileOffset() {
+		return fileOffset;
+	}
+
+	@Override
+	public void run() {
+		OBJTokenizer tokenizer = new OBJTokenizer();
+		tokenizer.reset(buffer, 0, buffer.limit(), fileOffset);
+
+		while (tokenizer.hasNext()) {
+			tokenizer.readKeyword();
+
+			if (tokenizer.isKeyword("v")) { // vertices
+				positions.add(tokenizer.readFloat(), tokenizer.readFloat(), tokenizer.readFloat());
+
+			} else if (tokenizer.isKeyword("vt")) { // textures
+				textures.add(tokenizer.readFloat(), tokenizer.readFloat());
+
+			} else if (tokenizer.isKeyword("vn")) { // normals
+				normals.add(tokenizer.readFloat(), tokenizer.readFloat(), tokenizer.readFloat());
+
+			} else if (tokenizer.isKeyword("f")) { // faces
+				readFace(tokenizer);
+
+			} else if (tokenizer.isKeyword("mtllib")) { // Material Template Library files
+				for (String filename : tokenizer.readRestOfLine().split("\\s+")) {
+					if (!filename.isEmpty())
+						materialLibraries.add(filename);
+				}
+
+			} else if (tokenizer.isKeyword("usemtl")) { // Use a mtl definition
+				addEvent(EVENT_MATERIAL, tokenizer.readRestOfLine());
+
+			} else if (tokenizer.isKeyword("o")) { // named objects
+				addEvent(EVENT_OBJECT, tokenizer.readRestOfLine());
+			}
+
+			// g and s are not supported yet.
+
+			tokenizer.nextLine();
+		}
+	}
+
+	private void addEvent(int type, String name) {
+		eventTypes.add(type);
+		eventFaces.add(faces.size());
+		eventNames.add(name);
+	}
+
+	// f 8/1/1 7/2/3 6/3/1
+	private void readFace(OBJTokenizer tokenizer) {
+		readFaceVertex(tokenizer);
+		readFaceVertex(tokenizer);
+		readFaceVertex(tokenizer);
+
+		if (!tokenizer.isEndOfLine())
+			throw tokenizer.error("Faces must be made from triangles!");
+	}
+
+	private void readFaceVertex(OBJTokenizer tokenizer) {
+		if (tokenizer.isEndOfLine())
+			throw tokenizer.error("Faces must be made from triangles!");
+
+		addIndex(tokenizer, tokenizer.readInt(), positions.size() / 3);
+
+		if (!tokenizer.skip('/'))
+			throw tokenizer.error("Models must have normals and texture coordinates!");
+		addIndex(tokenizer, tokenizer.readInt(), textures.size() / 2);
+
+		if (!tokenizer.skip('/'))
+			throw tokenizer.error("Models must have normals and texture coordinates!");
+		addIndex(tokenizer, tokenizer.readInt(), normals.size() / 3);
+	}
+
+	// Convert a 1 based OBJ index, or a negative index relative to the end of the
+	// data read so far, to a 0 based index.
+	private void addIndex(OBJTokenizer tokenizer, int index, int count) {
+		if (index == 0)
+			throw tokenizer.error("Index 0 is out of range");
+
+		if (index < 0) {
+			relativeFaces.add(faces.size());
+			faces.add(count + index);
+		} else {
+			faces.add(index - 1);
+		}
+	}
+
+}
@@ -1,251 +1,459 @@
 package au.edu.federation.itech3104.michaelwilson.model.loader;
 
-import java.io.BufferedReader;
 import java.io.FileNotFoundException;
-import java.io.FileReader;
 import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
-
-import au.edu.federation.itech3104.michaelwilson.math.Vec3f;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Function;
+
+import au.edu.federation.itech3104.michaelwilson.IUploadTask;
+import au.edu.federation.itech3104.michaelwilson.ResourceManager;
+import au.edu.federation.itech3104.michaelwilson.graphics.GeometryPool;
+import au.edu.federation.itech3104.michaelwilson.graphics.LodMesh;
+import au.edu.federation.itech3104.michaelwilson.graphics.Mesh;
+import au.edu.federation.itech3104.michaelwilson.graphics.data.BufferUsageHint;
+import au.edu.federation.itech3104.michaelwilson.graphics.material.Material;
+import au.edu.federation.itech3104.michaelwilson.graphics.texture.Texture2D;
 
 // OBJ File format specification referenced from
 // - https://en.wikipedia.org/wiki/Wavefront_.obj_file
 // - https://all3dp.com/1/obj-file-format-3d-printing-cad/#the-obj-file-format-specification-simplified
 
-// TODO: Add support for using MTL files.
 public final class OBJLoader {
 	public static final OBJLoader INSTANCE = new OBJLoader();
 
+	// Each chunk of the file is memory mapped separately, so chunks are at most
+	// this many bytes (plus the rest of the last line).
+	private static final int MAX_CHUNK_SIZE = 1 << 30;
+
+	// When parsing in parallel, files are not split into chunks smaller than this.
+	private static final int MIN_PARALLEL_CHUNK_SIZE = 1 << 22;
+
+	// Floats per vertex of the current mesh: position, normal, texture.
+	private static final int VERTEX_SIZE = RawMesh.FLOATS_PER_VERTEX;
+
+	private boolean isParallelParsingEnabled = true;
+
 	private String currentMaterialName = null;
 	private String currentObjectName = null;
 
-	private final List<Vert> vertices = new ArrayList<>();
-	private final List<UV> textures = new ArrayList<>();
-	private final List<Vec3f> normals = new ArrayList<>();
+	private final FloatList positions = new FloatList(); // x, y, z
+	private final FloatList textures = new FloatList(); // u, v
+	private final FloatList normals = new FloatList(); // x, y, z
+
+	// The unique vertices of the current mesh, and the index of the vertex for
+	// each (position, texture, normal) triple used by its faces.
+	private final FloatList vertices = new FloatList();
+	private final VertexIndexMap vertexMap = new VertexIndexMap();
 
-	private final List<Integer> indices = new ArrayList<>();
+	private final IntList indices = new IntList();
+
+	// The paths of the MTL files used by the OBJ file, relative to the working
+	// directory.
+	private final List<String> materialLibraries = new ArrayList<>();
 
 	public OBJLoader() {
 	}
 
 	/**
 	 * Loads a OBJ file from the file system and returns a {@link RawMesh} object.
-	 * Currently this method only supports a single mesh/object within the OBJ file.
-	 * The OBJ file must use both normals and texture coordinates.
+	 * Each named object in the OBJ file becomes a separate {@link RawMesh}. The OBJ
+	 * file must use both normals and texture coordinates, and faces must be
+	 * triangles. Materials of any MTL files referenced by the OBJ file are loaded
+	 * with {@link MTLLoader}.
+	 *
+	 * @see #setParallelParsingEnabled(boolean)
 	 */
 	public RawModel loadModel(String filepath) throws FileNotFoundException, IOException {
 		List<RawMesh> meshes = new ArrayList<>();
 
-		try (BufferedReader reader = new BufferedReader(new FileReader(filepath))) {
-
-			String line;
-			while ((line = reader.readLine()) != null) {
-
-				String[] tokens = line.split(" ");
-
-				if (line.startsWith("v ")) { // vertices
-					Vec3f position = new Vec3f(Float.parseFloat(tokens[1]), Float.parseFloat(tokens[2]), Float.parseFloat(tokens[3]));
-					vertices.add(new Vert(vertices.size(), position));
-
-				} else if (line.startsWith("vt ")) { // textures
-					UV uv = new UV(Float.parseFloat(tokens[1]), Float.parseFloat(tokens[2]));
-					textures.add(uv);
+		try (RandomAccessFile file = new RandomAccessFile(filepath, "r"); FileChannel channel = file.getChannel()) {
+			List<OBJChunk> chunks = mapChunks(channel);
 
-				} else if (line.startsWith("vn ")) { // normals
-					Vec3f normal = new Vec3f(Float.parseFloat(tokens[1]), Float.parseFloat(tokens[2]), Float.parseFloat(tokens[3]));
-					normals.add(normal);
-
-				} else if (line.startsWith("f ")) { // faces
-					processFace(tokens);
-
-				} else if (line.startsWith("mtllib ")) { // Material Template Library file
-					// Not supported yet.
-
-				} else if (line.startsWith("usemtl ")) { // Use a mtl definition
-					// usemtl doesn't work like expected for OBJ files.
-					// Currently the usemtl command will only work for each object and not
-					// individual f face commands.
-					String name = line.substring(7).trim();
-					currentMaterialName = name;
+			// Parse all chunks on the common pool, if there is more than one.
+			List<ForkJoinTask<?>> tasks = null;
+			if (isParallelParsingEnabled && chunks.size() > 1) {
+				tasks = new ArrayList<>();
+				for (OBJChunk chunk : chunks)
+					tasks.add(ForkJoinPool.commonPool().submit(chunk));
+			}
 
-				} else if (line.startsWith("o ")) { // named objects
-					String name = line.substring(2).trim();
+			// Merge the chunks in file order, while any later chunks are still being parsed.
+			for (int i = 0; i < chunks.size(); i++) {
+				OBJChunk chunk = chunks.get(i);
 
-					if (currentObjectName != null) // Switching object names, build the current mesh.
-						meshes.add(buildMesh());
+				if (tasks != null)
+					tasks.get(i).join();
+				else
+					chunk.run();
 
-					currentObjectName = name;
+				mergeChunk(chunk, meshes);
+				chunks.set(i, null); // Let the chunk and its mapping be collected.
 
-				} else if (line.startsWith("g ")) { // polygon groups
-					// Not supported yet.
-				} else if (line.startsWith("s ")) { // smooth groups
-					// Not supported yet.
-				}
+				for (String filename : chunk.materialLibraries)
+					materialLibraries.add(Paths.get(filepath).resolveSibling(filename).normalize().toString());
 			}
 		}
 
 		meshes.add(buildMesh());
 
+		List<String> libraries = new ArrayList<>(materialLibraries);
+		Map<String, MaterialDescriptor> materials = loadMaterialLibraries(libraries);
+
 		System.out.println("##### OBJ Load Summary #####");
 		for (RawMesh m : meshes) {
 			System.out.println("- Submesh: " + m.getName());
 			System.out.println("  - material: " + m.getMaterialName());
-			System.out.println("  - vertices: " + m.getVertices().size());
-			System.out.println("  - indices:  " + m.getIndices().size() + "\n");
+			System.out.println("  - vertices: " + m.getVertexCount());
+			System.out.println("  - indices:  " + m.getIndexCount() + "\n");
 		}
 
-		vertices.clear();
+		positions.clear();
 		textures.clear();
 		normals.clear();
+		vertices.clear();
+		vertexMap.clear();
 		indices.clear();
+		materialLibraries.clear();
 
 		currentMaterialName = null;
 		currentObjectName = null;
 
-		return new RawModel(meshes);
+		return new RawModel(meshes, libraries, materials);
 	}
 
-	private RawMesh buildMesh() {
-		RawMesh model = new RawMesh(currentObjectName, currentMaterialName);
+	/**
+	 * Load the materials of the given MTL files. Files that don't exist are
+	 * skipped.
+	 *
+	 * @return the materials, by name.
+	 */
+	static Map<String, MaterialDescriptor> loadMaterialLibraries(List<String> filepaths) throws IOException {
+		Map<String, MaterialDescriptor> materials = new LinkedHashMap<>();
 
-		// Build our Vertex objects based on the Vert objects.
-		for (Vert vertex : vertices) {
-			Vec3f position = vertex.getPosition();
-			Vec3f normal = normals.get(vertex.getNormalIndex());
-			UV texture = textures.get(vertex.getTextureIndex());
+		for (String filepath : filepaths) {
+			if (!Files.isRegularFile(Paths.get(filepath))) {
+				System.out.println("Failed to find material library '" + filepath + "' Skipping...");
+				continue;
+			}
 
-			model.getVertices().add(new Vertex(position, normal, texture));
+			materials.putAll(MTLLoader.load(filepath));
 		}
 
-		for (Integer index : indices)
-			model.getIndices().add(index);
-
-		// clear indices for next sub-mesh.
-		indices.clear();
-
-		return model;
+		return materials;
 	}
 
-	// f 8/1/1 7/2/3 6/3/1
-	private void processFace(String[] tokens) {
-		if (tokens.length > 4)
-			throw new RuntimeException("Failed to load OBJ file! Faces must be made from triangles!");
+	/**
+	 * Returns a new {@link Mesh} for each object in the OBJ file, using the
+	 * {@link MeshCache binary mesh cache} next to the file if it is up to date.
+	 * Otherwise the OBJ file is loaded with {@link #loadModel(String)} and the
+	 * cache is written for next time. Materials are found the same way as
+	 * {@link RawModel#toMeshes(ResourceManager, Material, BufferUsageHint)}.
+	 * Caller is responsible for disposing the returned meshes.
+	 */
+	public List<Mesh> loadMeshes(String filepath, ResourceManager resourceManager, Material defaultMaterial, BufferUsageHint usageHint)
+			throws FileNotFoundException, IOException {
+		return prepareMeshes(filepath, resourceManager, defaultMaterial, usageHint).upload();
+	}
 
-		String[] vertex1 = tokens[1].trim().split("/");
-		String[] vertex2 = tokens[2].trim().split("/");
-		String[] vertex3 = tokens[3].trim().split("/");
+	/**
+	 * Same as
+	 * {@link #loadMeshes(String, ResourceManager, Material, BufferUsageHint)}, but
+	 * the materials created from the MTL files aren't added to the
+	 * {@link ResourceManager}, and their textures are got by path from the given
+	 * function instead of being loaded into it. Used when the caller keeps track
+	 * of the textures, so they can be freed with the meshes.
+	 */
+	public List<Mesh> loadMeshes(String filepath, ResourceManager resourceManager, Material defaultMaterial, BufferUsageHint usageHint,
+			Function<String, Texture2D> textures) throws FileNotFoundException, IOException {
+		MeshCache cache = MeshCache.load(filepath);
+		if (cache != null)
+			return cache.toMeshes(resourceManager, defaultMaterial, usageHint, textures);
 
-		if (vertex1.length != 3)
-			throw new RuntimeException("Failed to load OBJ file! Models must have normals and texture coordinates!");
+		return loadAndCacheModel(filepath).toMeshes(resourceManager, defaultMaterial, usageHint, textures);
+	}
 
-		if (vertex1.length != vertex2.length || vertex2.length != vertex3.length)
-			throw new RuntimeException("Failed to load OBJ file! All face defintions must be consistent!");
+	/**
+	 * Does the same file loading as
+	 * {@link #loadMeshes(String, ResourceManager, Material, BufferUsageHint)}, but
+	 * returns a task that creates the meshes, so the loading can be done on a
+	 * worker thread and the meshes created later on the OpenGL thread. The MTL
+	 * files are read here too, and the task lists the textures they use so they
+	 * can be loaded before it runs.
+	 */
+	public ModelUploadTask<List<Mesh>> prepareMeshes(String filepath, ResourceManager resourceManager, Material defaultMaterial,
+			BufferUsageHint usageHint) throws FileNotFoundException, IOException {
+		return prepareMeshes(filepath, resourceManager, defaultMaterial, usageHint, null);
+	}
 
-		processVertex(vertex1);
-		processVertex(vertex2);
-		processVertex(vertex3);
+	/**
+	 * Same as
+	 * {@link #prepareMeshes(String, ResourceManager, Material, BufferUsageHint)},
+	 * but the task stores the meshes in the given {@link GeometryPool} instead of
+	 * giving them their own buffers.
+	 */
+	public ModelUploadTask<List<Mesh>> prepareMeshes(String filepath, ResourceManager resourceManager, Material defaultMaterial,
+			GeometryPool pool) throws FileNotFoundException, IOException {
+		return prepareMeshes(filepath, resourceManager, defaultMaterial, null, pool);
 	}
 
-	private void processVertex(String[] vertexData) {
-		int index = Integer.parseInt(vertexData[0].trim()) - 1;
-		int textureIndex = Integer.parseInt(vertexData[1].trim()) - 1;
-		int normalIndex = Integer.parseInt(vertexData[2].trim()) - 1;
+	private ModelUploadTask<List<Mesh>> prepareMeshes(String filepath, ResourceManager resourceManager, Material defaultMaterial,
+			BufferUsageHint usageHint, GeometryPool pool) throws FileNotFoundException, IOException {
+		MeshCache cache = MeshCache.load(filepath);
+		if (cache != null) {
+			return new ModelUploadTask<>(() -> pool == null ? cache.toMeshes(resourceManager, defaultMaterial, usageHint)
+					: cache.toMeshes(resourceManager, defaultMaterial, pool), cache.getTexturePaths());
+		}
+
+		RawModel model = loadAndCacheModel(filepath);
 
-		Vert vertex = vertices.get(index);
+		return new ModelUploadTask<>(() -> pool == null ? model.toMeshes(resourceManager, defaultMaterial, usageHint)
+				: model.toMeshes(resourceManager, defaultMaterial, pool), model.getTexturePaths());
+	}
 
-		if (!vertex.isSet()) {
-			vertex.set(normalIndex, textureIndex);
-			indices.add(index);
+	// Load the OBJ file and write its mesh cache for next time.
+	private RawModel loadAndCacheModel(String filepath) throws FileNotFoundException, IOException {
+		RawModel model = loadModel(filepath);
 
-		} else { // the vertex is already set, reuse the same vertex position, normals and textures might be different.
-			processSetVertex(vertex, normalIndex, textureIndex);
+		try {
+			MeshCache.write(filepath, model);
+		} catch (IOException e) {
+			System.out.println("Failed to write mesh cache for '" + filepath + "': " + e.getMessage());
 		}
 
+		return model;
 	}
 
-	private void processSetVertex(Vert vertex, int normalIndex, int textureIndex) {
+	/**
+	 * Does the same as
+	 * {@link #prepareMeshes(String, ResourceManager, Material, BufferUsageHint)},
+	 * but also simplifies each mesh to the given ratios of its triangles with the
+	 * {@link MeshSimplifier}, and the task creates a {@link LodMesh} for each
+	 * object with the full resolution mesh followed by the simplified ones.
+	 * Simplifying is slow, so each level is written to its own
+	 * {@link MeshCache#getLodCachePath(Path, float) cache file} and only
+	 * simplified again when the OBJ file changes. The simplified meshes keep their
+	 * materials, so the task lists the textures of the full resolution level.
+	 *
+	 * @param ratios      the triangle ratio of each simplified level, such as
+	 *                    {@link MeshSimplifier#DEFAULT_RATIOS}.
+	 * @param screenSizes the screen size of each simplified level, see
+	 *                    {@link LodMesh#LodMesh(List, float[])}.
+	 */
+	public ModelUploadTask<List<LodMesh>> prepareLodMeshes(String filepath, ResourceManager resourceManager, Material defaultMaterial,
+			BufferUsageHint usageHint, float[] ratios, float[] screenSizes) throws FileNotFoundException, IOException {
+		if (ratios.length != screenSizes.length)
+			throw new IllegalArgumentException("Each level needs a ratio and a screen size");
+
+		ModelUploadTask<List<Mesh>> fullLevel = prepareMeshes(filepath, resourceManager, defaultMaterial, usageHint);
+
+		List<IUploadTask<List<Mesh>>> levels = new ArrayList<>();
+		levels.add(fullLevel);
 
-		// Face reusing the same vertex.
-		if (vertex.getNormalIndex() == normalIndex && vertex.getTextureIndex() == textureIndex) {
-			indices.add(vertex.getIndex());
+		RawModel model = null; // Loaded when the first level needs simplifying.
 
-		} else { // Face reusing the same vertex, but has a different normal and/or texture.
+		for (float ratio : ratios) {
+			Path cachePath = MeshCache.getLodCachePath(Paths.get(filepath), ratio);
 
-			// If a vertex has already been duplicated for this position, recursively check
-			// it.
-			// Otherwise create a new duplicate vertex of this position with the new normal
-			// and texture values.
-			Vert duplicateVertex = vertex.getDuplicateVertex();
-			if (duplicateVertex != null) {
-				processSetVertex(duplicateVertex, normalIndex, textureIndex);
+			MeshCache cache = MeshCache.load(filepath, cachePath);
+			if (cache != null) {
+				levels.add(() -> cache.toMeshes(resourceManager, defaultMaterial, usageHint));
+				continue;
+			}
 
-			} else {
-				Vert newDuplicateVertex = new Vert(vertices.size(), vertex.getPosition());
-				newDuplicateVertex.set(normalIndex, textureIndex);
+			if (model == null) {
+				MeshCache fullCache = MeshCache.load(filepath); // Written by prepareMeshes().
+				model = fullCache != null ? fullCache.toRawModel() : loadModel(filepath);
+			}
 
-				vertex.setDuplicateVertex(newDuplicateVertex);
+			List<RawMesh> simplified = new ArrayList<>();
+			for (int i = 0; i < model.getMeshCount(); i++)
+				simplified.add(MeshSimplifier.simplify(model.getRawMesh(i), ratio));
 
-				vertices.add(newDuplicateVertex);
-				indices.add(newDuplicateVertex.getIndex());
+			RawModel level = new RawModel(simplified, model.getMaterialLibraries(), model.getMaterials());
 
+			try {
+				MeshCache.write(filepath, cachePath, level);
+			} catch (IOException e) {
+				System.out.println("Failed to write level of detail cache for '" + filepath + "': " + e.getMessage());
 			}
 
+			levels.add(() -> level.toMeshes(resourceManager, defaultMaterial, usageHint));
 		}
 
-	}
+		float[] sizes = screenSizes.clone();
 
-	private static final class Vert {
-		private final int index; // the index in the vertices list.
+		return new ModelUploadTask<>(() -> {
+			List<List<Mesh>> levelMeshes = new ArrayList<>();
+			for (IUploadTask<List<Mesh>> level : levels)
+				levelMeshes.add(level.upload());
 
-		private final Vec3f position;
+			List<LodMesh> lodMeshes = new ArrayList<>();
+			for (int i = 0; i < levelMeshes.get(0).size(); i++) {
+				List<Mesh> meshLevels = new ArrayList<>();
+				for (List<Mesh> meshes : levelMeshes)
+					meshLevels.add(meshes.get(i));
 
-		private int normalIndex;
-		private int textureIndex; // uv
+				lodMeshes.add(new LodMesh(meshLevels, sizes));
+			}
 
-		private boolean isSet; // true if this vert has been used in a face already.
+			return lodMeshes;
+		}, fullLevel.getTexturePaths());
+	}
 
-		private Vert duplicateVertex; // a vertex that is based on this one and has the same position.
+	/**
+	 * Enable or disable splitting large OBJ files into chunks that are parsed in
+	 * parallel on the common {@link ForkJoinPool}. Files smaller than a few
+	 * megabytes are always parsed on the calling thread. Enabled by default.
+	 */
+	public void setParallelParsingEnabled(boolean isParallelParsingEnabled) {
+		this.isParallelParsingEnabled = isParallelParsingEnabled;
+	}
 
-		public Vert(int index, Vec3f position) {
-			this.index = index;
-			this.position = position;
-		}
+	public boolean isParallelParsingEnabled() {
+		return isParallelParsingEnabled;
+	}
 
-		public void set(int normalIndex, int textureIndex) {
-			this.normalIndex = normalIndex;
-			this.textureIndex = textureIndex;
-			isSet = true;
-		}
+	// Split the file into line aligned chunks and map each of them.
+	private List<OBJChunk> mapChunks(FileChannel channel) throws IOException {
+		long size = channel.size();
 
-		public boolean isSet() {
-			return isSet;
+		long chunkSize = MAX_CHUNK_SIZE;
+		if (isParallelParsingEnabled) {
+			int threads = ForkJoinPool.getCommonPoolParallelism();
+			chunkSize = Math.min(MAX_CHUNK_SIZE, Math.max(MIN_PARALLEL_CHUNK_SIZE, size / threads + 1));
 		}
 
-		public int getIndex() {
-			return index;
+		List<OBJChunk> chunks = new ArrayList<>();
+		ByteBuffer scanBuffer = ByteBuffer.allocate(4096);
+
+		for (long start = 0; start < size;) {
+			long end = Math.min(start + chunkSize, size);
+			if (end < size)
+				end = findLineEnd(channel, end, scanBuffer);
+
+			if (end - start > Integer.MAX_VALUE)
+				throw new IOException("Failed to load OBJ file! Line is too long.");
+
+			chunks.add(new OBJChunk(channel.map(FileChannel.MapMode.READ_ONLY, start, end - start), start));
+			start = end;
 		}
 
-		public int getNormalIndex() {
-			return normalIndex;
+		return chunks;
+	}
+
+	// Returns the position after the first line end at or after the given position,
+	// or the size of the file if there isn't one.
+	private static long findLineEnd(FileChannel channel, long position, ByteBuffer scanBuffer) throws IOException {
+		while (true) {
+			scanBuffer.clear();
+
+			int read = channel.read(scanBuffer, position);
+			if (read <= 0)
+				return channel.size();
+
+			for (int i = 0; i < read; i++) {
+				if (scanBuffer.get(i) == '\n')
+					return position + i + 1;
+			}
+
+			position += read;
 		}
+	}
 
-		public int getTextureIndex() {
-			return textureIndex;
+	// Add the data of a parsed chunk, then process its faces and object/material
+	// changes in order.
+	private void mergeChunk(OBJChunk chunk, List<RawMesh> meshes) {
+		int[] bases = { positions.size() / 3, textures.size() / 2, normals.size() / 3 };
+
+		positions.addAll(chunk.positions);
+		textures.addAll(chunk.textures);
+		normals.addAll(chunk.normals);
+
+		// Fix up the negative OBJ indices, which are relative to the end of the data
+		// before them.
+		IntList faces = chunk.faces;
+		for (int i = 0; i < chunk.relativeFaces.size(); i++) {
+			int face = chunk.relativeFaces.get(i);
+			faces.set(face, faces.get(face) + bases[face % 3]);
 		}
 
-		public void setDuplicateVertex(Vert duplicateVertex) {
-			this.duplicateVertex = duplicateVertex;
+		int event = 0;
+		for (int i = 0; i < faces.size(); i += 3) {
+			for (; event < chunk.eventTypes.size() && chunk.eventFaces.get(event) == i; event++)
+				processEvent(chunk.eventTypes.get(event), chunk.eventNames.get(event), meshes);
+
+			processVertex(faces.get(i), faces.get(i + 1), faces.get(i + 2));
 		}
 
-		public Vert getDuplicateVertex() {
-			return duplicateVertex;
+		for (; event < chunk.eventTypes.size(); event++)
+			processEvent(chunk.eventTypes.get(event), chunk.eventNames.get(event), meshes);
+	}
+
+	private void processEvent(int type, String name, List<RawMesh> meshes) {
+		if (type == OBJChunk.EVENT_MATERIAL) { // usemtl
+			// usemtl doesn't work like expected for OBJ files.
+			// Currently the usemtl command will only work for each object and not
+			// individual f face commands.
+			currentMaterialName = name;
+
+		} else if (type == OBJChunk.EVENT_OBJECT) { // o
+			if (currentObjectName != null) // Switching object names, build the current mesh.
+				meshes.add(buildMesh());
+
+			currentObjectName = name;
 		}
+	}
+
+	private RawMesh buildMesh() {
+		RawMesh model = new RawMesh(currentObjectName, currentMaterialName, vertices.toArray(), indices.toArray());
 
-		public Vec3f getPosition() {
-			return position;
+		// clear vertices and indices for next sub-mesh.
+		vertices.clear();
+		vertexMap.clear();
+		indices.clear();
+
+		return model;
+	}
+
+	// Add the index of the vertex with the given attributes to the current mesh,
+	// adding the vertex if no earlier face has used the same attributes.
+	private void processVertex(int position, int textureIndex, int normalIndex) {
+		checkIndex("Position", position, positions.size() / 3);
+		checkIndex("Texture", textureIndex, textures.size() / 2);
+		checkIndex("Normal", normalIndex, normals.size() / 3);
+
+		int vertexCount = vertices.size() / VERTEX_SIZE;
+		int vertex = vertexMap.putIfAbsent(position, textureIndex, normalIndex, vertexCount);
+
+		if (vertex == -1) { // First use of these attributes in this mesh.
+			vertex = vertexCount;
+
+			position *= 3;
+			normalIndex *= 3;
+			textureIndex *= 2;
+
+			vertices.add(positions.get(position), positions.get(position + 1), positions.get(position + 2));
+			vertices.add(normals.get(normalIndex), normals.get(normalIndex + 1), normals.get(normalIndex + 2));
+			vertices.add(textures.get(textureIndex), textures.get(textureIndex + 1));
 		}
 
+		indices.add(vertex);
+	}
+
+	private static void checkIndex(String type, int index, int count) {
+		if (index < 0 || index >= count)
+			throw new RuntimeException("Failed to load OBJ file! " + type + " index " + (index + 1) + " is out of range.");
 	}
 
 }
@@ -0,0 +1,273 @@
+package au.edu.federation.itech3104.michaelwilson.model.loader;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads the tokens of an OBJ (or MTL) file directly from the bytes of a
+ * {@link ByteBuffer}, without creating a String per line or token. Numbers are
+ * parsed by hand, falling back to {@link Float#parseFloat(String)} only for
+ * values that can't be parsed exactly with a double.
+ */
+final class OBJTokenizer {
+	// Powers of ten that are exactly representable as a double.
+	private static final double[] POW10 = new double[23];
+	static {
+		POW10[0] = 1.0;
+		for (int i = 1; i < POW10.length; i++)
+			POW10[i] = POW10[i - 1] * 10.0;
+	}
+
+	// Mantissas above this can't be represented exactly by a double.
+	private static final long MAX_EXACT_MANTISSA = 1L << 53;
+
+	private final String fileType; // For error messages.
+
+	private ByteBuffer buffer;
+	private int position;
+	private int limit;
+
+	private int keywordStart;
+	private int keywordEnd;
+
+	private int lineNumber;
+	private long fileOffset;
+
+	OBJTokenizer() {
+		this("OBJ");
+	}
+
+	/**
+	 * @param fileType the type of file being read, used in error messages.
+	 */
+	OBJTokenizer(String fileType) {
+		this.fileType = fileType;
+	}
+
+	/**
+	 * Start reading the bytes of the buffer from start (inclusive) to end
+	 * (exclusive). The buffer's own position and limit are not used.
+	 *
+	 * @param fileOffset the offset of the buffer in the file, used in error
+	 *                   messages.
+	 */
+	void reset(ByteBuffer buffer, int start, int end, long fileOffset) {
+		this.buffer = buffer;
+		this.fileOffset = fileOffset;
+		position = start;
+		limit = end;
+		lineNumber = 1;
+	}
+
+	boolean hasNext() {
+		return position < limit;
+	}
+
+	/**
+	 * Returns the number of the line being read, starting at 1 for the start of
+	 * the range passed to {@link #reset(ByteBuffer, int, int, long)}.
+	 */
+	int getLineNumber() {
+		return lineNumber;
+	}
+
+	/**
+	 * Read the first token of the line, which can then be compared with
+	 * {@link #isKeyword(String)}. Empty lines and comments have an empty keyword.
+	 */
+	void readKeyword() {
+		skipSpaces();
+
+		keywordStart = position;
+		while (position < limit && !isSpace(buffer.get(position)) && !isLineEnd(buffer.get(position)))
+			position++;
+		keywordEnd = position;
+	}
+
+	boolean isKeyword(String keyword) {
+		int length = keywordEnd - keywordStart;
+		if (length != keyword.length())
+			return false;
+
+		for (int i = 0; i < length; i++) {
+			if (buffer.get(keywordStart + i) != keyword.charAt(i))
+				return false;
+		}
+
+		return true;
+	}
+
+	/**
+	 * Skip to the start of the next line.
+	 */
+	void nextLine() {
+		while (position < limit && buffer.get(position) != '\n')
+			position++;
+
+		if (position < limit) {
+			position++;
+			lineNumber++;
+		}
+	}
+
+	/**
+	 * Returns true if there are no more tokens on the current line. Comments count
+	 * as the end of the line.
+	 */
+	boolean isEndOfLine() {
+		skipSpaces();
+		return position >= limit || isLineEnd(buffer.get(position)) || buffer.get(position) == '#';
+	}
+
+	/**
+	 * Consume the given character if it is next, returning true if it was.
+	 */
+	boolean skip(char c) {
+		if (position < limit && buffer.get(position) == c) {
+			position++;
+			return true;
+		}
+
+		return false;
+	}
+
+	/**
+	 * Returns the rest of the line with leading and trailing whitespace removed.
+	 */
+	String readRestOfLine() {
+		skipSpaces();
+
+		int start = position;
+		int end = start;
+		while (position < limit && buffer.get(position) != '\n' && buffer.get(position) != '\r') {
+			if (!isSpace(buffer.get(position)))
+				end = position + 1;
+			position++;
+		}
+
+		return toString(start, end);
+	}
+
+	/**
+	 * Read a signed integer, skipping any leading spaces.
+	 */
+	int readInt() {
+		skipSpaces();
+
+		boolean isNegative = false;
+		if (skip('-'))
+			isNegative = true;
+		else
+			skip('+');
+
+		int start = position;
+		long value = 0;
+		while (position < limit && isDigit(buffer.get(position))) {
+			value = value * 10 + (buffer.get(position) - '0');
+			if (value > Integer.MAX_VALUE)
+				throw error("Integer is too large");
+			position++;
+		}
+
+		if (position == start)
+			throw error("Expected an integer");
+
+		return (int) (isNegative ? -value : value);
+	}
+
+	/**
+	 * Read a floating point number, skipping any leading spaces.
+	 */
+	float readFloat() {
+		skipSpaces();
+
+		int start = position;
+
+		boolean isNegative = false;
+		if (skip('-'))
+			isNegative = true;
+		else
+			skip('+');
+
+		long mantissa = 0;
+		int exponent = 0;
+		boolean hasDigits = false;
+		boolean isExact = true;
+
+		while (position < limit && isDigit(buffer.get(position))) {
+			if (mantissa < MAX_EXACT_MANTISSA)
+				mantissa = mantissa * 10 + (buffer.get(position) - '0');
+			else
+				isExact = false;
+			hasDigits = true;
+			position++;
+		}
+
+		if (skip('.')) {
+			while (position < limit && isDigit(buffer.get(position))) {
+				if (mantissa < MAX_EXACT_MANTISSA) {
+					mantissa = mantissa * 10 + (buffer.get(position) - '0');
+					exponent--;
+				} else {
+					isExact = false;
+				}
+				hasDigits = true;
+				position++;
+			}
+		}
+
+		if (!hasDigits)
+			throw error("Expected a number");
+
+		if (position < limit && (buffer.get(position) == 'e' || buffer.get(position) == 'E')) {
+			position++;
+			exponent += readInt();
+		}
+
+		if (mantissa > MAX_EXACT_MANTISSA || exponent < -(POW10.length - 1) || exponent > POW10.length - 1)
+			isExact = false;
+
+		if (!isExact) // Too many digits or too large an exponent for the fast path.
+			return Float.parseFloat(toString(start, position));
+
+		double value = exponent < 0 ? mantissa / POW10[-exponent] : mantissa * POW10[exponent];
+		return (float) (isNegative ? -value : value);
+	}
+
+	/**
+	 * Returns a RuntimeException describing a problem on the current line.
+	 */
+	RuntimeException error(String message) {
+		if (fileOffset == 0)
+			return new RuntimeException("Failed to load " + fileType + " file! " + message + " (line " + lineNumber + ")");
+
+		// Lines are counted from the start of the buffer, not the file.
+		return new RuntimeException("Failed to load " + fileType + " file! " + message + " (line " + lineNumber + " after byte " + fileOffset + ")");
+	}
+
+	private void skipSpaces() {
+		while (position < limit && isSpace(buffer.get(position)))
+			position++;
+	}
+
+	private String toString(int start, int end) {
+		byte[] bytes = new byte[end - start];
+		for (int i = 0; i < bytes.length; i++)
+			bytes[i] = buffer.get(start + i);
+
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private static boolean isSpace(byte c) {
+		return c == ' ' || c == '\t';
+	}
+
+	private static boolean isLineEnd(byte c) {
+		return c == '\n' || c == '\r';
+	}
+
+	private static boolean isDigit(byte c) {
+		return c >= '0' && c <= '9';
+	}
+
+}
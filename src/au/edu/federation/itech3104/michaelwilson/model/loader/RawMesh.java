@@ -1,23 +1,44 @@
 package au.edu.federation.itech3104.michaelwilson.model.loader;
 
-import java.util.ArrayList;
-import java.util.List;
-
+import au.edu.federation.itech3104.michaelwilson.graphics.GeometryPool;
 import au.edu.federation.itech3104.michaelwilson.graphics.Mesh;
 import au.edu.federation.itech3104.michaelwilson.graphics.data.BufferUsageHint;
 import au.edu.federation.itech3104.michaelwilson.graphics.data.VertexBufferLayout;
 import au.edu.federation.itech3104.michaelwilson.graphics.material.Material;
-
+import au.edu.federation.itech3104.michaelwilson.math.BoundingBox;
+import au.edu.federation.itech3104.michaelwilson.math.Vec3f;
+
+/**
+ * Mesh data loaded from a model file. Vertices are stored interleaved in a
+ * single float array using the {@link VertexBufferLayout#Float3_3_2 Float3_3_2}
+ * layout, groups of ([position: x, y, z], [normal: x, y, z], [texture: u, v]),
+ * so no objects are created per vertex.
+ */
 public final class RawMesh {
-	private final List<Vertex> vertices = new ArrayList<>();
-	private final List<Integer> indices = new ArrayList<>();
+	public static final int FLOATS_PER_VERTEX = 8; // vec3, vec3, vec2
+
+	private static final int NORMAL_OFFSET = 3;
+	private static final int TEXTURE_OFFSET = 6;
+
+	private final float[] vertices;
+	private final int[] indices;
 
 	private final String materialName;
 	private final String name;
 
-	protected RawMesh(String name, String materialName) {
+	/**
+	 * Create a mesh using the given arrays, which are not copied.
+	 *
+	 * @param vertices interleaved vertex data, see {@link #getVerticesArray()}.
+	 */
+	public RawMesh(String name, String materialName, float[] vertices, int[] indices) {
+		if (vertices.length % FLOATS_PER_VERTEX != 0)
+			throw new IllegalArgumentException("Vertex data must be made from groups of " + FLOATS_PER_VERTEX + " floats.");
+
 		this.name = name;
 		this.materialName = materialName;
+		this.vertices = vertices;
+		this.indices = indices;
 	}
 
 	/**
@@ -25,56 +46,86 @@ public final class RawMesh {
 	 * Caller is responsible for disposing returned {@link Mesh}.
 	 */
 	public Mesh toMesh(Material material, BufferUsageHint usageHint) {
-		return new Mesh(getVerticesArray(), getIndicesArray(), usageHint, VertexBufferLayout.Float3_3_2, material);
+		return new Mesh(vertices, indices, usageHint, VertexBufferLayout.Float3_3_2, material);
 	}
 
 	/**
-	 * Returns a new integer array of mesh indices.
+	 * Returns a new {@link Mesh} stored in the given {@link GeometryPool}, sharing
+	 * its buffers with the other meshes of the pool. Disposing the mesh returns its
+	 * space to the pool.
 	 */
-	public int[] getIndicesArray() {
-		int[] arr = new int[indices.size()];
-
-		for (int i = 0; i < arr.length; i++)
-			arr[i] = indices.get(i);
+	public Mesh toMesh(Material material, GeometryPool pool) {
+		return pool.allocate(vertices, indices, VertexBufferLayout.Float3_3_2, material);
+	}
 
-		return arr;
+	/**
+	 * Returns the mesh indices. The array is not a copy, so it should not be
+	 * modified.
+	 */
+	public int[] getIndicesArray() {
+		return indices;
 	}
 
 	/**
-	 * Returns a new array of mesh vertices that contains float groups of
-	 * ([position: x, y, z], [normal: x, y, z], [texture: u, v])
+	 * Returns the mesh vertices that contains float groups of ([position: x, y,
+	 * z], [normal: x, y, z], [texture: u, v]). The array is not a copy, so it
+	 * should not be modified.
 	 */
 	public float[] getVerticesArray() {
+		return vertices;
+	}
 
-		float[] arr = new float[vertices.size() * 8]; // vec3, vec3, vec2
-
-		for (int i = 0; i < vertices.size(); i++) {
-			Vertex vertex = vertices.get(i);
-
-			arr[i * 8 + 0] = vertex.position.x;
-			arr[i * 8 + 1] = vertex.position.y;
-			arr[i * 8 + 2] = vertex.position.z;
-
-			arr[i * 8 + 3] = vertex.normal.x;
-			arr[i * 8 + 4] = vertex.normal.y;
-			arr[i * 8 + 5] = vertex.normal.z;
-
-			arr[i * 8 + 6] = vertex.uv.x;
-			arr[i * 8 + 7] = vertex.uv.y;
+	public int getVertexCount() {
+		return vertices.length / FLOATS_PER_VERTEX;
+	}
 
-		}
+	public int getIndexCount() {
+		return indices.length;
+	}
 
-		return arr;
+	/**
+	 * Store the position of a vertex in dest.
+	 *
+	 * @return The dest Vec3f.
+	 */
+	public Vec3f getPosition(int vertex, Vec3f dest) {
+		int i = vertex * FLOATS_PER_VERTEX;
+		dest.set(vertices[i], vertices[i + 1], vertices[i + 2]);
+		return dest;
+	}
 
+	/**
+	 * Store the normal of a vertex in dest.
+	 *
+	 * @return The dest Vec3f.
+	 */
+	public Vec3f getNormal(int vertex, Vec3f dest) {
+		int i = vertex * FLOATS_PER_VERTEX + NORMAL_OFFSET;
+		dest.set(vertices[i], vertices[i + 1], vertices[i + 2]);
+		return dest;
 	}
 
+	/**
+	 * Returns a new {@link UV} holding the texture coordinates of a vertex.
+	 */
+	public UV getUV(int vertex) {
+		int i = vertex * FLOATS_PER_VERTEX + TEXTURE_OFFSET;
+		return new UV(vertices[i], vertices[i + 1]);
+	}
 
-	public List<Vertex> getVertices() {
-		return vertices;
+	/**
+	 * Returns a new {@link Vertex} object holding a copy of a vertex. Prefer the
+	 * other getters or {@link #getVerticesArray()} when reading many vertices.
+	 */
+	public Vertex getVertex(int vertex) {
+		return new Vertex(getPosition(vertex, new Vec3f()), getNormal(vertex, new Vec3f()), getUV(vertex));
 	}
 
-	public List<Integer> getIndices() {
-		return indices;
+	/**
+	 * Returns a new bounding box containing all vertex positions.
+	 */
+	public BoundingBox getBounds() {
+		return BoundingBox.fromVertices(vertices, FLOATS_PER_VERTEX);
 	}
 
 	public String getMaterialName() {
@@ -85,4 +136,4 @@ public final class RawMesh {
 		return name;
 	}
 
-}
\ No newline at end of file
+}
@@ -1,41 +1,91 @@
 package au.edu.federation.itech3104.michaelwilson.model.loader;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
 
 import au.edu.federation.itech3104.michaelwilson.ResourceManager;
+import au.edu.federation.itech3104.michaelwilson.graphics.GeometryPool;
 import au.edu.federation.itech3104.michaelwilson.graphics.Mesh;
 import au.edu.federation.itech3104.michaelwilson.graphics.data.BufferUsageHint;
 import au.edu.federation.itech3104.michaelwilson.graphics.material.Material;
+import au.edu.federation.itech3104.michaelwilson.graphics.material.StandardMaterial;
+import au.edu.federation.itech3104.michaelwilson.graphics.texture.Texture2D;
 
 public final class RawModel {
 
 	private final Map<String, RawMesh> meshes = new HashMap<>();
 	private final Map<Integer, String> indexLookup = new HashMap<>();
 
+	private final List<String> materialLibraries;
+	private final Map<String, MaterialDescriptor> materials;
+
 	public RawModel(List<RawMesh> meshes) {
+		this(meshes, Collections.emptyList(), Collections.emptyMap());
+	}
+
+	/**
+	 * @param materialLibraries the paths of the MTL files used by the model.
+	 * @param materials         the materials loaded from the MTL files, by name.
+	 */
+	public RawModel(List<RawMesh> meshes, List<String> materialLibraries, Map<String, MaterialDescriptor> materials) {
 		int i = 0;
 		for (RawMesh rawMesh : meshes) {
 			this.meshes.put(rawMesh.getName(), rawMesh);
 			indexLookup.put(i++, rawMesh.getName());
 		}
+
+		this.materialLibraries = Collections.unmodifiableList(new ArrayList<>(materialLibraries));
+		this.materials = Collections.unmodifiableMap(new LinkedHashMap<>(materials));
 	}
 
-	public List<Mesh> toMeshes(ResourceManager resourceManager, Material defaultMaterial, BufferUsageHint usageHint) {
+	/**
+	 * Returns a new {@link Mesh} for each mesh of the model. Each mesh uses the
+	 * material with its material name from the {@link ResourceManager}. If there
+	 * isn't one, but the model's MTL files define the material, a copy of the
+	 * default material is set up from the definition and added to the
+	 * {@link ResourceManager}, see
+	 * {@link #resolveMaterials(ResourceManager, Collection, Map, Material)}.
+	 * Otherwise the default material is used.
+	 */
+	public List<Mesh> toMeshes(ResourceManager resourceManager, Material defaultMaterial, BufferUsageHint usageHint) throws IOException {
+		return toMeshes(resourceManager, defaultMaterial, usageHint, (GeometryPool) null);
+	}
+
+	/**
+	 * Same as {@link #toMeshes(ResourceManager, Material, BufferUsageHint)}, but
+	 * the meshes are stored in the given {@link GeometryPool} instead of having
+	 * their own buffers.
+	 */
+	public List<Mesh> toMeshes(ResourceManager resourceManager, Material defaultMaterial, GeometryPool pool) throws IOException {
+		return toMeshes(resourceManager, defaultMaterial, null, pool);
+	}
+
+	/**
+	 * Same as {@link #toMeshes(ResourceManager, Material, BufferUsageHint)}, but
+	 * the materials created from the MTL files aren't added to the
+	 * {@link ResourceManager}, and their textures are got by path from the given
+	 * function, see
+	 * {@link #createMaterials(ResourceManager, Collection, Map, Material, Function)}.
+	 */
+	List<Mesh> toMeshes(ResourceManager resourceManager, Material defaultMaterial, BufferUsageHint usageHint, Function<String, Texture2D> textures) {
+		Map<String, Material> created = createMaterials(resourceManager, getMaterialNames(), materials, defaultMaterial, textures);
 		List<Mesh> meshList = new ArrayList<>();
 
 		for (int i = 0; i < getMeshCount(); i++) {
 			RawMesh rawMesh = getRawMesh(i);
-			Material material = resourceManager.getMaterial(rawMesh.getMaterialName());
-
-			if (material == null) {
-				System.out.println(
-						"Failed to find material '" + rawMesh.getMaterialName() + "' for model mesh '" + rawMesh.getName() + "' Using default...");
-				material = defaultMaterial;
-			}
+			Material material = created.get(rawMesh.getMaterialName());
+			if (material == null)
+				material = findMaterial(resourceManager, rawMesh.getMaterialName(), rawMesh.getName(), defaultMaterial);
 
 			meshList.add(rawMesh.toMesh(material, usageHint));
 		}
@@ -43,6 +93,170 @@ public final class RawModel {
 		return meshList;
 	}
 
+	private List<Mesh> toMeshes(ResourceManager resourceManager, Material defaultMaterial, BufferUsageHint usageHint, GeometryPool pool)
+			throws IOException {
+		List<Mesh> meshList = new ArrayList<>();
+
+		resolveMaterials(resourceManager, getMaterialNames(), materials, defaultMaterial);
+
+		for (int i = 0; i < getMeshCount(); i++) {
+			RawMesh rawMesh = getRawMesh(i);
+			Material material = findMaterial(resourceManager, rawMesh.getMaterialName(), rawMesh.getName(), defaultMaterial);
+
+			meshList.add(pool == null ? rawMesh.toMesh(material, usageHint) : rawMesh.toMesh(material, pool));
+		}
+
+		return meshList;
+	}
+
+	private List<String> getMaterialNames() {
+		List<String> materialNames = new ArrayList<>();
+		for (int i = 0; i < getMeshCount(); i++)
+			materialNames.add(getRawMesh(i).getMaterialName());
+		return materialNames;
+	}
+
+	/**
+	 * Add a material to the {@link ResourceManager} for each of the material
+	 * names that isn't already there but has a {@link MaterialDescriptor}. The
+	 * materials are copies of the default material with the textures and
+	 * shininess of the descriptor. The textures of all the materials are loaded
+	 * in one {@link ResourceManager#loadTextures(Map)} call, named by their path,
+	 * so they are decoded in parallel and shared with any other model using the
+	 * same files. Textures that are already loaded aren't waited for, see
+	 * {@link #getTexturePaths()}.
+	 */
+	static void resolveMaterials(ResourceManager resourceManager, Collection<String> materialNames, Map<String, MaterialDescriptor> descriptors,
+			Material defaultMaterial) throws IOException {
+		Map<String, String> texturePaths = new LinkedHashMap<>();
+		List<MaterialDescriptor> missing = findMissingMaterials(resourceManager, materialNames, descriptors, defaultMaterial, texturePaths);
+
+		resourceManager.loadTextures(texturePaths);
+
+		for (MaterialDescriptor descriptor : missing) {
+			resourceManager.addMaterial(descriptor.getName(),
+					createMaterial(descriptor, (StandardMaterial) defaultMaterial, texturePaths, resourceManager::getTexture));
+		}
+	}
+
+	/**
+	 * Returns a material for each of the material names that isn't in the
+	 * {@link ResourceManager} but has a {@link MaterialDescriptor}, by name, set
+	 * up the same way as
+	 * {@link #resolveMaterials(ResourceManager, Collection, Map, Material)}. The
+	 * materials aren't added to the resource manager, and their textures are got
+	 * by path from the given function, so the caller owns both.
+	 */
+	static Map<String, Material> createMaterials(ResourceManager resourceManager, Collection<String> materialNames,
+			Map<String, MaterialDescriptor> descriptors, Material defaultMaterial, Function<String, Texture2D> textures) {
+		Map<String, String> texturePaths = new LinkedHashMap<>();
+		Map<String, Material> created = new LinkedHashMap<>();
+
+		for (MaterialDescriptor descriptor : findMissingMaterials(resourceManager, materialNames, descriptors, defaultMaterial, texturePaths))
+			created.put(descriptor.getName(), createMaterial(descriptor, (StandardMaterial) defaultMaterial, texturePaths, textures));
+
+		return created;
+	}
+
+	// Returns the descriptors of the materials that aren't in the resource
+	// manager, adding the textures they use to texturePaths. Returns none if
+	// materials can't be created from the default material.
+	private static List<MaterialDescriptor> findMissingMaterials(ResourceManager resourceManager, Collection<String> materialNames,
+			Map<String, MaterialDescriptor> descriptors, Material defaultMaterial, Map<String, String> texturePaths) {
+		List<MaterialDescriptor> missing = new ArrayList<>();
+
+		for (String name : new LinkedHashSet<>(materialNames)) {
+			MaterialDescriptor descriptor = descriptors.get(name);
+			if (descriptor == null || resourceManager.getMaterial(name) != null)
+				continue;
+
+			missing.add(descriptor);
+		}
+
+		if (!missing.isEmpty() && !(defaultMaterial instanceof StandardMaterial)) {
+			System.out.println("Can't create materials from MTL files, the default material isn't a StandardMaterial. Using default...");
+			return Collections.emptyList();
+		}
+
+		for (MaterialDescriptor descriptor : missing) {
+			addTexturePath(texturePaths, descriptor.getDiffuseTexturePath());
+			addTexturePath(texturePaths, descriptor.getSpecularTexturePath());
+		}
+
+		return missing;
+	}
+
+	// Returns a copy of the default material with the textures and shininess of
+	// the descriptor. Only textures in texturePaths are set, as the others failed
+	// to be found.
+	private static StandardMaterial createMaterial(MaterialDescriptor descriptor, StandardMaterial defaultMaterial, Map<String, String> texturePaths,
+			Function<String, Texture2D> textures) {
+		StandardMaterial material = defaultMaterial.copy();
+
+		if (texturePaths.containsKey(descriptor.getDiffuseTexturePath()))
+			material.setDiffuseTexture(textures.apply(descriptor.getDiffuseTexturePath()));
+
+		if (texturePaths.containsKey(descriptor.getSpecularTexturePath()))
+			material.setSpecularTexture(textures.apply(descriptor.getSpecularTexturePath()));
+
+		if (!Float.isNaN(descriptor.getShininess()))
+			material.setShininess(descriptor.getShininess());
+
+		return material;
+	}
+
+	/**
+	 * Returns the paths of the textures used by each material of the model's
+	 * meshes that is defined by its MTL files, by material name. Used to start
+	 * loading the textures before {@link #toMeshes(ResourceManager, Material, BufferUsageHint)}
+	 * is called, so it doesn't have to wait for them.
+	 */
+	public Map<String, Map<String, String>> getTexturePaths() {
+		return findTexturePaths(getMaterialNames(), materials);
+	}
+
+	// Returns the textures of each described material, named by their path.
+	static Map<String, Map<String, String>> findTexturePaths(Collection<String> materialNames, Map<String, MaterialDescriptor> descriptors) {
+		Map<String, Map<String, String>> texturePaths = new LinkedHashMap<>();
+
+		for (String name : new LinkedHashSet<>(materialNames)) {
+			MaterialDescriptor descriptor = descriptors.get(name);
+			if (descriptor == null)
+				continue;
+
+			Map<String, String> materialTexturePaths = new LinkedHashMap<>();
+			addTexturePath(materialTexturePaths, descriptor.getDiffuseTexturePath());
+			addTexturePath(materialTexturePaths, descriptor.getSpecularTexturePath());
+			texturePaths.put(name, materialTexturePaths);
+		}
+
+		return texturePaths;
+	}
+
+	private static void addTexturePath(Map<String, String> texturePaths, String path) {
+		if (path == null)
+			return;
+
+		if (!Files.isRegularFile(Paths.get(path))) {
+			System.out.println("Failed to find texture '" + path + "' Skipping...");
+			return;
+		}
+
+		texturePaths.put(path, path);
+	}
+
+	// Returns the named material, or the default material if it isn't loaded.
+	static Material findMaterial(ResourceManager resourceManager, String materialName, String meshName, Material defaultMaterial) {
+		Material material = resourceManager.getMaterial(materialName);
+
+		if (material == null) {
+			System.out.println("Failed to find material '" + materialName + "' for model mesh '" + meshName + "' Using default...");
+			material = defaultMaterial;
+		}
+
+		return material;
+	}
+
 	public Collection<RawMesh> getRawMeshes() {
 		return meshes.values();
 	}
@@ -59,4 +273,18 @@ public final class RawModel {
 		return meshes.size();
 	}
 
+	/**
+	 * Returns the paths of the MTL files referenced by the model.
+	 */
+	public List<String> getMaterialLibraries() {
+		return materialLibraries;
+	}
+
+	/**
+	 * Returns the materials defined by the model's MTL files, by name.
+	 */
+	public Map<String, MaterialDescriptor> getMaterials() {
+		return materials;
+	}
+
 }
@@ -0,0 +1,125 @@
+package au.edu.federation.itech3104.michaelwilson.model.loader;
+
+import java.util.Arrays;
+
+/**
+ * An open addressing hash map from a (position, texture, normal) index triple
+ * to a vertex index, used to find face vertices that can be shared. Keys are
+ * stored in a flat int array and probed linearly, so no objects are created
+ * per entry.
+ */
+final class VertexIndexMap {
+	private static final int EMPTY = -1;
+
+	private int[] keys; // position, texture, normal for each slot.
+	private int[] values; // vertex index, or EMPTY.
+	private int mask;
+	private int size;
+
+	private final int minCapacity; // in slots, the table is never shrunk below this.
+
+	VertexIndexMap() {
+		this(1024);
+	}
+
+	/**
+	 * @param capacity the expected number of entries.
+	 */
+	VertexIndexMap(int capacity) {
+		minCapacity = slotsFor(capacity);
+		allocate(minCapacity);
+	}
+
+	/**
+	 * Returns the vertex index stored for the given triple. If there isn't one,
+	 * vertex is stored and -1 is returned.
+	 */
+	int putIfAbsent(int position, int texture, int normal, int vertex) {
+		int slot = hash(position, texture, normal) & mask;
+
+		while (values[slot] != EMPTY) {
+			int key = slot * 3;
+			if (keys[key] == position && keys[key + 1] == texture && keys[key + 2] == normal)
+				return values[slot];
+
+			slot = (slot + 1) & mask;
+		}
+
+		insert(slot, position, texture, normal, vertex);
+
+		if (size * 2 > values.length) // Keep the load factor at or below 0.5.
+			rehash(values.length * 2);
+
+		return -1;
+	}
+
+	int size() {
+		return size;
+	}
+
+	/**
+	 * Removes all entries. The allocated capacity is kept, unless it is much
+	 * larger than the number of entries removed, so one large object doesn't make
+	 * clearing the map slow for every smaller object after it. The table is then
+	 * reallocated to fit the number of entries removed.
+	 */
+	void clear() {
+		int capacity = Math.max(minCapacity, slotsFor(size));
+		if (values.length > capacity * 4) {
+			allocate(capacity);
+			return;
+		}
+
+		Arrays.fill(values, EMPTY);
+		size = 0;
+	}
+
+	private void insert(int slot, int position, int texture, int normal, int vertex) {
+		int key = slot * 3;
+		keys[key] = position;
+		keys[key + 1] = texture;
+		keys[key + 2] = normal;
+		values[slot] = vertex;
+		size++;
+	}
+
+	private void rehash(int capacity) {
+		int[] oldKeys = keys;
+		int[] oldValues = values;
+
+		allocate(capacity);
+
+		for (int i = 0; i < oldValues.length; i++) {
+			if (oldValues[i] == EMPTY)
+				continue;
+
+			int position = oldKeys[i * 3], texture = oldKeys[i * 3 + 1], normal = oldKeys[i * 3 + 2];
+
+			int slot = hash(position, texture, normal) & mask;
+			while (values[slot] != EMPTY)
+				slot = (slot + 1) & mask;
+
+			insert(slot, position, texture, normal, oldValues[i]);
+		}
+	}
+
+	private void allocate(int capacity) {
+		keys = new int[capacity * 3];
+		values = new int[capacity];
+		Arrays.fill(values, EMPTY);
+		mask = capacity - 1;
+		size = 0;
+	}
+
+	// Returns the power of two number of slots for the given number of entries,
+	// with a load factor of at most 0.5.
+	private static int slotsFor(int entries) {
+		return Math.max(16, Integer.highestOneBit(Math.max(entries, 1) * 2 - 1) * 2);
+	}
+
+	private static int hash(int position, int texture, int normal) {
+		int h = position * 0x9E3779B1 + texture * 0x85EBCA77 + normal * 0xC2B2AE3D;
+		return h ^ (h >>> 16);
+	}
+
+}